@@ -0,0 +1,38 @@
+#!/usr/bin/env bash
+# Нагрузочный тест сервиса отрисовки (запуск сервиса: ./gradlew run --args="serve 8080").
+#
+# Использование: scripts/load-test.sh [точка входа] [запросов] [параллельность] [адрес]
+#   scripts/load-test.sh /render.png 2000 32
+#
+# Каждый запрос получает свой seed, поэтому сервис генерирует разные сцены.
+# Выводит пропускную способность, коды ответов и перцентили времени ответа.
+set -euo pipefail
+
+ENDPOINT="${1:-/render.png}"
+REQUESTS="${2:-1000}"
+CONCURRENCY="${3:-16}"
+BASE_URL="${4:-http://localhost:8080}"
+QUERY="${QUERY:-shapeCount=200&width=800&height=600}"
+
+RESULTS="$(mktemp)"
+trap 'rm -f "$RESULTS"' EXIT
+
+echo "Load test: ${BASE_URL}${ENDPOINT}?${QUERY}, ${REQUESTS} requests, concurrency ${CONCURRENCY}"
+
+START=$(date +%s.%N)
+seq 1 "$REQUESTS" | xargs -P "$CONCURRENCY" -I{} \
+    curl -s -o /dev/null -w "%{http_code} %{time_total}\n" "${BASE_URL}${ENDPOINT}?${QUERY}&seed={}" \
+    >> "$RESULTS"
+END=$(date +%s.%N)
+
+# Сортировка по времени ответа: перцентили берутся по номеру строки
+sort -k2 -g "$RESULTS" | awk -v start="$START" -v end="$END" '
+    function at(q,    i) { i = int(NR * q) + 1; return 1000 * times[i > NR ? NR : i] }
+    { codes[$1]++; times[NR] = $2 }
+    END {
+        elapsed = end - start
+        printf "Completed %d requests in %.2f s: %.1f req/s\n", NR, elapsed, NR / elapsed
+        for (code in codes) printf "  HTTP %s: %d\n", code, codes[code]
+        printf "Latency p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms\n",
+            at(0.50), at(0.90), at(0.99), 1000 * times[NR]
+    }'
@@ -1,6 +1,17 @@
 package com.drawing;
 
+import com.drawing.batch.BatchJob;
+import com.drawing.batch.BatchRunner;
+import com.drawing.batch.ParameterFile;
+import com.drawing.generator.GenerationScheduler;
 import com.drawing.gui.DrawingGUI;
+import com.drawing.io.SceneArchive;
+import com.drawing.server.RenderServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -17,7 +28,94 @@ public class Main {
         System.setProperty("sun.stderr.encoding", "UTF-8");
         System.setProperty("sun.jnu.encoding", "UTF-8");
 
+        // Команды обслуживания выполняются без запуска интерфейса
+        if (args.length > 0 && "compact-archive".equals(args[0])) {
+            System.exit(compactArchive(args));
+        }
+        if (args.length > 0 && "batch".equals(args[0])) {
+            System.exit(batch(args));
+        }
+        if (args.length > 0 && "serve".equals(args[0])) {
+            serve(args);
+            return;
+        }
+
         // Запускаем приложение
         DrawingGUI.main(args);
     }
+
+    /**
+     * Запускает HTTP-сервис отрисовки без интерфейса: serve [порт [адрес]].
+     * По умолчанию сервис слушает только localhost:8080.
+     *
+     * @param args аргументы командной строки
+     */
+    private static void serve(String[] args) {
+        try {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            String host = args.length > 2 ? args[2] : "localhost";
+            RenderServer server = new RenderServer(new InetSocketAddress(host, port));
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close, "render-server-shutdown"));
+            server.start();
+            System.out.printf("Сервис отрисовки запущен: http://%s:%d/%n", host, server.getPort());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Не удалось запустить сервис: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Пакетная генерация: batch &lt;файл параметров&gt; &lt;каталог | архив.dsar&gt; [потоков].
+     * Контрольная точка хранится рядом с результатом в файле с суффиксом .checkpoint.
+     *
+     * @param args аргументы командной строки
+     * @return код завершения
+     */
+    private static int batch(String[] args) {
+        if (args.length < 3 || args.length > 4) {
+            System.err.println("Использование: batch <файл параметров .csv|.jsonl> <каталог | архив.dsar> [потоков]");
+            return 2;
+        }
+        try {
+            List<BatchJob> jobs = ParameterFile.read(Paths.get(args[1]));
+            Path output = Paths.get(args[2]);
+            int parallelism = args.length > 3 ? Integer.parseInt(args[3])
+                    : Runtime.getRuntime().availableProcessors();
+            BatchRunner.Result result;
+            // Отдельный процесс пакетной генерации: пакетной полосе отдается запрошенное число потоков
+            try (GenerationScheduler scheduler = new GenerationScheduler(1, parallelism, 256, 500)) {
+                result = new BatchRunner(output, Paths.get(args[2] + ".checkpoint"), parallelism, scheduler)
+                        .run(jobs);
+            }
+            System.out.printf("Сгенерировано сцен: %d (пропущено выполненных ранее: %d, ошибок: %d)%n",
+                    result.getCompleted(), result.getSkipped(), result.getFailed());
+            System.out.printf("Время: %.2f с, %.1f сцен/с, %.0f фигур/с%n", result.getElapsedNanos() / 1e9,
+                    result.getScenesPerSecond(), result.getShapesPerSecond());
+            return result.getFailed() == 0 ? 0 : 1;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Пакетная генерация не выполнена: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Сжимает архив сцен: compact-archive &lt;файл архива&gt;.
+     *
+     * @param args аргументы командной строки
+     * @return код завершения
+     */
+    private static int compactArchive(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Использование: compact-archive <файл архива>");
+            return 2;
+        }
+        try {
+            long freed = SceneArchive.compact(Paths.get(args[1]));
+            System.out.printf("Архив %s сжат, освобождено %d байт%n", args[1], freed);
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Не удалось сжать архив: " + e.getMessage());
+            return 1;
+        }
+    }
 }
\ No newline at end of file
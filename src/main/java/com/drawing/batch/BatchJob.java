@@ -0,0 +1,53 @@
+package com.drawing.batch;
+
+import com.drawing.generator.DrawingGenerator.GenerationParameters;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Задание пакетной генерации: одна сцена с заданными параметрами и seed.
+ */
+public final class BatchJob {
+
+    private final long id;
+    private final long seed;
+    private final GenerationParameters parameters;
+    private final List<String> shapeTypes;
+
+    /**
+     * Конструктор задания.
+     *
+     * @param id идентификатор сцены; уникален в пределах файла параметров
+     * @param seed начальное значение генератора
+     * @param parameters параметры генерации
+     * @param shapeTypes список типов фигур
+     */
+    public BatchJob(long id, long seed, GenerationParameters parameters, List<String> shapeTypes) {
+        this.id = id;
+        this.seed = seed;
+        this.parameters = parameters;
+        this.shapeTypes = Collections.unmodifiableList(shapeTypes);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public GenerationParameters getParameters() {
+        return parameters;
+    }
+
+    public List<String> getShapeTypes() {
+        return shapeTypes;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchJob{id=" + id + ", seed=" + seed + ", parameters=" + parameters
+                + ", shapeTypes=" + shapeTypes + "}";
+    }
+}
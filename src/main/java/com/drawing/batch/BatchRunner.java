@@ -0,0 +1,357 @@
+package com.drawing.batch;
+
+import com.drawing.generator.GenerationScheduler;
+import com.drawing.generator.ParameterValidator;
+import com.drawing.io.QuantizedScene;
+import com.drawing.io.SceneArchive;
+import com.drawing.model.Shape;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пакетная генерация сцен по списку заданий.
+ * <p>
+ * Задания, разделяющие генерацию (см. {@link ParameterSweep}), объединяются в группы,
+ * и каждая группа генерируется за один проход. Группы выполняются в пакетной полосе
+ * {@link GenerationScheduler}: у интерактивной генерации того же процесса свои потоки,
+ * и пакетный запуск не может их занять. Одновременно в полосе находится не больше
+ * заданного числа групп; освободившийся поток берет следующую, поэтому сцены разного
+ * размера распределяются равномерно. Результат
+ * сохраняется либо в архив сцен (путь с расширением {@code .dsar}, см. {@link SceneArchive}),
+ * либо в каталог - по файлу {@code scene-<id>.qscene} на сцену.
+ * <p>
+ * Идентификаторы выполненных заданий дописываются в файл контрольной точки после того,
+ * как сцена сохранена. При повторном запуске задания из контрольной точки (и сцены,
+ * уже имеющиеся в архиве) пропускаются, поэтому прерванный запуск продолжается с места
+ * остановки. Задания с ошибками в контрольную точку не попадают и повторяются.
+ */
+public class BatchRunner {
+
+    private static final Logger logger = LogManager.getLogger(BatchRunner.class);
+
+    private static final String ARCHIVE_EXTENSION = ".dsar";
+
+    /** Пауза перед повторной постановкой группы, если очередь пакетной полосы заполнена */
+    private static final long QUEUE_FULL_BACKOFF_MILLIS = 10;
+
+    private final Path output;
+    private final Path checkpoint;
+    private final int parallelism;
+    private final GenerationScheduler scheduler;
+
+    /**
+     * Конструктор пакетной генерации в общем планировщике процесса ({@link GenerationScheduler#shared()}).
+     *
+     * @param output архив сцен ({@code .dsar}) или каталог для файлов сцен
+     * @param checkpoint файл контрольной точки
+     * @param parallelism наибольшее количество одновременно выполняемых групп
+     * @throws IllegalArgumentException если количество не положительно
+     */
+    public BatchRunner(Path output, Path checkpoint, int parallelism) {
+        this(output, checkpoint, parallelism, GenerationScheduler.shared());
+    }
+
+    /**
+     * Конструктор пакетной генерации в пакетной полосе указанного планировщика.
+     * Фактический параллелизм не больше числа потоков пакетной полосы.
+     *
+     * @param output архив сцен ({@code .dsar}) или каталог для файлов сцен
+     * @param checkpoint файл контрольной точки
+     * @param parallelism наибольшее количество одновременно выполняемых групп
+     * @param scheduler планировщик генерации
+     * @throws IllegalArgumentException если количество не положительно
+     */
+    public BatchRunner(Path output, Path checkpoint, int parallelism, GenerationScheduler scheduler) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.output = output;
+        this.checkpoint = checkpoint;
+        this.parallelism = parallelism;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Выполняет задания, еще не отмеченные в контрольной точке.
+     *
+     * @param jobs задания
+     * @return итоги запуска
+     * @throws IOException если не удалось открыть результат или записать контрольную точку
+     */
+    public Result run(List<BatchJob> jobs) throws IOException {
+        long startTime = System.nanoTime();
+        Set<Long> done = readCheckpoint();
+        boolean toArchive = output.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(ARCHIVE_EXTENSION);
+        SceneArchive archive = null;
+        if (toArchive) {
+            archive = SceneArchive.open(output);
+            for (long id : archive.getIds()) {
+                done.add(id);
+            }
+        } else {
+            Files.createDirectories(output);
+        }
+
+        Counters counters = new Counters();
+        List<BatchJob> pending = new ArrayList<>();
+        int skipped = 0;
+        for (BatchJob job : jobs) {
+            if (done.contains(job.getId())) {
+                skipped++;
+                continue;
+            }
+            // Некорректное задание не должно сорвать генерацию своей группы
+            try {
+                ParameterValidator.validate(job.getParameters());
+                pending.add(job);
+            } catch (IllegalArgumentException e) {
+                counters.failed.incrementAndGet();
+                logger.error("Batch job {} has invalid parameters: {}", job.getId(), e.getMessage());
+            }
+        }
+        List<List<BatchJob>> groups = ParameterSweep.groups(pending);
+        logger.info("Batch of {} jobs: {} already done, {} to run in {} generation groups, {} at a time",
+                jobs.size(), skipped, pending.size(), groups.size(), parallelism);
+
+        Semaphore inFlight = new Semaphore(parallelism);
+        AtomicBoolean stopped = new AtomicBoolean();
+        List<CompletableFuture<?>> tasks = new ArrayList<>(groups.size());
+        try (BufferedWriter checkpointWriter = Files.newBufferedWriter(checkpoint, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            SceneArchive target = archive;
+            try {
+                for (List<BatchJob> group : groups) {
+                    acquire(inFlight);
+                    CompletableFuture<?> task = submitGroup(group, () -> {
+                        // После остановки запуска группы, ждущие в очереди, не выполняются
+                        if (!stopped.get()) {
+                            runGroup(group, target, checkpointWriter, counters);
+                        }
+                    });
+                    task.whenComplete((ignored, error) -> inFlight.release());
+                    tasks.add(task);
+                }
+                for (CompletableFuture<?> task : tasks) {
+                    task.join();
+                }
+            } finally {
+                // Архив и контрольная точка закрываются только после завершения всех принятых групп
+                stopped.set(true);
+                for (CompletableFuture<?> task : tasks) {
+                    task.handle((ignored, error) -> null).join();
+                }
+            }
+        } finally {
+            if (archive != null) {
+                archive.close();
+            }
+        }
+
+        Result result = new Result(counters.completed.get(), skipped, counters.failed.get(),
+                counters.shapes.get(), System.nanoTime() - startTime);
+        logger.info("Batch finished: {}", result);
+        return result;
+    }
+
+    /**
+     * Ставит группу в пакетную полосу; если очередь полосы заполнена другими заданиями, ждет и повторяет.
+     */
+    private CompletableFuture<?> submitGroup(List<BatchJob> group, Runnable body) throws IOException {
+        long cost = 0;
+        for (BatchJob job : group) {
+            cost += GenerationScheduler.estimateCost(job.getParameters(), job.getShapeTypes());
+        }
+        while (true) {
+            try {
+                return scheduler.submitTask(GenerationScheduler.Lane.BULK, cost, () -> {
+                    body.run();
+                    return null;
+                });
+            } catch (RejectedExecutionException e) {
+                if (scheduler.isClosed()) {
+                    throw new IOException("Generation scheduler is closed", e);
+                }
+                sleep(QUEUE_FULL_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Генерирует группу и сохраняет каждую сцену сразу после построения: выполненные задания
+     * попадают в контрольную точку, не дожидаясь конца группы, и сцены не накапливаются в памяти.
+     */
+    private void runGroup(List<BatchJob> group, SceneArchive archive, BufferedWriter checkpointWriter,
+                          Counters counters) {
+        int[] handled = new int[1];
+        try {
+            ParameterSweep.generate(group, (job, shapes) -> {
+                storeJob(job, shapes, archive, checkpointWriter, counters);
+                handled[0]++;
+            });
+        } catch (RuntimeException e) {
+            counters.failed.addAndGet(group.size() - handled[0]);
+            logger.error("Batch generation group of {} jobs failed after {} jobs: {}", group.size(), handled[0],
+                    e.getMessage(), e);
+        }
+    }
+
+    private void storeJob(BatchJob job, List<Shape> shapes, SceneArchive archive, BufferedWriter checkpointWriter,
+                          Counters counters) {
+        try {
+            double step = QuantizedScene.defaultStep(job.getParameters());
+            if (archive != null) {
+                archive.append(job.getId(), job.getSeed(), job.getParameters(), shapes, step);
+            } else {
+                // Запись во временный файл и переименование: прерванный запуск не оставит обрезанных сцен
+                Path file = output.resolve("scene-" + job.getId() + ".qscene");
+                Path temporary = output.resolve("scene-" + job.getId() + ".qscene.tmp");
+                QuantizedScene.write(temporary, job.getParameters(), shapes, step);
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            synchronized (checkpointWriter) {
+                checkpointWriter.write(Long.toString(job.getId()));
+                checkpointWriter.newLine();
+                checkpointWriter.flush();
+            }
+            counters.completed.incrementAndGet();
+            counters.shapes.addAndGet(shapes.size());
+        } catch (IOException | RuntimeException e) {
+            counters.failed.incrementAndGet();
+            logger.error("Batch job {} failed: {}", job.getId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Читает идентификаторы выполненных заданий. Последняя строка могла быть
+     * дописана не полностью, если процесс был остановлен; такие строки пропускаются.
+     */
+    private Set<Long> readCheckpoint() throws IOException {
+        Set<Long> done = new HashSet<>();
+        if (!Files.exists(checkpoint)) {
+            return done;
+        }
+        for (String line : Files.readAllLines(checkpoint, StandardCharsets.UTF_8)) {
+            try {
+                done.add(Long.parseLong(line.trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Skipping malformed checkpoint line: {}", line);
+            }
+        }
+        return done;
+    }
+
+    private static void acquire(Semaphore semaphore) throws InterruptedIOException {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for batch threads");
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for batch threads");
+        }
+    }
+
+    /**
+     * Счетчики, обновляемые потоками генерации.
+     */
+    private static final class Counters {
+
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong shapes = new AtomicLong();
+    }
+
+    /**
+     * Итоги пакетного запуска.
+     */
+    public static final class Result {
+
+        private final long completed;
+        private final long skipped;
+        private final long failed;
+        private final long shapes;
+        private final long elapsedNanos;
+
+        Result(long completed, long skipped, long failed, long shapes, long elapsedNanos) {
+            this.completed = completed;
+            this.skipped = skipped;
+            this.failed = failed;
+            this.shapes = shapes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Возвращает количество сцен, сгенерированных в этом запуске.
+         */
+        public long getCompleted() {
+            return completed;
+        }
+
+        /**
+         * Возвращает количество заданий, выполненных в предыдущих запусках.
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Возвращает количество заданий, завершившихся ошибкой.
+         */
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * Возвращает количество фигур в сгенерированных сценах.
+         */
+        public long getShapes() {
+            return shapes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getScenesPerSecond() {
+            return completed * 1e9 / Math.max(1, elapsedNanos);
+        }
+
+        public double getShapesPerSecond() {
+            return shapes * 1e9 / Math.max(1, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%d scenes, %d skipped, %d failed, %d shapes in %.2f s (%.1f scenes/s, %.0f shapes/s)",
+                    completed, skipped, failed, shapes, elapsedNanos / 1e9, getScenesPerSecond(),
+                    getShapesPerSecond());
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.drawing.batch;
+
+import com.drawing.generator.DrawingGenerator.GenerationParameters;
+import com.drawing.generator.ShapeFactory;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Чтение файла параметров пакетной генерации в форматах CSV и JSON Lines.
+ * <p>
+ * CSV (расширение {@code .csv}) начинается со строки заголовка с именами столбцов,
+ * значения разделяются запятыми, типы фигур в столбце {@code types} - точкой с запятой.
+ * JSON Lines (любое другое расширение) содержит по одному объекту на строку;
+ * типы задаются массивом строк или строкой через запятую. Пустые строки и строки,
+ * начинающиеся с '#', пропускаются.
+ * <p>
+ * Поля: {@code id, seed, shapeCount, minX, maxX, minY, maxY, density, gridSize, types}.
+ * Отсутствующие поля принимают значения по умолчанию, как в интерфейсе приложения;
+ * идентификатор по умолчанию - порядковый номер задания, seed по умолчанию равен
+ * идентификатору, чтобы повторный запуск давал те же сцены.
+ */
+public final class ParameterFile {
+
+    private static final String[] FIELDS = {
+            "id", "seed", "shapeCount", "minX", "maxX", "minY", "maxY", "density", "gridSize", "types"
+    };
+
+    /**
+     * Приватный конструктор для предотвращения создания экземпляров.
+     */
+    private ParameterFile() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Читает задания из файла параметров.
+     *
+     * @param file путь к файлу
+     * @return задания в порядке следования в файле
+     * @throws IOException если файл не читается
+     * @throws IllegalArgumentException если строка файла некорректна (в сообщении указан номер строки)
+     *                                  или идентификаторы заданий повторяются
+     */
+    public static List<BatchJob> read(Path file) throws IOException {
+        boolean csv = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+        List<BatchJob> jobs = new ArrayList<>();
+        Set<Long> ids = new HashSet<>();
+        String[] header = null;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    Map<String, String> values;
+                    if (!csv) {
+                        values = new JsonLineParser(trimmed).parseObject();
+                    } else if (header == null) {
+                        header = parseHeader(trimmed);
+                        continue;
+                    } else {
+                        values = parseCsvLine(header, trimmed);
+                    }
+                    BatchJob job = toJob(values, jobs.size() + 1);
+                    if (!ids.add(job.getId())) {
+                        throw new IllegalArgumentException("Duplicate job id " + job.getId());
+                    }
+                    jobs.add(job);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return jobs;
+    }
+
+    private static String[] parseHeader(String line) {
+        String[] columns = line.split(",", -1);
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = columns[i].trim();
+            if (!List.of(FIELDS).contains(columns[i])) {
+                throw new IllegalArgumentException("Unknown column: " + columns[i]);
+            }
+        }
+        return columns;
+    }
+
+    private static Map<String, String> parseCsvLine(String[] header, String line) {
+        String[] cells = line.split(",", -1);
+        if (cells.length != header.length) {
+            throw new IllegalArgumentException("Expected " + header.length + " columns, found " + cells.length);
+        }
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < cells.length; i++) {
+            String cell = cells[i].trim();
+            if (!cell.isEmpty()) {
+                values.put(header[i], header[i].equals("types") ? cell.replace(';', ',') : cell);
+            }
+        }
+        return values;
+    }
+
+    private static BatchJob toJob(Map<String, String> values, long ordinal) {
+        for (String name : values.keySet()) {
+            if (!List.of(FIELDS).contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+        }
+        long id = longValue(values, "id", ordinal);
+        long seed = longValue(values, "seed", id);
+        GenerationParameters parameters = new GenerationParameters(
+                (int) longValue(values, "shapeCount", 20),
+                doubleValue(values, "minX", -100),
+                doubleValue(values, "maxX", 100),
+                doubleValue(values, "minY", -100),
+                doubleValue(values, "maxY", 100),
+                doubleValue(values, "density", 0.5),
+                (int) longValue(values, "gridSize", 10));
+        return new BatchJob(id, seed, parameters, shapeTypes(values.get("types")));
+    }
+
+    private static List<String> shapeTypes(String types) {
+        List<String> shapeTypes = new ArrayList<>();
+        if (types == null || types.isBlank()) {
+            for (ShapeFactory.ShapeType type : ShapeFactory.ShapeType.values()) {
+                shapeTypes.add(type.name());
+            }
+            return shapeTypes;
+        }
+        for (String type : types.split(",")) {
+            String name = type.trim().toUpperCase(Locale.ROOT);
+            try {
+                shapeTypes.add(ShapeFactory.ShapeType.valueOf(name).name());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown shape type: " + type.trim());
+            }
+        }
+        return shapeTypes;
+    }
+
+    private static long longValue(Map<String, String> values, String name, long defaultValue) {
+        String value = values.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Field " + name + " must be an integer: " + value);
+        }
+    }
+
+    private static double doubleValue(Map<String, String> values, String name, double defaultValue) {
+        String value = values.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Field " + name + " must be a number: " + value);
+        }
+    }
+
+    /**
+     * Разбор плоского объекта JSON: значения - числа, строки, логические значения,
+     * null (поле отсутствует) или массивы таких значений (объединяются через запятую).
+     */
+    private static final class JsonLineParser {
+
+        private final String text;
+        private int position;
+
+        JsonLineParser(String text) {
+            this.text = text;
+        }
+
+        Map<String, String> parseObject() {
+            Map<String, String> values = new HashMap<>();
+            expect('{');
+            if (peek() == '}') {
+                position++;
+            } else {
+                do {
+                    String name = parseString();
+                    expect(':');
+                    String value = parseValue();
+                    if (value != null) {
+                        values.put(name, value);
+                    }
+                } while (tryConsume(','));
+                expect('}');
+            }
+            if (peek() != 0) {
+                throw new IllegalArgumentException("Unexpected text after JSON object");
+            }
+            return values;
+        }
+
+        private String parseValue() {
+            char c = peek();
+            if (c == '"') {
+                return parseString();
+            }
+            if (c == '[') {
+                position++;
+                List<String> items = new ArrayList<>();
+                if (peek() == ']') {
+                    position++;
+                    return "";
+                }
+                do {
+                    String item = parseValue();
+                    if (item != null) {
+                        items.add(item);
+                    }
+                } while (tryConsume(','));
+                expect(']');
+                return String.join(",", items);
+            }
+            int start = position;
+            while (position < text.length() && ",}] \t".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.isEmpty()) {
+                throw new IllegalArgumentException("Expected a value at position " + start);
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        private String parseString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c == '\\' && position < text.length()) {
+                    char escaped = text.charAt(position++);
+                    if (escaped == 'u' && position + 4 <= text.length()) {
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        position += 4;
+                    } else {
+                        value.append(escaped == 'n' ? '\n' : escaped == 't' ? '\t' : escaped);
+                    }
+                } else {
+                    value.append(c);
+                }
+            }
+            throw new IllegalArgumentException("Unterminated string");
+        }
+
+        private char peek() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            return position < text.length() ? text.charAt(position) : 0;
+        }
+
+        private boolean tryConsume(char expected) {
+            if (peek() == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char expected) {
+            if (!tryConsume(expected)) {
+                throw new IllegalArgumentException("Expected '" + expected + "' at position " + position);
+            }
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.drawing.batch;
+
+import com.drawing.generator.DrawingGenerator.GenerationParameters;
+import com.drawing.generator.ParameterValidator;
+import com.drawing.generator.SlotGenerator;
+import com.drawing.model.Shape;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Перебор параметров генерации с общей работой для родственных вариантов.
+ * <p>
+ * Сцены заданий генерируются {@link SlotGenerator}: каждая фигура зависит только от seed,
+ * номера слота, набора типов и эффективной области. Общая работа выделяется для заданий
+ * с одинаковыми seed и границами:
+ * <ul>
+ *     <li>сырые слоты (тип, стиль и случайные числа геометрии, см. {@link SlotGenerator#rawSlot})
+ *     извлекаются один раз;</li>
+ *     <li>варианты с другой кучностью строятся масштабированием тех же сырых слотов в свою область;</li>
+ *     <li>для другого набора типов заново извлекаются только слоты, тип которых изменился
+ *     (см. {@link SlotGenerator#changedSlots});</li>
+ *     <li>размер сетки не влияет на фигуры, а сцена из N фигур совпадает с первыми N фигурами
+ *     сцены из M &gt; N фигур - строится только самая большая сцена, остальные берутся ее префиксами.</li>
+ * </ul>
+ * Результат совпадает с независимой генерацией каждого варианта через
+ * {@link SlotGenerator#generateShapes}. Варианты разделяют экземпляры фигур,
+ * поэтому возвращаемые списки неизменяемы.
+ * <p>
+ * Сцены передаются потребителю по мере построения, и в памяти одновременно находятся только
+ * сырые слоты группы и фигуры одного варианта. Группа, которой нужно построить больше
+ * {@link #MAX_GROUP_SHAPES} фигур, делится по наборам типов, чтобы части выполнялись параллельно.
+ */
+public final class ParameterSweep {
+
+    /** Наибольшее количество фигур, которые строит одна группа до деления по наборам типов */
+    public static final int MAX_GROUP_SHAPES = 100_000;
+
+    /**
+     * Приватный конструктор для предотвращения создания экземпляров.
+     */
+    private ParameterSweep() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Строит задания для всех сочетаний значений. Границы берутся из базовых параметров,
+     * идентификаторы назначаются подряд начиная с 1.
+     *
+     * @param base базовые параметры (границы области)
+     * @param seeds начальные значения
+     * @param shapeCounts количества фигур
+     * @param densities значения кучности
+     * @param gridSizes размеры сетки
+     * @param typeSets наборы типов фигур
+     * @return задания в порядке перебора: seed, типы, кучность, количество, сетка
+     */
+    public static List<BatchJob> grid(GenerationParameters base, long[] seeds, int[] shapeCounts,
+                                      double[] densities, int[] gridSizes, List<List<String>> typeSets) {
+        List<BatchJob> jobs = new ArrayList<>();
+        for (long seed : seeds) {
+            for (List<String> types : typeSets) {
+                for (double density : densities) {
+                    for (int shapeCount : shapeCounts) {
+                        for (int gridSize : gridSizes) {
+                            GenerationParameters parameters = new GenerationParameters(shapeCount,
+                                    base.getMinX(), base.getMaxX(), base.getMinY(), base.getMaxY(),
+                                    density, gridSize);
+                            jobs.add(new BatchJob(jobs.size() + 1, seed, parameters, types));
+                        }
+                    }
+                }
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Разбивает задания на группы с общей генерацией: по seed и границам, а группы,
+     * строящие больше {@link #MAX_GROUP_SHAPES} фигур, - еще и по наборам типов.
+     * Задания разных групп не разделяют работу и могут выполняться параллельно.
+     *
+     * @param jobs задания
+     * @return группы в порядке первого появления
+     */
+    public static List<List<BatchJob>> groups(List<BatchJob> jobs) {
+        Map<SceneKey, List<BatchJob>> groups = new LinkedHashMap<>();
+        for (BatchJob job : jobs) {
+            groups.computeIfAbsent(new SceneKey(job), key -> new ArrayList<>()).add(job);
+        }
+        List<List<BatchJob>> result = new ArrayList<>();
+        for (List<BatchJob> group : groups.values()) {
+            Map<List<String>, List<BatchJob>> byTypes = byTypes(group);
+            if (byTypes.size() > 1 && builtShapes(byTypes) > MAX_GROUP_SHAPES) {
+                result.addAll(byTypes.values());
+            } else {
+                result.add(group);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Генерирует сцены всех заданий, выполняя общую работу один раз.
+     * Все сцены удерживаются в памяти до возврата; для больших переборов
+     * следует использовать {@link #generate(List, BiConsumer)}.
+     *
+     * @param jobs задания
+     * @return неизменяемые списки фигур по идентификатору задания
+     * @throws IllegalArgumentException если параметры какого-либо задания некорректны
+     */
+    public static Map<Long, List<Shape>> generate(List<BatchJob> jobs) {
+        Map<Long, List<Shape>> scenes = new HashMap<>();
+        generate(jobs, (job, shapes) -> scenes.put(job.getId(), shapes));
+        return scenes;
+    }
+
+    /**
+     * Генерирует сцены всех заданий, выполняя общую работу один раз, и передает
+     * каждую сцену потребителю сразу после построения ее варианта. Потребитель
+     * вызывается в вызывающем потоке; исключение потребителя прерывает генерацию.
+     *
+     * @param jobs задания
+     * @param consumer получатель задания и его неизменяемого списка фигур
+     * @throws IllegalArgumentException если параметры какого-либо задания некорректны
+     */
+    public static void generate(List<BatchJob> jobs, BiConsumer<BatchJob, List<Shape>> consumer) {
+        for (BatchJob job : jobs) {
+            try {
+                ParameterValidator.validate(job.getParameters());
+                if (job.getShapeTypes().isEmpty()) {
+                    throw new IllegalArgumentException("No shape types selected for generation");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Job " + job.getId() + ": " + e.getMessage(), e);
+            }
+        }
+
+        for (List<BatchJob> group : groups(jobs)) {
+            generateGroup(group, consumer);
+        }
+    }
+
+    /**
+     * Генерирует задания с общими seed и границами: сырые слоты переносятся между наборами типов,
+     * фигуры строятся один раз для каждого сочетания набора типов и кучности.
+     */
+    private static void generateGroup(List<BatchJob> group, BiConsumer<BatchJob, List<Shape>> consumer) {
+        SlotGenerator generator = new SlotGenerator(group.get(0).getSeed());
+        SlotGenerator.RawSlot[] previous = new SlotGenerator.RawSlot[0];
+        List<String> previousTypes = null;
+        for (Map.Entry<List<String>, List<BatchJob>> entry : byTypes(group).entrySet()) {
+            List<String> types = entry.getKey();
+            SlotGenerator.RawSlot[] raw = new SlotGenerator.RawSlot[maxShapeCount(entry.getValue())];
+            int reused = Math.min(previous.length, raw.length);
+            System.arraycopy(previous, 0, raw, 0, reused);
+            if (previousTypes != null) {
+                for (int slot : generator.changedSlots(reused, previousTypes, types)) {
+                    raw[slot] = generator.retypeSlot(raw[slot], types);
+                }
+            }
+            for (int slot = reused; slot < raw.length; slot++) {
+                raw[slot] = generator.rawSlot(slot, types);
+            }
+
+            for (List<BatchJob> variant : byDensity(entry.getValue()).values()) {
+                GenerationParameters parameters = variant.get(0).getParameters();
+                Shape[] shapes = new Shape[maxShapeCount(variant)];
+                for (int slot = 0; slot < shapes.length; slot++) {
+                    shapes[slot] = generator.buildSlot(raw[slot], parameters);
+                }
+                List<Shape> scene = Collections.unmodifiableList(Arrays.asList(shapes));
+                for (BatchJob job : variant) {
+                    consumer.accept(job, scene.subList(0, job.getParameters().getShapeCount()));
+                }
+            }
+            previous = raw;
+            previousTypes = types;
+        }
+    }
+
+    private static Map<List<String>, List<BatchJob>> byTypes(List<BatchJob> jobs) {
+        Map<List<String>, List<BatchJob>> byTypes = new LinkedHashMap<>();
+        for (BatchJob job : jobs) {
+            byTypes.computeIfAbsent(job.getShapeTypes(), types -> new ArrayList<>()).add(job);
+        }
+        return byTypes;
+    }
+
+    private static Map<Double, List<BatchJob>> byDensity(List<BatchJob> jobs) {
+        Map<Double, List<BatchJob>> byDensity = new LinkedHashMap<>();
+        for (BatchJob job : jobs) {
+            byDensity.computeIfAbsent(job.getParameters().getDensity(), density -> new ArrayList<>()).add(job);
+        }
+        return byDensity;
+    }
+
+    /**
+     * Количество фигур, которые строит группа: по самой большой сцене каждого сочетания типов и кучности.
+     */
+    private static long builtShapes(Map<List<String>, List<BatchJob>> byTypes) {
+        long shapes = 0;
+        for (List<BatchJob> sameTypes : byTypes.values()) {
+            for (List<BatchJob> variant : byDensity(sameTypes).values()) {
+                shapes += maxShapeCount(variant);
+            }
+        }
+        return shapes;
+    }
+
+    private static int maxShapeCount(List<BatchJob> jobs) {
+        int maxCount = 0;
+        for (BatchJob job : jobs) {
+            maxCount = Math.max(maxCount, job.getParameters().getShapeCount());
+        }
+        return maxCount;
+    }
+
+    /**
+     * Seed и границы области: задания с одинаковым ключом разделяют сырые слоты.
+     */
+    private static final class SceneKey {
+
+        private final long seed;
+        private final double minX;
+        private final double maxX;
+        private final double minY;
+        private final double maxY;
+
+        SceneKey(BatchJob job) {
+            GenerationParameters parameters = job.getParameters();
+            this.seed = job.getSeed();
+            this.minX = parameters.getMinX();
+            this.maxX = parameters.getMaxX();
+            this.minY = parameters.getMinY();
+            this.maxY = parameters.getMaxY();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SceneKey)) {
+                return false;
+            }
+            SceneKey other = (SceneKey) o;
+            return seed == other.seed
+                    && Double.compare(minX, other.minX) == 0
+                    && Double.compare(maxX, other.maxX) == 0
+                    && Double.compare(minY, other.minY) == 0
+                    && Double.compare(maxY, other.maxY) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(seed, minX, maxX, minY, maxY);
+        }
+    }
+}
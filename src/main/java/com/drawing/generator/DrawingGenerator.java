@@ -5,27 +5,52 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+import java.util.function.Consumer;
 
 /**
  * Генератор случайных рисунков.
+ * <p>
+ * Генератор не хранит изменяемого состояния и потокобезопасен: каждый вызов генерации
+ * создает собственный генератор случайных чисел семейства LXM (L64X128MixRandom),
+ * поэтому одновременные вызовы не конкурируют за общее начальное значение
+ * и не влияют на результаты друг друга.
  */
 public class DrawingGenerator {
 
     private static final Logger logger = LogManager.getLogger(DrawingGenerator.class);
 
-    private final Random random;
-    private final ShapeFactory shapeFactory;
+    /** Как часто проверять часы при генерации с крайним сроком */
+    protected static final int CLOCK_CHECK_INTERVAL = 16;
+
+    private final boolean seeded;
+    private final long seed;
+    private final ShapeFactory shapeFactory = new ShapeFactory();
 
     /**
-     * Конструктор генератора рисунков.
+     * Конструктор генератора рисунков. Каждый вызов генерации создает новый случайный рисунок.
      */
     public DrawingGenerator() {
-        this.random = new Random();
-        this.shapeFactory = new ShapeFactory();
+        this.seeded = false;
+        this.seed = 0;
         logger.info("Drawing generator initialized");
     }
 
+    /**
+     * Конструктор генератора с заданным начальным значением (seed).
+     * Каждый вызов генерации начинается с этого seed, поэтому генераторы с одинаковым seed
+     * (и повторные вызовы одного генератора) создают одинаковые рисунки при одинаковых параметрах,
+     * в том числе при вызовах из разных потоков.
+     *
+     * @param seed начальное значение генератора случайных чисел
+     */
+    public DrawingGenerator(long seed) {
+        this.seeded = true;
+        this.seed = seed;
+        logger.info("Drawing generator initialized with seed {}", seed);
+    }
+
     /**
      * Генерирует набор случайных фигур по заданным параметрам.
      * Использует все типы фигур.
@@ -44,6 +69,79 @@ public class DrawingGenerator {
      * @throws IllegalArgumentException если параметры некорректны
      */
     public List<Shape> generateShapes(GenerationParameters parameters, List<String> shapeTypes) {
+        List<Shape> shapes = new ArrayList<>();
+        generateShapesInBatches(parameters, shapeTypes, Integer.MAX_VALUE, shapes::addAll);
+        return shapes;
+    }
+
+    /**
+     * Генерирует случайные фигуры и передает их потребителю пакетами по мере создания,
+     * не дожидаясь окончания генерации всего набора.
+     * Потребитель вызывается в потоке генерации; если он блокируется,
+     * генерация приостанавливается до его возврата.
+     *
+     * @param parameters параметры генерации
+     * @param shapeTypes список типов фигур для генерации
+     * @param batchSize максимальный размер пакета
+     * @param batchConsumer получатель пакетов фигур
+     * @return количество успешно созданных фигур
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    public int generateShapesInBatches(GenerationParameters parameters, List<String> shapeTypes,
+                                       int batchSize, Consumer<List<Shape>> batchConsumer) {
+        return generate(parameters, shapeTypes, batchSize, batchConsumer, false, 0);
+    }
+
+    /**
+     * Генерирует фигуры, пока не создано заданное количество или не наступил крайний срок.
+     * Часы проверяются раз в {@value #CLOCK_CHECK_INTERVAL} фигур, поэтому срок может быть
+     * превышен на время создания нескольких фигур. Созданные фигуры совпадают с началом
+     * набора, который генератор создал бы без ограничения времени.
+     *
+     * @param parameters параметры генерации; количество фигур - желаемое
+     * @param shapeTypes список типов фигур для генерации
+     * @param deadlineNanos крайний срок по часам {@link System#nanoTime()}
+     * @return созданные фигуры; их может быть меньше запрошенного количества
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    public List<Shape> generateShapesUntil(GenerationParameters parameters, List<String> shapeTypes,
+                                           long deadlineNanos) {
+        List<Shape> shapes = new ArrayList<>();
+        generateShapesInBatchesUntil(parameters, shapeTypes, Integer.MAX_VALUE, shapes::addAll, deadlineNanos);
+        return shapes;
+    }
+
+    /**
+     * Генерирует фигуры пакетами, пока не создано заданное количество или не наступил
+     * крайний срок (см. {@link #generateShapesUntil}).
+     *
+     * @param parameters параметры генерации; количество фигур - желаемое
+     * @param shapeTypes список типов фигур для генерации
+     * @param batchSize максимальный размер пакета
+     * @param batchConsumer получатель пакетов фигур
+     * @param deadlineNanos крайний срок по часам {@link System#nanoTime()}
+     * @return количество созданных фигур
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    public int generateShapesInBatchesUntil(GenerationParameters parameters, List<String> shapeTypes,
+                                            int batchSize, Consumer<List<Shape>> batchConsumer, long deadlineNanos) {
+        return generate(parameters, shapeTypes, batchSize, batchConsumer, true, deadlineNanos);
+    }
+
+    /**
+     * Общая реализация генерации пакетами с необязательным крайним сроком.
+     *
+     * @param parameters параметры генерации
+     * @param shapeTypes список типов фигур для генерации
+     * @param batchSize максимальный размер пакета
+     * @param batchConsumer получатель пакетов фигур
+     * @param limited true, если генерация ограничена крайним сроком
+     * @param deadlineNanos крайний срок по часам {@link System#nanoTime()}; учитывается при limited
+     * @return количество созданных фигур
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    protected int generate(GenerationParameters parameters, List<String> shapeTypes, int batchSize,
+                           Consumer<List<Shape>> batchConsumer, boolean limited, long deadlineNanos) {
         logger.info("Starting drawing generation with parameters: {}", parameters);
         logger.info("Selected shape types: {}", shapeTypes);
 
@@ -54,36 +152,38 @@ public class DrawingGenerator {
         if (shapeTypes == null || shapeTypes.isEmpty()) {
             throw new IllegalArgumentException("No shape types selected for generation");
         }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
 
-        List<Shape> shapes = new ArrayList<>();
         int shapeCount = parameters.getShapeCount();
-        double minX = parameters.getMinX();
-        double maxX = parameters.getMaxX();
-        double minY = parameters.getMinY();
-        double maxY = parameters.getMaxY();
-        double density = parameters.getDensity();
-
-        // Учет кучности - сужение области для более плотного расположения
-        double centerX = (minX + maxX) / 2;
-        double centerY = (minY + maxY) / 2;
-        double width = (maxX - minX) * density;
-        double height = (maxY - minY) * density;
-
-        double effectiveMinX = centerX - width / 2;
-        double effectiveMaxX = centerX + width / 2;
-        double effectiveMinY = centerY - height / 2;
-        double effectiveMaxY = centerY + height / 2;
+        double[] area = effectiveArea(parameters);
+        double effectiveMinX = area[0];
+        double effectiveMaxX = area[1];
+        double effectiveMinY = area[2];
+        double effectiveMaxY = area[3];
 
         logger.info("Effective generation area: x=[{}, {}], y=[{}, {}]",
                 effectiveMinX, effectiveMaxX, effectiveMinY, effectiveMaxY);
 
+        RandomGenerator random = seeded
+                ? ShapeFactory.RANDOM_FACTORY.create(seed)
+                : ShapeFactory.RANDOM_FACTORY.create();
+        int createdCount = 0;
+        List<Shape> batch = new ArrayList<>(Math.min(batchSize, shapeCount));
+
         // Генерация фигур только выбранных типов
         for (int i = 0; i < shapeCount; i++) {
+            if (limited && i % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() - deadlineNanos >= 0) {
+                logger.info("Generation deadline reached after {} of {} shapes", createdCount, shapeCount);
+                break;
+            }
             try {
-                Shape shape = generateSingleShape(shapeTypes, effectiveMinX, effectiveMaxX,
+                Shape shape = generateSingleShape(random, shapeTypes, effectiveMinX, effectiveMaxX,
                         effectiveMinY, effectiveMaxY);
                 if (shape != null) {
-                    shapes.add(shape);
+                    batch.add(shape);
+                    createdCount++;
                     if (i < 10) { // Логируем только первые 10 фигур для отладки
                         logger.debug("Generated shape #{}/{}: {}", i + 1, shapeCount, shape.getType());
                     }
@@ -94,17 +194,42 @@ public class DrawingGenerator {
                 logger.error("Error generating shape #{}/{}: {}", i + 1, shapeCount, e.getMessage());
                 // Продолжаем генерацию остальных фигур
             }
+
+            // Передаем заполненный пакет вне обработки ошибок отдельной фигуры
+            if (batch.size() >= batchSize) {
+                batchConsumer.accept(batch);
+                batch = new ArrayList<>(Math.min(batchSize, shapeCount - i));
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            batchConsumer.accept(batch);
         }
 
         logger.info("Generation completed. Successfully created {} shapes out of {} requested",
-                shapes.size(), shapeCount);
-        return shapes;
+                createdCount, shapeCount);
+        return createdCount;
+    }
+
+    /**
+     * Вычисляет область генерации с учетом кучности - сужение области
+     * к центру для более плотного расположения фигур.
+     *
+     * @param parameters параметры генерации
+     * @return границы области: minX, maxX, minY, maxY
+     */
+    static double[] effectiveArea(GenerationParameters parameters) {
+        double centerX = (parameters.getMinX() + parameters.getMaxX()) / 2;
+        double centerY = (parameters.getMinY() + parameters.getMaxY()) / 2;
+        double width = (parameters.getMaxX() - parameters.getMinX()) * parameters.getDensity();
+        double height = (parameters.getMaxY() - parameters.getMinY()) * parameters.getDensity();
+        return new double[] {centerX - width / 2, centerX + width / 2, centerY - height / 2, centerY + height / 2};
     }
 
     /**
      * Генерирует одну случайную фигуру из указанных типов.
      */
-    private Shape generateSingleShape(List<String> shapeTypes,
+    private Shape generateSingleShape(RandomGenerator random, List<String> shapeTypes,
                                       double minX, double maxX, double minY, double maxY) {
 
         // Выбор случайного типа фигуры из выбранных
@@ -124,14 +249,14 @@ public class DrawingGenerator {
         }
 
         // Генерация случайного цвета
-        String color = generateRandomColor();
+        String color = generateRandomColor(random);
 
         // Генерация случайной толщины линии
         double lineWidth = 1.0 + random.nextDouble() * 3.0; // От 1.0 до 4.0
 
         try {
             // Создание фигуры через фабрику
-            return shapeFactory.createShape(shapeType, minX, maxX, minY, maxY, color, lineWidth);
+            return shapeFactory.createShape(random, shapeType, minX, maxX, minY, maxY, color, lineWidth);
         } catch (Exception e) {
             logger.error("Error creating shape type {}: {}", shapeType, e.getMessage());
             return null;
@@ -143,7 +268,7 @@ public class DrawingGenerator {
      *
      * @return цвет в формате #RRGGBB
      */
-    private String generateRandomColor() {
+    private static String generateRandomColor(RandomGenerator random) {
         int r = random.nextInt(256);
         int g = random.nextInt(256);
         int b = random.nextInt(256);
@@ -223,6 +348,29 @@ public class DrawingGenerator {
             return gridSize;
         }
 
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof GenerationParameters)) {
+                return false;
+            }
+            GenerationParameters other = (GenerationParameters) obj;
+            return shapeCount == other.shapeCount
+                    && gridSize == other.gridSize
+                    && Double.compare(minX, other.minX) == 0
+                    && Double.compare(maxX, other.maxX) == 0
+                    && Double.compare(minY, other.minY) == 0
+                    && Double.compare(maxY, other.maxY) == 0
+                    && Double.compare(density, other.density) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shapeCount, minX, maxX, minY, maxY, density, gridSize);
+        }
+
         @Override
         public String toString() {
             return String.format(
@@ -0,0 +1,216 @@
+package com.drawing.generator;
+
+import com.drawing.model.Shape;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Конвейер "генерация - отрисовка".
+ * Фоновый поток генерирует фигуры и помещает пакеты в ограниченную очередь,
+ * а потребитель (например, поток JavaFX) забирает их порциями в пределах бюджета времени.
+ * Если потребитель отстает, заполненная очередь приостанавливает генерацию.
+ * <p>
+ * Генерация выполняется в интерактивной полосе {@link GenerationScheduler}, поэтому
+ * пакетные задания того же процесса не отнимают у нее потоки.
+ */
+public class GenerationPipeline {
+
+    private static final Logger logger = LogManager.getLogger(GenerationPipeline.class);
+
+    // Признак конца потока фигур; сравнивается по ссылке
+    private static final List<Shape> END_OF_STREAM = new ArrayList<>();
+
+    // Как часто проверять часы при выборке фигур
+    private static final int CLOCK_CHECK_INTERVAL = 16;
+
+    private final DrawingGenerator generator;
+    private final DrawingGenerator.GenerationParameters parameters;
+    private final List<String> shapeTypes;
+    private final int batchSize;
+    private final BlockingQueue<List<Shape>> queue;
+
+    private boolean started;
+    // Поток полосы, выполняющий генерацию; null, пока задание ждет в очереди или после его завершения
+    private Thread producer;
+    private volatile boolean cancelled;
+    private volatile Throwable failure;
+
+    // Состояние потребителя: частично выбранный пакет
+    private List<Shape> currentBatch;
+    private int currentIndex;
+    private boolean finished;
+
+    /**
+     * Конструктор конвейера. Параметры проверяются сразу,
+     * чтобы ошибки ввода сообщались вызывающему потоку, а не фоновому.
+     *
+     * @param generator генератор фигур
+     * @param parameters параметры генерации
+     * @param shapeTypes список типов фигур для генерации
+     * @param batchSize размер пакета
+     * @param queueCapacity максимальное число пакетов в очереди
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    public GenerationPipeline(DrawingGenerator generator, DrawingGenerator.GenerationParameters parameters,
+                              List<String> shapeTypes, int batchSize, int queueCapacity) {
+        ParameterValidator.validate(parameters);
+        if (shapeTypes == null || shapeTypes.isEmpty()) {
+            throw new IllegalArgumentException("No shape types selected for generation");
+        }
+        if (batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Batch size and queue capacity must be positive");
+        }
+        this.generator = generator;
+        this.parameters = parameters;
+        this.shapeTypes = new ArrayList<>(shapeTypes);
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Запускает фоновую генерацию в общем планировщике процесса ({@link GenerationScheduler#shared()}).
+     *
+     * @throws IllegalStateException если конвейер уже запущен
+     * @throws RejectedExecutionException если интерактивная полоса перегружена
+     */
+    public void start() {
+        start(GenerationScheduler.shared());
+    }
+
+    /**
+     * Запускает фоновую генерацию в интерактивной полосе планировщика.
+     *
+     * @param scheduler планировщик
+     * @throws IllegalStateException если конвейер уже запущен
+     * @throws RejectedExecutionException если интерактивная полоса перегружена
+     */
+    public synchronized void start(GenerationScheduler scheduler) {
+        if (started) {
+            throw new IllegalStateException("Pipeline already started");
+        }
+        scheduler.submitTask(GenerationScheduler.Lane.INTERACTIVE,
+                GenerationScheduler.estimateCost(parameters, shapeTypes), () -> {
+                    produce();
+                    return null;
+                });
+        started = true;
+    }
+
+    /**
+     * Тело фоновой генерации; выполняется в потоке полосы планировщика.
+     */
+    private void produce() {
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            producer = Thread.currentThread();
+        }
+        try {
+            generator.generateShapesInBatches(parameters, shapeTypes, batchSize, this::enqueue);
+        } catch (CancellationException e) {
+            logger.debug("Generation pipeline cancelled");
+        } catch (Exception e) {
+            logger.error("Generation pipeline failed: {}", e.getMessage(), e);
+            failure = e;
+        } finally {
+            try {
+                if (!cancelled) {
+                    enqueue(END_OF_STREAM);
+                }
+            } catch (CancellationException e) {
+                logger.debug("Generation pipeline cancelled");
+            }
+            synchronized (this) {
+                producer = null;
+                // Прерывание от cancel() не должно достаться следующему заданию этого потока
+                Thread.interrupted();
+            }
+        }
+    }
+
+    /**
+     * Помещает пакет в очередь, ожидая свободного места.
+     */
+    private void enqueue(List<Shape> batch) {
+        try {
+            queue.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Generation interrupted");
+        }
+    }
+
+    /**
+     * Передает потребителю готовые фигуры, пока не истечет бюджет времени
+     * или очередь не опустеет. Вызывается из потока потребителя.
+     *
+     * @param budgetNanos бюджет времени в наносекундах
+     * @param consumer получатель фигур
+     * @return количество переданных фигур
+     */
+    public int drain(long budgetNanos, Consumer<Shape> consumer) {
+        long deadline = System.nanoTime() + budgetNanos;
+        int drained = 0;
+
+        while (!finished) {
+            if (currentBatch == null || currentIndex >= currentBatch.size()) {
+                currentBatch = queue.poll();
+                currentIndex = 0;
+                if (currentBatch == null) {
+                    break;
+                }
+                if (currentBatch == END_OF_STREAM) {
+                    finished = true;
+                    break;
+                }
+            }
+
+            consumer.accept(currentBatch.get(currentIndex++));
+            drained++;
+
+            if (drained % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+
+        return drained;
+    }
+
+    /**
+     * Проверяет, переданы ли потребителю все фигуры.
+     *
+     * @return true если генерация завершена и очередь выбрана полностью
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Возвращает ошибку фоновой генерации, если она произошла.
+     *
+     * @return ошибка или null
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Отменяет генерацию и освобождает очередь.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        finished = true;
+        if (producer != null) {
+            producer.interrupt();
+        }
+        queue.clear();
+    }
+}
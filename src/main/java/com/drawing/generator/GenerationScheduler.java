@@ -0,0 +1,342 @@
+package com.drawing.generator;
+
+import com.drawing.model.Shape;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Планировщик заданий генерации с двумя полосами: интерактивной (интерфейс, HTTP)
+ * и пакетной (массовые задания). У каждой полосы свои потоки и своя ограниченная очередь,
+ * поэтому пакетные задания не могут занять потоки интерактивных запросов.
+ * <p>
+ * Интерактивные задания проходят контроль допуска: стоимость задания оценивается
+ * по количеству и типам фигур ({@link #estimateCost}), а ожидаемое время до его завершения -
+ * по суммарной стоимости уже принятых заданий и измеренной скорости генерации.
+ * Если ожидание превысит бюджет задержки, задание сразу отклоняется с
+ * {@link RejectedExecutionException}, а не ждет в очереди. Пакетная полоса ограничена
+ * только длиной очереди. Время ожидания в очереди учитывается в гистограмме каждой полосы.
+ * <p>
+ * Интерфейс, HTTP-сервер и пакетная генерация одного процесса используют общий планировщик
+ * {@link #shared()}, поэтому пакетный запуск не может отнять потоки у интерактивной генерации.
+ */
+public class GenerationScheduler implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(GenerationScheduler.class);
+
+    /** Постоянная часть стоимости задания: проверка параметров, создание генератора, передача результата */
+    private static final long JOB_OVERHEAD_COST = 64;
+
+    /** Начальная оценка времени единицы стоимости, пока не измерена реальная */
+    private static final double INITIAL_NANOS_PER_COST = 500;
+
+    /** Вес нового измерения в скользящем среднем */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * Полоса планировщика.
+     */
+    public enum Lane {
+        INTERACTIVE, BULK
+    }
+
+    private final LaneExecutor interactive;
+    private final LaneExecutor bulk;
+    private final long latencyBudgetNanos;
+    private volatile double nanosPerCost = INITIAL_NANOS_PER_COST;
+
+    /**
+     * Возвращает общий планировщик процесса с параметрами по умолчанию.
+     * Создается при первом обращении и не закрывается: его потоки - демоны.
+     *
+     * @return общий планировщик
+     */
+    public static GenerationScheduler shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Создает планировщик с параметрами по умолчанию: интерактивная полоса по числу процессоров,
+     * пакетная - на половине, очереди по 256 заданий, бюджет задержки из свойства
+     * {@code drawing.interactiveBudgetMillis} (по умолчанию 500 мс).
+     */
+    public GenerationScheduler() {
+        this(Runtime.getRuntime().availableProcessors(),
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2), 256,
+                Long.getLong("drawing.interactiveBudgetMillis", 500));
+    }
+
+    /**
+     * Конструктор планировщика.
+     *
+     * @param interactiveThreads количество потоков интерактивной полосы
+     * @param bulkThreads количество потоков пакетной полосы
+     * @param queueCapacity максимальное количество ожидающих заданий в каждой полосе
+     * @param latencyBudgetMillis бюджет задержки интерактивного задания в миллисекундах
+     * @throws IllegalArgumentException если какой-либо параметр не положителен
+     */
+    public GenerationScheduler(int interactiveThreads, int bulkThreads, int queueCapacity,
+                               long latencyBudgetMillis) {
+        if (interactiveThreads <= 0 || bulkThreads <= 0 || queueCapacity <= 0 || latencyBudgetMillis <= 0) {
+            throw new IllegalArgumentException("Scheduler threads, queue capacity and budget must be positive");
+        }
+        this.interactive = new LaneExecutor(Lane.INTERACTIVE, interactiveThreads, queueCapacity,
+                Thread.NORM_PRIORITY);
+        this.bulk = new LaneExecutor(Lane.BULK, bulkThreads, queueCapacity, Thread.MIN_PRIORITY);
+        this.latencyBudgetNanos = TimeUnit.MILLISECONDS.toNanos(latencyBudgetMillis);
+    }
+
+    /**
+     * Оценивает стоимость генерации в условных единицах.
+     * Единица примерно соответствует созданию одной простой фигуры; типы фигур
+     * выбираются генератором равновероятно, поэтому берется средний вес выбранных типов.
+     *
+     * @param parameters параметры генерации
+     * @param shapeTypes список типов фигур
+     * @return стоимость задания
+     */
+    public static long estimateCost(DrawingGenerator.GenerationParameters parameters, List<String> shapeTypes) {
+        long weight = 0;
+        for (String type : shapeTypes) {
+            weight += typeWeight(type);
+        }
+        long averageWeight = shapeTypes.isEmpty() ? 1 : Math.max(1, weight / shapeTypes.size());
+        return JOB_OVERHEAD_COST + (long) parameters.getShapeCount() * averageWeight;
+    }
+
+    /**
+     * Относительная стоимость создания фигуры: количество случайных величин и вершин.
+     */
+    private static int typeWeight(String type) {
+        switch (type) {
+            case "TRIANGLE":
+            case "PARABOLA":
+                return 3;
+            case "TRAPEZOID":
+                return 4;
+            default:
+                return 2;
+        }
+    }
+
+    /**
+     * Ставит задание генерации в очередь полосы.
+     *
+     * @param lane полоса
+     * @param generator генератор; потокобезопасен и может одновременно использоваться в других заданиях
+     * @param parameters параметры генерации
+     * @param shapeTypes список типов фигур
+     * @return результат генерации; завершается исключением генератора, если генерация не удалась
+     * @throws IllegalArgumentException если параметры некорректны
+     * @throws RejectedExecutionException если очередь полосы заполнена, интерактивное задание
+     *                                    не уложится в бюджет задержки или планировщик закрыт
+     */
+    public CompletableFuture<List<Shape>> submit(Lane lane, DrawingGenerator generator,
+                                                 DrawingGenerator.GenerationParameters parameters,
+                                                 List<String> shapeTypes) {
+        return submit(lane, generator, parameters, shapeTypes, false, 0);
+    }
+
+    /**
+     * Ставит в очередь полосы задание генерации с крайним сроком: генерируется столько фигур,
+     * сколько успеет до срока (см. {@link DrawingGenerator#generateShapesUntil}).
+     * Время ожидания в очереди входит в срок.
+     *
+     * @param lane полоса
+     * @param generator генератор; потокобезопасен и может одновременно использоваться в других заданиях
+     * @param parameters параметры генерации; количество фигур - желаемое
+     * @param shapeTypes список типов фигур
+     * @param deadlineNanos крайний срок по часам {@link System#nanoTime()}
+     * @return результат генерации; фигур может быть меньше запрошенного количества
+     * @throws IllegalArgumentException если параметры некорректны
+     * @throws RejectedExecutionException если очередь полосы заполнена, интерактивное задание
+     *                                    не уложится в бюджет задержки или планировщик закрыт
+     */
+    public CompletableFuture<List<Shape>> submit(Lane lane, DrawingGenerator generator,
+                                                 DrawingGenerator.GenerationParameters parameters,
+                                                 List<String> shapeTypes, long deadlineNanos) {
+        return submit(lane, generator, parameters, shapeTypes, true, deadlineNanos);
+    }
+
+    private CompletableFuture<List<Shape>> submit(Lane lane, DrawingGenerator generator,
+                                                  DrawingGenerator.GenerationParameters parameters,
+                                                  List<String> shapeTypes, boolean limited, long deadlineNanos) {
+        ParameterValidator.validate(parameters);
+        if (shapeTypes == null || shapeTypes.isEmpty()) {
+            throw new IllegalArgumentException("No shape types selected for generation");
+        }
+        long cost = estimateCost(parameters, shapeTypes);
+        return execute(lane, cost, () -> limited
+                ? generator.generateShapesUntil(parameters, shapeTypes, deadlineNanos)
+                : generator.generateShapes(parameters, shapeTypes), (shapes, elapsedNanos) -> {
+                    if (shapes.size() == parameters.getShapeCount()) {
+                        updateSpeed(elapsedNanos, cost);
+                    }
+                });
+    }
+
+    /**
+     * Ставит в очередь полосы произвольное задание с известной стоимостью: например, генерацию,
+     * фигуры которой передаются потребителю по частям, или группу сцен пакетного запуска.
+     * Контроль допуска тот же, что у заданий генерации, но скорость генерации по таким заданиям
+     * не уточняется: их время включает не только генерацию.
+     *
+     * @param lane полоса
+     * @param cost стоимость задания (см. {@link #estimateCost})
+     * @param task задание
+     * @param <T> тип результата
+     * @return результат задания; завершается исключением задания, если оно не удалось
+     * @throws IllegalArgumentException если стоимость отрицательна
+     * @throws RejectedExecutionException если очередь полосы заполнена, интерактивное задание
+     *                                    не уложится в бюджет задержки или планировщик закрыт
+     */
+    public <T> CompletableFuture<T> submitTask(Lane lane, long cost, Callable<? extends T> task) {
+        if (cost < 0) {
+            throw new IllegalArgumentException("Task cost must not be negative");
+        }
+        return execute(lane, cost, task, null);
+    }
+
+    private <T> CompletableFuture<T> execute(Lane lane, long cost, Callable<? extends T> task,
+                                             ObjLongConsumer<T> onCompleted) {
+        LaneExecutor executor = lane == Lane.INTERACTIVE ? interactive : bulk;
+
+        long pending = executor.pendingCost.addAndGet(cost);
+        // Задание на пустой полосе принимается всегда, иначе крупное задание не выполнилось бы никогда
+        if (lane == Lane.INTERACTIVE && pending > cost
+                && pending * nanosPerCost / executor.threads > latencyBudgetNanos) {
+            executor.pendingCost.addAndGet(-cost);
+            executor.rejected.incrementAndGet();
+            throw new RejectedExecutionException("Generation queue is over its latency budget");
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long submittedAt = System.nanoTime();
+        try {
+            executor.pool.execute(() -> {
+                long startedAt = System.nanoTime();
+                executor.queueTime.record(startedAt - submittedAt);
+                T value;
+                try {
+                    value = task.call();
+                } catch (Throwable e) {
+                    executor.pendingCost.addAndGet(-cost);
+                    result.completeExceptionally(e);
+                    return;
+                }
+                // Стоимость снимается до завершения результата: дождавшийся его видит освобожденную полосу
+                executor.pendingCost.addAndGet(-cost);
+                if (onCompleted != null) {
+                    onCompleted.accept(value, System.nanoTime() - startedAt);
+                }
+                result.complete(value);
+            });
+        } catch (RejectedExecutionException e) {
+            executor.pendingCost.addAndGet(-cost);
+            executor.rejected.incrementAndGet();
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Уточняет скорость генерации по времени выполненного задания.
+     * Гонки при обновлении допустимы: теряется лишь одно измерение.
+     */
+    private void updateSpeed(long elapsedNanos, long cost) {
+        nanosPerCost += SMOOTHING * ((double) elapsedNanos / cost - nanosPerCost);
+    }
+
+    /**
+     * Возвращает гистограмму времени ожидания заданий полосы в очереди.
+     *
+     * @param lane полоса
+     * @return гистограмма
+     */
+    public LatencyHistogram getQueueTimeHistogram(Lane lane) {
+        return (lane == Lane.INTERACTIVE ? interactive : bulk).queueTime;
+    }
+
+    /**
+     * Возвращает количество отклоненных заданий полосы.
+     *
+     * @param lane полоса
+     * @return количество отклоненных заданий
+     */
+    public long getRejected(Lane lane) {
+        return (lane == Lane.INTERACTIVE ? interactive : bulk).rejected.get();
+    }
+
+    /**
+     * Возвращает суммарную стоимость принятых и еще не завершенных заданий полосы.
+     *
+     * @param lane полоса
+     * @return стоимость в условных единицах
+     */
+    public long getPendingCost(Lane lane) {
+        return (lane == Lane.INTERACTIVE ? interactive : bulk).pendingCost.get();
+    }
+
+    /**
+     * Проверяет, закрыт ли планировщик.
+     *
+     * @return true если задания больше не принимаются
+     */
+    public boolean isClosed() {
+        return interactive.pool.isShutdown();
+    }
+
+    /**
+     * Прекращает прием заданий; уже принятые задания выполняются.
+     */
+    @Override
+    public void close() {
+        interactive.pool.shutdown();
+        bulk.pool.shutdown();
+        logger.info("Generation scheduler stopped; interactive queue time {}, {} rejected; bulk queue time {}, "
+                + "{} rejected", interactive.queueTime, interactive.rejected, bulk.queueTime, bulk.rejected);
+    }
+
+    /**
+     * Ленивое создание общего планировщика при первом обращении.
+     */
+    private static final class SharedHolder {
+
+        static final GenerationScheduler INSTANCE = new GenerationScheduler();
+    }
+
+    /**
+     * Потоки, очередь и счетчики одной полосы.
+     */
+    private static final class LaneExecutor {
+
+        final int threads;
+        final ThreadPoolExecutor pool;
+        final AtomicLong pendingCost = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final LatencyHistogram queueTime = new LatencyHistogram();
+
+        LaneExecutor(Lane lane, int threads, int queueCapacity, int priority) {
+            this.threads = threads;
+            String prefix = "generation-" + lane.name().toLowerCase(Locale.ROOT) + "-";
+            AtomicInteger counter = new AtomicInteger();
+            this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                        Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        thread.setPriority(priority);
+                        return thread;
+                    });
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.drawing.generator;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Потокобезопасная гистограмма длительностей с логарифмическими корзинами.
+ * Корзина 0 содержит значения меньше 1 мкс, корзина i - от 2^(i-1) до 2^i мкс.
+ * Процентили возвращаются как верхняя граница корзины, то есть с точностью до двух раз,
+ * чего достаточно для наблюдения за очередями и не требует блокировок при записи.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKET_COUNT = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Учитывает одно значение.
+     *
+     * @param nanos длительность в наносекундах
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos) / 1000;
+        int bucket = micros == 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+        buckets.incrementAndGet(Math.min(bucket, BUCKET_COUNT - 1));
+    }
+
+    /**
+     * Возвращает количество учтенных значений.
+     *
+     * @return количество значений
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Возвращает оценку процентиля сверху.
+     *
+     * @param percentile процентиль от 0 до 100
+     * @return верхняя граница корзины процентиля в микросекундах; 0, если значений нет
+     * @throws IllegalArgumentException если процентиль вне диапазона
+     */
+    public long getPercentileMicros(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return 1L << i;
+            }
+        }
+        return 1L << (BUCKET_COUNT - 1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, p50<=%dus, p90<=%dus, p99<=%dus", getCount(),
+                getPercentileMicros(50), getPercentileMicros(90), getPercentileMicros(99));
+    }
+}
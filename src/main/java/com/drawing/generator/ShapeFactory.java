@@ -1,25 +1,62 @@
 package com.drawing.generator;
 
 import com.drawing.model.*;
-import java.util.Random;
+import java.util.function.DoubleSupplier;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
 
 /**
  * Фабрика для создания геометрических фигур.
  * Создает случайные фигуры в заданных пределах.
+ * <p>
+ * Фабрика не хранит изменяемого состояния и потокобезопасна: один экземпляр можно использовать
+ * из любого числа потоков. Без переданного генератора каждый поток использует свой генератор
+ * семейства LXM; для детерминированной генерации генератор передается в
+ * {@link #createShape(RandomGenerator, ShapeType, double, double, double, double, String, double)}.
+ * <p>
+ * Геометрия фигуры зависит только от последовательности равномерных чисел из [0, 1),
+ * поэтому ее можно извлечь заранее и построить фигуру позже через
+ * {@link #createShape(double[], ShapeType, double, double, double, double, String, double)};
+ * сколько чисел нужно каждому типу, возвращает {@link #drawCount(ShapeType)}.
  */
 public class ShapeFactory {
 
-    private final Random random;
+    /** Алгоритм генераторов случайных чисел: быстрый, без общего состояния между экземплярами */
+    static final RandomGeneratorFactory<RandomGenerator> RANDOM_FACTORY =
+            RandomGeneratorFactory.of("L64X128MixRandom");
+
+    private static final ThreadLocal<RandomGenerator> THREAD_RANDOM =
+            ThreadLocal.withInitial(RANDOM_FACTORY::create);
+
+    /** Наибольшее количество случайных чисел, расходуемых на одну фигуру любого типа */
+    public static final int MAX_DRAW_COUNT = 6;
 
     /**
-     * Конструктор фабрики фигур.
+     * Возвращает наибольшее количество случайных чисел, которые расходует фигура типа.
+     * Должно соответствовать методам create* ниже.
+     *
+     * @param type тип фигуры
+     * @return количество чисел
      */
-    public ShapeFactory() {
-        this.random = new Random();
+    public static int drawCount(ShapeType type) {
+        switch (type) {
+            case CIRCLE:
+            case PARABOLA:
+                return 3;
+            case RECTANGLE:
+                // Угол выбирается повторно, если от него не хватает места
+            case TRIANGLE:
+            case TRAPEZOID:
+                return 6;
+            case LINE:
+            default:
+                return 4;
+        }
     }
 
     /**
-     * Создает случайную фигуру заданного типа в пределах указанных координат.
+     * Создает случайную фигуру заданного типа в пределах указанных координат,
+     * используя генератор случайных чисел текущего потока.
      *
      * @param type тип фигуры
      * @param minX минимальная координата X
@@ -32,49 +69,104 @@ public class ShapeFactory {
      */
     public Shape createShape(ShapeType type, double minX, double maxX,
                              double minY, double maxY, String color, double lineWidth) {
+        return createShape(THREAD_RANDOM.get(), type, minX, maxX, minY, maxY, color, lineWidth);
+    }
+
+    /**
+     * Создает случайную фигуру, используя переданный генератор случайных чисел.
+     * Одинаковые генераторы дают одинаковые фигуры независимо от потока.
+     *
+     * @param random генератор случайных чисел; используется только в этом вызове
+     * @param type тип фигуры
+     * @param minX минимальная координата X
+     * @param maxX максимальная координата X
+     * @param minY минимальная координата Y
+     * @param maxY максимальная координата Y
+     * @param color цвет фигуры
+     * @param lineWidth толщина линии
+     * @return созданная фигура
+     */
+    public Shape createShape(RandomGenerator random, ShapeType type, double minX, double maxX,
+                             double minY, double maxY, String color, double lineWidth) {
+        return create(random::nextDouble, type, minX, maxX, minY, maxY, color, lineWidth);
+    }
+
+    /**
+     * Создает фигуру из заранее извлеченных равномерных чисел из [0, 1). Те же числа,
+     * полученные от генератора, дают ту же фигуру, что и
+     * {@link #createShape(RandomGenerator, ShapeType, double, double, double, double, String, double)}.
+     *
+     * @param draws случайные числа геометрии; не меньше {@link #drawCount(ShapeType)}
+     * @param type тип фигуры
+     * @param minX минимальная координата X
+     * @param maxX максимальная координата X
+     * @param minY минимальная координата Y
+     * @param maxY максимальная координата Y
+     * @param color цвет фигуры
+     * @param lineWidth толщина линии
+     * @return созданная фигура
+     * @throws IllegalArgumentException если чисел меньше, чем нужно типу
+     */
+    public Shape createShape(double[] draws, ShapeType type, double minX, double maxX,
+                             double minY, double maxY, String color, double lineWidth) {
+        if (draws.length < drawCount(type)) {
+            throw new IllegalArgumentException("Shape type " + type + " needs " + drawCount(type) + " draws");
+        }
+        DoubleSupplier replay = new DoubleSupplier() {
+            private int next;
+
+            @Override
+            public double getAsDouble() {
+                return draws[next++];
+            }
+        };
+        return create(replay, type, minX, maxX, minY, maxY, color, lineWidth);
+    }
 
+    private Shape create(DoubleSupplier random, ShapeType type, double minX, double maxX,
+                         double minY, double maxY, String color, double lineWidth) {
         switch (type) {
             case LINE:
-                return createLine(minX, maxX, minY, maxY, color, lineWidth);
+                return createLine(random, minX, maxX, minY, maxY, color, lineWidth);
             case CIRCLE:
-                return createCircle(minX, maxX, minY, maxY, color, lineWidth);
+                return createCircle(random, minX, maxX, minY, maxY, color, lineWidth);
             case RECTANGLE:
-                return createRectangle(minX, maxX, minY, maxY, color, lineWidth);
+                return createRectangle(random, minX, maxX, minY, maxY, color, lineWidth);
             case TRIANGLE:
-                return createTriangle(minX, maxX, minY, maxY, color, lineWidth);
+                return createTriangle(random, minX, maxX, minY, maxY, color, lineWidth);
             case PARABOLA:
-                return createParabola(minX, maxX, minY, maxY, color, lineWidth);
+                return createParabola(random, minX, maxX, minY, maxY, color, lineWidth);
             case TRAPEZOID:
-                return createTrapezoid(minX, maxX, minY, maxY, color, lineWidth);
+                return createTrapezoid(random, minX, maxX, minY, maxY, color, lineWidth);
             default:
                 // В случае неизвестного типа создаем линию
-                return createLine(minX, maxX, minY, maxY, color, lineWidth);
+                return createLine(random, minX, maxX, minY, maxY, color, lineWidth);
         }
     }
 
     /**
      * Создает случайную линию.
      */
-    private Line createLine(double minX, double maxX, double minY, double maxY,
+    private Line createLine(DoubleSupplier random, double minX, double maxX, double minY, double maxY,
                             String color, double lineWidth) {
-        Point start = createRandomPoint(minX, maxX, minY, maxY);
-        Point end = createRandomPoint(minX, maxX, minY, maxY);
+        Point start = createRandomPoint(random, minX, maxX, minY, maxY);
+        Point end = createRandomPoint(random, minX, maxX, minY, maxY);
         return new Line(start, end, color, lineWidth);
     }
 
     /**
      * Создает случайную окружность.
      */
-    private Circle createCircle(double minX, double maxX, double minY, double maxY,
+    private Circle createCircle(DoubleSupplier random, double minX, double maxX, double minY, double maxY,
                                 String color, double lineWidth) {
-        Point center = createRandomPoint(minX, maxX, minY, maxY);
+        Point center = createRandomPoint(random, minX, maxX, minY, maxY);
         // Ограничиваем максимальный радиус
         double maxRadiusX = Math.min(maxX - center.getX(), center.getX() - minX);
         double maxRadiusY = Math.min(maxY - center.getY(), center.getY() - minY);
         double maxRadius = Math.min(maxRadiusX, maxRadiusY);
 
         // Радиус от 2 до половины доступного пространства
-        double radius = 2.0 + random.nextDouble() * (maxRadius / 2 - 2.0);
+        double radius = 2.0 + random.getAsDouble() * (maxRadius / 2 - 2.0);
         radius = Math.max(radius, 2.0); // Минимальный радиус 2.0
 
         return new Circle(center, radius, color, lineWidth);
@@ -83,9 +175,9 @@ public class ShapeFactory {
     /**
      * Создает случайный прямоугольник.
      */
-    private Rectangle createRectangle(double minX, double maxX, double minY, double maxY,
+    private Rectangle createRectangle(DoubleSupplier random, double minX, double maxX, double minY, double maxY,
                                       String color, double lineWidth) {
-        Point topLeft = createRandomPoint(minX, maxX, minY, maxY);
+        Point topLeft = createRandomPoint(random, minX, maxX, minY, maxY);
         double maxWidth = maxX - topLeft.getX();
         double maxHeight = maxY - topLeft.getY();
 
@@ -93,13 +185,13 @@ public class ShapeFactory {
         double minSize = 5.0;
         if (maxWidth < minSize || maxHeight < minSize) {
             // Если не хватает места, создаем точку заново
-            topLeft = createRandomPoint(minX, maxX - minSize, minY, maxY - minSize);
+            topLeft = createRandomPoint(random, minX, maxX - minSize, minY, maxY - minSize);
             maxWidth = maxX - topLeft.getX();
             maxHeight = maxY - topLeft.getY();
         }
 
-        double width = minSize + random.nextDouble() * (maxWidth - minSize);
-        double height = minSize + random.nextDouble() * (maxHeight - minSize);
+        double width = minSize + random.getAsDouble() * (maxWidth - minSize);
+        double height = minSize + random.getAsDouble() * (maxHeight - minSize);
 
         return new Rectangle(topLeft, width, height, color, lineWidth);
     }
@@ -107,11 +199,11 @@ public class ShapeFactory {
     /**
      * Создает случайный треугольник.
      */
-    private Triangle createTriangle(double minX, double maxX, double minY, double maxY,
+    private Triangle createTriangle(DoubleSupplier random, double minX, double maxX, double minY, double maxY,
                                     String color, double lineWidth) {
-        Point p1 = createRandomPoint(minX, maxX, minY, maxY);
-        Point p2 = createRandomPoint(minX, maxX, minY, maxY);
-        Point p3 = createRandomPoint(minX, maxX, minY, maxY);
+        Point p1 = createRandomPoint(random, minX, maxX, minY, maxY);
+        Point p2 = createRandomPoint(random, minX, maxX, minY, maxY);
+        Point p3 = createRandomPoint(random, minX, maxX, minY, maxY);
 
         return new Triangle(p1, p2, p3, color, lineWidth);
     }
@@ -119,11 +211,11 @@ public class ShapeFactory {
     /**
      * Создает случайную параболу.
      */
-    private Parabola createParabola(double minX, double maxX, double minY, double maxY,
+    private Parabola createParabola(DoubleSupplier random, double minX, double maxX, double minY, double maxY,
                                     String color, double lineWidth) {
-        double a = (random.nextDouble() - 0.5) * 2; // От -1 до 1
-        double b = (random.nextDouble() - 0.5) * 4; // От -2 до 2
-        double c = minY + random.nextDouble() * (maxY - minY);
+        double a = (random.getAsDouble() - 0.5) * 2; // От -1 до 1
+        double b = (random.getAsDouble() - 0.5) * 4; // От -2 до 2
+        double c = minY + random.getAsDouble() * (maxY - minY);
 
         // Ограничиваем диапазон x для отрисовки
         double xRange = maxX - minX;
@@ -136,20 +228,20 @@ public class ShapeFactory {
     /**
      * Создает случайную трапецию.
      */
-    private Trapezoid createTrapezoid(double minX, double maxX, double minY, double maxY,
+    private Trapezoid createTrapezoid(DoubleSupplier random, double minX, double maxX, double minY, double maxY,
                                       String color, double lineWidth) {
         double width = maxX - minX;
         double height = maxY - minY;
 
         // Верхнее основание
-        double topY = minY + height * 0.2 + random.nextDouble() * height * 0.3;
-        double topX1 = minX + width * 0.1 + random.nextDouble() * width * 0.3;
-        double topX2 = topX1 + width * 0.2 + random.nextDouble() * width * 0.3;
+        double topY = minY + height * 0.2 + random.getAsDouble() * height * 0.3;
+        double topX1 = minX + width * 0.1 + random.getAsDouble() * width * 0.3;
+        double topX2 = topX1 + width * 0.2 + random.getAsDouble() * width * 0.3;
 
         // Нижнее основание
-        double bottomY = topY + height * 0.3 + random.nextDouble() * height * 0.3;
-        double bottomX1 = minX + width * 0.2 + random.nextDouble() * width * 0.2;
-        double bottomX2 = bottomX1 + width * 0.3 + random.nextDouble() * width * 0.2;
+        double bottomY = topY + height * 0.3 + random.getAsDouble() * height * 0.3;
+        double bottomX1 = minX + width * 0.2 + random.getAsDouble() * width * 0.2;
+        double bottomX2 = bottomX1 + width * 0.3 + random.getAsDouble() * width * 0.2;
 
         Point topLeft = new Point(topX1, topY);
         Point topRight = new Point(topX2, topY);
@@ -162,9 +254,9 @@ public class ShapeFactory {
     /**
      * Создает случайную точку в заданных пределах.
      */
-    private Point createRandomPoint(double minX, double maxX, double minY, double maxY) {
-        double x = minX + random.nextDouble() * (maxX - minX);
-        double y = minY + random.nextDouble() * (maxY - minY);
+    private Point createRandomPoint(DoubleSupplier random, double minX, double maxX, double minY, double maxY) {
+        double x = minX + random.getAsDouble() * (maxX - minX);
+        double y = minY + random.getAsDouble() * (maxY - minY);
         return new Point(x, y);
     }
 
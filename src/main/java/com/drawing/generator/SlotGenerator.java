@@ -0,0 +1,334 @@
+package com.drawing.generator;
+
+import com.drawing.model.Shape;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Генератор, в котором каждая позиция сцены (слот) генерируется независимо
+ * от собственного seed, полученного из seed сцены и номера слота.
+ * <p>
+ * Поэтому сцену можно менять по частям: увеличение количества фигур дописывает
+ * новые слоты, уменьшение отбрасывает последние, а остальные фигуры не меняются.
+ * Тип фигуры слота выбирается "рандеву-хешированием": среди выбранных типов побеждает
+ * тип с наибольшим весом, зависящим только от слота и типа. Снятие отметки с типа
+ * меняет только слоты, где побеждал этот тип, добавление типа - только слоты,
+ * где он становится победителем (см. {@link #changedSlots}). Цвет и толщина линии
+ * зависят только от слота и сохраняются при смене типа.
+ * <p>
+ * Фигура слота строится в два шага: {@link #rawSlot} выбирает тип, стиль и заранее извлекает
+ * равномерные случайные числа геометрии, не зависящие от области генерации, а {@link #buildSlot}
+ * масштабирует их в эффективную область. Поэтому варианты сцены с разной кучностью могут
+ * разделять одни и те же сырые слоты.
+ * <p>
+ * Сцены этого генератора не совпадают со сценами {@link DrawingGenerator} с тем же seed.
+ */
+public class SlotGenerator extends DrawingGenerator {
+
+    private static final Logger logger = LogManager.getLogger(SlotGenerator.class);
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final ShapeFactory SHAPE_FACTORY = new ShapeFactory();
+
+    private final long seed;
+
+    /**
+     * Конструктор генератора слотов.
+     *
+     * @param seed начальное значение сцены
+     */
+    public SlotGenerator(long seed) {
+        super(seed);
+        this.seed = seed;
+    }
+
+    /**
+     * Генерирует фигуры слотов [0, shapeCount) и передает их потребителю пакетами.
+     *
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    @Override
+    protected int generate(GenerationParameters parameters, List<String> shapeTypes, int batchSize,
+                           Consumer<List<Shape>> batchConsumer, boolean limited, long deadlineNanos) {
+        validate(parameters, shapeTypes);
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        logger.info("Starting slot generation with parameters: {}, shape types: {}", parameters, shapeTypes);
+
+        int shapeCount = parameters.getShapeCount();
+        List<Shape> batch = new ArrayList<>(Math.min(batchSize, shapeCount));
+        int slot = 0;
+        for (; slot < shapeCount; slot++) {
+            if (limited && slot % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() - deadlineNanos >= 0) {
+                logger.info("Slot generation deadline reached after {} of {} shapes", slot, shapeCount);
+                break;
+            }
+            batch.add(generateSlot(slot, parameters, shapeTypes));
+            if (batch.size() >= batchSize) {
+                batchConsumer.accept(batch);
+                batch = new ArrayList<>(Math.min(batchSize, shapeCount - slot - 1));
+            }
+        }
+        if (!batch.isEmpty()) {
+            batchConsumer.accept(batch);
+        }
+        return slot;
+    }
+
+    /**
+     * Генерирует слоты параллельно в общем пуле {@link ForkJoinPool} и вызывающем потоке.
+     *
+     * @param parameters параметры генерации
+     * @param shapeTypes список типов фигур
+     * @return фигуры слотов [0, shapeCount)
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    public List<Shape> generateShapesInParallel(GenerationParameters parameters, List<String> shapeTypes) {
+        return generateInParallel(parameters, shapeTypes, false, 0);
+    }
+
+    /**
+     * Генерирует слоты параллельно, пока не создано заданное количество или не наступил крайний срок.
+     * Потоки забирают слоты блоками по {@value #CLOCK_CHECK_INTERVAL} по порядку и проверяют часы
+     * перед каждым блоком; начатый блок дописывается до конца. Поэтому результат - всегда начало
+     * сцены без пропусков, а срок превышается не более чем на время создания одного блока.
+     *
+     * @param parameters параметры генерации; количество фигур - желаемое
+     * @param shapeTypes список типов фигур
+     * @param deadlineNanos крайний срок по часам {@link System#nanoTime()}
+     * @return фигуры слотов [0, n), где n не больше запрошенного количества
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    public List<Shape> generateShapesInParallelUntil(GenerationParameters parameters, List<String> shapeTypes,
+                                                     long deadlineNanos) {
+        return generateInParallel(parameters, shapeTypes, true, deadlineNanos);
+    }
+
+    private List<Shape> generateInParallel(GenerationParameters parameters, List<String> shapeTypes,
+                                           boolean limited, long deadlineNanos) {
+        validate(parameters, shapeTypes);
+        int shapeCount = parameters.getShapeCount();
+        int blockCount = (shapeCount + CLOCK_CHECK_INTERVAL - 1) / CLOCK_CHECK_INTERVAL;
+        Shape[] shapes = new Shape[shapeCount];
+        AtomicInteger nextBlock = new AtomicInteger();
+
+        Runnable worker = () -> {
+            while (!limited || System.nanoTime() - deadlineNanos < 0) {
+                int block = nextBlock.getAndIncrement();
+                if (block >= blockCount) {
+                    return;
+                }
+                int end = Math.min(shapeCount, (block + 1) * CLOCK_CHECK_INTERVAL);
+                for (int slot = block * CLOCK_CHECK_INTERVAL; slot < end; slot++) {
+                    shapes[slot] = generateSlot(slot, parameters, shapeTypes);
+                }
+            }
+        };
+        int helpers = Math.min(ForkJoinPool.getCommonPoolParallelism(), blockCount - 1);
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < helpers; i++) {
+            tasks.add(CompletableFuture.runAsync(worker, ForkJoinPool.commonPool()));
+        }
+        worker.run();
+        try {
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+
+        // Все выданные блоки дописаны, поэтому готово начало сцены до последнего выданного блока
+        int completed = Math.min(shapeCount, Math.min(nextBlock.get(), blockCount) * CLOCK_CHECK_INTERVAL);
+        if (completed < shapeCount) {
+            logger.info("Parallel slot generation deadline reached after {} of {} shapes", completed, shapeCount);
+        }
+        return new ArrayList<>(Arrays.asList(shapes).subList(0, completed));
+    }
+
+    /**
+     * Генерирует фигуру одного слота. Результат зависит только от seed сцены,
+     * номера слота, области генерации и набора типов.
+     *
+     * @param slot номер слота
+     * @param parameters параметры генерации (количество фигур не используется)
+     * @param shapeTypes список типов фигур
+     * @return фигура слота
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    public Shape generateSlot(int slot, GenerationParameters parameters, List<String> shapeTypes) {
+        return buildSlot(rawSlot(slot, shapeTypes), parameters);
+    }
+
+    /**
+     * Выбирает тип и стиль слота и извлекает случайные числа его геометрии.
+     * Результат не зависит от области генерации и кучности.
+     *
+     * @param slot номер слота
+     * @param shapeTypes список типов фигур
+     * @return сырой слот
+     * @throws IllegalArgumentException если набор типов пуст или содержит неизвестный тип
+     */
+    public RawSlot rawSlot(int slot, List<String> shapeTypes) {
+        long slotSeed = slotSeed(slot);
+        RandomGenerator style = ShapeFactory.RANDOM_FACTORY.create(slotSeed);
+        String color = String.format("#%02X%02X%02X", style.nextInt(256), style.nextInt(256), style.nextInt(256));
+        double lineWidth = 1.0 + style.nextDouble() * 3.0;
+        return new RawSlot(slot, slotType(slot, shapeTypes), color, lineWidth, slotSeed);
+    }
+
+    /**
+     * Приводит сырой слот к другому набору типов. Если тип слота не меняется, возвращается
+     * тот же слот; иначе заново извлекаются только случайные числа геометрии, стиль сохраняется.
+     *
+     * @param raw сырой слот этого генератора
+     * @param shapeTypes новый список типов фигур
+     * @return сырой слот для нового набора типов
+     * @throws IllegalArgumentException если набор типов пуст или содержит неизвестный тип
+     */
+    public RawSlot retypeSlot(RawSlot raw, List<String> shapeTypes) {
+        ShapeFactory.ShapeType type = slotType(raw.slot, shapeTypes);
+        if (type == raw.type) {
+            return raw;
+        }
+        return new RawSlot(raw.slot, type, raw.color, raw.lineWidth, slotSeed(raw.slot));
+    }
+
+    /**
+     * Строит фигуру сырого слота в эффективной области параметров. Совпадает с
+     * {@link #generateSlot} для того же слота и набора типов.
+     *
+     * @param raw сырой слот
+     * @param parameters параметры генерации (количество фигур не используется)
+     * @return фигура слота
+     */
+    public Shape buildSlot(RawSlot raw, GenerationParameters parameters) {
+        double[] area = effectiveArea(parameters);
+        return SHAPE_FACTORY.createShape(raw.draws, raw.type,
+                area[0], area[1], area[2], area[3], raw.color, raw.lineWidth);
+    }
+
+    private long slotSeed(int slot) {
+        return mix(seed + GOLDEN_GAMMA * (slot + 1L));
+    }
+
+    /**
+     * Возвращает номера слотов из [0, slotCount), тип которых различается
+     * при двух наборах типов фигур.
+     *
+     * @param slotCount количество проверяемых слотов
+     * @param oldTypes прежний набор типов
+     * @param newTypes новый набор типов
+     * @return номера слотов по возрастанию
+     * @throws IllegalArgumentException если набор типов пуст или содержит неизвестный тип
+     */
+    public int[] changedSlots(int slotCount, List<String> oldTypes, List<String> newTypes) {
+        int[] changed = new int[slotCount];
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotType(slot, oldTypes) != slotType(slot, newTypes)) {
+                changed[count++] = slot;
+            }
+        }
+        return Arrays.copyOf(changed, count);
+    }
+
+    /**
+     * Выбирает тип слота: тип с наибольшим весом среди выбранных.
+     * Порядок типов в списке не влияет на выбор.
+     */
+    private ShapeFactory.ShapeType slotType(int slot, List<String> shapeTypes) {
+        if (shapeTypes == null || shapeTypes.isEmpty()) {
+            throw new IllegalArgumentException("No shape types selected for generation");
+        }
+        long slotKey = mix(seed ^ mix(slot));
+        ShapeFactory.ShapeType best = null;
+        long bestWeight = 0;
+        for (String name : shapeTypes) {
+            ShapeFactory.ShapeType type;
+            try {
+                type = ShapeFactory.ShapeType.valueOf(name);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown shape type: " + name);
+            }
+            long weight = mix(slotKey + GOLDEN_GAMMA * (type.ordinal() + 1));
+            if (best == null || Long.compareUnsigned(weight, bestWeight) > 0) {
+                best = type;
+                bestWeight = weight;
+            }
+        }
+        return best;
+    }
+
+    private static void validate(GenerationParameters parameters, List<String> shapeTypes) {
+        ParameterValidator.validate(parameters);
+        if (shapeTypes == null || shapeTypes.isEmpty()) {
+            throw new IllegalArgumentException("No shape types selected for generation");
+        }
+    }
+
+    /**
+     * Сырой слот: тип, стиль и равномерные случайные числа геометрии фигуры.
+     * Неизменяем и может разделяться между потоками и вариантами сцены.
+     */
+    public static final class RawSlot {
+
+        private final int slot;
+        private final ShapeFactory.ShapeType type;
+        private final String color;
+        private final double lineWidth;
+        private final double[] draws;
+
+        private RawSlot(int slot, ShapeFactory.ShapeType type, String color, double lineWidth, long slotSeed) {
+            this.slot = slot;
+            this.type = type;
+            this.color = color;
+            this.lineWidth = lineWidth;
+            RandomGenerator random = ShapeFactory.RANDOM_FACTORY.create(mix(slotSeed + type.ordinal()));
+            this.draws = new double[ShapeFactory.drawCount(type)];
+            for (int i = 0; i < draws.length; i++) {
+                draws[i] = random.nextDouble();
+            }
+        }
+
+        /**
+         * Возвращает номер слота.
+         *
+         * @return номер слота
+         */
+        public int getSlot() {
+            return slot;
+        }
+
+        /**
+         * Возвращает тип фигуры слота.
+         *
+         * @return тип фигуры
+         */
+        public ShapeFactory.ShapeType getType() {
+            return type;
+        }
+    }
+
+    /**
+     * Перемешивающая функция SplitMix64: близкие входы дают независимые выходы.
+     */
+    private static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
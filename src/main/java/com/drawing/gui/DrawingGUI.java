@@ -1,24 +1,60 @@
 package com.drawing.gui;
 
 import com.drawing.generator.DrawingGenerator;
+import com.drawing.generator.GenerationPipeline;
+import com.drawing.generator.GenerationScheduler;
 import com.drawing.generator.ParameterValidator;
+import com.drawing.generator.SlotGenerator;
+import com.drawing.io.PngEncoder;
+import com.drawing.io.QuantizedScene;
+import com.drawing.io.SceneFile;
+import com.drawing.io.SvgExporter;
+import com.drawing.model.Bounds;
 import com.drawing.model.Point;
+import com.drawing.model.SceneStore;
 import com.drawing.model.Shape;
+import com.drawing.render.DensityMap;
+import com.drawing.render.DiskTileCache;
+import com.drawing.render.DisplayList;
+import com.drawing.render.IntRaster;
+import com.drawing.render.PickBuffer;
+import com.drawing.render.SceneIndex;
+import com.drawing.render.SceneRasterizer;
+import com.drawing.render.TileCache;
+import com.drawing.render.TileKey;
+import com.drawing.render.TilePyramid;
+import com.drawing.render.Viewport;
+import com.drawing.util.ColorUtil;
 import com.drawing.util.MathUtil;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
+import javafx.scene.transform.Affine;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Графический интерфейс приложения генерации рисунков.
@@ -32,10 +68,74 @@ public class DrawingGUI extends Application {
     private static final int CANVAS_WIDTH = 800;
     private static final int CANVAS_HEIGHT = 600;
 
+    // Чувствительность масштабирования колесом мыши (на единицу deltaY)
+    private static final double SCROLL_ZOOM_SENSITIVITY = 0.002;
+
+    // Минимальная ширина чувствительной зоны контура при выборе фигуры, в пикселях
+    private static final double PICK_WIDTH = 6.0;
+    private static final Color HIGHLIGHT_COLOR = Color.rgb(255, 140, 0, 0.8);
+
+    // Параметры конвейера генерации: размер пакета, емкость очереди и бюджет кадра
+    private static final int GENERATION_BATCH_SIZE = 64;
+    private static final int GENERATION_QUEUE_CAPACITY = 8;
+    private static final long GENERATION_FRAME_BUDGET_NANOS = 8_000_000L;
+    // Интервал растровых кадров при потоковой генерации сцены больше RASTER_THRESHOLD
+    private static final long STREAMING_FRAME_INTERVAL_NANOS = 250_000_000L;
+
+    // Начиная с этого количества фигур сцена растеризуется в фоне и выводится одним изображением
+    private static final int RASTER_THRESHOLD = Integer.getInteger("drawing.rasterThreshold", 5000);
+
+    // Начиная с этого количества видимых фигур на пиксель холста вместо контуров выводится карта плотности
+    private static final double LOD_SHAPES_PER_PIXEL =
+            Double.parseDouble(System.getProperty("drawing.lodShapesPerPixel", "0.1"));
+    private static final int LOD_CELL_SIZE = 2;
+
+    // Бюджет памяти кэша плиток для больших сцен
+    private static final long TILE_CACHE_BYTES = Long.getLong("drawing.tileCacheBytes", 64L * 1024 * 1024);
+    private static final long TILE_BYTES = 4L * TilePyramid.TILE_SIZE * TilePyramid.TILE_SIZE;
+    // На сколько уровней вверх искать плитку-предка, пока нужная плитка не готова
+    private static final int TILE_FALLBACK_LEVELS = 6;
+
+    // Дисковый кэш плиток включается указанием пути к файлу кэша
+    private static final String DISK_TILE_CACHE_PATH = System.getProperty("drawing.diskTileCache");
+    private static final long DISK_TILE_CACHE_BYTES =
+            Long.getLong("drawing.diskTileCacheBytes", 512L * 1024 * 1024);
+
+    // Ширина изображения при экспорте в PNG; высота следует пропорциям холста
+    private static final int PNG_EXPORT_WIDTH = Integer.getInteger("drawing.pngExportWidth", 8192);
+
+    // Пауза в навигации, после которой список отображения перезаписывается для нового вида
+    private static final long VIEW_SETTLE_NANOS = 150_000_000L;
+
+    // Запас отсечения списка отображения: пока навигация не завершилась, список
+    // воспроизводится со сдвигом и масштабом, и за краем холста нужна записанная геометрия
+    private static final double CLIP_GUARD = Math.max(CANVAS_WIDTH, CANVAS_HEIGHT);
+
     private Canvas drawingCanvas;
     private GraphicsContext gc;
-    private List<Shape> currentShapes = new ArrayList<>();
-    private DrawingGenerator drawingGenerator;
+
+    // Прозрачный слой поверх холста для подсветки фигуры под курсором
+    private Canvas highlightCanvas;
+    private GraphicsContext highlightGc;
+    private PickBuffer pickBuffer;
+    private boolean pickBufferDirty = true;
+    // Для больших сцен буфер выбора строится в фоне; он действителен для версии сцены и вида, по которым построен
+    private long pickBufferVersion = -1;
+    private Viewport pickBufferViewport;
+    private boolean pickBufferInFlight;
+    private int hoveredIndex = -1;
+    private Tooltip shapeTooltip;
+    // Сцена (сгенерированная или загруженная) хранится в хранилище снимков; текущий список - его
+    // последний снимок, поэтому фоновые задачи получают его без копирования
+    private final SceneStore sceneStore = new SceneStore();
+    private List<Shape> currentShapes = sceneStore.snapshot();
+    // Параметры текущей сцены
+    private DrawingGenerator.GenerationParameters currentParameters;
+    // Генератор текущей сцены и выбранные при генерации типы: по ним сцена обновляется по частям
+    private SlotGenerator slotGenerator;
+    private List<String> currentShapeTypes = List.of();
+    private boolean incrementalUpdatePending;
+    private GenerationPipeline generationPipeline;
 
     // Текущие границы отображения
     private double currentMinX = -100;
@@ -43,6 +143,67 @@ public class DrawingGUI extends Application {
     private double currentMinY = -100;
     private double currentMaxY = 100;
 
+    // Перерисовка объединяется до одной на импульс анимации
+    private AnimationTimer redrawTimer;
+    private boolean redrawRequested;
+
+    // Растровый путь отрисовки для больших сцен
+    private final ExecutorService rasterExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "raster-renderer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final SceneRasterizer sceneRasterizer = new SceneRasterizer();
+    // Экспорт в PNG идет в своем потоке, чтобы не задерживать растровые кадры, буфер выбора и плитки
+    private final ExecutorService exportExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "png-exporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final DensityMap densityMap = new DensityMap(LOD_CELL_SIZE);
+    private WritableImage rasterImage;
+    private boolean rasterInFlight;
+    private boolean rasterPending;
+    // Время последнего растрового кадра, запрошенного во время потоковой генерации большой сцены
+    private long lastStreamingFrameNanos;
+    // Версия сцены; кадры, растеризованные для устаревшей версии, отбрасываются
+    private long sceneVersion;
+
+    // Пирамида плиток для больших сцен: плитки растеризуются параллельно в фоне
+    // и хранятся в кэше, пока сцена не изменится
+    private final ExecutorService tileExecutor = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1), runnable -> {
+                Thread thread = new Thread(runnable, "tile-renderer");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private final TileCache<WritableImage> tileCache = new TileCache<>(TILE_CACHE_BYTES, TILE_BYTES);
+    private final Set<TileKey> tilesInFlight = new HashSet<>();
+    private final DiskTileCache diskTileCache = openDiskTileCache();
+    // Плитки, нужные текущему кадру; фоновые задачи для остальных пропускаются
+    private volatile Set<TileKey> wantedTiles = Set.of();
+    private SceneIndex sceneIndex;
+    private TilePyramid tilePyramid;
+    private long sceneIndexVersion = -1;
+    private int sceneIndexSize = -1;
+    private boolean sceneIndexBuilding;
+    // Текущий вид собран из плиток; запоздавшие растровые кадры его не перекрывают
+    private boolean tileMode;
+
+    // Состояние перетаскивания холста мышью
+    private double dragLastX;
+    private double dragLastY;
+
+    // Кэш цветов JavaFX по значению ARGB, чтобы не создавать их на каждом кадре
+    private final Map<Integer, Color> colorCache = new HashMap<>();
+
+    // Список отображения текущей сцены; записывается заново при смене сцены
+    // или после того, как вид перестал меняться
+    private DisplayList displayList;
+    private long displayListVersion = -1;
+    private long lastNavigationNanos;
+    private boolean viewSettlePending;
+
     // Элементы управления
     private TextField shapeCountField;
     private TextField minXField;
@@ -75,8 +236,6 @@ public class DrawingGUI extends Application {
         logger.info("Starting graphical interface application");
 
         try {
-            drawingGenerator = new DrawingGenerator();
-
             // Инициализируем элементы управления ПЕРЕД их использованием
             initializeControls();
             initializeUI(primaryStage);
@@ -88,6 +247,41 @@ public class DrawingGUI extends Application {
         }
     }
 
+    @Override
+    public void stop() {
+        closeDiskTileCache();
+    }
+
+    /**
+     * Сбрасывает дисковый кэш плиток на диск и закрывает его.
+     */
+    private void closeDiskTileCache() {
+        if (diskTileCache != null) {
+            try {
+                diskTileCache.close();
+            } catch (IOException e) {
+                logger.error("Error closing disk tile cache: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Открывает дисковый кэш плиток, если он включен.
+     *
+     * @return кэш или null, если кэш выключен или не открылся
+     */
+    private static DiskTileCache openDiskTileCache() {
+        if (DISK_TILE_CACHE_PATH == null || DISK_TILE_CACHE_PATH.isBlank()) {
+            return null;
+        }
+        try {
+            return new DiskTileCache(Path.of(DISK_TILE_CACHE_PATH), DISK_TILE_CACHE_BYTES, (int) TILE_BYTES);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Disk tile cache disabled: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Инициализирует элементы управления.
      */
@@ -118,6 +312,13 @@ public class DrawingGUI extends Application {
         parabolaCheckBox.setSelected(true);
         trapezoidCheckBox.setSelected(true);
 
+        // Изменение количества (Enter) или набора типов обновляет текущую сцену по частям
+        shapeCountField.setOnAction(e -> scheduleIncrementalUpdate());
+        for (CheckBox checkBox : List.of(lineCheckBox, circleCheckBox, rectangleCheckBox,
+                triangleCheckBox, parabolaCheckBox, trapezoidCheckBox)) {
+            checkBox.selectedProperty().addListener((observable, oldValue, newValue) -> scheduleIncrementalUpdate());
+        }
+
         // Настраиваем размеры
         shapeCountField.setPrefWidth(150);
         minXField.setPrefWidth(150);
@@ -156,6 +357,7 @@ public class DrawingGUI extends Application {
 
         stage.setOnCloseRequest(event -> {
             logger.info("Application shutdown");
+            closeDiskTileCache();
             System.exit(0);
         });
     }
@@ -190,6 +392,30 @@ public class DrawingGUI extends Application {
 
         buttonBox.getChildren().addAll(generateButton, clearButton);
 
+        HBox fileButtonBox = new HBox(10);
+        fileButtonBox.setAlignment(Pos.CENTER);
+
+        Button saveButton = new Button("Сохранить");
+        saveButton.setPrefWidth(120);
+        saveButton.setOnAction(e -> saveScene());
+
+        Button openButton = new Button("Открыть");
+        openButton.setPrefWidth(120);
+        openButton.setOnAction(e -> openScene());
+
+        fileButtonBox.getChildren().addAll(saveButton, openButton);
+
+        Button exportButton = new Button("Экспорт SVG");
+        exportButton.setPrefWidth(120);
+        exportButton.setOnAction(e -> exportSvg());
+
+        Button exportPngButton = new Button("Экспорт PNG");
+        exportPngButton.setPrefWidth(120);
+        exportPngButton.setOnAction(e -> exportPng());
+
+        HBox exportButtonBox = new HBox(10, exportButton, exportPngButton);
+        exportButtonBox.setAlignment(Pos.CENTER);
+
         // Добавление элементов на панель
         controlPanel.getChildren().addAll(
                 titleLabel,
@@ -204,7 +430,9 @@ public class DrawingGUI extends Application {
                 new Label("Выберите типы фигур:"),
                 shapesPanel,
                 new Separator(),
-                buttonBox
+                buttonBox,
+                fileButtonBox,
+                exportButtonBox
         );
 
         return controlPanel;
@@ -257,6 +485,16 @@ public class DrawingGUI extends Application {
         // Холст для рисования
         drawingCanvas = new Canvas(CANVAS_WIDTH, CANVAS_HEIGHT);
         gc = drawingCanvas.getGraphicsContext2D();
+        highlightCanvas = new Canvas(CANVAS_WIDTH, CANVAS_HEIGHT);
+        highlightCanvas.setMouseTransparent(true);
+        highlightGc = highlightCanvas.getGraphicsContext2D();
+        pickBuffer = new PickBuffer(CANVAS_WIDTH, CANVAS_HEIGHT, PICK_WIDTH);
+        shapeTooltip = new Tooltip();
+        StackPane canvasStack = new StackPane(drawingCanvas, highlightCanvas);
+
+        installMouseNavigation();
+        installHoverPicking();
+        startRedrawTimer();
 
         // Панель инструментов для холста
         HBox canvasToolbar = new HBox(10);
@@ -276,7 +514,7 @@ public class DrawingGUI extends Application {
 
         canvasToolbar.getChildren().addAll(toggleGridButton, zoomInButton, zoomOutButton, resetViewButton);
 
-        displayArea.getChildren().addAll(canvasToolbar, drawingCanvas);
+        displayArea.getChildren().addAll(canvasToolbar, canvasStack);
 
         // Очистка холста при запуске
         clearCanvas();
@@ -437,34 +675,25 @@ public class DrawingGUI extends Application {
             // Валидация параметров
             ParameterValidator.validate(parameters);
 
-            // Генерация фигур
+            // Запуск конвейера: фигуры отрисовываются по мере генерации
             logger.info("Starting generation of {} shapes...", shapeCount);
-            currentShapes = drawingGenerator.generateShapes(parameters, selectedTypes);
-
-            logger.info("Shapes generated. Received: {} shapes", currentShapes.size());
-
-            if (currentShapes.isEmpty()) {
-                logger.warn("Failed to generate any shapes!");
-                updateStatus("Не удалось сгенерировать фигуры", "#FF0000");
-                return;
-            }
-
-            // Отображаем информацию о первых фигурах для отладки
-            for (int i = 0; i < Math.min(3, currentShapes.size()); i++) {
-                Shape shape = currentShapes.get(i);
-                List<Point> points = shape.getPoints();
-                logger.debug("Shape {}: type={}, color={}, points={}, lineWidth={}",
-                        i + 1, shape.getType(), shape.getColor(),
-                        points.size(), shape.getLineWidth());
-            }
-
-            // Очищаем холст и рисуем
+            cancelGeneration();
+            SlotGenerator generator = new SlotGenerator(new Random().nextLong());
+            GenerationPipeline pipeline = new GenerationPipeline(generator, parameters, selectedTypes,
+                    GENERATION_BATCH_SIZE, GENERATION_QUEUE_CAPACITY);
+            // Генерация идет в интерактивной полосе общего планировщика, впереди пакетных заданий
+            pipeline.start(GenerationScheduler.shared());
+
+            currentShapes = sceneStore.clear();
+            currentParameters = parameters;
+            slotGenerator = generator;
+            currentShapeTypes = selectedTypes;
+            sceneVersion++;
             clearCanvasForRedraw();
-            drawShapes();
             drawGrid(gridSize);
+            invalidatePicking();
 
-            logger.info("=== GENERATION AND RENDERING COMPLETED ===");
-            updateStatus(String.format("Сгенерировано %d фигур", currentShapes.size()), "#008000");
+            generationPipeline = pipeline;
 
         } catch (NumberFormatException e) {
             logger.error("Number format error: {}. Please use dot (.) as decimal separator", e.getMessage());
@@ -475,6 +704,9 @@ public class DrawingGUI extends Application {
             logger.error("Parameter validation error: {}", e.getMessage());
             updateStatus("Ошибка параметров", "#FF0000");
             showErrorDialog("Ошибка параметров", "Некорректные параметры", e.getMessage());
+        } catch (RejectedExecutionException e) {
+            logger.warn("Generation rejected by scheduler: {}", e.getMessage());
+            updateStatus("Генерация отклонена: планировщик перегружен, повторите позже", "#FF0000");
         } catch (Exception e) {
             logger.error("Unexpected error during generation: {}", e.getMessage(), e);
             updateStatus("Ошибка генерации", "#FF0000");
@@ -482,6 +714,321 @@ public class DrawingGUI extends Application {
         }
     }
 
+    /**
+     * Планирует обновление сцены по частям после изменения элементов управления.
+     * Несколько изменений подряд (например, кнопка "Все") объединяются в одно обновление.
+     */
+    private void scheduleIncrementalUpdate() {
+        if (!incrementalUpdatePending) {
+            incrementalUpdatePending = true;
+            Platform.runLater(() -> {
+                incrementalUpdatePending = false;
+                updateDrawingIncrementally();
+            });
+        }
+    }
+
+    /**
+     * Приводит сгенерированную сцену к новому количеству фигур и набору типов, не генерируя ее заново:
+     * при увеличении количества дописываются новые фигуры, при уменьшении отбрасываются последние,
+     * при смене типов заменяются только фигуры слотов, тип которых изменился.
+     * Остальные фигуры и их записи в списке отображения сохраняются.
+     * Границы, кучность и сетка берутся из параметров текущей сцены; для их смены сцена генерируется заново.
+     */
+    private void updateDrawingIncrementally() {
+        if (slotGenerator == null || currentParameters == null || generationPipeline != null) {
+            return;
+        }
+        List<String> selectedTypes = getSelectedShapeTypes();
+        if (selectedTypes.isEmpty()) {
+            updateStatus("Не выбрано ни одной фигуры: сцена не изменена", "#FF0000");
+            return;
+        }
+        DrawingGenerator.GenerationParameters parameters;
+        try {
+            int shapeCount = Integer.parseInt(normalizeNumber(shapeCountField.getText()));
+            parameters = new DrawingGenerator.GenerationParameters(shapeCount, currentParameters.getMinX(),
+                    currentParameters.getMaxX(), currentParameters.getMinY(), currentParameters.getMaxY(),
+                    currentParameters.getDensity(), currentParameters.getGridSize());
+            ParameterValidator.validate(parameters);
+        } catch (IllegalArgumentException e) {
+            updateStatus("Ошибка параметров: " + e.getMessage(), "#FF0000");
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        int oldCount = currentShapes.size();
+        int newCount = parameters.getShapeCount();
+        int[] changed = slotGenerator.changedSlots(Math.min(oldCount, newCount), currentShapeTypes, selectedTypes);
+        if (changed.length == 0 && oldCount == newCount) {
+            return;
+        }
+
+        for (int slot : changed) {
+            sceneStore.set(slot, slotGenerator.generateSlot(slot, parameters, selectedTypes));
+        }
+        if (newCount < oldCount) {
+            sceneStore.truncate(newCount);
+        }
+        List<Shape> added = new ArrayList<>();
+        for (int slot = oldCount; slot < newCount; slot++) {
+            added.add(slotGenerator.generateSlot(slot, parameters, selectedTypes));
+        }
+        currentShapes = sceneStore.addAll(added);
+
+        // Перезаписываются только записи замененных слотов; записи остальных фигур сохраняются.
+        // Индексы записей совпадают со слотами, только если список содержит запись каждой фигуры
+        boolean displayListCurrent = displayList != null && displayListVersion == sceneVersion
+                && displayList.getShapeCount() == oldCount;
+        sceneVersion++;
+        if (displayListCurrent && updateDisplayList(changed, newCount)) {
+            displayListVersion = sceneVersion;
+        }
+
+        currentParameters = parameters;
+        currentShapeTypes = selectedTypes;
+        invalidatePicking();
+        requestRedraw();
+        logger.info("Scene updated incrementally: {} -> {} shapes, {} slots replaced in {} us",
+                oldCount, newCount, changed.length, (System.nanoTime() - startTime) / 1000);
+        updateStatus(String.format("Сцена обновлена: %d фигур, заменено %d", newCount, changed.length), "#008000");
+    }
+
+    /**
+     * Заменяет в списке отображения записи измененных слотов, отбрасывает записи удаленных
+     * и дописывает новые фигуры. Возвращает false, если фигуру не удалось записать:
+     * тогда список перестает соответствовать слотам и записывается заново при отрисовке.
+     */
+    private boolean updateDisplayList(int[] changed, int newCount) {
+        try {
+            for (int slot : changed) {
+                displayList.replace(slot, currentShapes.get(slot));
+            }
+            displayList.truncate(Math.min(newCount, displayList.getShapeCount()));
+            for (int slot = displayList.getShapeCount(); slot < newCount; slot++) {
+                displayList.append(currentShapes.get(slot));
+            }
+            return true;
+        } catch (IllegalArgumentException e) {
+            logger.error("Error recording changed shapes: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Возвращает неизменяемый снимок текущей сцены для фоновых задач.
+     * Текущий список - неизменяемый снимок хранилища, поэтому снимок получается без копирования.
+     */
+    private List<Shape> sceneSnapshot() {
+        return currentShapes;
+    }
+
+    /**
+     * Создает диалог выбора файла сцены.
+     */
+    private FileChooser createSceneFileChooser(String title) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(title);
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Файлы сцен (*.scene)", "*.scene"),
+                new FileChooser.ExtensionFilter("Компактные файлы сцен (*.qscene)", "*.qscene"));
+        return chooser;
+    }
+
+    /**
+     * Сохраняет текущую сцену в двоичный файл. Запись выполняется в фоне.
+     */
+    private void saveScene() {
+        if (currentShapes.isEmpty()) {
+            updateStatus("Нет фигур для сохранения", "#FF0000");
+            return;
+        }
+        File file = createSceneFileChooser("Сохранение сцены").showSaveDialog(drawingCanvas.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        // Непустая сцена всегда сгенерирована или загружена, поэтому ее параметры известны
+        List<Shape> snapshot = sceneSnapshot();
+        DrawingGenerator.GenerationParameters parameters = currentParameters;
+        updateStatus("Сохранение...", "#FFA500");
+
+        rasterExecutor.execute(() -> {
+            try {
+                if (isQuantizedSceneFile(file)) {
+                    QuantizedScene.write(file.toPath(), parameters, snapshot,
+                            QuantizedScene.defaultStep(parameters));
+                } else {
+                    SceneFile.write(file.toPath(), parameters, snapshot, true);
+                }
+                Platform.runLater(() -> updateStatus(
+                        String.format("Сохранено %d фигур в %s", snapshot.size(), file.getName()), "#008000"));
+            } catch (IOException | RuntimeException e) {
+                logger.error("Error saving scene to {}: {}", file, e.getMessage(), e);
+                Platform.runLater(() -> {
+                    updateStatus("Ошибка сохранения", "#FF0000");
+                    showErrorDialog("Ошибка сохранения", "Не удалось сохранить сцену", e.getMessage());
+                });
+            }
+        });
+    }
+
+    private static boolean isQuantizedSceneFile(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith(".qscene");
+    }
+
+    /**
+     * Экспортирует текущую сцену в SVG с текущими границами вида. Запись выполняется в фоне;
+     * файлы с расширением .svgz сжимаются.
+     */
+    private void exportSvg() {
+        if (currentShapes.isEmpty()) {
+            updateStatus("Нет фигур для экспорта", "#FF0000");
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Экспорт в SVG");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Изображения SVG (*.svg)", "*.svg"),
+                new FileChooser.ExtensionFilter("Сжатые изображения SVG (*.svgz)", "*.svgz"));
+        File file = chooser.showSaveDialog(drawingCanvas.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        List<Shape> snapshot = sceneSnapshot();
+        Bounds viewBox = new Bounds(currentMinX, currentMinY, currentMaxX, currentMaxY);
+        updateStatus("Экспорт...", "#FFA500");
+
+        rasterExecutor.execute(() -> {
+            try {
+                long written = SvgExporter.export(file.toPath(), snapshot, viewBox, CANVAS_WIDTH);
+                Platform.runLater(() -> updateStatus(
+                        String.format("Экспортировано %d фигур в %s", written, file.getName()), "#008000"));
+            } catch (IOException | RuntimeException e) {
+                logger.error("Error exporting SVG to {}: {}", file, e.getMessage(), e);
+                Platform.runLater(() -> {
+                    updateStatus("Ошибка экспорта", "#FF0000");
+                    showErrorDialog("Ошибка экспорта", "Не удалось экспортировать рисунок", e.getMessage());
+                });
+            }
+        });
+    }
+
+    /**
+     * Растеризует текущий вид в высоком разрешении и сохраняет в PNG.
+     * Растеризация и кодирование выполняются в фоне горизонтальными полосами, поэтому
+     * полный растр в памяти не собирается; сжатие распределяется по ядрам.
+     */
+    private void exportPng() {
+        if (currentShapes.isEmpty()) {
+            updateStatus("Нет фигур для экспорта", "#FF0000");
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Экспорт в PNG");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Изображения PNG (*.png)", "*.png"));
+        File file = chooser.showSaveDialog(drawingCanvas.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        List<Shape> snapshot = sceneSnapshot();
+        int height = (int) Math.round((double) PNG_EXPORT_WIDTH * CANVAS_HEIGHT / CANVAS_WIDTH);
+        Viewport viewport = new Viewport(currentMinX, currentMaxX, currentMinY, currentMaxY,
+                PNG_EXPORT_WIDTH, height);
+        updateStatus("Экспорт...", "#FFA500");
+
+        exportExecutor.execute(() -> {
+            try {
+                long startTime = System.nanoTime();
+                DisplayList displayList = DisplayList.record(snapshot, viewport);
+                PngEncoder encoder = new PngEncoder();
+                checkExportMemory(encoder.sourceMemoryBytes(PNG_EXPORT_WIDTH));
+                // Все цвета фигур непрозрачны, фон белый - альфа-канал не нужен
+                encoder.write(file.toPath(), PNG_EXPORT_WIDTH, height, false, (fromRow, toRow) ->
+                        SceneRasterizer.renderBand(displayList, fromRow, toRow, ColorUtil.WHITE).getPixels());
+                logger.info("Exported {}x{} PNG to {} in {} ms", PNG_EXPORT_WIDTH, height, file,
+                        (System.nanoTime() - startTime) / 1_000_000);
+                Platform.runLater(() -> updateStatus(
+                        String.format("Экспортировано %dx%d в %s", PNG_EXPORT_WIDTH, height, file.getName()),
+                        "#008000"));
+            } catch (IOException | RuntimeException e) {
+                logger.error("Error exporting PNG to {}: {}", file, e.getMessage(), e);
+                Platform.runLater(() -> {
+                    updateStatus("Ошибка экспорта", "#FF0000");
+                    showErrorDialog("Ошибка экспорта", "Не удалось экспортировать рисунок", e.getMessage());
+                });
+            }
+        });
+    }
+
+    /**
+     * Проверяет до растеризации, что буферам полос хватит свободной памяти.
+     *
+     * @param bandBytes память под полосы растра
+     * @throws IllegalStateException если памяти недостаточно
+     */
+    private static void checkExportMemory(long bandBytes) {
+        Runtime runtime = Runtime.getRuntime();
+        long available = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        if (bandBytes > available) {
+            throw new IllegalStateException(String.format(
+                    "Not enough memory to export PNG: %d MB required for raster bands, %d MB available; "
+                            + "reduce drawing.pngExportWidth or increase -Xmx", bandBytes >> 20, available >> 20));
+        }
+    }
+
+    /**
+     * Открывает сцену из двоичного файла. Фигуры читаются из файла один раз и помещаются
+     * в хранилище сцены, как и сгенерированные: все читатели работают со снимками хранилища.
+     */
+    private void openScene() {
+        File file = createSceneFileChooser("Открытие сцены").showOpenDialog(drawingCanvas.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        try {
+            // Компактный файл читается целиком, обычный - отображается в память
+            DrawingGenerator.GenerationParameters parameters;
+            List<Shape> shapes;
+            if (isQuantizedSceneFile(file)) {
+                QuantizedScene quantized = QuantizedScene.read(file.toPath());
+                parameters = quantized.getParameters();
+                shapes = quantized.getShapes();
+            } else {
+                SceneFile scene = SceneFile.open(file.toPath());
+                parameters = scene.getParameters();
+                shapes = scene.getShapes();
+            }
+
+            cancelGeneration();
+            slotGenerator = null;
+            currentParameters = parameters;
+            currentShapes = sceneStore.reset(shapes);
+            sceneVersion++;
+
+            if (parameters.getMinX() < parameters.getMaxX() && parameters.getMinY() < parameters.getMaxY()) {
+                currentMinX = parameters.getMinX();
+                currentMaxX = parameters.getMaxX();
+                currentMinY = parameters.getMinY();
+                currentMaxY = parameters.getMaxY();
+            }
+            shapeCountField.setText(String.valueOf(parameters.getShapeCount()));
+            densitySlider.setValue(parameters.getDensity());
+            gridSizeField.setText(String.valueOf(parameters.getGridSize()));
+
+            invalidatePicking();
+            requestRedraw();
+            updateStatus(String.format("Загружено %d фигур из %s", shapes.size(), file.getName()), "#008000");
+        } catch (IOException e) {
+            logger.error("Error opening scene {}: {}", file, e.getMessage());
+            updateStatus("Ошибка чтения файла", "#FF0000");
+            showErrorDialog("Ошибка чтения", "Не удалось открыть файл сцены", e.getMessage());
+        }
+    }
+
     /**
      * Нормализует числовую строку - заменяет запятые на точки и удаляет лишние пробелы.
      */
@@ -493,7 +1040,7 @@ public class DrawingGUI extends Application {
     }
 
     /**
-     * Отрисовывает все фигуры на холсте.
+     * Отрисовывает все фигуры на холсте воспроизведением списка отображения.
      */
     private void drawShapes() {
         logger.debug("Starting shapes rendering. Count: {}", currentShapes.size());
@@ -503,54 +1050,123 @@ public class DrawingGUI extends Application {
             return;
         }
 
-        int renderedCount = 0;
+        DisplayList list = currentDisplayList();
+        replayDisplayList(list, 0, list.getShapeCount());
 
-        for (Shape shape : currentShapes) {
-            try {
-                drawShape(shape);
-                renderedCount++;
-            } catch (Exception e) {
-                logger.error("Error rendering shape {}: {}", shape.getType(), e.getMessage());
+        logger.debug("Rendered {} shapes out of {}", list.getShapeCount(), currentShapes.size());
+    }
+
+    /**
+     * Возвращает список отображения текущей сцены, перезаписывая его,
+     * если сцена изменилась или вид изменился и навигация завершилась.
+     * Во время навигации используется прежний список с поправочным преобразованием.
+     */
+    private DisplayList currentDisplayList() {
+        Viewport viewport = currentViewport();
+        boolean viewSettled = System.nanoTime() - lastNavigationNanos >= VIEW_SETTLE_NANOS;
+
+        if (displayList == null || displayListVersion != sceneVersion
+                || (viewSettled && !displayList.getViewport().equals(viewport))) {
+            long startTime = System.nanoTime();
+            DisplayList list = new DisplayList(viewport, CLIP_GUARD);
+            for (Shape shape : currentShapes) {
+                appendToDisplayList(list, shape);
             }
+            displayList = list;
+            displayListVersion = sceneVersion;
+            logger.debug("Display list recorded for {} shapes in {} us", list.getShapeCount(),
+                    (System.nanoTime() - startTime) / 1000);
         }
+        return displayList;
+    }
+
+    /**
+     * Добавляет фигуру в список отображения, пропуская фигуры с ошибками.
+     */
+    private void appendToDisplayList(DisplayList list, Shape shape) {
+        try {
+            list.append(shape);
+        } catch (Exception e) {
+            logger.error("Error rendering shape {}: {}", shape.getType(), e.getMessage());
+        }
+    }
 
-        logger.debug("Rendered {} shapes out of {}", renderedCount, currentShapes.size());
+    /**
+     * Воспроизводит фигуры из диапазона списка отображения на холст.
+     * Если список записан для другого вида, на контекст устанавливается одно
+     * поправочное преобразование вместо пересчета координат.
+     */
+    private void replayDisplayList(DisplayList list, int fromShape, int toShape) {
+        Affine replayTransform = createReplayTransform(list.getViewport());
+        double strokeScale = Math.sqrt(Math.abs(replayTransform.getMxx() * replayTransform.getMyy()));
+
+        gc.save();
+        gc.setTransform(replayTransform);
+        try {
+            list.replay(new GraphicsContextRenderer(gc, strokeScale, colorCache), fromShape, toShape);
+        } finally {
+            gc.restore();
+        }
     }
 
     /**
-     * Отрисовывает одну фигуру на холсте.
+     * Создает преобразование из системы холста записанного вида в систему холста текущего вида.
      */
-    private void drawShape(Shape shape) {
-        gc.setStroke(Color.web(shape.getColor()));
-        gc.setLineWidth(shape.getLineWidth());
+    private Affine createReplayTransform(Viewport recorded) {
+        Viewport viewport = currentViewport();
+        return new Affine(
+                viewport.getScaleX() / recorded.getScaleX(), 0, viewport.toCanvasX(recorded.toWorldX(0)),
+                0, viewport.getScaleY() / recorded.getScaleY(), viewport.toCanvasY(recorded.toWorldY(0))
+        );
+    }
 
+    /**
+     * Строит путь контура фигуры на указанном контексте в координатах области.
+     *
+     * @return false если у фигуры нет точек
+     */
+    private boolean traceShapePath(GraphicsContext context, Shape shape) {
         var points = shape.getPoints();
         if (points.isEmpty()) {
-            return;
+            return false;
         }
 
-        // Преобразование первой точки
-        double firstX = mapToCanvasX(points.get(0).getX());
-        double firstY = mapToCanvasY(points.get(0).getY());
+        Point first = points.get(0);
 
         // Начало пути
-        gc.beginPath();
-        gc.moveTo(firstX, firstY);
+        context.beginPath();
+        context.moveTo(first.getX(), first.getY());
 
         // Добавление остальных точек
         for (int i = 1; i < points.size(); i++) {
-            double x = mapToCanvasX(points.get(i).getX());
-            double y = mapToCanvasY(points.get(i).getY());
-            gc.lineTo(x, y);
+            Point point = points.get(i);
+            context.lineTo(point.getX(), point.getY());
         }
 
         // Замыкание пути для замкнутых фигур
-        if (!shape.getType().equals("Line") && !shape.getType().equals("Parabola")) {
-            gc.lineTo(firstX, firstY);
+        if (shape.isClosed()) {
+            context.closePath();
         }
+        return true;
+    }
+
+    /**
+     * Создает аффинное преобразование из системы области в систему холста
+     * для текущих границ отображения (ось Y инвертирована).
+     */
+    private Affine createViewTransform() {
+        Viewport viewport = currentViewport();
+        return new Affine(
+                viewport.getScaleX(), 0, viewport.toCanvasX(0),
+                0, -viewport.getScaleY(), viewport.toCanvasY(0)
+        );
+    }
 
-        // Отрисовка
-        gc.stroke();
+    /**
+     * Возвращает снимок текущих границ отображения.
+     */
+    private Viewport currentViewport() {
+        return new Viewport(currentMinX, currentMaxX, currentMinY, currentMaxY, CANVAS_WIDTH, CANVAS_HEIGHT);
     }
 
     /**
@@ -637,9 +1253,14 @@ public class DrawingGUI extends Application {
      * Очищает холст.
      */
     private void clearCanvas() {
+        cancelGeneration();
         gc.setFill(Color.WHITE);
         gc.fillRect(0, 0, CANVAS_WIDTH, CANVAS_HEIGHT);
-        currentShapes.clear();
+        currentShapes = sceneStore.clear();
+        currentParameters = null;
+        slotGenerator = null;
+        sceneVersion++;
+        invalidatePicking();
         updateStatus("Холст очищен", "#666666");
     }
 
@@ -660,31 +1281,344 @@ public class DrawingGUI extends Application {
     }
 
     /**
-     * Изменяет масштаб холста.
+     * Изменяет масштаб холста относительно его центра.
      */
     private void zoomCanvas(double factor) {
-        try {
-            logger.debug("Zooming canvas with factor: {}", factor);
+        zoomAt(CANVAS_WIDTH / 2.0, CANVAS_HEIGHT / 2.0, factor);
+    }
 
-            // Сохраняем центр текущего вида
-            double centerX = (currentMinX + currentMaxX) / 2;
-            double centerY = (currentMinY + currentMaxY) / 2;
+    /**
+     * Изменяет масштаб так, чтобы точка области под указанной точкой холста осталась на месте.
+     *
+     * @param canvasX координата X точки привязки на холсте
+     * @param canvasY координата Y точки привязки на холсте
+     * @param factor коэффициент масштабирования (больше 1 - приближение)
+     */
+    private void zoomAt(double canvasX, double canvasY, double factor) {
+        logger.debug("Zooming canvas with factor {} at ({}, {})", factor, canvasX, canvasY);
 
-            // Вычисляем новые границы
-            double width = (currentMaxX - currentMinX) / factor;
-            double height = (currentMaxY - currentMinY) / factor;
+        // Вычисляем новые границы
+        double width = (currentMaxX - currentMinX) / factor;
+        double height = (currentMaxY - currentMinY) / factor;
 
-            // Проверяем минимальные размеры
-            if (width < 1.0 || height < 1.0) {
-                logger.warn("Cannot zoom further - minimum size reached");
-                updateStatus("Достигнут минимальный масштаб", "#FFA500");
-                return;
+        // Проверяем минимальные размеры
+        if (width < 1.0 || height < 1.0) {
+            logger.warn("Cannot zoom further - minimum size reached");
+            updateStatus("Достигнут минимальный масштаб", "#FFA500");
+            return;
+        }
+
+        // Доли холста слева и снизу от точки привязки (ось Y инвертирована)
+        double fractionX = canvasX / CANVAS_WIDTH;
+        double fractionY = 1.0 - canvasY / CANVAS_HEIGHT;
+        double anchorX = MathUtil.lerp(currentMinX, currentMaxX, fractionX);
+        double anchorY = MathUtil.lerp(currentMinY, currentMaxY, fractionY);
+
+        currentMinX = anchorX - fractionX * width;
+        currentMaxX = currentMinX + width;
+        currentMinY = anchorY - fractionY * height;
+        currentMaxY = currentMinY + height;
+
+        onViewChanged();
+    }
+
+    /**
+     * Сдвигает область отображения на заданное смещение в пикселях холста.
+     */
+    private void panBy(double deltaCanvasX, double deltaCanvasY) {
+        double deltaX = deltaCanvasX * (currentMaxX - currentMinX) / CANVAS_WIDTH;
+        double deltaY = deltaCanvasY * (currentMaxY - currentMinY) / CANVAS_HEIGHT;
+
+        currentMinX -= deltaX;
+        currentMaxX -= deltaX;
+        currentMinY += deltaY;
+        currentMaxY += deltaY;
+
+        onViewChanged();
+    }
+
+    /**
+     * Сообщает об изменении границ отображения и запрашивает перерисовку.
+     */
+    private void onViewChanged() {
+        lastNavigationNanos = System.nanoTime();
+        viewSettlePending = true;
+        requestRedraw();
+        updateStatus(String.format("Масштаб изменен: x∈[%.1f, %.1f], y∈[%.1f, %.1f]",
+                currentMinX, currentMaxX, currentMinY, currentMaxY), "#666666");
+    }
+
+    /**
+     * Подключает масштабирование колесом мыши и перетаскивание холста.
+     */
+    private void installMouseNavigation() {
+        drawingCanvas.addEventHandler(ScrollEvent.SCROLL, event -> {
+            if (event.getDeltaY() != 0) {
+                double factor = Math.exp(event.getDeltaY() * SCROLL_ZOOM_SENSITIVITY);
+                zoomAt(event.getX(), event.getY(), factor);
+            }
+            event.consume();
+        });
+
+        drawingCanvas.addEventHandler(MouseEvent.MOUSE_PRESSED, event -> {
+            if (event.getButton() == MouseButton.PRIMARY) {
+                dragLastX = event.getX();
+                dragLastY = event.getY();
+            }
+        });
+
+        drawingCanvas.addEventHandler(MouseEvent.MOUSE_DRAGGED, event -> {
+            if (event.isPrimaryButtonDown()) {
+                panBy(event.getX() - dragLastX, event.getY() - dragLastY);
+                dragLastX = event.getX();
+                dragLastY = event.getY();
+            }
+        });
+    }
+
+    /**
+     * Подключает подсветку и всплывающую подсказку для фигуры под курсором.
+     */
+    private void installHoverPicking() {
+        drawingCanvas.addEventHandler(MouseEvent.MOUSE_MOVED, event -> {
+            int index = pickShape(event.getX(), event.getY());
+            if (index != hoveredIndex) {
+                setHoveredShape(index);
+            }
+            if (index >= 0) {
+                shapeTooltip.show(drawingCanvas, event.getScreenX() + 14, event.getScreenY() + 14);
+            }
+        });
+
+        drawingCanvas.addEventHandler(MouseEvent.MOUSE_EXITED, event -> setHoveredShape(-1));
+        drawingCanvas.addEventHandler(MouseEvent.MOUSE_DRAGGED, event -> setHoveredShape(-1));
+    }
+
+    /**
+     * Возвращает индекс верхней фигуры под точкой холста.
+     * Буфер идентификаторов перестраивается не чаще одного раза после каждой отрисовки.
+     * Для больших сцен он строится в фоновом потоке растеризации; пока буфер для текущего
+     * вида не готов, фигура под курсором не выбирается.
+     */
+    private int pickShape(double canvasX, double canvasY) {
+        if (currentShapes.size() > RASTER_THRESHOLD) {
+            if (pickBufferVersion != sceneVersion || !currentViewport().equals(pickBufferViewport)) {
+                requestPickBuffer();
+                return -1;
+            }
+        } else if (pickBufferDirty) {
+            long startTime = System.nanoTime();
+            pickBuffer.rebuild(currentShapes, currentViewport());
+            pickBufferDirty = false;
+            logger.debug("Pick buffer rebuilt in {} us", (System.nanoTime() - startTime) / 1000);
+        }
+        int index = pickBuffer.pick(canvasX, canvasY);
+        return index < currentShapes.size() ? index : -1;
+    }
+
+    /**
+     * Запускает построение буфера выбора большой сцены в потоке растеризации.
+     * Одновременно строится не более одного буфера; устаревший результат отбрасывается,
+     * и следующее движение курсора заказывает новый.
+     */
+    private void requestPickBuffer() {
+        if (pickBufferInFlight) {
+            return;
+        }
+        pickBufferInFlight = true;
+
+        List<Shape> snapshot = sceneSnapshot();
+        Viewport viewport = currentViewport();
+        long version = sceneVersion;
+
+        rasterExecutor.execute(() -> {
+            PickBuffer buffer = null;
+            try {
+                long startTime = System.nanoTime();
+                buffer = new PickBuffer(CANVAS_WIDTH, CANVAS_HEIGHT, PICK_WIDTH);
+                buffer.rebuild(snapshot, viewport);
+                logger.debug("Pick buffer for {} shapes built in {} us", snapshot.size(),
+                        (System.nanoTime() - startTime) / 1000);
+            } catch (Exception e) {
+                logger.error("Error building pick buffer: {}", e.getMessage(), e);
+            }
+            PickBuffer result = buffer;
+            Platform.runLater(() -> onPickBufferBuilt(result, version, viewport));
+        });
+    }
+
+    /**
+     * Принимает построенный в фоне буфер выбора. Вызывается в потоке JavaFX.
+     */
+    private void onPickBufferBuilt(PickBuffer buffer, long version, Viewport viewport) {
+        pickBufferInFlight = false;
+        if (buffer != null && version == sceneVersion && viewport.equals(currentViewport())) {
+            pickBuffer = buffer;
+            pickBufferVersion = version;
+            pickBufferViewport = viewport;
+            // Буфер малой сцены строится заново при следующем обращении
+            pickBufferDirty = true;
+        }
+    }
+
+    /**
+     * Устанавливает фигуру под курсором: обновляет подсветку и текст подсказки.
+     *
+     * @param index индекс фигуры или -1, если фигуры под курсором нет
+     */
+    private void setHoveredShape(int index) {
+        hoveredIndex = index;
+        highlightGc.clearRect(0, 0, CANVAS_WIDTH, CANVAS_HEIGHT);
+
+        if (index < 0) {
+            shapeTooltip.hide();
+            return;
+        }
+
+        Shape shape = currentShapes.get(index);
+        shapeTooltip.setText(shape.toString());
+
+        Affine viewTransform = createViewTransform();
+        double strokeScale = Math.sqrt(Math.abs(viewTransform.getMxx() * viewTransform.getMyy()));
+
+        highlightGc.save();
+        highlightGc.setTransform(viewTransform);
+        highlightGc.setStroke(HIGHLIGHT_COLOR);
+        highlightGc.setLineWidth((shape.getLineWidth() + 4) / strokeScale);
+        if (traceShapePath(highlightGc, shape)) {
+            highlightGc.stroke();
+        }
+        highlightGc.restore();
+    }
+
+    /**
+     * Отмечает, что содержимое холста изменилось и буфер выбора устарел.
+     */
+    private void invalidatePicking() {
+        pickBufferDirty = true;
+        if (hoveredIndex >= 0) {
+            setHoveredShape(-1);
+        }
+    }
+
+    /**
+     * Запускает таймер, выполняющий не более одной перерисовки за импульс анимации.
+     */
+    private void startRedrawTimer() {
+        redrawTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (viewSettlePending && System.nanoTime() - lastNavigationNanos >= VIEW_SETTLE_NANOS) {
+                    viewSettlePending = false;
+                    requestRedraw();
+                }
+                if (redrawRequested) {
+                    redrawRequested = false;
+                    redrawView();
+                }
+                if (generationPipeline != null) {
+                    drainGeneration();
+                }
             }
+        };
+        redrawTimer.start();
+    }
+
+    /**
+     * Забирает из конвейера порцию готовых фигур в пределах бюджета кадра,
+     * дописывает их в список отображения и дорисовывает поверх уже отображенных.
+     */
+    private void drainGeneration() {
+        GenerationPipeline pipeline = generationPipeline;
+        List<Shape> drainedShapes = new ArrayList<>();
+        int drained = pipeline.drain(GENERATION_FRAME_BUDGET_NANOS, drainedShapes::add);
+
+        if (currentShapes.size() + drainedShapes.size() > RASTER_THRESHOLD) {
+            // Большая сцена выводится только растровыми кадрами: фигуры не записываются
+            // в список отображения и не рисуются на холсте поверх кадра
+            currentShapes = sceneStore.addAll(drainedShapes);
+            displayList = null;
+            tileMode = false;
+            long now = System.nanoTime();
+            if (drained > 0 && now - lastStreamingFrameNanos >= STREAMING_FRAME_INTERVAL_NANOS) {
+                lastStreamingFrameNanos = now;
+                requestRasterFrame();
+            }
+        } else {
+            DisplayList list = currentDisplayList();
+            int firstNewShape = list.getShapeCount();
+            for (Shape shape : drainedShapes) {
+                appendToDisplayList(list, shape);
+            }
+            currentShapes = sceneStore.addAll(drainedShapes);
+            replayDisplayList(list, firstNewShape, list.getShapeCount());
+        }
+
+        if (drained > 0) {
+            invalidatePicking();
+            updateStatus(String.format("Генерация... %d фигур", currentShapes.size()), "#FFA500");
+        }
+        if (pipeline.isFinished()) {
+            generationPipeline = null;
+            onGenerationFinished(pipeline.getFailure());
+        }
+    }
+
+    /**
+     * Завершает генерацию: сообщает результат и перерисовывает вид с сеткой поверх фигур.
+     */
+    private void onGenerationFinished(Throwable failure) {
+        if (failure != null) {
+            updateStatus("Ошибка генерации", "#FF0000");
+            showErrorDialog("Ошибка", "Ошибка при генерации", failure.getMessage());
+            return;
+        }
+
+        logger.info("Shapes generated. Received: {} shapes", currentShapes.size());
+
+        if (currentShapes.isEmpty()) {
+            logger.warn("Failed to generate any shapes!");
+            updateStatus("Не удалось сгенерировать фигуры", "#FF0000");
+            return;
+        }
+
+        // Отображаем информацию о первых фигурах для отладки
+        for (int i = 0; i < Math.min(3, currentShapes.size()); i++) {
+            Shape shape = currentShapes.get(i);
+            List<Point> points = shape.getPoints();
+            logger.debug("Shape {}: type={}, color={}, points={}, lineWidth={}",
+                    i + 1, shape.getType(), shape.getColor(),
+                    points.size(), shape.getLineWidth());
+        }
+
+        requestRedraw();
+        logger.info("=== GENERATION AND RENDERING COMPLETED ===");
+        updateStatus(String.format("Сгенерировано %d фигур", currentShapes.size()), "#008000");
+    }
 
-            currentMinX = centerX - width / 2;
-            currentMaxX = centerX + width / 2;
-            currentMinY = centerY - height / 2;
-            currentMaxY = centerY + height / 2;
+    /**
+     * Отменяет текущую фоновую генерацию, если она выполняется.
+     */
+    private void cancelGeneration() {
+        if (generationPipeline != null) {
+            generationPipeline.cancel();
+            generationPipeline = null;
+        }
+    }
+
+    /**
+     * Запрашивает перерисовку на ближайшем импульсе анимации.
+     */
+    private void requestRedraw() {
+        redrawRequested = true;
+    }
+
+    /**
+     * Перерисовывает фигуры и сетку для текущих границ отображения.
+     */
+    private void redrawView() {
+        try {
+            long startTime = System.nanoTime();
 
             // Обновляем поля ввода
             minXField.setText(String.format("%.1f", currentMinX));
@@ -692,25 +1626,307 @@ public class DrawingGUI extends Application {
             minYField.setText(String.format("%.1f", currentMinY));
             maxYField.setText(String.format("%.1f", currentMaxY));
 
+            if (currentShapes.size() > RASTER_THRESHOLD) {
+                drawLargeScene();
+                return;
+            }
+
             // Перерисовываем
             clearCanvasForRedraw();
             drawShapes();
+            invalidatePicking();
+            drawGridFromField();
 
-            // Рисуем сетку с текущим размером
-            String gridSizeText = normalizeNumber(gridSizeField.getText());
+            logger.debug("View redrawn in {} us", (System.nanoTime() - startTime) / 1000);
+
+        } catch (Exception e) {
+            logger.error("Error during redraw: {}", e.getMessage());
+            updateStatus("Ошибка масштабирования", "#FF0000");
+        }
+    }
+
+    /**
+     * Рисует сетку с размером из поля ввода.
+     */
+    private void drawGridFromField() {
+        String gridSizeText = normalizeNumber(gridSizeField.getText());
+        try {
+            int gridSize = Integer.parseInt(gridSizeText);
+            drawGrid(gridSize);
+        } catch (NumberFormatException e) {
+            drawGrid(10); // Значение по умолчанию
+        }
+    }
+
+    /**
+     * Выводит большую сцену: из плиток пирамиды, а при сильном уменьшении,
+     * когда нужна карта плотности, или пока индекс сцены не построен - одним растровым кадром.
+     */
+    private void drawLargeScene() {
+        tileMode = false;
+        SceneIndex index = currentSceneIndex();
+        if (index == null) {
+            requestRasterFrame();
+            return;
+        }
+
+        Viewport viewport = currentViewport();
+        int visible = index.countIntersecting(viewport.getMinX(), viewport.getMinY(),
+                viewport.getMaxX(), viewport.getMaxY());
+        if (visible / ((double) viewport.getWidth() * viewport.getHeight()) > LOD_SHAPES_PER_PIXEL) {
+            wantedTiles = Set.of();
+            requestRasterFrame();
+            return;
+        }
+
+        tileMode = true;
+        composeTiles(index, viewport);
+    }
+
+    /**
+     * Возвращает индекс текущей сцены или null, если он еще строится.
+     * Построение запускается в фоне при первом обращении после изменения сцены.
+     */
+    private SceneIndex currentSceneIndex() {
+        if (sceneIndexVersion == sceneVersion && sceneIndexSize == currentShapes.size()) {
+            return sceneIndex;
+        }
+        if (!sceneIndexBuilding) {
+            sceneIndexBuilding = true;
+            List<Shape> snapshot = sceneSnapshot();
+            long version = sceneVersion;
+
+            rasterExecutor.execute(() -> {
+                SceneIndex index = null;
+                try {
+                    long startTime = System.nanoTime();
+                    index = SceneIndex.build(snapshot);
+                    logger.debug("Scene index for {} shapes built in {} us", snapshot.size(),
+                            (System.nanoTime() - startTime) / 1000);
+                } catch (Exception e) {
+                    logger.error("Error building scene index: {}", e.getMessage(), e);
+                }
+                SceneIndex result = index;
+                Platform.runLater(() -> onSceneIndexBuilt(result, version));
+            });
+        }
+        return null;
+    }
+
+    /**
+     * Принимает построенный индекс сцены и сбрасывает плитки прежней сцены.
+     * Вызывается в потоке JavaFX.
+     */
+    private void onSceneIndexBuilt(SceneIndex index, long version) {
+        sceneIndexBuilding = false;
+        if (index == null) {
+            return;
+        }
+        if (version == sceneVersion) {
+            sceneIndex = index;
+            sceneIndexVersion = version;
+            sceneIndexSize = index.size();
+            tilePyramid = new TilePyramid(index.getSceneBounds());
+            tileCache.clear();
+            tilesInFlight.clear();
+        }
+        // Если сцена успела измениться, следующий кадр запустит новое построение
+        requestRedraw();
+    }
+
+    /**
+     * Собирает вид из плиток подходящего уровня пирамиды. Недостающие плитки
+     * заказываются в фоне, а на их месте выводится увеличенная часть плитки-предка.
+     */
+    private void composeTiles(SceneIndex index, Viewport viewport) {
+        TilePyramid pyramid = tilePyramid;
+        int level = pyramid.levelFor(Math.max(viewport.getScaleX(), viewport.getScaleY()));
+        int[] range = pyramid.tileRange(level, viewport);
+
+        clearCanvasForRedraw();
+        Set<TileKey> wanted = new HashSet<>();
+        for (int tileY = range[1]; tileY <= range[3]; tileY++) {
+            for (int tileX = range[0]; tileX <= range[2]; tileX++) {
+                TileKey key = new TileKey(level, tileX, tileY);
+                WritableImage tile = tileCache.get(key);
+                if (tile != null) {
+                    drawTile(pyramid, viewport, key, tile, key);
+                } else {
+                    wanted.add(key);
+                    drawTileFallback(pyramid, viewport, key);
+                }
+            }
+        }
+
+        wantedTiles = Set.copyOf(wanted);
+        for (TileKey key : wanted) {
+            requestTile(index, pyramid, key);
+        }
+
+        invalidatePicking();
+        drawGridFromField();
+    }
+
+    /**
+     * Выводит на место плитки target часть изображения плитки source (source - это target или ее предок).
+     */
+    private void drawTile(TilePyramid pyramid, Viewport viewport, TileKey target, WritableImage image, TileKey source) {
+        int levels = target.getLevel() - source.getLevel();
+        double sourceSize = (double) TilePyramid.TILE_SIZE / (1 << levels);
+        double sourceX = (target.getTileX() - ((long) source.getTileX() << levels)) * sourceSize;
+        double sourceY = (target.getTileY() - ((long) source.getTileY() << levels)) * sourceSize;
+
+        Viewport tileViewport = pyramid.tileViewport(target);
+        // Границы округляются наружу, чтобы между соседними плитками не было щелей
+        double left = Math.floor(viewport.toCanvasX(tileViewport.getMinX()));
+        double right = Math.ceil(viewport.toCanvasX(tileViewport.getMaxX()));
+        double top = Math.floor(viewport.toCanvasY(tileViewport.getMaxY()));
+        double bottom = Math.ceil(viewport.toCanvasY(tileViewport.getMinY()));
+
+        gc.drawImage(image, sourceX, sourceY, sourceSize, sourceSize, left, top, right - left, bottom - top);
+    }
+
+    /**
+     * Выводит вместо недостающей плитки ближайшую готовую плитку-предка.
+     */
+    private void drawTileFallback(TilePyramid pyramid, Viewport viewport, TileKey key) {
+        int maxLevels = Math.min(key.getLevel(), TILE_FALLBACK_LEVELS);
+        for (int levels = 1; levels <= maxLevels; levels++) {
+            TileKey ancestor = key.ancestor(levels);
+            WritableImage image = tileCache.get(ancestor);
+            if (image != null) {
+                drawTile(pyramid, viewport, key, image, ancestor);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Заказывает фоновую растеризацию плитки, если она еще не заказана.
+     */
+    private void requestTile(SceneIndex index, TilePyramid pyramid, TileKey key) {
+        if (!tilesInFlight.add(key)) {
+            return;
+        }
+
+        tileExecutor.execute(() -> {
+            int[] pixels = null;
+            // Пока задача ждала в очереди, вид мог уйти от этой плитки
+            if (wantedTiles.contains(key)) {
+                try {
+                    pixels = loadOrRenderTile(index, pyramid, key);
+                } catch (Exception e) {
+                    logger.error("Error rendering tile {}: {}", key, e.getMessage(), e);
+                }
+            }
+            int[] result = pixels;
+            Platform.runLater(() -> onTileRendered(index, key, result));
+        });
+    }
+
+    /**
+     * Берет копию плитки из дискового кэша или растеризует ее и сохраняет в кэш.
+     * Выполняется в фоновом потоке.
+     */
+    private int[] loadOrRenderTile(SceneIndex index, TilePyramid pyramid, TileKey key) {
+        if (diskTileCache != null) {
+            int[] cached = diskTileCache.get(index.getContentHash(), key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        IntRaster raster = pyramid.renderTile(index, key, ColorUtil.WHITE);
+        if (diskTileCache != null) {
+            diskTileCache.put(index.getContentHash(), key, raster.getPixels());
+        }
+        return raster.getPixels();
+    }
+
+    /**
+     * Загружает готовую плитку в изображение и кэширует ее. Вызывается в потоке JavaFX.
+     */
+    private void onTileRendered(SceneIndex index, TileKey key, int[] pixels) {
+        if (index != sceneIndex) {
+            return;
+        }
+        tilesInFlight.remove(key);
+        if (pixels == null) {
+            return;
+        }
+
+        WritableImage image = new WritableImage(TilePyramid.TILE_SIZE, TilePyramid.TILE_SIZE);
+        image.getPixelWriter().setPixels(0, 0, TilePyramid.TILE_SIZE, TilePyramid.TILE_SIZE,
+                PixelFormat.getIntArgbInstance(), pixels, 0, TilePyramid.TILE_SIZE);
+        tileCache.put(key, image);
+        logger.trace("Tile {} cached, {} tiles ({} bytes)", key, tileCache.size(), tileCache.getSizeInBytes());
+        requestRedraw();
+    }
+
+    /**
+     * Запускает фоновую растеризацию текущего вида.
+     * Одновременно выполняется не более одной растеризации; запросы,
+     * пришедшие во время ее выполнения, объединяются в один следующий кадр.
+     */
+    private void requestRasterFrame() {
+        if (rasterInFlight) {
+            rasterPending = true;
+            return;
+        }
+        rasterInFlight = true;
+
+        List<Shape> snapshot = sceneSnapshot();
+        Viewport viewport = currentViewport();
+        long version = sceneVersion;
+
+        rasterExecutor.execute(() -> {
+            IntRaster raster = null;
             try {
-                int gridSize = Integer.parseInt(gridSizeText);
-                drawGrid(gridSize);
-            } catch (NumberFormatException e) {
-                drawGrid(10); // Значение по умолчанию
+                long startTime = System.nanoTime();
+                long visible = DensityMap.countVisible(snapshot, viewport);
+                double shapesPerPixel = visible / ((double) viewport.getWidth() * viewport.getHeight());
+                if (shapesPerPixel > LOD_SHAPES_PER_PIXEL) {
+                    raster = densityMap.render(snapshot, viewport, ColorUtil.WHITE);
+                    logger.debug("Density map for {} visible shapes ({} per pixel) built in {} us", visible,
+                            String.format(Locale.ROOT, "%.3f", shapesPerPixel), (System.nanoTime() - startTime) / 1000);
+                } else {
+                    raster = sceneRasterizer.render(snapshot, viewport, ColorUtil.WHITE);
+                    logger.debug("Rasterized {} shapes in {} us", snapshot.size(),
+                            (System.nanoTime() - startTime) / 1000);
+                }
+            } catch (Exception e) {
+                logger.error("Error during background rasterization: {}", e.getMessage(), e);
             }
+            IntRaster result = raster;
+            Platform.runLater(() -> presentRasterFrame(result, version));
+        });
+    }
+
+    /**
+     * Выводит растеризованный кадр на холст одной загрузкой через PixelWriter.
+     * Вызывается в потоке JavaFX.
+     */
+    private void presentRasterFrame(IntRaster raster, long version) {
+        rasterInFlight = false;
 
-            updateStatus(String.format("Масштаб изменен: x∈[%.1f, %.1f], y∈[%.1f, %.1f]",
-                    currentMinX, currentMaxX, currentMinY, currentMaxY), "#666666");
+        if (raster != null && version == sceneVersion && !tileMode) {
+            if (rasterImage == null) {
+                rasterImage = new WritableImage(CANVAS_WIDTH, CANVAS_HEIGHT);
+            }
+            rasterImage.getPixelWriter().setPixels(0, 0, raster.getWidth(), raster.getHeight(),
+                    PixelFormat.getIntArgbInstance(), raster.getPixels(), 0, raster.getWidth());
+            gc.drawImage(rasterImage, 0, 0);
+            invalidatePicking();
+            drawGridFromField();
+            // После завершения навигации буфер выбора строится следом за кадром,
+            // чтобы подсказка была готова к наведению курсора
+            if (System.nanoTime() - lastNavigationNanos >= VIEW_SETTLE_NANOS) {
+                requestPickBuffer();
+            }
+        }
 
-        } catch (Exception e) {
-            logger.error("Error during zoom: {}", e.getMessage());
-            updateStatus("Ошибка масштабирования", "#FF0000");
+        if (rasterPending) {
+            rasterPending = false;
+            requestRasterFrame();
         }
     }
 
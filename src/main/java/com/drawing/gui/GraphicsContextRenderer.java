@@ -0,0 +1,84 @@
+package com.drawing.gui;
+
+import com.drawing.render.DisplayListRenderer;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Воспроизведение списка отображения на холст JavaFX.
+ * Преобразование контекста может отличаться от тождественного
+ * (например, при перемещении вида до перезаписи списка); толщина линии
+ * компенсируется так, чтобы оставаться заданной в пикселях экрана.
+ */
+public class GraphicsContextRenderer implements DisplayListRenderer {
+
+    private final GraphicsContext gc;
+    private final double strokeScale;
+    private final Map<Integer, Color> colorCache;
+
+    /**
+     * Конструктор приемника.
+     *
+     * @param gc графический контекст холста
+     * @param strokeScale масштаб текущего преобразования контекста
+     * @param colorCache кэш цветов JavaFX по значению ARGB
+     */
+    public GraphicsContextRenderer(GraphicsContext gc, double strokeScale, Map<Integer, Color> colorCache) {
+        this.gc = gc;
+        this.strokeScale = strokeScale;
+        this.colorCache = colorCache;
+    }
+
+    /**
+     * Конструктор приемника без преобразования и с собственным кэшем цветов.
+     *
+     * @param gc графический контекст холста
+     */
+    public GraphicsContextRenderer(GraphicsContext gc) {
+        this(gc, 1.0, new HashMap<>());
+    }
+
+    @Override
+    public void setStroke(int argb, double lineWidth) {
+        gc.setStroke(colorCache.computeIfAbsent(argb, GraphicsContextRenderer::toColor));
+        gc.setLineWidth(lineWidth / strokeScale);
+    }
+
+    @Override
+    public void polyline(float[] coords, int offset, int vertexCount, boolean closed) {
+        gc.beginPath();
+        gc.moveTo(coords[offset], coords[offset + 1]);
+        for (int i = 1; i < vertexCount; i++) {
+            gc.lineTo(coords[offset + 2 * i], coords[offset + 2 * i + 1]);
+        }
+        if (closed) {
+            gc.closePath();
+        }
+        gc.stroke();
+    }
+
+    @Override
+    public void ellipse(double centerX, double centerY, double radiusX, double radiusY) {
+        gc.strokeOval(centerX - radiusX, centerY - radiusY, 2 * radiusX, 2 * radiusY);
+    }
+
+    @Override
+    public void rect(double x, double y, double width, double height) {
+        gc.strokeRect(x, y, width, height);
+    }
+
+    @Override
+    public void quadCurve(double x0, double y0, double controlX, double controlY, double x1, double y1) {
+        gc.beginPath();
+        gc.moveTo(x0, y0);
+        gc.quadraticCurveTo(controlX, controlY, x1, y1);
+        gc.stroke();
+    }
+
+    private static Color toColor(int argb) {
+        return Color.rgb((argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF, ((argb >>> 24) & 0xFF) / 255.0);
+    }
+}
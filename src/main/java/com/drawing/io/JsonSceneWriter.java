@@ -0,0 +1,117 @@
+package com.drawing.io;
+
+import com.drawing.generator.DrawingGenerator.GenerationParameters;
+import com.drawing.model.Circle;
+import com.drawing.model.Parabola;
+import com.drawing.model.Point;
+import com.drawing.model.Rectangle;
+import com.drawing.model.Shape;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Запись сцены в JSON.
+ * <p>
+ * Окружность, прямоугольник и парабола записываются своими параметрами,
+ * остальные фигуры - списком вершин {@code [[x, y], ...]}.
+ */
+public final class JsonSceneWriter {
+
+    /**
+     * Приватный конструктор для предотвращения создания экземпляров.
+     */
+    private JsonSceneWriter() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Записывает параметры генерации, seed и фигуры одним объектом JSON.
+     *
+     * @param out получатель текста; не закрывается
+     * @param parameters параметры генерации
+     * @param seed начальное значение генерации
+     * @param shapes фигуры в порядке отрисовки
+     * @throws IOException при ошибке записи
+     */
+    public static void write(Writer out, GenerationParameters parameters, long seed,
+                             List<? extends Shape> shapes) throws IOException {
+        out.write("{\"seed\":");
+        out.write(Long.toString(seed));
+        out.write(",\"parameters\":{\"shapeCount\":");
+        out.write(Integer.toString(parameters.getShapeCount()));
+        writeField(out, "minX", parameters.getMinX());
+        writeField(out, "maxX", parameters.getMaxX());
+        writeField(out, "minY", parameters.getMinY());
+        writeField(out, "maxY", parameters.getMaxY());
+        writeField(out, "density", parameters.getDensity());
+        out.write(",\"gridSize\":");
+        out.write(Integer.toString(parameters.getGridSize()));
+        out.write("},\"shapes\":[");
+        for (int i = 0; i < shapes.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeShape(out, shapes.get(i));
+        }
+        out.write("]}");
+    }
+
+    private static void writeShape(Writer out, Shape shape) throws IOException {
+        // Тип и цвет - имена классов и #RRGGBB, экранирование не требуется
+        out.write("{\"type\":\"");
+        out.write(shape.getType());
+        out.write("\",\"color\":\"");
+        out.write(shape.getColor());
+        out.write('"');
+        writeField(out, "lineWidth", shape.getLineWidth());
+
+        if (shape instanceof Circle) {
+            Circle circle = (Circle) shape;
+            writeField(out, "x", circle.getCenter().getX());
+            writeField(out, "y", circle.getCenter().getY());
+            writeField(out, "radius", circle.getRadius());
+        } else if (shape instanceof Rectangle) {
+            Rectangle rectangle = (Rectangle) shape;
+            writeField(out, "x", rectangle.getTopLeft().getX());
+            writeField(out, "y", rectangle.getTopLeft().getY());
+            writeField(out, "width", rectangle.getWidth());
+            writeField(out, "height", rectangle.getHeight());
+        } else if (shape instanceof Parabola) {
+            Parabola parabola = (Parabola) shape;
+            writeField(out, "a", parabola.getA());
+            writeField(out, "b", parabola.getB());
+            writeField(out, "c", parabola.getC());
+            writeField(out, "xMin", parabola.getXMin());
+            writeField(out, "xMax", parabola.getXMax());
+        } else {
+            out.write(",\"points\":[");
+            List<Point> points = shape.getPoints();
+            for (int i = 0; i < points.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write('[');
+                writeNumber(out, points.get(i).getX());
+                out.write(',');
+                writeNumber(out, points.get(i).getY());
+                out.write(']');
+            }
+            out.write(']');
+        }
+        out.write('}');
+    }
+
+    private static void writeField(Writer out, String name, double value) throws IOException {
+        out.write(",\"");
+        out.write(name);
+        out.write("\":");
+        writeNumber(out, value);
+    }
+
+    // В JSON нет NaN и бесконечностей
+    private static void writeNumber(Writer out, double value) throws IOException {
+        out.write(Double.isFinite(value) ? Double.toString(value) : "null");
+    }
+}
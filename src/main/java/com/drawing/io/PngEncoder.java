@@ -0,0 +1,613 @@
+package com.drawing.io;
+
+import com.drawing.render.IntRaster;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Многопоточный кодировщик PNG для растра сцены.
+ * <p>
+ * Изображение делится на полосы строк. Каждая полоса фильтруется и сжимается
+ * независимо, в отдельной задаче; в качестве словаря берутся последние 32 КБ
+ * предыдущей полосы, поэтому степень сжатия почти не страдает. Полоса завершается
+ * синхронизирующим сбросом (SYNC_FLUSH), и сжатые полосы просто склеиваются
+ * в один поток zlib, как это делает pigz. Контрольная сумма Adler-32 всего потока
+ * собирается из сумм полос.
+ * <p>
+ * Полностью непрозрачный растр записывается без альфа-канала (RGB), иначе - RGBA.
+ * Одновременно в работе находится ограниченное число полос, так что дополнительная
+ * память не зависит от высоты изображения.
+ * <p>
+ * Изображение, которое не помещается в память целиком, кодируется из {@link RowSource}:
+ * источник растеризует крупные полосы строк по запросу, пока уже полученные полосы сжимаются.
+ */
+public class PngEncoder {
+
+    private static final Logger logger = LogManager.getLogger(PngEncoder.class);
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = "IHDR".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IEND = "IEND".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int COLOR_TYPE_RGB = 2;
+    private static final int COLOR_TYPE_RGBA = 6;
+
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+    private static final int FILTER_UP = 2;
+
+    // Окно deflate
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int DEFAULT_BAND_BYTES = 512 * 1024;
+    // Объем пикселей, запрашиваемых у источника строк за раз
+    private static final int DEFAULT_SOURCE_BAND_BYTES = 32 * 1024 * 1024;
+    private static final int ADLER_BASE = 65521;
+
+    private final Executor executor;
+    private final int compressionLevel;
+    private final int bandBytes;
+    private final int sourceBandBytes;
+    private final int maxBandsInFlight;
+
+    /**
+     * Источник строк изображения, растеризуемого по частям.
+     */
+    @FunctionalInterface
+    public interface RowSource {
+
+        /**
+         * Растеризует строки [fromRow, toRow). Строки запрашиваются по порядку, каждая один раз.
+         *
+         * @param fromRow первая строка
+         * @param toRow строка за последней строкой
+         * @return пиксели ARGB построчно, (toRow - fromRow) * ширина значений;
+         *         кодировщик читает массив до завершения сжатия, поэтому его нельзя переиспользовать
+         * @throws IOException при ошибке получения строк
+         */
+        int[] rows(int fromRow, int toRow) throws IOException;
+    }
+
+    /**
+     * Создает кодировщик, использующий общий пул потоков и быстрое сжатие.
+     */
+    public PngEncoder() {
+        this(ForkJoinPool.commonPool(), Deflater.BEST_SPEED);
+    }
+
+    /**
+     * Конструктор кодировщика.
+     *
+     * @param executor исполнитель задач сжатия полос
+     * @param compressionLevel уровень сжатия deflate (1-9)
+     * @throws IllegalArgumentException если уровень сжатия вне диапазона
+     */
+    public PngEncoder(Executor executor, int compressionLevel) {
+        this(executor, compressionLevel, DEFAULT_BAND_BYTES);
+    }
+
+    PngEncoder(Executor executor, int compressionLevel, int bandBytes) {
+        this(executor, compressionLevel, bandBytes, DEFAULT_SOURCE_BAND_BYTES);
+    }
+
+    PngEncoder(Executor executor, int compressionLevel, int bandBytes, int sourceBandBytes) {
+        if (compressionLevel < Deflater.BEST_SPEED || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between 1 and 9");
+        }
+        this.executor = executor;
+        this.compressionLevel = compressionLevel;
+        this.bandBytes = bandBytes;
+        this.sourceBandBytes = sourceBandBytes;
+        this.maxBandsInFlight = 2 * Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Кодирует растр в файл PNG.
+     *
+     * @param file путь к файлу
+     * @param raster растр в формате ARGB
+     * @throws IOException при ошибке записи
+     */
+    public void write(Path file, IntRaster raster) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            encode(raster.getPixels(), raster.getWidth(), raster.getHeight(), channel);
+        }
+    }
+
+    /**
+     * Кодирует в файл PNG изображение, строки которого растеризуются по частям.
+     *
+     * @param file путь к файлу
+     * @param width ширина изображения
+     * @param height высота изображения
+     * @param alpha записывать ли альфа-канал; без него прозрачность пикселей отбрасывается
+     * @param source источник строк
+     * @throws IOException при ошибке записи или получения строк
+     */
+    public void write(Path file, int width, int height, boolean alpha, RowSource source) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            encode(width, height, alpha, source, channel);
+        }
+    }
+
+    /**
+     * Оценивает объем памяти, который занимают строки источника во время кодирования
+     * изображения указанной ширины: запрошенная полоса и полосы, которые еще сжимаются.
+     *
+     * @param width ширина изображения
+     * @return объем памяти в байтах
+     */
+    public long sourceMemoryBytes(int width) {
+        int bandRows = bandRows(width * 4);
+        int sourceRows = sourceBandRows(width, bandRows);
+        long sourceBands = ((long) maxBandsInFlight * bandRows + sourceRows - 1) / sourceRows + 1;
+        return sourceBands * sourceRows * width * Integer.BYTES;
+    }
+
+    /**
+     * Кодирует растр в PNG и записывает в канал.
+     *
+     * @param raster растр в формате ARGB
+     * @param channel канал для записи; не закрывается
+     * @throws IOException при ошибке записи
+     */
+    public void encode(IntRaster raster, WritableByteChannel channel) throws IOException {
+        encode(raster.getPixels(), raster.getWidth(), raster.getHeight(), channel);
+    }
+
+    /**
+     * Кодирует пиксели ARGB, записанные построчно, в PNG и записывает в канал.
+     *
+     * @param pixels пиксели
+     * @param width ширина изображения
+     * @param height высота изображения
+     * @param channel канал для записи; не закрывается
+     * @throws IllegalArgumentException если размеры не положительны или не соответствуют массиву
+     * @throws IOException при ошибке записи
+     */
+    public void encode(int[] pixels, int width, int height, WritableByteChannel channel) throws IOException {
+        if (width <= 0 || height <= 0 || (long) width * height != pixels.length) {
+            throw new IllegalArgumentException("Image size does not match the pixel array");
+        }
+        encode(width, height, hasTransparency(pixels), (fromRow, toRow) -> pixels, height, channel);
+    }
+
+    /**
+     * Кодирует в PNG изображение, строки которого растеризуются по частям, и записывает в канал.
+     * Строки запрашиваются у источника полосами, пока предыдущие полосы сжимаются.
+     *
+     * @param width ширина изображения
+     * @param height высота изображения
+     * @param alpha записывать ли альфа-канал; без него прозрачность пикселей отбрасывается
+     * @param source источник строк
+     * @param channel канал для записи; не закрывается
+     * @throws IllegalArgumentException если размеры не положительны или источник вернул массив неверного размера
+     * @throws IOException при ошибке записи или получения строк
+     */
+    public void encode(int width, int height, boolean alpha, RowSource source, WritableByteChannel channel)
+            throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image size must be positive");
+        }
+        encode(width, height, alpha, source, -1, channel);
+    }
+
+    private void encode(int width, int height, boolean alpha, RowSource source, int sourceRows,
+                        WritableByteChannel channel) throws IOException {
+        long startTime = System.nanoTime();
+
+        int bytesPerPixel = alpha ? 4 : 3;
+        if ((long) width * bytesPerPixel + 1 > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Image is too wide");
+        }
+        int rowBytes = width * bytesPerPixel;
+        int bandRows = bandRows(rowBytes);
+        if (sourceRows < 0) {
+            sourceRows = sourceBandRows(width, bandRows);
+        }
+        // Сжатию полосы нужны предыдущие строки: для словаря и для фильтра Up
+        int carryRows = (DICTIONARY_SIZE + rowBytes) / (rowBytes + 1) + 1;
+
+        writeFully(channel, ByteBuffer.wrap(SIGNATURE));
+        writeChunk(channel, IHDR, ByteBuffer.allocate(13)
+                .putInt(width)
+                .putInt(height)
+                .put((byte) 8)
+                .put((byte) (alpha ? COLOR_TYPE_RGBA : COLOR_TYPE_RGB))
+                .put((byte) 0)
+                .put((byte) 0)
+                .put((byte) 0)
+                .array(), 13, null, null);
+
+        // Полосы сжимаются параллельно, но записываются строго по порядку
+        ArrayDeque<CompletableFuture<Band>> inFlight = new ArrayDeque<>();
+        Image image = null;
+        int nextRow = 0;
+        long adler = 1;
+        long compressedBytes = 0;
+        boolean first = true;
+        while (nextRow < height || !inFlight.isEmpty()) {
+            while (nextRow < height && inFlight.size() < maxBandsInFlight) {
+                if (image == null || nextRow == image.endRow) {
+                    image = nextImage(image, source, width, height, bytesPerPixel, nextRow,
+                            Math.min(height, nextRow + sourceRows), carryRows);
+                }
+                Image bandImage = image;
+                int fromRow = nextRow;
+                int toRow = Math.min(image.endRow, fromRow + bandRows);
+                inFlight.add(CompletableFuture.supplyAsync(() -> compressBand(bandImage, fromRow, toRow), executor));
+                nextRow = toRow;
+            }
+
+            Band band = join(inFlight.poll());
+            adler = combineAdler32(adler, band.adler, band.rawLength);
+            boolean last = nextRow == height && inFlight.isEmpty();
+            byte[] prefix = first ? zlibHeader() : null;
+            byte[] suffix = last ? ByteBuffer.allocate(4).putInt((int) adler).array() : null;
+            writeChunk(channel, IDAT, band.data, band.length, prefix, suffix);
+            compressedBytes += band.length;
+            first = false;
+        }
+
+        writeChunk(channel, IEND, new byte[0], 0, null, null);
+        logger.debug("Encoded {}x{} PNG ({} bytes of image data) in {} ms", width, height, compressedBytes,
+                (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    private int bandRows(int rowBytes) {
+        return Math.max(1, bandBytes / (rowBytes + 1));
+    }
+
+    // Полоса источника - целое число полос сжатия
+    private int sourceBandRows(int width, int bandRows) {
+        long rows = sourceBandBytes / ((long) width * Integer.BYTES);
+        return (int) Math.max(bandRows, rows / bandRows * bandRows);
+    }
+
+    /**
+     * Запрашивает у источника строки [fromRow, toRow). Последние строки предыдущей
+     * полосы копируются, а не растеризуются заново: словарь и фильтр Up должны видеть
+     * в точности те строки, что уже записаны.
+     */
+    private static Image nextImage(Image previous, RowSource source, int width, int height, int bytesPerPixel,
+                                   int fromRow, int toRow, int carryRows) throws IOException {
+        int[] carry = null;
+        int carried = 0;
+        if (previous != null) {
+            carried = Math.min(fromRow, carryRows);
+            carry = new int[carried * width];
+            for (int y = fromRow - carried; y < fromRow; y++) {
+                int[] rowPixels = previous.pixelsOf(y);
+                System.arraycopy(rowPixels, previous.offsetOf(y), carry, (y - fromRow + carried) * width, width);
+            }
+        }
+        int[] pixels = source.rows(fromRow, toRow);
+        if (pixels == null || pixels.length < (long) (toRow - fromRow) * width) {
+            throw new IllegalArgumentException("Row source returned a pixel array of the wrong size");
+        }
+        return new Image(pixels, fromRow, toRow, carry, carried, width, height, bytesPerPixel);
+    }
+
+    private static Band join(CompletableFuture<Band> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("PNG band compression failed", e.getCause());
+        }
+    }
+
+    private static boolean hasTransparency(int[] pixels) {
+        for (int pixel : pixels) {
+            if ((pixel >>> 24) != 0xFF) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Заголовок zlib: окно 32 КБ, без словаря, признак уровня сжатия
+    private byte[] zlibHeader() {
+        int levelFlag = compressionLevel == 1 ? 0 : compressionLevel < 6 ? 1 : compressionLevel == 6 ? 2 : 3;
+        int header = 0x7800 | levelFlag << 6;
+        header += 31 - header % 31;
+        return new byte[]{(byte) (header >> 8), (byte) header};
+    }
+
+    /**
+     * Фильтрует и сжимает строки [fromRow, toRow). Словарем служит конец
+     * отфильтрованных данных предыдущих строк, которые для этого фильтруются повторно:
+     * выбор фильтра строки зависит только от нее самой и предыдущей строки.
+     */
+    private Band compressBand(Image image, int fromRow, int toRow) {
+        int stride = image.rowBytes + 1;
+        RowFilter filter = new RowFilter(image);
+
+        byte[] dictionary = null;
+        if (fromRow > 0) {
+            int dictionaryRows = Math.min(fromRow, (DICTIONARY_SIZE + stride - 1) / stride);
+            byte[] previous = new byte[dictionaryRows * stride];
+            for (int i = 0; i < dictionaryRows; i++) {
+                filter.filterRow(fromRow - dictionaryRows + i, previous, i * stride);
+            }
+            int dictionaryLength = Math.min(DICTIONARY_SIZE, previous.length);
+            dictionary = Arrays.copyOfRange(previous, previous.length - dictionaryLength, previous.length);
+        }
+
+        byte[] raw = new byte[(toRow - fromRow) * stride];
+        for (int y = fromRow; y < toRow; y++) {
+            filter.filterRow(y, raw, (y - fromRow) * stride);
+        }
+
+        Adler32 adler = new Adler32();
+        adler.update(raw);
+
+        Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(raw);
+            boolean last = toRow == image.height;
+            if (last) {
+                deflater.finish();
+            }
+
+            byte[] output = new byte[Math.max(1024, raw.length / 4)];
+            int length = 0;
+            while (true) {
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                int space = output.length - length;
+                int written = deflater.deflate(output, length, space, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                length += written;
+                if (last ? deflater.finished() : written < space) {
+                    break;
+                }
+            }
+            return new Band(output, length, adler.getValue(), raw.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Объединяет суммы Adler-32 двух последовательных блоков данных (как adler32_combine в zlib).
+     *
+     * @param adler1 сумма первого блока
+     * @param adler2 сумма второго блока
+     * @param length2 длина второго блока
+     * @return сумма объединенных данных
+     */
+    static long combineAdler32(long adler1, long adler2, long length2) {
+        long remainder = length2 % ADLER_BASE;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = remainder * sum1 % ADLER_BASE;
+        sum1 += (adler2 & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((adler1 >>> 16) & 0xFFFF) + ((adler2 >>> 16) & 0xFFFF) + ADLER_BASE - remainder;
+        sum1 %= ADLER_BASE;
+        sum2 %= ADLER_BASE;
+        return sum1 | (sum2 << 16);
+    }
+
+    private static void writeChunk(WritableByteChannel channel, byte[] type, byte[] data, int dataLength,
+                                   byte[] prefix, byte[] suffix) throws IOException {
+        int length = dataLength + (prefix != null ? prefix.length : 0) + (suffix != null ? suffix.length : 0);
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        ByteBuffer header = ByteBuffer.allocate(8 + (prefix != null ? prefix.length : 0));
+        header.putInt(length).put(type);
+        if (prefix != null) {
+            header.put(prefix);
+            crc.update(prefix);
+        }
+        crc.update(data, 0, dataLength);
+        ByteBuffer trailer = ByteBuffer.allocate(4 + (suffix != null ? suffix.length : 0));
+        if (suffix != null) {
+            trailer.put(suffix);
+            crc.update(suffix);
+        }
+        trailer.putInt((int) crc.getValue());
+
+        writeFully(channel, header.flip());
+        writeFully(channel, ByteBuffer.wrap(data, 0, dataLength));
+        writeFully(channel, trailer.flip());
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Строки [firstRow, endRow) исходного изображения, несколько предшествующих им строк
+     * и параметры строк.
+     */
+    private static final class Image {
+
+        final int[] pixels;
+        final int firstRow;
+        final int endRow;
+        final int[] carry;
+        final int carryRows;
+        final int width;
+        final int height;
+        final int bytesPerPixel;
+        final int rowBytes;
+
+        Image(int[] pixels, int firstRow, int endRow, int[] carry, int carryRows, int width, int height,
+              int bytesPerPixel) {
+            this.pixels = pixels;
+            this.firstRow = firstRow;
+            this.endRow = endRow;
+            this.carry = carry;
+            this.carryRows = carryRows;
+            this.width = width;
+            this.height = height;
+            this.bytesPerPixel = bytesPerPixel;
+            this.rowBytes = width * bytesPerPixel;
+        }
+
+        int[] pixelsOf(int y) {
+            return y >= firstRow ? pixels : carry;
+        }
+
+        int offsetOf(int y) {
+            return (y >= firstRow ? y - firstRow : y - firstRow + carryRows) * width;
+        }
+    }
+
+    /**
+     * Фильтрация строк с выбором фильтра по минимуму суммы модулей (эвристика libpng).
+     * Рассматриваются только фильтры None, Sub и Up: на штриховых рисунках с однотонным
+     * фоном Average и Paeth почти не выигрывают по эвристике, а там, где выигрывают,
+     * ухудшают сжатие, и при этом заметно дороже.
+     * Хранит рабочие буферы, поэтому используется одной задачей; строки выгоднее
+     * фильтровать подряд - тогда предыдущая строка не распаковывается повторно.
+     */
+    private static final class RowFilter {
+
+        private final Image image;
+        private byte[] current;
+        private byte[] previous;
+        private int currentRow = -1;
+
+        RowFilter(Image image) {
+            this.image = image;
+            this.current = new byte[image.rowBytes];
+            this.previous = new byte[image.rowBytes];
+        }
+
+        void filterRow(int y, byte[] target, int offset) {
+            if (y == currentRow + 1 && currentRow >= 0) {
+                byte[] swap = previous;
+                previous = current;
+                current = swap;
+            } else if (y > 0) {
+                unpackRow(y - 1, previous);
+            } else {
+                Arrays.fill(previous, (byte) 0);
+            }
+            unpackRow(y, current);
+            currentRow = y;
+
+            int filter = chooseFilter();
+            target[offset] = (byte) filter;
+            applyFilter(filter, target, offset + 1);
+        }
+
+        // Оценка фильтров за один проход, без записи результатов
+        private int chooseFilter() {
+            byte[] cur = current;
+            byte[] prev = previous;
+            int bpp = image.bytesPerPixel;
+            int n = image.rowBytes;
+            long sumNone = 0;
+            long sumSub = 0;
+            long sumUp = 0;
+
+            // Первый пиксель строки не имеет соседа слева
+            for (int i = 0; i < bpp; i++) {
+                sumNone += Math.abs(cur[i]);
+                sumSub += Math.abs(cur[i]);
+                sumUp += Math.abs((byte) (cur[i] - prev[i]));
+            }
+            for (int i = bpp; i < n; i++) {
+                sumNone += Math.abs(cur[i]);
+                sumSub += Math.abs((byte) (cur[i] - cur[i - bpp]));
+                sumUp += Math.abs((byte) (cur[i] - prev[i]));
+            }
+
+            if (sumUp < sumSub && sumUp < sumNone) {
+                return FILTER_UP;
+            }
+            return sumSub < sumNone ? FILTER_SUB : FILTER_NONE;
+        }
+
+        private void applyFilter(int filter, byte[] target, int offset) {
+            byte[] cur = current;
+            byte[] prev = previous;
+            int bpp = image.bytesPerPixel;
+            int n = image.rowBytes;
+            switch (filter) {
+                case FILTER_SUB:
+                    System.arraycopy(cur, 0, target, offset, bpp);
+                    for (int i = bpp; i < n; i++) {
+                        target[offset + i] = (byte) (cur[i] - cur[i - bpp]);
+                    }
+                    break;
+                case FILTER_UP:
+                    for (int i = 0; i < n; i++) {
+                        target[offset + i] = (byte) (cur[i] - prev[i]);
+                    }
+                    break;
+                default:
+                    System.arraycopy(cur, 0, target, offset, n);
+                    break;
+            }
+        }
+
+        private void unpackRow(int y, byte[] row) {
+            int[] pixels = image.pixelsOf(y);
+            int base = image.offsetOf(y);
+            int i = 0;
+            if (image.bytesPerPixel == 4) {
+                for (int x = 0; x < image.width; x++) {
+                    int pixel = pixels[base + x];
+                    row[i++] = (byte) (pixel >>> 16);
+                    row[i++] = (byte) (pixel >>> 8);
+                    row[i++] = (byte) pixel;
+                    row[i++] = (byte) (pixel >>> 24);
+                }
+            } else {
+                for (int x = 0; x < image.width; x++) {
+                    int pixel = pixels[base + x];
+                    row[i++] = (byte) (pixel >>> 16);
+                    row[i++] = (byte) (pixel >>> 8);
+                    row[i++] = (byte) pixel;
+                }
+            }
+        }
+    }
+
+    /**
+     * Результат сжатия полосы.
+     */
+    private static final class Band {
+
+        final byte[] data;
+        final int length;
+        final long adler;
+        final long rawLength;
+
+        Band(byte[] data, int length, long adler, long rawLength) {
+            this.data = data;
+            this.length = length;
+            this.adler = adler;
+            this.rawLength = rawLength;
+        }
+    }
+}
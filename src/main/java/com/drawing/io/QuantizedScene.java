@@ -0,0 +1,583 @@
+package com.drawing.io;
+
+import com.drawing.generator.DrawingGenerator.GenerationParameters;
+import com.drawing.model.Circle;
+import com.drawing.model.Line;
+import com.drawing.model.Parabola;
+import com.drawing.model.Point;
+import com.drawing.model.Rectangle;
+import com.drawing.model.Shape;
+import com.drawing.model.Trapezoid;
+import com.drawing.model.Triangle;
+import com.drawing.util.ColorUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Компактное представление сцены с квантованием координат - для файлов и передачи
+ * между процессами.
+ * <p>
+ * Координаты отображаются на решетку с шагом {@code step} и началом в центре
+ * области генерации, то есть хранятся номера узлов решетки. Первая вершина фигуры
+ * записывается абсолютно, остальные - приращением к предыдущей; все числа кодируются
+ * как varint (по 7 бит в байте), знаковые - с зигзаг-преобразованием, поэтому
+ * типичная координата занимает 2-3 байта вместо 8.
+ * <p>
+ * Погрешность. Каждая вершина, центр и радиус окружности, углы прямоугольника и концы
+ * отрезка значений x параболы восстанавливаются с ошибкой не более {@code step / 2}
+ * по каждой координате. Парабола хранится тремя точками кривой - на концах и в середине
+ * квантованного отрезка x; значения y в этих точках также округляются до решетки,
+ * и восстановленная кривая отличается от исходной по y не более чем на
+ * {@code 1.25 * step / 2} (1.25 - константа Лебега квадратичной интерполяции
+ * по трем равноотстоящим узлам). Толщина линии хранится с шагом 1/32 пикселя,
+ * цвет - без потерь.
+ * <p>
+ * Формат (потоковый, без произвольного доступа): сигнатура, версия, параметры
+ * генерации, шаг решетки, количество фигур и записи фигур. Запись начинается с байта
+ * типа фигуры, трех байтов цвета RGB и толщины линии.
+ */
+public final class QuantizedScene {
+
+    private static final Logger logger = LogManager.getLogger(QuantizedScene.class);
+
+    private static final int MAGIC = 0x43535144; // "DQSC"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int TYPE_LINE = 0;
+    private static final int TYPE_CIRCLE = 1;
+    private static final int TYPE_RECTANGLE = 2;
+    private static final int TYPE_TRIANGLE = 3;
+    private static final int TYPE_PARABOLA = 4;
+    private static final int TYPE_TRAPEZOID = 5;
+
+    private static final double LINE_WIDTH_STEP = 1.0 / 32;
+
+    // Число узлов решетки по большей стороне области при шаге по умолчанию
+    private static final int DEFAULT_LATTICE_SIZE = 1 << 16;
+
+    // Номера узлов ограничены, чтобы приращения не переполняли long
+    private static final long MAX_LATTICE_INDEX = 1L << 52;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final GenerationParameters parameters;
+    private final double step;
+    private final List<Shape> shapes;
+
+    private QuantizedScene(GenerationParameters parameters, double step, List<Shape> shapes) {
+        this.parameters = parameters;
+        this.step = step;
+        this.shapes = shapes;
+    }
+
+    /**
+     * Возвращает шаг решетки по умолчанию: 1/65536 большей стороны области генерации.
+     * При выводе такой области на изображение шириной 8192 пикселя погрешность
+     * не превышает 1/16 пикселя.
+     *
+     * @param parameters параметры генерации
+     * @return шаг решетки
+     */
+    public static double defaultStep(GenerationParameters parameters) {
+        double extent = Math.max(parameters.getMaxX() - parameters.getMinX(),
+                parameters.getMaxY() - parameters.getMinY());
+        return extent > 0 ? extent / DEFAULT_LATTICE_SIZE : 1.0 / DEFAULT_LATTICE_SIZE;
+    }
+
+    /**
+     * Записывает сцену в файл.
+     *
+     * @param file путь к файлу
+     * @param parameters параметры генерации сцены
+     * @param shapes фигуры в порядке отрисовки
+     * @param step шаг решетки координат
+     * @throws IllegalArgumentException если параметры не заданы, шаг не положителен,
+     *                                  координата не укладывается в решетку или фигура не поддерживается
+     * @throws IOException при ошибке записи
+     */
+    public static void write(Path file, GenerationParameters parameters, List<? extends Shape> shapes,
+                             double step) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out, parameters, shapes, step);
+        }
+    }
+
+    /**
+     * Записывает сцену в поток. Поток не закрывается.
+     *
+     * @param out поток для записи
+     * @param parameters параметры генерации сцены
+     * @param shapes фигуры в порядке отрисовки
+     * @param step шаг решетки координат
+     * @throws IllegalArgumentException если параметры не заданы, шаг не положителен,
+     *                                  координата не укладывается в решетку или фигура не поддерживается
+     * @throws IOException при ошибке записи
+     */
+    public static void write(OutputStream out, GenerationParameters parameters, List<? extends Shape> shapes,
+                             double step) throws IOException {
+        if (parameters == null) {
+            throw new IllegalArgumentException("Generation parameters must be specified");
+        }
+        if (!(step > 0) || Double.isInfinite(step)) {
+            throw new IllegalArgumentException("Lattice step must be positive");
+        }
+        long startTime = System.nanoTime();
+
+        Encoder encoder = new Encoder(out, parameters, step);
+        encoder.putInt(MAGIC);
+        encoder.putInt(FORMAT_VERSION);
+        encoder.putInt(parameters.getShapeCount());
+        encoder.putInt(parameters.getGridSize());
+        encoder.putDouble(parameters.getMinX());
+        encoder.putDouble(parameters.getMaxX());
+        encoder.putDouble(parameters.getMinY());
+        encoder.putDouble(parameters.getMaxY());
+        encoder.putDouble(parameters.getDensity());
+        encoder.putDouble(step);
+        encoder.putVarint(shapes.size());
+        for (Shape shape : shapes) {
+            encoder.putShape(shape);
+        }
+        encoder.flush();
+
+        logger.info("Quantized scene with {} shapes written ({} bytes) in {} ms", shapes.size(),
+                encoder.getBytesWritten(), (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    /**
+     * Читает сцену из файла.
+     *
+     * @param file путь к файлу
+     * @return прочитанная сцена
+     * @throws IOException если файл не читается, не является файлом сцены или поврежден
+     */
+    public static QuantizedScene read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Читает сцену из потока. Поток не закрывается. Данные читаются блоками, поэтому
+     * после вызова позиция потока может оказаться дальше конца записи сцены.
+     *
+     * @param in поток для чтения
+     * @return прочитанная сцена
+     * @throws IOException если данные не являются сценой или повреждены
+     */
+    public static QuantizedScene read(InputStream in) throws IOException {
+        Decoder decoder = new Decoder(in);
+        if (decoder.getInt() != MAGIC) {
+            throw new IOException("Not a quantized scene");
+        }
+        int version = decoder.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported quantized scene version: " + version);
+        }
+        int shapeCount = decoder.getInt();
+        int gridSize = decoder.getInt();
+        double minX = decoder.getDouble();
+        double maxX = decoder.getDouble();
+        double minY = decoder.getDouble();
+        double maxY = decoder.getDouble();
+        double density = decoder.getDouble();
+        GenerationParameters parameters = new GenerationParameters(shapeCount, minX, maxX, minY, maxY,
+                density, gridSize);
+        double step = decoder.getDouble();
+        if (!(step > 0) || Double.isInfinite(step)) {
+            throw new IOException("Corrupted quantized scene: invalid lattice step");
+        }
+
+        long count = decoder.getVarint();
+        if (count > Integer.MAX_VALUE - 8) {
+            throw new IOException("Corrupted quantized scene: invalid shape count");
+        }
+        decoder.setLattice(parameters, step);
+        // Емкость не берется из заголовка целиком: поврежденный счетчик не должен занимать память
+        List<Shape> shapes = new ArrayList<>((int) Math.min(count, 1 << 16));
+        for (long i = 0; i < count; i++) {
+            shapes.add(decoder.getShape());
+        }
+        return new QuantizedScene(parameters, step, Collections.unmodifiableList(shapes));
+    }
+
+    /**
+     * Возвращает параметры генерации, сохраненные вместе со сценой.
+     *
+     * @return параметры генерации
+     */
+    public GenerationParameters getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Возвращает шаг решетки, с которым была записана сцена.
+     *
+     * @return шаг решетки
+     */
+    public double getStep() {
+        return step;
+    }
+
+    /**
+     * Возвращает наибольшую ошибку восстановления координат вершин: половину шага решетки.
+     *
+     * @return наибольшая ошибка по каждой координате
+     */
+    public double getMaxError() {
+        return step / 2;
+    }
+
+    /**
+     * Возвращает неизменяемый список фигур в порядке отрисовки.
+     *
+     * @return список фигур
+     */
+    public List<Shape> getShapes() {
+        return shapes;
+    }
+
+    private static int typeOf(Shape shape) {
+        if (shape instanceof Line) {
+            return TYPE_LINE;
+        } else if (shape instanceof Circle) {
+            return TYPE_CIRCLE;
+        } else if (shape instanceof Rectangle) {
+            return TYPE_RECTANGLE;
+        } else if (shape instanceof Triangle) {
+            return TYPE_TRIANGLE;
+        } else if (shape instanceof Parabola) {
+            return TYPE_PARABOLA;
+        } else if (shape instanceof Trapezoid) {
+            return TYPE_TRAPEZOID;
+        }
+        throw new IllegalArgumentException("Unsupported shape type: " + shape.getType());
+    }
+
+    /**
+     * Решетка координат: начало в центре области генерации и шаг.
+     */
+    private static class Lattice {
+
+        double originX;
+        double originY;
+        double step;
+
+        void setLattice(GenerationParameters parameters, double step) {
+            this.originX = centerOf(parameters.getMinX(), parameters.getMaxX());
+            this.originY = centerOf(parameters.getMinY(), parameters.getMaxY());
+            this.step = step;
+        }
+
+        private static double centerOf(double min, double max) {
+            double center = (min + max) / 2;
+            return Double.isFinite(center) ? center : 0;
+        }
+
+        long quantizeX(double x) {
+            return quantize(x - originX);
+        }
+
+        long quantizeY(double y) {
+            return quantize(y - originY);
+        }
+
+        long quantize(double offset) {
+            double index = Math.rint(offset / step);
+            if (!(Math.abs(index) <= MAX_LATTICE_INDEX)) {
+                throw new IllegalArgumentException("Coordinate does not fit the lattice: " + offset);
+            }
+            return (long) index;
+        }
+
+        double x(long index) {
+            return originX + index * step;
+        }
+
+        double y(long index) {
+            return originY + index * step;
+        }
+    }
+
+    /**
+     * Кодировщик записей в буфер, сбрасываемый в поток.
+     */
+    private static final class Encoder extends Lattice {
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private long bytesWritten;
+
+        Encoder(OutputStream out, GenerationParameters parameters, double step) {
+            this.out = out;
+            setLattice(parameters, step);
+        }
+
+        void putShape(Shape shape) throws IOException {
+            int type = typeOf(shape);
+            int rgb = ColorUtil.parseArgb(shape.getColor());
+            putByte(type);
+            putByte(rgb >>> 16);
+            putByte(rgb >>> 8);
+            putByte(rgb);
+            double lineWidth = Math.rint(shape.getLineWidth() / LINE_WIDTH_STEP);
+            if (!(lineWidth >= 0 && lineWidth <= Integer.MAX_VALUE)) {
+                throw new IllegalArgumentException("Invalid line width: " + shape.getLineWidth());
+            }
+            putVarint((long) lineWidth);
+
+            switch (type) {
+                case TYPE_CIRCLE: {
+                    Circle circle = (Circle) shape;
+                    long[] center = quantizePoints(List.of(circle.getCenter()));
+                    putVertices(center);
+                    putVarint(Math.abs(quantize(circle.getRadius())));
+                    break;
+                }
+                case TYPE_RECTANGLE: {
+                    // Противоположный угол квантуется отдельно, чтобы ошибка каждой стороны
+                    // не превышала половины шага
+                    Rectangle rectangle = (Rectangle) shape;
+                    Point topLeft = rectangle.getTopLeft();
+                    putVertices(quantizePoints(List.of(topLeft, new Point(topLeft.getX() + rectangle.getWidth(),
+                            topLeft.getY() + rectangle.getHeight()))));
+                    break;
+                }
+                case TYPE_PARABOLA:
+                    putParabola((Parabola) shape);
+                    break;
+                default:
+                    putVertices(quantizePoints(shape.getPoints()));
+                    break;
+            }
+        }
+
+        private long[] quantizePoints(List<Point> points) {
+            long[] indices = new long[2 * points.size()];
+            for (int i = 0; i < points.size(); i++) {
+                indices[2 * i] = quantizeX(points.get(i).getX());
+                indices[2 * i + 1] = quantizeY(points.get(i).getY());
+            }
+            return indices;
+        }
+
+        // Первая вершина абсолютно, остальные - приращением к предыдущей
+        private void putVertices(long[] indices) throws IOException {
+            putSigned(indices[0]);
+            putSigned(indices[1]);
+            for (int i = 2; i < indices.length; i++) {
+                putSigned(indices[i] - indices[i - 2]);
+            }
+        }
+
+        /**
+         * Парабола записывается тремя точками кривой. Значения x узлов точно лежат
+         * на решетке (средний узел - на половине шага), а значения y вычисляются
+         * в этих узлах и округляются, поэтому ошибка восстановления определяется
+         * только округлением y.
+         */
+        private void putParabola(Parabola parabola) throws IOException {
+            long x0 = quantizeX(parabola.getXMin());
+            long x2 = quantizeX(parabola.getXMax());
+            double middle = (x(x0) + x(x2)) / 2;
+            long y0 = quantizeY(evaluate(parabola, x(x0)));
+            long y1 = quantizeY(evaluate(parabola, middle));
+            long y2 = quantizeY(evaluate(parabola, x(x2)));
+            putSigned(x0);
+            putSigned(y0);
+            putSigned(x2 - x0);
+            putSigned(y1 - y0);
+            putSigned(y2 - y1);
+        }
+
+        private static double evaluate(Parabola parabola, double x) {
+            return (parabola.getA() * x + parabola.getB()) * x + parabola.getC();
+        }
+
+        void putSigned(long value) throws IOException {
+            putVarint((value << 1) ^ (value >> 63));
+        }
+
+        void putVarint(long value) throws IOException {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            for (int i = 0; i < 4; i++) {
+                buffer[position++] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        void putDouble(double value) throws IOException {
+            long bits = Double.doubleToLongBits(value);
+            putInt((int) bits);
+            putInt((int) (bits >>> 32));
+        }
+
+        private void putByte(int value) throws IOException {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (BUFFER_SIZE - position < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            out.write(buffer, 0, position);
+            bytesWritten += position;
+            position = 0;
+            out.flush();
+        }
+
+        long getBytesWritten() {
+            return bytesWritten;
+        }
+    }
+
+    /**
+     * Декодировщик записей из потока, читаемого блоками.
+     */
+    private static final class Decoder extends Lattice {
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private int limit;
+
+        Decoder(InputStream in) {
+            this.in = in;
+        }
+
+        Shape getShape() throws IOException {
+            int type = getByte();
+            String color = ColorUtil.toHex(getByte() << 16 | getByte() << 8 | getByte());
+            double lineWidth = getVarint() * LINE_WIDTH_STEP;
+
+            switch (type) {
+                case TYPE_LINE: {
+                    long[] p = getVertices(2);
+                    return new Line(point(p, 0), point(p, 1), color, lineWidth);
+                }
+                case TYPE_CIRCLE: {
+                    long[] p = getVertices(1);
+                    return new Circle(point(p, 0), getVarint() * step, color, lineWidth);
+                }
+                case TYPE_RECTANGLE: {
+                    long[] p = getVertices(2);
+                    return new Rectangle(point(p, 0), (p[2] - p[0]) * step, (p[3] - p[1]) * step,
+                            color, lineWidth);
+                }
+                case TYPE_TRIANGLE: {
+                    long[] p = getVertices(3);
+                    return new Triangle(point(p, 0), point(p, 1), point(p, 2), color, lineWidth);
+                }
+                case TYPE_PARABOLA:
+                    return getParabola(color, lineWidth);
+                case TYPE_TRAPEZOID: {
+                    long[] p = getVertices(4);
+                    return new Trapezoid(point(p, 0), point(p, 1), point(p, 2), point(p, 3), color, lineWidth);
+                }
+                default:
+                    throw new IOException("Corrupted quantized scene: unknown shape type " + type);
+            }
+        }
+
+        private long[] getVertices(int count) throws IOException {
+            long[] indices = new long[2 * count];
+            indices[0] = getSigned();
+            indices[1] = getSigned();
+            for (int i = 2; i < indices.length; i++) {
+                indices[i] = indices[i - 2] + getSigned();
+            }
+            return indices;
+        }
+
+        private Point point(long[] indices, int vertex) {
+            return new Point(x(indices[2 * vertex]), y(indices[2 * vertex + 1]));
+        }
+
+        // Интерполяционный многочлен по трем равноотстоящим точкам кривой
+        private Shape getParabola(String color, double lineWidth) throws IOException {
+            long x0 = getSigned();
+            long y0 = getSigned();
+            long x2 = x0 + getSigned();
+            long y1 = y0 + getSigned();
+            long y2 = y1 + getSigned();
+
+            double xMin = x(x0);
+            double xMax = x(x2);
+            double v0 = y(y0);
+            double v1 = y(y1);
+            double v2 = y(y2);
+            if (x2 == x0) {
+                return new Parabola(0, 0, v1, xMin, xMax, color, lineWidth);
+            }
+            double middle = (xMin + xMax) / 2;
+            double half = (xMax - xMin) / 2;
+            double a = (v0 - 2 * v1 + v2) / (2 * half * half);
+            double slope = (v2 - v0) / (2 * half);
+            double b = slope - 2 * a * middle;
+            double c = v1 - (a * middle + b) * middle;
+            return new Parabola(a, b, c, xMin, xMax, color, lineWidth);
+        }
+
+        long getSigned() throws IOException {
+            long value = getVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long getVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = getByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Corrupted quantized scene: varint is too long");
+        }
+
+        int getInt() throws IOException {
+            return getByte() | getByte() << 8 | getByte() << 16 | getByte() << 24;
+        }
+
+        double getDouble() throws IOException {
+            long low = getInt() & 0xFFFFFFFFL;
+            long high = getInt() & 0xFFFFFFFFL;
+            return Double.longBitsToDouble(high << 32 | low);
+        }
+
+        private int getByte() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    throw new EOFException("Unexpected end of quantized scene");
+                }
+            }
+            return buffer[position++] & 0xFF;
+        }
+    }
+}
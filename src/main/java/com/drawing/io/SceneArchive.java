@@ -0,0 +1,458 @@
+package com.drawing.io;
+
+import com.drawing.generator.DrawingGenerator.GenerationParameters;
+import com.drawing.model.Shape;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Архив сцен: множество небольших сцен в одном файле с индексом.
+ * <p>
+ * Файл (порядок байтов little-endian) состоит из заголовка, записей сцен, добавляемых
+ * только в конец, и индекса в хвосте файла. Запись выровнена по 8 байтам и содержит
+ * сигнатуру, длину, идентификатор сцены, seed, контрольную сумму CRC32C и сцену
+ * в формате {@link QuantizedScene}. Индекс хранит для каждого идентификатора смещение
+ * последней записи и завершается фиксированным окончанием со смещением индекса.
+ * <p>
+ * Запись сцены кодируется в потоке вызывающего, место в файле резервируется атомарно,
+ * а запись выполняется позиционной записью канала, поэтому потоки генерации могут
+ * добавлять сцены одновременно. Индекс переписывается при закрытии архива. Если архив
+ * не был закрыт (сбой процесса), при открытии записи восстанавливаются сканированием
+ * файла; поврежденные и недописанные записи пропускаются.
+ * <p>
+ * Чтение сцены - одно отображение ее записи в память. Повторная запись с тем же
+ * идентификатором замещает прежнюю; место прежних записей освобождает {@link #compact}.
+ */
+public class SceneArchive implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(SceneArchive.class);
+
+    private static final int MAGIC = 0x52415344; // "DSAR"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private static final int RECORD_MAGIC = 0x43455244; // "DREC"
+    private static final int RECORD_HEADER_SIZE = 32;
+    private static final int RECORD_LENGTH = 4;
+    private static final int RECORD_ID = 8;
+    private static final int RECORD_SEED = 16;
+    private static final int RECORD_CRC = 24;
+
+    private static final int INDEX_ENTRY_SIZE = 32;
+    private static final int FOOTER_MAGIC = 0x58444E49; // "INDX"
+    private static final int FOOTER_SIZE = 16;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Long> idsBySeed = new ConcurrentHashMap<>();
+    private final AtomicLong appendPosition;
+    // Добавления идут параллельно под блокировкой чтения; закрытие берет блокировку записи
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean modified;
+    private boolean closed;
+
+    private SceneArchive(Path file, FileChannel channel, long appendPosition) {
+        this.file = file;
+        this.channel = channel;
+        this.appendPosition = new AtomicLong(appendPosition);
+    }
+
+    /**
+     * Открывает архив для чтения и добавления или создает новый.
+     *
+     * @param file путь к файлу архива
+     * @return открытый архив
+     * @throws IOException если файл не читается или не является архивом сцен
+     */
+    public static SceneArchive open(Path file) throws IOException {
+        long startTime = System.nanoTime();
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+                writeFully(channel, header, 0);
+                return new SceneArchive(file, channel, HEADER_SIZE);
+            }
+
+            ByteBuffer header = read(channel, 0, HEADER_SIZE);
+            if (size < HEADER_SIZE || header.getInt(0) != MAGIC) {
+                throw new IOException("Not a scene archive: " + file);
+            }
+            if (header.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Unsupported scene archive version: " + header.getInt(4));
+            }
+
+            SceneArchive archive = loadIndex(file, channel, size);
+            if (archive == null) {
+                archive = recover(file, channel, size);
+            }
+            logger.info("Scene archive {} opened: {} scenes in {} ms", file, archive.entries.size(),
+                    (System.nanoTime() - startTime) / 1_000_000);
+            return archive;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Чтение индекса из хвоста; null, если архив не был корректно закрыт
+    private static SceneArchive loadIndex(Path file, FileChannel channel, long size) throws IOException {
+        if (size < HEADER_SIZE + FOOTER_SIZE) {
+            return null;
+        }
+        ByteBuffer footer = read(channel, size - FOOTER_SIZE, FOOTER_SIZE);
+        long indexOffset = footer.getLong(0);
+        int count = footer.getInt(8);
+        if (footer.getInt(12) != FOOTER_MAGIC || count < 0 || indexOffset < HEADER_SIZE
+                || indexOffset + (long) count * INDEX_ENTRY_SIZE != size - FOOTER_SIZE) {
+            return null;
+        }
+
+        SceneArchive archive = new SceneArchive(file, channel, indexOffset);
+        ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, (long) count * INDEX_ENTRY_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < count; i++) {
+            int base = i * INDEX_ENTRY_SIZE;
+            Entry entry = new Entry(index.getLong(base), index.getLong(base + 8), index.getLong(base + 16),
+                    index.getInt(base + 24));
+            if (entry.offset < HEADER_SIZE || entry.offset + entry.length > indexOffset) {
+                logger.warn("Scene archive {}: index is corrupted, rebuilding", file);
+                return null;
+            }
+            archive.register(entry);
+        }
+        return archive;
+    }
+
+    /**
+     * Восстанавливает индекс сканированием записей. Записи выровнены по 8 байтам,
+     * поэтому после поврежденного участка поиск продолжается со следующей границы.
+     */
+    private static SceneArchive recover(Path file, FileChannel channel, long size) throws IOException {
+        logger.warn("Scene archive {} was not closed properly, scanning records", file);
+        List<Entry> found = new ArrayList<>();
+        long position = HEADER_SIZE;
+        long end = HEADER_SIZE;
+        int skipped = 0;
+        while (position + RECORD_HEADER_SIZE <= size) {
+            ByteBuffer header = read(channel, position, RECORD_HEADER_SIZE);
+            int length = header.getInt(RECORD_LENGTH);
+            if (header.getInt(0) == RECORD_MAGIC && length >= 0
+                    && position + RECORD_HEADER_SIZE + length <= size) {
+                ByteBuffer record = read(channel, position, RECORD_HEADER_SIZE + length);
+                if (checksum(record) == record.getInt(RECORD_CRC)) {
+                    found.add(new Entry(record.getLong(RECORD_ID), record.getLong(RECORD_SEED), position,
+                            RECORD_HEADER_SIZE + length));
+                    position = align(position + RECORD_HEADER_SIZE + length);
+                    end = position;
+                    continue;
+                }
+            }
+            skipped++;
+            position += 8;
+        }
+
+        // Хвост после последней целой записи (в том числе устаревший индекс) отбрасывается
+        channel.truncate(end);
+        SceneArchive archive = new SceneArchive(file, channel, end);
+        for (Entry entry : found) {
+            archive.register(entry);
+        }
+        archive.modified = true;
+        logger.info("Scene archive {}: recovered {} records, skipped {} damaged blocks", file, found.size(), skipped);
+        return archive;
+    }
+
+    private void register(Entry entry) {
+        entries.put(entry.id, entry);
+        idsBySeed.put(entry.seed, entry.id);
+    }
+
+    /**
+     * Добавляет сцену в архив. Может вызываться из нескольких потоков одновременно.
+     *
+     * @param id идентификатор сцены; запись с тем же идентификатором замещается
+     * @param seed начальное значение, с которым сгенерирована сцена
+     * @param parameters параметры генерации
+     * @param shapes фигуры сцены
+     * @param step шаг решетки координат (см. {@link QuantizedScene})
+     * @throws IllegalArgumentException если сцену нельзя закодировать
+     * @throws IllegalStateException если архив закрыт
+     * @throws IOException при ошибке записи
+     */
+    public void append(long id, long seed, GenerationParameters parameters, List<? extends Shape> shapes,
+                       double step) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(1024);
+        payload.write(new byte[RECORD_HEADER_SIZE]);
+        QuantizedScene.write(payload, parameters, shapes, step);
+        byte[] bytes = payload.toByteArray();
+        int length = bytes.length - RECORD_HEADER_SIZE;
+
+        ByteBuffer record = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        record.putInt(0, RECORD_MAGIC);
+        record.putInt(RECORD_LENGTH, length);
+        record.putLong(RECORD_ID, id);
+        record.putLong(RECORD_SEED, seed);
+        record.putInt(RECORD_CRC, checksum(record));
+
+        lock.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Scene archive is closed");
+            }
+            if (!modified) {
+                discardIndex();
+            }
+            long offset = appendPosition.getAndAdd(align(bytes.length));
+            writeFully(channel, record, offset);
+            register(new Entry(id, seed, offset, bytes.length));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Перед первым добавлением индекс в хвосте отрезается: иначе после сбоя частично
+     * перезаписанный индекс мог бы быть принят за действительный.
+     */
+    private synchronized void discardIndex() throws IOException {
+        if (!modified) {
+            channel.truncate(appendPosition.get());
+            modified = true;
+        }
+    }
+
+    /**
+     * Читает сцену по идентификатору.
+     *
+     * @param id идентификатор сцены
+     * @return сцена или null, если сцены с таким идентификатором нет
+     * @throws IOException если запись не читается или повреждена
+     */
+    public QuantizedScene get(long id) throws IOException {
+        Entry entry = entries.get(id);
+        return entry != null ? readRecord(entry) : null;
+    }
+
+    /**
+     * Читает последнюю добавленную сцену с указанным seed.
+     *
+     * @param seed начальное значение генерации
+     * @return сцена или null, если сцены с таким seed нет
+     * @throws IOException если запись не читается или повреждена
+     */
+    public QuantizedScene getBySeed(long seed) throws IOException {
+        Long id = idsBySeed.get(seed);
+        Entry entry = id != null ? entries.get(id) : null;
+        // Идентификатор мог быть перезаписан сценой с другим seed
+        return entry != null && entry.seed == seed ? readRecord(entry) : null;
+    }
+
+    private QuantizedScene readRecord(Entry entry) throws IOException {
+        ByteBuffer record = channel.map(FileChannel.MapMode.READ_ONLY, entry.offset, entry.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        if (record.getInt(0) != RECORD_MAGIC || record.getInt(RECORD_CRC) != checksum(record)) {
+            throw new IOException("Corrupted scene archive record for id " + entry.id);
+        }
+        record.position(RECORD_HEADER_SIZE);
+        return QuantizedScene.read(new ByteBufferInputStream(record));
+    }
+
+    /**
+     * Возвращает идентификаторы сцен в порядке возрастания.
+     *
+     * @return идентификаторы сцен
+     */
+    public long[] getIds() {
+        return entries.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    /**
+     * Возвращает количество сцен в архиве.
+     *
+     * @return количество сцен
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Дожидается завершения текущих добавлений, записывает индекс и закрывает файл.
+     *
+     * @throws IOException при ошибке записи индекса
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (modified) {
+                writeIndex();
+            }
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort(Comparator.comparingLong((Entry entry) -> entry.offset));
+
+        long indexOffset = appendPosition.get();
+        ByteBuffer index = ByteBuffer.allocate(sorted.size() * INDEX_ENTRY_SIZE + FOOTER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (Entry entry : sorted) {
+            index.putLong(entry.id).putLong(entry.seed).putLong(entry.offset).putInt(entry.length).putInt(0);
+        }
+        index.putLong(indexOffset).putInt(sorted.size()).putInt(FOOTER_MAGIC).flip();
+
+        writeFully(channel, index, indexOffset);
+        channel.truncate(indexOffset + index.limit());
+        channel.force(true);
+        logger.info("Scene archive {} closed with {} scenes", file, sorted.size());
+    }
+
+    /**
+     * Переписывает архив, оставляя только актуальные записи в порядке идентификаторов.
+     * Новый файл пишется рядом и атомарно замещает прежний. Архив не должен быть
+     * открыт другими объектами во время сжатия.
+     *
+     * @param file путь к файлу архива
+     * @return количество освобожденных байтов
+     * @throws IOException при ошибке чтения или записи
+     */
+    public static long compact(Path file) throws IOException {
+        long startTime = System.nanoTime();
+        Path target = file.resolveSibling(file.getFileName() + ".compact");
+        long before = Files.size(file);
+
+        try (SceneArchive source = open(file);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+            writeFully(out, header, 0);
+
+            // Записи копируются без перекодирования: прямой перенос байтов между каналами
+            SceneArchive compacted = new SceneArchive(target, out, HEADER_SIZE);
+            for (long id : source.getIds()) {
+                Entry entry = source.entries.get(id);
+                long offset = compacted.appendPosition.getAndAdd(align(entry.length));
+                long copied = 0;
+                while (copied < entry.length) {
+                    out.position(offset + copied);
+                    copied += source.channel.transferTo(entry.offset + copied, entry.length - copied, out);
+                }
+                compacted.register(new Entry(entry.id, entry.seed, offset, entry.length));
+            }
+            compacted.writeIndex();
+        }
+
+        Files.move(target, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        long freed = before - Files.size(file);
+        logger.info("Scene archive {} compacted in {} ms, {} bytes freed", file,
+                (System.nanoTime() - startTime) / 1_000_000, freed);
+        return freed;
+    }
+
+    private static int checksum(ByteBuffer record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record.duplicate().position(RECORD_LENGTH).limit(RECORD_CRC));
+        crc.update(record.duplicate().position(RECORD_HEADER_SIZE).limit(record.capacity()));
+        return (int) crc.getValue();
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Положение записи сцены в файле.
+     */
+    private static final class Entry {
+
+        final long id;
+        final long seed;
+        final long offset;
+        final int length;
+
+        Entry(long id, long seed, long offset, int length) {
+            this.id = id;
+            this.seed = seed;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Поток чтения поверх отображенной записи.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+    }
+}
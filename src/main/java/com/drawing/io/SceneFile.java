@@ -0,0 +1,529 @@
+package com.drawing.io;
+
+import com.drawing.generator.DrawingGenerator.GenerationParameters;
+import com.drawing.model.Bounds;
+import com.drawing.model.Circle;
+import com.drawing.model.Line;
+import com.drawing.model.Parabola;
+import com.drawing.model.Point;
+import com.drawing.model.Rectangle;
+import com.drawing.model.Shape;
+import com.drawing.model.Trapezoid;
+import com.drawing.model.Triangle;
+import com.drawing.util.ColorUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Двоичный формат файла сцены.
+ * <p>
+ * Файл (порядок байтов little-endian) состоит из заголовка с параметрами генерации,
+ * секций записей фиксированного размера для каждого типа фигур, таблицы порядка
+ * и необязательного индекса границ. Запись фигуры содержит упакованный цвет ARGB,
+ * толщину линии и координаты в виде чисел double. Элемент таблицы порядка -
+ * {@code тип << 29 | номер записи в секции типа}; он сохраняет порядок отрисовки.
+ * Индекс границ хранит для каждой фигуры четыре числа float, округленных наружу.
+ * <p>
+ * При чтении секции отображаются в память через {@link FileChannel#map}, а фигуры
+ * создаются только при обращении к элементу списка, поэтому открытие файла
+ * с миллионами фигур не зависит от их количества.
+ */
+public final class SceneFile {
+
+    private static final Logger logger = LogManager.getLogger(SceneFile.class);
+
+    private static final int MAGIC = 0x4E435344; // "DSCN"
+    private static final int FORMAT_VERSION = 1;
+    private static final int FLAG_BOUNDS_INDEX = 1;
+
+    private static final int TYPE_LINE = 0;
+    private static final int TYPE_CIRCLE = 1;
+    private static final int TYPE_RECTANGLE = 2;
+    private static final int TYPE_TRIANGLE = 3;
+    private static final int TYPE_PARABOLA = 4;
+    private static final int TYPE_TRAPEZOID = 5;
+    private static final int TYPE_COUNT = 6;
+
+    // Количество координат в записи каждого типа
+    private static final int[] COORDINATE_COUNTS = {4, 3, 4, 6, 5, 8};
+
+    private static final int TYPE_SHIFT = 29;
+    private static final int INDEX_MASK = (1 << TYPE_SHIFT) - 1;
+
+    // Раскладка заголовка
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_FLAGS = 8;
+    private static final int HEADER_SHAPE_COUNT = 12;
+    private static final int HEADER_PARAMETERS = 16;
+    private static final int HEADER_TYPE_COUNTS = 64;
+    private static final int HEADER_TYPE_OFFSETS = HEADER_TYPE_COUNTS + 4 * TYPE_COUNT;
+    private static final int HEADER_ORDER_OFFSET = HEADER_TYPE_OFFSETS + 8 * TYPE_COUNT;
+    private static final int HEADER_BOUNDS_OFFSET = HEADER_ORDER_OFFSET + 8;
+    private static final int HEADER_SIZE = HEADER_BOUNDS_OFFSET + 8;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final GenerationParameters parameters;
+    private final int shapeCount;
+    private final int[] typeCounts;
+    private final ByteBuffer[] records;
+    private final IntBuffer order;
+    private final FloatBuffer bounds;
+    private final List<Shape> shapes;
+
+    private SceneFile(GenerationParameters parameters, int shapeCount, int[] typeCounts,
+                      ByteBuffer[] records, IntBuffer order, FloatBuffer bounds) {
+        this.parameters = parameters;
+        this.shapeCount = shapeCount;
+        this.typeCounts = typeCounts;
+        this.records = records;
+        this.order = order;
+        this.bounds = bounds;
+        this.shapes = new ShapeList();
+    }
+
+    /**
+     * Записывает сцену в файл.
+     *
+     * @param file путь к файлу
+     * @param parameters параметры генерации сцены
+     * @param shapes фигуры в порядке отрисовки
+     * @param withBoundsIndex записывать ли индекс границ
+     * @throws IllegalArgumentException если параметры не заданы или фигура не поддерживается форматом
+     * @throws IOException при ошибке записи
+     */
+    public static void write(Path file, GenerationParameters parameters, List<? extends Shape> shapes,
+                             boolean withBoundsIndex) throws IOException {
+        if (parameters == null) {
+            throw new IllegalArgumentException("Generation parameters must be specified");
+        }
+        long startTime = System.nanoTime();
+
+        int count = shapes.size();
+        byte[] types = new byte[count];
+        int[] typeCounts = new int[TYPE_COUNT];
+        for (int i = 0; i < count; i++) {
+            int type = typeOf(shapes.get(i));
+            if (typeCounts[type] == INDEX_MASK) {
+                throw new IllegalArgumentException("Too many shapes of one type");
+            }
+            types[i] = (byte) type;
+            typeCounts[type]++;
+        }
+
+        long[] typeOffsets = new long[TYPE_COUNT];
+        long position = HEADER_SIZE;
+        for (int type = 0; type < TYPE_COUNT; type++) {
+            typeOffsets[type] = position;
+            position = align(position + (long) typeCounts[type] * recordSize(type));
+        }
+        long orderOffset = position;
+        position = align(position + 4L * count);
+        long boundsOffset = withBoundsIndex ? position : 0;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            SectionWriter out = new SectionWriter(channel);
+
+            out.putInt(MAGIC);
+            out.putInt(FORMAT_VERSION);
+            out.putInt(withBoundsIndex ? FLAG_BOUNDS_INDEX : 0);
+            out.putInt(count);
+            out.putInt(parameters.getShapeCount());
+            out.putInt(parameters.getGridSize());
+            out.putDouble(parameters.getMinX());
+            out.putDouble(parameters.getMaxX());
+            out.putDouble(parameters.getMinY());
+            out.putDouble(parameters.getMaxY());
+            out.putDouble(parameters.getDensity());
+            for (int typeCount : typeCounts) {
+                out.putInt(typeCount);
+            }
+            for (long typeOffset : typeOffsets) {
+                out.putLong(typeOffset);
+            }
+            out.putLong(orderOffset);
+            out.putLong(boundsOffset);
+
+            for (int type = 0; type < TYPE_COUNT; type++) {
+                out.padTo(typeOffsets[type]);
+                for (int i = 0; i < count; i++) {
+                    if (types[i] == type) {
+                        writeRecord(out, shapes.get(i), type);
+                    }
+                }
+            }
+
+            out.padTo(orderOffset);
+            int[] nextIndex = new int[TYPE_COUNT];
+            for (int i = 0; i < count; i++) {
+                out.putInt(types[i] << TYPE_SHIFT | nextIndex[types[i]]++);
+            }
+
+            if (withBoundsIndex) {
+                out.padTo(boundsOffset);
+                for (Shape shape : shapes) {
+                    writeBounds(out, shape);
+                }
+            }
+            out.flush();
+        }
+
+        logger.info("Scene with {} shapes written to {} in {} ms", count, file,
+                (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    private static int typeOf(Shape shape) {
+        if (shape instanceof Line) {
+            return TYPE_LINE;
+        } else if (shape instanceof Circle) {
+            return TYPE_CIRCLE;
+        } else if (shape instanceof Rectangle) {
+            return TYPE_RECTANGLE;
+        } else if (shape instanceof Triangle) {
+            return TYPE_TRIANGLE;
+        } else if (shape instanceof Parabola) {
+            return TYPE_PARABOLA;
+        } else if (shape instanceof Trapezoid) {
+            return TYPE_TRAPEZOID;
+        }
+        throw new IllegalArgumentException("Unsupported shape type: " + shape.getType());
+    }
+
+    private static int recordSize(int type) {
+        return 4 + 8 + 8 * COORDINATE_COUNTS[type];
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static void writeRecord(SectionWriter out, Shape shape, int type) throws IOException {
+        out.putInt(ColorUtil.parseArgb(shape.getColor()));
+        out.putDouble(shape.getLineWidth());
+        switch (type) {
+            case TYPE_CIRCLE: {
+                Circle circle = (Circle) shape;
+                out.putPoint(circle.getCenter());
+                out.putDouble(circle.getRadius());
+                break;
+            }
+            case TYPE_RECTANGLE: {
+                Rectangle rectangle = (Rectangle) shape;
+                out.putPoint(rectangle.getTopLeft());
+                out.putDouble(rectangle.getWidth());
+                out.putDouble(rectangle.getHeight());
+                break;
+            }
+            case TYPE_PARABOLA: {
+                Parabola parabola = (Parabola) shape;
+                out.putDouble(parabola.getA());
+                out.putDouble(parabola.getB());
+                out.putDouble(parabola.getC());
+                out.putDouble(parabola.getXMin());
+                out.putDouble(parabola.getXMax());
+                break;
+            }
+            default:
+                // Отрезок, треугольник и трапеция полностью задаются своими вершинами
+                for (Point point : shape.getPoints()) {
+                    out.putPoint(point);
+                }
+                break;
+        }
+    }
+
+    private static void writeBounds(SectionWriter out, Shape shape) throws IOException {
+        Bounds shapeBounds;
+        try {
+            shapeBounds = shape.getBounds();
+        } catch (RuntimeException e) {
+            shapeBounds = new Bounds(Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        }
+        out.putFloat(floorToFloat(shapeBounds.getMinX()));
+        out.putFloat(floorToFloat(shapeBounds.getMinY()));
+        out.putFloat(ceilToFloat(shapeBounds.getMaxX()));
+        out.putFloat(ceilToFloat(shapeBounds.getMaxY()));
+    }
+
+    // Округление к float наружу, чтобы индекс не сужал границы
+    private static float floorToFloat(double value) {
+        float rounded = (float) value;
+        return rounded > value ? Math.nextDown(rounded) : rounded;
+    }
+
+    private static float ceilToFloat(double value) {
+        float rounded = (float) value;
+        return rounded < value ? Math.nextUp(rounded) : rounded;
+    }
+
+    /**
+     * Открывает файл сцены, отображая его секции в память.
+     * Фигуры не читаются до обращения к ним.
+     *
+     * @param file путь к файлу
+     * @return открытая сцена
+     * @throws IOException если файл не читается, не является файлом сцены или поврежден
+     */
+    public static SceneFile open(Path file) throws IOException {
+        long startTime = System.nanoTime();
+
+        // Отображения остаются действительными после закрытия канала
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("Not a scene file: " + file);
+            }
+            ByteBuffer header = map(channel, 0, HEADER_SIZE);
+            if (header.getInt(HEADER_MAGIC) != MAGIC) {
+                throw new IOException("Not a scene file: " + file);
+            }
+            int version = header.getInt(HEADER_VERSION);
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported scene file version: " + version);
+            }
+            int flags = header.getInt(HEADER_FLAGS);
+            int shapeCount = header.getInt(HEADER_SHAPE_COUNT);
+
+            GenerationParameters parameters = new GenerationParameters(
+                    header.getInt(HEADER_PARAMETERS),
+                    header.getDouble(HEADER_PARAMETERS + 8),
+                    header.getDouble(HEADER_PARAMETERS + 16),
+                    header.getDouble(HEADER_PARAMETERS + 24),
+                    header.getDouble(HEADER_PARAMETERS + 32),
+                    header.getDouble(HEADER_PARAMETERS + 40),
+                    header.getInt(HEADER_PARAMETERS + 4));
+
+            int[] typeCounts = new int[TYPE_COUNT];
+            ByteBuffer[] records = new ByteBuffer[TYPE_COUNT];
+            long total = 0;
+            for (int type = 0; type < TYPE_COUNT; type++) {
+                typeCounts[type] = header.getInt(HEADER_TYPE_COUNTS + 4 * type);
+                long offset = header.getLong(HEADER_TYPE_OFFSETS + 8 * type);
+                if (typeCounts[type] < 0) {
+                    throw new IOException("Corrupted scene file: negative shape count");
+                }
+                total += typeCounts[type];
+                records[type] = mapSection(channel, fileSize, offset, (long) typeCounts[type] * recordSize(type));
+            }
+            if (shapeCount < 0 || total != shapeCount) {
+                throw new IOException("Corrupted scene file: shape counts do not match");
+            }
+
+            IntBuffer order = mapSection(channel, fileSize, header.getLong(HEADER_ORDER_OFFSET), 4L * shapeCount)
+                    .asIntBuffer();
+            FloatBuffer bounds = null;
+            if ((flags & FLAG_BOUNDS_INDEX) != 0) {
+                bounds = mapSection(channel, fileSize, header.getLong(HEADER_BOUNDS_OFFSET), 16L * shapeCount)
+                        .asFloatBuffer();
+            }
+
+            logger.info("Scene file {} opened: {} shapes in {} us", file, shapeCount,
+                    (System.nanoTime() - startTime) / 1000);
+            return new SceneFile(parameters, shapeCount, typeCounts, records, order, bounds);
+        }
+    }
+
+    private static ByteBuffer mapSection(FileChannel channel, long fileSize, long offset, long size)
+            throws IOException {
+        if (offset < HEADER_SIZE || size < 0 || offset + size > fileSize) {
+            throw new IOException("Corrupted scene file: section out of file bounds");
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Scene file section is too large to map: " + size + " bytes");
+        }
+        return map(channel, offset, size);
+    }
+
+    private static ByteBuffer map(FileChannel channel, long offset, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Возвращает параметры генерации, сохраненные в файле.
+     *
+     * @return параметры генерации
+     */
+    public GenerationParameters getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Возвращает неизменяемый список фигур в порядке отрисовки. Фигура читается
+     * из отображения файла при каждом обращении к элементу, поэтому список
+     * не занимает памяти под фигуры и может читаться из нескольких потоков.
+     *
+     * @return список фигур
+     */
+    public List<Shape> getShapes() {
+        return shapes;
+    }
+
+    /**
+     * Возвращает количество фигур в сцене.
+     *
+     * @return количество фигур
+     */
+    public int getShapeCount() {
+        return shapeCount;
+    }
+
+    /**
+     * Проверяет, содержит ли файл индекс границ.
+     *
+     * @return true если индекс границ записан
+     */
+    public boolean hasBoundsIndex() {
+        return bounds != null;
+    }
+
+    /**
+     * Возвращает границы фигуры из индекса, не читая саму фигуру.
+     *
+     * @param index индекс фигуры
+     * @return границы, округленные наружу до точности float
+     * @throws IllegalStateException если файл не содержит индекса границ
+     */
+    public Bounds getBounds(int index) {
+        if (bounds == null) {
+            throw new IllegalStateException("Scene file has no bounds index");
+        }
+        int base = 4 * index;
+        return new Bounds(bounds.get(base), bounds.get(base + 1), bounds.get(base + 2), bounds.get(base + 3));
+    }
+
+    private Shape readShape(int index) {
+        int entry = order.get(index);
+        int type = entry >>> TYPE_SHIFT;
+        int recordIndex = entry & INDEX_MASK;
+        if (type >= TYPE_COUNT || recordIndex >= typeCounts[type]) {
+            throw new IllegalStateException("Corrupted scene file: invalid order entry " + entry);
+        }
+
+        ByteBuffer section = records[type];
+        int base = recordIndex * recordSize(type);
+        String color = ColorUtil.toHex(section.getInt(base));
+        double lineWidth = section.getDouble(base + 4);
+        int c = base + 12;
+
+        switch (type) {
+            case TYPE_LINE:
+                return new Line(readPoint(section, c), readPoint(section, c + 16), color, lineWidth);
+            case TYPE_CIRCLE:
+                return new Circle(readPoint(section, c), section.getDouble(c + 16), color, lineWidth);
+            case TYPE_RECTANGLE:
+                return new Rectangle(readPoint(section, c), section.getDouble(c + 16), section.getDouble(c + 24),
+                        color, lineWidth);
+            case TYPE_TRIANGLE:
+                return new Triangle(readPoint(section, c), readPoint(section, c + 16), readPoint(section, c + 32),
+                        color, lineWidth);
+            case TYPE_PARABOLA:
+                return new Parabola(section.getDouble(c), section.getDouble(c + 8), section.getDouble(c + 16),
+                        section.getDouble(c + 24), section.getDouble(c + 32), color, lineWidth);
+            default:
+                return new Trapezoid(readPoint(section, c), readPoint(section, c + 16), readPoint(section, c + 32),
+                        readPoint(section, c + 48), color, lineWidth);
+        }
+    }
+
+    private static Point readPoint(ByteBuffer section, int offset) {
+        return new Point(section.getDouble(offset), section.getDouble(offset + 8));
+    }
+
+    /**
+     * Ленивое представление фигур файла в виде списка.
+     */
+    private final class ShapeList extends AbstractList<Shape> implements RandomAccess {
+
+        @Override
+        public Shape get(int index) {
+            if (index < 0 || index >= shapeCount) {
+                throw new IndexOutOfBoundsException("Shape index " + index + " out of [0, " + shapeCount + ")");
+            }
+            return readShape(index);
+        }
+
+        @Override
+        public int size() {
+            return shapeCount;
+        }
+    }
+
+    /**
+     * Последовательная запись в канал через прямой буфер.
+     */
+    private static final class SectionWriter {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        SectionWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+            position += 4;
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+            position += 8;
+        }
+
+        void putFloat(float value) throws IOException {
+            ensure(4);
+            buffer.putFloat(value);
+            position += 4;
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(8);
+            buffer.putDouble(value);
+            position += 8;
+        }
+
+        void putPoint(Point point) throws IOException {
+            putDouble(point.getX());
+            putDouble(point.getY());
+        }
+
+        void padTo(long target) throws IOException {
+            while (position < target) {
+                ensure(1);
+                buffer.put((byte) 0);
+                position++;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.drawing.io;
+
+import com.drawing.model.Bounds;
+import com.drawing.model.Circle;
+import com.drawing.model.Line;
+import com.drawing.model.Parabola;
+import com.drawing.model.Point;
+import com.drawing.model.Rectangle;
+import com.drawing.model.Shape;
+import com.drawing.render.SvgRenderer;
+import com.drawing.util.ColorUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Потоковый экспорт фигур в SVG.
+ * <p>
+ * Фигуры записываются по одной через {@link SvgRenderer} в системе области, поэтому
+ * расход памяти не зависит от размера сцены, а фигуры можно передавать по мере генерации.
+ * В отличие от воспроизведения списка отображения, фигуры не переводятся в пиксели и не
+ * отсекаются: каждый тип записывается собственным элементом с исходной геометрией
+ * (окружность - {@code <circle>}, прямоугольник - {@code <rect>}, многоугольники - {@code <polygon>},
+ * отрезок и парабола - {@code <path>}, парабола - точной квадратичной кривой).
+ */
+public class SvgExporter implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(SvgExporter.class);
+
+    private final SvgRenderer renderer;
+    private long shapeCount;
+
+    /**
+     * Создает экспортер и записывает заголовок документа.
+     *
+     * @param channel канал для записи; закрывается вместе с экспортером
+     * @param viewBox видимая область в системе области
+     * @param pixelWidth ширина изображения в пикселях; высота вычисляется по пропорциям области
+     * @param gzip сжимать ли вывод gzip
+     * @throws IllegalArgumentException если область или ширина некорректны
+     * @throws IOException при ошибке записи
+     */
+    public SvgExporter(WritableByteChannel channel, Bounds viewBox, int pixelWidth, boolean gzip) throws IOException {
+        this.renderer = SvgRenderer.forArea(Channels.newOutputStream(channel), viewBox, pixelWidth,
+                ColorUtil.WHITE, gzip);
+    }
+
+    /**
+     * Экспортирует фигуры в файл. Файлы с расширением .svgz или .gz сжимаются gzip.
+     *
+     * @param file путь к файлу
+     * @param shapes фигуры в порядке отрисовки
+     * @param viewBox видимая область в системе области
+     * @param pixelWidth ширина изображения в пикселях
+     * @return количество записанных фигур
+     * @throws IOException при ошибке записи
+     */
+    public static long export(Path file, Iterable<? extends Shape> shapes, Bounds viewBox, int pixelWidth)
+            throws IOException {
+        long startTime = System.nanoTime();
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean gzip = name.endsWith(".svgz") || name.endsWith(".gz");
+
+        long written;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             SvgExporter exporter = new SvgExporter(channel, viewBox, pixelWidth, gzip)) {
+            for (Shape shape : shapes) {
+                exporter.write(shape);
+            }
+            written = exporter.getShapeCount();
+        }
+
+        logger.info("Exported {} shapes to {} in {} ms", written, file, (System.nanoTime() - startTime) / 1_000_000);
+        return written;
+    }
+
+    /**
+     * Записывает пакет фигур; удобно для передачи пакетов генератора.
+     *
+     * @param shapes фигуры
+     * @throws IOException при ошибке записи
+     */
+    public void writeAll(List<? extends Shape> shapes) throws IOException {
+        for (Shape shape : shapes) {
+            write(shape);
+        }
+    }
+
+    /**
+     * Записывает одну фигуру.
+     *
+     * @param shape фигура
+     * @throws IllegalArgumentException если цвет фигуры задан в неверном формате
+     * @throws IOException при ошибке записи
+     */
+    public void write(Shape shape) throws IOException {
+        int color = ColorUtil.parseArgb(shape.getColor());
+        try {
+            renderer.setStroke(color, shape.getLineWidth());
+            if (shape instanceof Circle) {
+                Circle circle = (Circle) shape;
+                renderer.ellipse(circle.getCenter().getX(), circle.getCenter().getY(),
+                        circle.getRadius(), circle.getRadius());
+            } else if (shape instanceof Rectangle) {
+                Bounds bounds = shape.getBounds();
+                renderer.rect(bounds.getMinX(), bounds.getMinY(), bounds.getWidth(), bounds.getHeight());
+            } else if (shape instanceof Parabola) {
+                writeParabola((Parabola) shape);
+            } else if (shape instanceof Line) {
+                Line line = (Line) shape;
+                renderer.polyline(new double[] {line.getStart().getX(), line.getStart().getY(),
+                        line.getEnd().getX(), line.getEnd().getY()}, 2, false);
+            } else {
+                List<Point> points = shape.getPoints();
+                double[] coords = new double[points.size() * 2];
+                for (int i = 0; i < points.size(); i++) {
+                    coords[2 * i] = points.get(i).getX();
+                    coords[2 * i + 1] = points.get(i).getY();
+                }
+                renderer.polyline(coords, points.size(), shape.isClosed());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        shapeCount++;
+    }
+
+    private void writeParabola(Parabola parabola) {
+        // Отрезок параболы - квадратичная кривая Безье с контрольной точкой
+        // на пересечении касательных в концах
+        double x0 = parabola.getXMin();
+        double x1 = parabola.getXMax();
+        double y0 = parabola.valueAt(x0);
+        double slope = 2 * parabola.getA() * x0 + parabola.getB();
+        renderer.quadCurve(x0, y0, (x0 + x1) / 2, y0 + slope * (x1 - x0) / 2, x1, parabola.valueAt(x1));
+    }
+
+    /**
+     * Возвращает количество записанных фигур.
+     *
+     * @return количество фигур
+     */
+    public long getShapeCount() {
+        return shapeCount;
+    }
+
+    /**
+     * Завершает документ, сбрасывает буфер и закрывает канал.
+     *
+     * @throws IOException при ошибке записи
+     */
+    @Override
+    public void close() throws IOException {
+        renderer.close();
+    }
+}
@@ -0,0 +1,117 @@
+package com.drawing.model;
+
+/**
+ * Неизменяемый ограничивающий прямоугольник со сторонами, параллельными осям.
+ */
+public final class Bounds {
+
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+
+    /**
+     * Конструктор ограничивающего прямоугольника.
+     *
+     * @param minX минимальная координата X
+     * @param minY минимальная координата Y
+     * @param maxX максимальная координата X
+     * @param maxY максимальная координата Y
+     */
+    public Bounds(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    /**
+     * Вычисляет ограничивающий прямоугольник набора точек.
+     *
+     * @param points точки
+     * @return ограничивающий прямоугольник
+     * @throws IllegalArgumentException если список точек пуст
+     */
+    public static Bounds of(Iterable<Point> points) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (Point point : points) {
+            minX = Math.min(minX, point.getX());
+            minY = Math.min(minY, point.getY());
+            maxX = Math.max(maxX, point.getX());
+            maxY = Math.max(maxY, point.getY());
+        }
+        if (minX > maxX) {
+            throw new IllegalArgumentException("Cannot compute bounds of an empty point set");
+        }
+        return new Bounds(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Проверяет, пересекается ли прямоугольник с другим.
+     *
+     * @param other другой прямоугольник
+     * @return true если прямоугольники имеют общие точки
+     */
+    public boolean intersects(Bounds other) {
+        return minX <= other.maxX && other.minX <= maxX && minY <= other.maxY && other.minY <= maxY;
+    }
+
+    /**
+     * Проверяет, содержит ли прямоугольник другой целиком.
+     *
+     * @param other другой прямоугольник
+     * @return true если другой прямоугольник лежит внутри этого
+     */
+    public boolean contains(Bounds other) {
+        return other.minX >= minX && other.maxX <= maxX && other.minY >= minY && other.maxY <= maxY;
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+
+    public double getWidth() {
+        return maxX - minX;
+    }
+
+    public double getHeight() {
+        return maxY - minY;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        Bounds other = (Bounds) obj;
+        return Double.compare(other.minX, minX) == 0 && Double.compare(other.minY, minY) == 0
+                && Double.compare(other.maxX, maxX) == 0 && Double.compare(other.maxY, maxY) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Double.hashCode(minX);
+        result = 31 * result + Double.hashCode(minY);
+        result = 31 * result + Double.hashCode(maxX);
+        return 31 * result + Double.hashCode(maxY);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Bounds{x=[%.2f, %.2f], y=[%.2f, %.2f]}", minX, maxX, minY, maxY);
+    }
+}
@@ -9,8 +9,8 @@ import java.util.List;
  */
 public class Circle extends Shape {
 
-    private Point center;
-    private double radius;
+    private final Point center;
+    private final double radius;
 
     /**
      * Конструктор для создания окружности.
@@ -26,6 +26,11 @@ public class Circle extends Shape {
         this.radius = radius;
     }
 
+    @Override
+    public Circle withStyle(String color, double lineWidth) {
+        return new Circle(center, radius, color, lineWidth);
+    }
+
     @Override
     public List<Point> getPoints() {
         // Для отрисовки используем 36 точек по окружности
@@ -42,6 +47,12 @@ public class Circle extends Shape {
         return points;
     }
 
+    @Override
+    public Bounds getBounds() {
+        return new Bounds(center.getX() - radius, center.getY() - radius,
+                center.getX() + radius, center.getY() + radius);
+    }
+
     @Override
     public String getType() {
         return "Circle";
@@ -88,6 +99,6 @@ public class Circle extends Shape {
     @Override
     public String toString() {
         return String.format("Circle{center=%s, radius=%.2f, color='%s', area=%.2f}",
-                center, radius, color, getArea());
+                center, radius, getColor(), getArea());
     }
 }
\ No newline at end of file
@@ -9,8 +9,8 @@ import java.util.List;
  */
 public class Line extends Shape {
 
-    private Point start;
-    private Point end;
+    private final Point start;
+    private final Point end;
 
     /**
      * Конструктор для создания линии.
@@ -26,6 +26,11 @@ public class Line extends Shape {
         this.end = end;
     }
 
+    @Override
+    public Line withStyle(String color, double lineWidth) {
+        return new Line(start, end, color, lineWidth);
+    }
+
     @Override
     public List<Point> getPoints() {
         return Arrays.asList(start, end);
@@ -36,6 +41,11 @@ public class Line extends Shape {
         return "Line";
     }
 
+    @Override
+    public boolean isClosed() {
+        return false;
+    }
+
     @Override
     public double getArea() {
         return 0; // Линия не имеет площади
@@ -98,6 +108,6 @@ public class Line extends Shape {
     @Override
     public String toString() {
         return String.format("Line{start=%s, end=%s, color='%s', length=%.2f}",
-                start, end, color, getLength());
+                start, end, getColor(), getLength());
     }
 }
\ No newline at end of file
@@ -9,11 +9,11 @@ import java.util.List;
  */
 public class Parabola extends Shape {
 
-    private double a;
-    private double b;
-    private double c;
-    private double xMin;
-    private double xMax;
+    private final double a;
+    private final double b;
+    private final double c;
+    private final double xMin;
+    private final double xMax;
 
     /**
      * Конструктор для создания параболы.
@@ -36,6 +36,11 @@ public class Parabola extends Shape {
         this.xMax = xMax;
     }
 
+    @Override
+    public Parabola withStyle(String color, double lineWidth) {
+        return new Parabola(a, b, c, xMin, xMax, color, lineWidth);
+    }
+
     @Override
     public List<Point> getPoints() {
         List<Point> points = new ArrayList<>();
@@ -52,11 +57,35 @@ public class Parabola extends Shape {
         return points;
     }
 
+    @Override
+    public Bounds getBounds() {
+        double y0 = valueAt(xMin);
+        double y1 = valueAt(xMax);
+        double minY = Math.min(y0, y1);
+        double maxY = Math.max(y0, y1);
+
+        // Вершина параболы ограничивает значения, если лежит внутри интервала
+        if (a != 0) {
+            double xVertex = -b / (2 * a);
+            if (xVertex > xMin && xVertex < xMax) {
+                double yVertex = valueAt(xVertex);
+                minY = Math.min(minY, yVertex);
+                maxY = Math.max(maxY, yVertex);
+            }
+        }
+        return new Bounds(Math.min(xMin, xMax), minY, Math.max(xMin, xMax), maxY);
+    }
+
     @Override
     public String getType() {
         return "Parabola";
     }
 
+    @Override
+    public boolean isClosed() {
+        return false;
+    }
+
     @Override
     public double getArea() {
         // Приближенная площадь под параболой на интервале [xMin, xMax]
@@ -114,6 +143,34 @@ public class Parabola extends Shape {
         return c;
     }
 
+    /**
+     * Возвращает левую границу интервала отрисовки.
+     *
+     * @return минимальное значение x
+     */
+    public double getXMin() {
+        return xMin;
+    }
+
+    /**
+     * Возвращает правую границу интервала отрисовки.
+     *
+     * @return максимальное значение x
+     */
+    public double getXMax() {
+        return xMax;
+    }
+
+    /**
+     * Вычисляет значение y параболы в точке x.
+     *
+     * @param x координата X
+     * @return значение a*x^2 + b*x + c
+     */
+    public double valueAt(double x) {
+        return a * x * x + b * x + c;
+    }
+
     /**
      * Возвращает вершину параболы.
      *
@@ -128,6 +185,6 @@ public class Parabola extends Shape {
     @Override
     public String toString() {
         return String.format("Parabola{y=%.2fx² + %.2fx + %.2f, x∈[%.1f,%.1f], color='%s'}",
-                a, b, c, xMin, xMax, color);
+                a, b, c, xMin, xMax, getColor());
     }
 }
\ No newline at end of file
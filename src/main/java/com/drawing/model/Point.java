@@ -4,12 +4,13 @@ import java.io.Serializable;
 
 /**
  * Класс, представляющий точку в двумерном пространстве.
+ * Точка неизменяема, поэтому может разделяться фигурами и потоками без копирования.
  */
-public class Point implements Serializable {
+public final class Point implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    private double x;
-    private double y;
+    private final double x;
+    private final double y;
 
     /**
      * Конструктор для создания точки с заданными координатами.
@@ -31,15 +32,6 @@ public class Point implements Serializable {
         return x;
     }
 
-    /**
-     * Устанавливает координату X точки.
-     *
-     * @param x новая координата X
-     */
-    public void setX(double x) {
-        this.x = x;
-    }
-
     /**
      * Возвращает координату Y точки.
      *
@@ -49,15 +41,6 @@ public class Point implements Serializable {
         return y;
     }
 
-    /**
-     * Устанавливает координату Y точки.
-     *
-     * @param y новая координата Y
-     */
-    public void setY(double y) {
-        this.y = y;
-    }
-
     /**
      * Вычисляет расстояние до другой точки.
      *
@@ -9,9 +9,9 @@ import java.util.List;
  */
 public class Rectangle extends Shape {
 
-    private Point topLeft;
-    private double width;
-    private double height;
+    private final Point topLeft;
+    private final double width;
+    private final double height;
 
     /**
      * Конструктор для создания прямоугольника.
@@ -29,6 +29,11 @@ public class Rectangle extends Shape {
         this.height = height;
     }
 
+    @Override
+    public Rectangle withStyle(String color, double lineWidth) {
+        return new Rectangle(topLeft, width, height, color, lineWidth);
+    }
+
     @Override
     public List<Point> getPoints() {
         Point topRight = new Point(topLeft.getX() + width, topLeft.getY());
@@ -38,6 +43,14 @@ public class Rectangle extends Shape {
         return Arrays.asList(topLeft, topRight, bottomRight, bottomLeft);
     }
 
+    @Override
+    public Bounds getBounds() {
+        double x1 = topLeft.getX() + width;
+        double y1 = topLeft.getY() + height;
+        return new Bounds(Math.min(topLeft.getX(), x1), Math.min(topLeft.getY(), y1),
+                Math.max(topLeft.getX(), x1), Math.max(topLeft.getY(), y1));
+    }
+
     @Override
     public String getType() {
         return "Rectangle";
@@ -99,6 +112,6 @@ public class Rectangle extends Shape {
     @Override
     public String toString() {
         return String.format("Rectangle{topLeft=%s, width=%.2f, height=%.2f, color='%s', area=%.2f}",
-                topLeft, width, height, color, getArea());
+                topLeft, width, height, getColor(), getArea());
     }
 }
\ No newline at end of file
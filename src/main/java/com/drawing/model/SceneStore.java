@@ -0,0 +1,241 @@
+package com.drawing.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Потокобезопасное хранилище сцены без блокировок.
+ * <p>
+ * Фигуры хранятся в массиве блоков по {@link #CHUNK_SIZE} фигур. Текущее состояние сцены -
+ * неизменяемый {@link Snapshot}, опубликованный через {@link AtomicReference}. Изменение копирует
+ * только массив ссылок на блоки и затронутые блоки, остальные блоки разделяются с предыдущим снимком,
+ * и публикует новый снимок сравнением с обменом; при конкуренции писателей изменение повторяется.
+ * Читатели (отрисовка, экспорт, запросы) получают снимок за O(1) и работают с ним без блокировок,
+ * не видя последующих изменений.
+ * <p>
+ * Фигуры неизменяемы, поэтому снимок неизменяем целиком; хранилище не копирует и не изменяет
+ * добавляемые фигуры.
+ */
+public class SceneStore {
+
+    /** Количество фигур в блоке */
+    public static final int CHUNK_SIZE = 256;
+
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_SIZE);
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final AtomicReference<Snapshot> current =
+            new AtomicReference<>(new Snapshot(new Shape[0][], 0, 0));
+    private final AtomicLong retries = new AtomicLong();
+
+    /**
+     * Возвращает текущий снимок сцены. Не копирует фигуры.
+     *
+     * @return неизменяемый снимок
+     */
+    public Snapshot snapshot() {
+        return current.get();
+    }
+
+    /**
+     * Добавляет фигуру в конец сцены.
+     *
+     * @param shape фигура
+     * @return снимок с добавленной фигурой
+     * @throws IllegalArgumentException если фигура равна null
+     */
+    public Snapshot add(Shape shape) {
+        Shape[] added = {checkShape(shape)};
+        return update(snapshot -> snapshot.append(added));
+    }
+
+    /**
+     * Добавляет фигуры в конец сцены одним изменением: читатели видят либо все фигуры, либо ни одной.
+     *
+     * @param shapes фигуры
+     * @return снимок с добавленными фигурами
+     * @throws IllegalArgumentException если среди фигур есть null
+     */
+    public Snapshot addAll(Collection<? extends Shape> shapes) {
+        Shape[] added = toArray(shapes);
+        return update(snapshot -> snapshot.append(added));
+    }
+
+    /**
+     * Заменяет фигуру с указанным индексом.
+     *
+     * @param index индекс фигуры
+     * @param shape новая фигура
+     * @return снимок с замененной фигурой
+     * @throws IllegalArgumentException если фигура равна null
+     * @throws IndexOutOfBoundsException если индекс вне сцены
+     */
+    public Snapshot set(int index, Shape shape) {
+        Shape checked = checkShape(shape);
+        return update(snapshot -> snapshot.replace(index, checked));
+    }
+
+    /**
+     * Отбрасывает фигуры начиная с указанной.
+     *
+     * @param size количество сохраняемых фигур
+     * @return снимок с оставшимися фигурами
+     * @throws IndexOutOfBoundsException если количество отрицательно или больше размера сцены
+     */
+    public Snapshot truncate(int size) {
+        return update(snapshot -> snapshot.truncate(size));
+    }
+
+    /**
+     * Заменяет содержимое сцены указанными фигурами одним изменением.
+     *
+     * @param shapes новые фигуры
+     * @return снимок с новыми фигурами
+     * @throws IllegalArgumentException если среди фигур есть null
+     */
+    public Snapshot reset(Collection<? extends Shape> shapes) {
+        Shape[] added = toArray(shapes);
+        return update(snapshot -> snapshot.truncate(0).append(added));
+    }
+
+    /**
+     * Удаляет все фигуры.
+     *
+     * @return пустой снимок
+     */
+    public Snapshot clear() {
+        return update(snapshot -> snapshot.truncate(0));
+    }
+
+    /**
+     * Возвращает количество повторов изменений из-за конкуренции писателей.
+     *
+     * @return количество повторов
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    private Snapshot update(UnaryOperator<Snapshot> change) {
+        while (true) {
+            Snapshot snapshot = current.get();
+            Snapshot next = change.apply(snapshot);
+            if (next == snapshot || current.compareAndSet(snapshot, next)) {
+                return next;
+            }
+            retries.incrementAndGet();
+        }
+    }
+
+    private static Shape checkShape(Shape shape) {
+        if (shape == null) {
+            throw new IllegalArgumentException("Shape must not be null");
+        }
+        return shape;
+    }
+
+    private static Shape[] toArray(Collection<? extends Shape> shapes) {
+        Shape[] result = new Shape[shapes.size()];
+        int i = 0;
+        for (Shape shape : shapes) {
+            result[i++] = checkShape(shape);
+        }
+        return result;
+    }
+
+    /**
+     * Неизменяемый снимок сцены. Является списком фигур и может передаваться
+     * отрисовке, экспорту и индексам без копирования.
+     */
+    public static final class Snapshot extends AbstractList<Shape> implements RandomAccess {
+
+        // Блоки не изменяются после публикации снимка; последний блок может быть заполнен частично
+        private final Shape[][] chunks;
+        private final int size;
+        private final long version;
+
+        private Snapshot(Shape[][] chunks, int size, long version) {
+            this.chunks = chunks;
+            this.size = size;
+            this.version = version;
+        }
+
+        @Override
+        public Shape get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(String.format("Index %d, size %d", index, size));
+            }
+            return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Возвращает номер версии: увеличивается при каждом изменении сцены.
+         *
+         * @return номер версии
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        private Snapshot append(Shape[] added) {
+            if (added.length == 0) {
+                return this;
+            }
+            int newSize = size + added.length;
+            Shape[][] next = Arrays.copyOf(chunks, (newSize + CHUNK_MASK) >>> CHUNK_SHIFT);
+            int position = size;
+            int copied = 0;
+            while (copied < added.length) {
+                int chunkIndex = position >>> CHUNK_SHIFT;
+                int offset = position & CHUNK_MASK;
+                int length = Math.min(CHUNK_SIZE - offset, added.length - copied);
+                // Частично заполненный блок копируется: его может одновременно дописывать другой писатель
+                Shape[] chunk = offset == 0 ? new Shape[CHUNK_SIZE] : Arrays.copyOf(chunks[chunkIndex], CHUNK_SIZE);
+                System.arraycopy(added, copied, chunk, offset, length);
+                next[chunkIndex] = chunk;
+                position += length;
+                copied += length;
+            }
+            return new Snapshot(next, newSize, version + 1);
+        }
+
+        private Snapshot replace(int index, Shape shape) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(String.format("Index %d, size %d", index, size));
+            }
+            Shape[][] next = chunks.clone();
+            Shape[] chunk = chunks[index >>> CHUNK_SHIFT].clone();
+            chunk[index & CHUNK_MASK] = shape;
+            next[index >>> CHUNK_SHIFT] = chunk;
+            return new Snapshot(next, size, version + 1);
+        }
+
+        private Snapshot truncate(int newSize) {
+            if (newSize < 0 || newSize > size) {
+                throw new IndexOutOfBoundsException(String.format("Cannot truncate %d shapes to %d", size, newSize));
+            }
+            if (newSize == size) {
+                return this;
+            }
+            Shape[][] next = Arrays.copyOf(chunks, (newSize + CHUNK_MASK) >>> CHUNK_SHIFT);
+            int offset = newSize & CHUNK_MASK;
+            if (offset != 0) {
+                // Хвост последнего блока очищается, чтобы не удерживать отброшенные фигуры
+                Shape[] chunk = Arrays.copyOf(chunks[next.length - 1], CHUNK_SIZE);
+                Arrays.fill(chunk, offset, CHUNK_SIZE, null);
+                next[next.length - 1] = chunk;
+            }
+            return new Snapshot(next, newSize, version + 1);
+        }
+    }
+}
@@ -5,11 +5,14 @@ import java.util.List;
 /**
  * Абстрактный класс, представляющий геометрическую фигуру.
  * Содержит общие свойства и методы для всех фигур.
+ * <p>
+ * Фигуры неизменяемы: все поля неизменяемы, поэтому фигуру можно читать из любого числа
+ * потоков без синхронизации. Фигура с другим стилем создается методом {@link #withStyle(String, double)}.
  */
 public abstract class Shape {
 
-    protected String color;
-    protected double lineWidth;
+    private final String color;
+    private final double lineWidth;
 
     /**
      * Конструктор для создания фигуры.
@@ -52,21 +55,33 @@ public abstract class Shape {
     public abstract boolean containsPoint(Point point);
 
     /**
-     * Возвращает цвет фигуры.
+     * Возвращает ограничивающий прямоугольник фигуры.
+     * По умолчанию вычисляется по точкам {@link #getPoints()};
+     * фигуры с аналитическим описанием переопределяют метод точным расчетом.
      *
-     * @return цвет в формате HEX
+     * @return ограничивающий прямоугольник
      */
-    public String getColor() {
-        return color;
+    public Bounds getBounds() {
+        return Bounds.of(getPoints());
     }
 
     /**
-     * Устанавливает цвет фигуры.
+     * Проверяет, является ли контур фигуры замкнутым.
+     * Для замкнутых фигур последняя точка соединяется с первой.
      *
-     * @param color новый цвет в формате HEX
+     * @return true если контур замкнут, иначе false
      */
-    public void setColor(String color) {
-        this.color = color;
+    public boolean isClosed() {
+        return true;
+    }
+
+    /**
+     * Возвращает цвет фигуры.
+     *
+     * @return цвет в формате HEX
+     */
+    public String getColor() {
+        return color;
     }
 
     /**
@@ -79,13 +94,14 @@ public abstract class Shape {
     }
 
     /**
-     * Устанавливает толщину линии фигуры.
+     * Возвращает фигуру той же геометрии с другим цветом и толщиной линии.
+     * Неизменяемая геометрия разделяется с исходной фигурой без копирования.
      *
-     * @param lineWidth новая толщина линии
+     * @param color цвет новой фигуры в формате HEX
+     * @param lineWidth толщина линии новой фигуры
+     * @return новая фигура того же типа
      */
-    public void setLineWidth(double lineWidth) {
-        this.lineWidth = lineWidth;
-    }
+    public abstract Shape withStyle(String color, double lineWidth);
 
     @Override
     public String toString() {
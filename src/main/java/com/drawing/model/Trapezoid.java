@@ -9,10 +9,10 @@ import java.util.List;
  */
 public class Trapezoid extends Shape {
 
-    private Point topLeft;
-    private Point topRight;
-    private Point bottomRight;
-    private Point bottomLeft;
+    private final Point topLeft;
+    private final Point topRight;
+    private final Point bottomRight;
+    private final Point bottomLeft;
 
     /**
      * Конструктор для создания трапеции.
@@ -33,6 +33,11 @@ public class Trapezoid extends Shape {
         this.bottomLeft = bottomLeft;
     }
 
+    @Override
+    public Trapezoid withStyle(String color, double lineWidth) {
+        return new Trapezoid(topLeft, topRight, bottomRight, bottomLeft, color, lineWidth);
+    }
+
     @Override
     public List<Point> getPoints() {
         return Arrays.asList(topLeft, topRight, bottomRight, bottomLeft);
@@ -64,8 +69,8 @@ public class Trapezoid extends Shape {
     @Override
     public boolean containsPoint(Point point) {
         // Разбиваем трапецию на два треугольника и проверяем принадлежность
-        Triangle triangle1 = new Triangle(topLeft, topRight, bottomRight, color, lineWidth);
-        Triangle triangle2 = new Triangle(topLeft, bottomRight, bottomLeft, color, lineWidth);
+        Triangle triangle1 = new Triangle(topLeft, topRight, bottomRight, getColor(), getLineWidth());
+        Triangle triangle2 = new Triangle(topLeft, bottomRight, bottomLeft, getColor(), getLineWidth());
 
         return triangle1.containsPoint(point) || triangle2.containsPoint(point);
     }
@@ -123,6 +128,6 @@ public class Trapezoid extends Shape {
     @Override
     public String toString() {
         return String.format("Trapezoid{points=[%s, %s, %s, %s], color='%s', area=%.2f}",
-                topLeft, topRight, bottomRight, bottomLeft, color, getArea());
+                topLeft, topRight, bottomRight, bottomLeft, getColor(), getArea());
     }
 }
\ No newline at end of file
@@ -9,9 +9,9 @@ import java.util.List;
  */
 public class Triangle extends Shape {
 
-    private Point point1;
-    private Point point2;
-    private Point point3;
+    private final Point point1;
+    private final Point point2;
+    private final Point point3;
 
     /**
      * Конструктор для создания треугольника.
@@ -29,6 +29,11 @@ public class Triangle extends Shape {
         this.point3 = point3;
     }
 
+    @Override
+    public Triangle withStyle(String color, double lineWidth) {
+        return new Triangle(point1, point2, point3, color, lineWidth);
+    }
+
     @Override
     public List<Point> getPoints() {
         return Arrays.asList(point1, point2, point3);
@@ -114,6 +119,6 @@ public class Triangle extends Shape {
     @Override
     public String toString() {
         return String.format("Triangle{points=[%s, %s, %s], color='%s', area=%.2f}",
-                point1, point2, point3, color, getArea());
+                point1, point2, point3, getColor(), getArea());
     }
 }
\ No newline at end of file
@@ -0,0 +1,378 @@
+package com.drawing.render;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Отсечение геометрии прямоугольником со сторонами, параллельными осям.
+ * Отрезки и ломаные отсекаются алгоритмом Лианга - Барски,
+ * многоугольники - алгоритмом Сазерленда - Ходжмана.
+ * Для обводки прямоугольник отсечения берется с запасом не меньше толщины линии:
+ * тогда стороны, добавленные отсечением многоугольника, лежат за пределами видимой области.
+ */
+public final class Clipper {
+
+    /** Геометрия целиком внутри прямоугольника отсечения. */
+    public static final int INSIDE = 0;
+    /** Геометрия целиком вне прямоугольника отсечения. */
+    public static final int OUTSIDE = 1;
+    /** Геометрия пересекает границу прямоугольника отсечения. */
+    public static final int PARTIAL = 2;
+
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+
+    /**
+     * Конструктор отсекателя.
+     *
+     * @param minX левая граница
+     * @param minY верхняя граница
+     * @param maxX правая граница
+     * @param maxY нижняя граница
+     */
+    public Clipper(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    /**
+     * Создает отсекатель по размеру холста области отображения, расширенному на запас.
+     *
+     * @param viewport область отображения
+     * @param margin запас с каждой стороны в пикселях
+     * @return отсекатель в координатах холста
+     */
+    public static Clipper forViewport(Viewport viewport, double margin) {
+        return new Clipper(-margin, -margin, viewport.getWidth() + margin, viewport.getHeight() + margin);
+    }
+
+    /**
+     * Определяет положение ограничивающего прямоугольника относительно области отсечения.
+     *
+     * @return {@link #INSIDE}, {@link #OUTSIDE} или {@link #PARTIAL}
+     */
+    public int classify(double boxMinX, double boxMinY, double boxMaxX, double boxMaxY) {
+        if (boxMaxX < minX || boxMinX > maxX || boxMaxY < minY || boxMinY > maxY) {
+            return OUTSIDE;
+        }
+        if (boxMinX >= minX && boxMaxX <= maxX && boxMinY >= minY && boxMaxY <= maxY) {
+            return INSIDE;
+        }
+        return PARTIAL;
+    }
+
+    /**
+     * Отсекает отрезок алгоритмом Лианга - Барски.
+     *
+     * @param segment координаты x0, y0, x1, y1; при успехе заменяются видимой частью
+     * @return true если видимая часть отрезка не пуста
+     */
+    public boolean clipSegment(double[] segment) {
+        double x0 = segment[0];
+        double y0 = segment[1];
+        double dx = segment[2] - x0;
+        double dy = segment[3] - y0;
+        double[] range = {0.0, 1.0};
+
+        if (!clipTest(-dx, x0 - minX, range) || !clipTest(dx, maxX - x0, range)
+                || !clipTest(-dy, y0 - minY, range) || !clipTest(dy, maxY - y0, range)) {
+            return false;
+        }
+
+        segment[0] = x0 + range[0] * dx;
+        segment[1] = y0 + range[0] * dy;
+        segment[2] = x0 + range[1] * dx;
+        segment[3] = y0 + range[1] * dy;
+        return true;
+    }
+
+    /**
+     * Проверка одной границы в алгоритме Лианга - Барски: сужает допустимый диапазон параметра.
+     */
+    private static boolean clipTest(double p, double q, double[] range) {
+        if (p == 0) {
+            return q >= 0;
+        }
+        double r = q / p;
+        if (p < 0) {
+            if (r > range[1]) return false;
+            if (r > range[0]) range[0] = r;
+        } else {
+            if (r < range[0]) return false;
+            if (r < range[1]) range[1] = r;
+        }
+        return true;
+    }
+
+    /**
+     * Разбивает ломаную на видимые участки.
+     *
+     * @param coords координаты вершин x0, y0, x1, y1, ...
+     * @param vertexCount количество вершин
+     * @return видимые участки в виде массивов координат; каждый содержит не менее двух вершин
+     */
+    public List<double[]> clipPolyline(double[] coords, int vertexCount) {
+        List<double[]> runs = new ArrayList<>();
+        double[] run = null;
+        int runLength = 0;
+        double[] segment = new double[4];
+
+        for (int i = 0; i + 1 < vertexCount; i++) {
+            segment[0] = coords[2 * i];
+            segment[1] = coords[2 * i + 1];
+            segment[2] = coords[2 * i + 2];
+            segment[3] = coords[2 * i + 3];
+
+            if (!clipSegment(segment)) {
+                runLength = flushRun(runs, run, runLength);
+                run = null;
+                continue;
+            }
+
+            boolean continues = run != null
+                    && run[runLength - 2] == segment[0] && run[runLength - 1] == segment[1];
+            if (!continues) {
+                runLength = flushRun(runs, run, runLength);
+                run = new double[2 * (vertexCount - i)];
+                run[runLength++] = segment[0];
+                run[runLength++] = segment[1];
+            }
+            run[runLength++] = segment[2];
+            run[runLength++] = segment[3];
+
+            // Конец отрезка отсечен: участок не продолжается в следующем отрезке
+            if (segment[2] != coords[2 * i + 2] || segment[3] != coords[2 * i + 3]) {
+                runLength = flushRun(runs, run, runLength);
+                run = null;
+            }
+        }
+        flushRun(runs, run, runLength);
+        return runs;
+    }
+
+    private static int flushRun(List<double[]> runs, double[] run, int runLength) {
+        if (run != null && runLength >= 4) {
+            runs.add(Arrays.copyOf(run, runLength));
+        }
+        return 0;
+    }
+
+    /**
+     * Отсекает замкнутый многоугольник алгоритмом Сазерленда - Ходжмана.
+     *
+     * @param coords координаты вершин x0, y0, x1, y1, ...
+     * @param vertexCount количество вершин
+     * @return координаты вершин отсеченного многоугольника (пустой массив, если он невидим)
+     */
+    public double[] clipPolygon(double[] coords, int vertexCount) {
+        double[] polygon = Arrays.copyOf(coords, vertexCount * 2);
+        for (int edge = 0; edge < 4 && polygon.length > 0; edge++) {
+            polygon = clipAgainstEdge(polygon, edge);
+        }
+        return polygon;
+    }
+
+    /**
+     * Один проход Сазерленда - Ходжмана по одной границе области.
+     */
+    private double[] clipAgainstEdge(double[] polygon, int edge) {
+        int count = polygon.length / 2;
+        double[] result = new double[polygon.length * 2];
+        int length = 0;
+
+        double prevX = polygon[2 * count - 2];
+        double prevY = polygon[2 * count - 1];
+        boolean prevInside = isInside(prevX, prevY, edge);
+
+        for (int i = 0; i < count; i++) {
+            double x = polygon[2 * i];
+            double y = polygon[2 * i + 1];
+            boolean inside = isInside(x, y, edge);
+
+            if (inside != prevInside) {
+                double t = edgeIntersection(prevX, prevY, x, y, edge);
+                result[length++] = prevX + t * (x - prevX);
+                result[length++] = prevY + t * (y - prevY);
+            }
+            if (inside) {
+                result[length++] = x;
+                result[length++] = y;
+            }
+
+            prevX = x;
+            prevY = y;
+            prevInside = inside;
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    private boolean isInside(double x, double y, int edge) {
+        switch (edge) {
+            case 0: return x >= minX;
+            case 1: return x <= maxX;
+            case 2: return y >= minY;
+            default: return y <= maxY;
+        }
+    }
+
+    private double edgeIntersection(double x0, double y0, double x1, double y1, int edge) {
+        switch (edge) {
+            case 0: return (minX - x0) / (x1 - x0);
+            case 1: return (maxX - x0) / (x1 - x0);
+            case 2: return (minY - y0) / (y1 - y0);
+            default: return (maxY - y0) / (y1 - y0);
+        }
+    }
+
+    /**
+     * Находит дуги эллипса x = cx + rx*cos(t), y = cy + ry*sin(t), лежащие в области отсечения.
+     *
+     * @return интервалы параметра [t0, t1] с t0 в [0, 2*pi) и t1 > t0
+     */
+    public List<double[]> visibleEllipseArcs(double centerX, double centerY, double radiusX, double radiusY) {
+        List<Double> breaks = new ArrayList<>();
+        addCosineRoots(breaks, (minX - centerX) / radiusX);
+        addCosineRoots(breaks, (maxX - centerX) / radiusX);
+        addSineRoots(breaks, (minY - centerY) / radiusY);
+        addSineRoots(breaks, (maxY - centerY) / radiusY);
+        breaks.add(0.0);
+        breaks.add(2 * Math.PI);
+        breaks.sort(null);
+
+        List<double[]> arcs = new ArrayList<>();
+        for (int i = 0; i + 1 < breaks.size(); i++) {
+            double from = breaks.get(i);
+            double to = breaks.get(i + 1);
+            if (to <= from) {
+                continue;
+            }
+            double middle = (from + to) / 2;
+            double x = centerX + radiusX * Math.cos(middle);
+            double y = centerY + radiusY * Math.sin(middle);
+            if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                appendInterval(arcs, from, to);
+            }
+        }
+
+        // Дуга, проходящая через угол 0, склеивается из последнего и первого интервалов
+        if (arcs.size() > 1) {
+            double[] first = arcs.get(0);
+            double[] last = arcs.get(arcs.size() - 1);
+            if (first[0] == 0.0 && last[1] == 2 * Math.PI) {
+                arcs.remove(0);
+                last[1] = 2 * Math.PI + first[1];
+            }
+        }
+        return arcs;
+    }
+
+    private static void addCosineRoots(List<Double> breaks, double value) {
+        if (value >= -1 && value <= 1) {
+            double angle = Math.acos(value);
+            breaks.add(angle);
+            breaks.add(2 * Math.PI - angle);
+        }
+    }
+
+    private static void addSineRoots(List<Double> breaks, double value) {
+        if (value >= -1 && value <= 1) {
+            double angle = Math.asin(value);
+            breaks.add(angle < 0 ? angle + 2 * Math.PI : angle);
+            breaks.add(Math.PI - angle);
+        }
+    }
+
+    /**
+     * Находит участки параболы y = a*x^2 + b*x + c на интервале [fromX, toX],
+     * значения которой лежат в диапазоне [lowY, highY].
+     * Множество {x : lowY <= f(x) <= highY} - не более двух интервалов.
+     *
+     * @return видимые интервалы [x0, x1] в порядке возрастания
+     */
+    public static List<double[]> visibleParabolaIntervals(double a, double b, double c,
+                                                          double fromX, double toX,
+                                                          double lowY, double highY) {
+        List<Double> breaks = new ArrayList<>();
+        breaks.add(fromX);
+        breaks.add(toX);
+        addQuadraticRoots(breaks, a, b, c - lowY, fromX, toX);
+        addQuadraticRoots(breaks, a, b, c - highY, fromX, toX);
+        breaks.sort(null);
+
+        List<double[]> intervals = new ArrayList<>();
+        for (int i = 0; i + 1 < breaks.size(); i++) {
+            double from = breaks.get(i);
+            double to = breaks.get(i + 1);
+            if (to <= from) {
+                continue;
+            }
+            double middle = (from + to) / 2;
+            double y = a * middle * middle + b * middle + c;
+            if (y >= lowY && y <= highY) {
+                appendInterval(intervals, from, to);
+            }
+        }
+        return intervals;
+    }
+
+    private static void addQuadraticRoots(List<Double> breaks, double a, double b, double c,
+                                          double fromX, double toX) {
+        if (a == 0) {
+            if (b != 0) {
+                addIfWithin(breaks, -c / b, fromX, toX);
+            }
+            return;
+        }
+        double discriminant = b * b - 4 * a * c;
+        if (discriminant < 0) {
+            return;
+        }
+        // Устойчивая к потере точности форма корней квадратного уравнения
+        double q = -0.5 * (b + Math.copySign(Math.sqrt(discriminant), b));
+        addIfWithin(breaks, q / a, fromX, toX);
+        if (q != 0) {
+            addIfWithin(breaks, c / q, fromX, toX);
+        }
+    }
+
+    private static void addIfWithin(List<Double> breaks, double value, double from, double to) {
+        if (value > from && value < to) {
+            breaks.add(value);
+        }
+    }
+
+    /**
+     * Добавляет интервал, объединяя его с предыдущим, если они смыкаются.
+     */
+    private static void appendInterval(List<double[]> intervals, double from, double to) {
+        if (!intervals.isEmpty()) {
+            double[] last = intervals.get(intervals.size() - 1);
+            if (last[1] == from) {
+                last[1] = to;
+                return;
+            }
+        }
+        intervals.add(new double[]{from, to});
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+}
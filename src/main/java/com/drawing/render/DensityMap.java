@@ -0,0 +1,283 @@
+package com.drawing.render;
+
+import com.drawing.model.Bounds;
+import com.drawing.model.Circle;
+import com.drawing.model.Parabola;
+import com.drawing.model.Point;
+import com.drawing.model.Rectangle;
+import com.drawing.model.Shape;
+import com.drawing.util.ColorUtil;
+import com.drawing.util.MathUtil;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Карта плотности сцены - представление с пониженной детализацией для сильно
+ * уменьшенного вида, в котором контуры отдельных фигур неразличимы.
+ * <p>
+ * Каждая фигура равномерно распределяет свое "чернило" (длина контура, умноженная
+ * на толщину линии) по ограничивающему прямоугольнику на холсте. Вклад прямоугольника
+ * добавляется в двумерный массив разностей за O(1), поэтому стоимость не зависит
+ * от размера фигуры. Фигуры делятся на части, гистограммы частей строятся параллельно
+ * и складываются. Яркость ячейки определяется суммарным покрытием, цвет - средним
+ * цветом фигур, взвешенным по покрытию.
+ * <p>
+ * Буфер результата переиспользуется, поэтому один экземпляр не должен
+ * использоваться несколькими потоками одновременно.
+ */
+public class DensityMap {
+
+    // Минимальное количество фигур в одной части параллельного построения
+    private static final int MIN_CHUNK_SIZE = 4096;
+
+    // Количество отрезков для оценки длины параболы
+    private static final int PARABOLA_LENGTH_SEGMENTS = 16;
+
+    private final int cellSize;
+    private IntRaster raster;
+
+    /**
+     * Конструктор карты плотности.
+     *
+     * @param cellSize размер ячейки гистограммы в пикселях
+     * @throws IllegalArgumentException если размер ячейки не положителен
+     */
+    public DensityMap(int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Считает фигуры, ограничивающий прямоугольник которых пересекает область отображения.
+     *
+     * @param shapes фигуры
+     * @param viewport область отображения
+     * @return количество видимых фигур
+     */
+    public static long countVisible(List<? extends Shape> shapes, Viewport viewport) {
+        Bounds view = new Bounds(viewport.getMinX(), viewport.getMinY(), viewport.getMaxX(), viewport.getMaxY());
+        return shapes.parallelStream()
+                .filter(shape -> shape.getBounds().intersects(view))
+                .count();
+    }
+
+    /**
+     * Строит карту плотности фигур для указанной области отображения.
+     *
+     * @param shapes фигуры
+     * @param viewport область отображения
+     * @param background цвет фона в формате ARGB
+     * @return буфер с результатом; действителен до следующего вызова
+     */
+    public IntRaster render(List<? extends Shape> shapes, Viewport viewport, int background) {
+        int columns = (viewport.getWidth() + cellSize - 1) / cellSize;
+        int rows = (viewport.getHeight() + cellSize - 1) / cellSize;
+
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int chunkCount = Math.max(1, Math.min(parallelism * 2, shapes.size() / MIN_CHUNK_SIZE));
+        int chunkSize = (shapes.size() + chunkCount - 1) / Math.max(1, chunkCount);
+
+        Histogram histogram = IntStream.range(0, chunkCount).parallel()
+                .mapToObj(chunk -> {
+                    Histogram partial = new Histogram(columns, rows);
+                    int to = Math.min(shapes.size(), (chunk + 1) * chunkSize);
+                    for (int i = chunk * chunkSize; i < to; i++) {
+                        partial.add(shapes.get(i), viewport, cellSize);
+                    }
+                    return partial;
+                })
+                .reduce(Histogram::merge)
+                .orElseGet(() -> new Histogram(columns, rows));
+
+        histogram.integrate();
+        return paint(histogram, viewport, background);
+    }
+
+    private IntRaster paint(Histogram histogram, Viewport viewport, int background) {
+        if (raster == null || raster.getWidth() != viewport.getWidth() || raster.getHeight() != viewport.getHeight()) {
+            raster = new IntRaster(viewport.getWidth(), viewport.getHeight());
+        }
+        int width = raster.getWidth();
+        int height = raster.getHeight();
+        int[] pixels = raster.getPixels();
+        int[] rowColors = new int[histogram.columns];
+
+        for (int row = 0; row < histogram.rows; row++) {
+            for (int column = 0; column < histogram.columns; column++) {
+                rowColors[column] = histogram.colorAt(column, row, background);
+            }
+            int fromY = row * cellSize;
+            int toY = Math.min(height, fromY + cellSize);
+            for (int y = fromY; y < toY; y++) {
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    pixels[offset + x] = rowColors[x / cellSize];
+                }
+            }
+        }
+        return raster;
+    }
+
+    /**
+     * Оценивает длину контура фигуры на холсте.
+     */
+    static double outlineLength(Shape shape, Viewport viewport) {
+        double scaleX = viewport.getScaleX();
+        double scaleY = viewport.getScaleY();
+
+        if (shape instanceof Circle) {
+            double radiusX = ((Circle) shape).getRadius() * scaleX;
+            double radiusY = ((Circle) shape).getRadius() * scaleY;
+            return 2 * Math.PI * Math.sqrt((radiusX * radiusX + radiusY * radiusY) / 2);
+        }
+        if (shape instanceof Rectangle) {
+            Rectangle rectangle = (Rectangle) shape;
+            return 2 * (Math.abs(rectangle.getWidth()) * scaleX + Math.abs(rectangle.getHeight()) * scaleY);
+        }
+        if (shape instanceof Parabola) {
+            Parabola parabola = (Parabola) shape;
+            double step = (parabola.getXMax() - parabola.getXMin()) / PARABOLA_LENGTH_SEGMENTS;
+            double length = 0;
+            for (int i = 0; i < PARABOLA_LENGTH_SEGMENTS; i++) {
+                double x = parabola.getXMin() + i * step;
+                length += Math.hypot(step * scaleX, (parabola.valueAt(x + step) - parabola.valueAt(x)) * scaleY);
+            }
+            return length;
+        }
+
+        List<Point> points = shape.getPoints();
+        double length = 0;
+        int segments = shape.isClosed() ? points.size() : points.size() - 1;
+        for (int i = 0; i < segments; i++) {
+            Point from = points.get(i);
+            Point to = points.get((i + 1) % points.size());
+            length += Math.hypot((to.getX() - from.getX()) * scaleX, (to.getY() - from.getY()) * scaleY);
+        }
+        return length;
+    }
+
+    /**
+     * Гистограмма покрытия в виде массивов разностей: после {@link #integrate()}
+     * каждая ячейка содержит суммарное покрытие и взвешенные суммы цветовых каналов.
+     */
+    private static final class Histogram {
+
+        private final int columns;
+        private final int rows;
+        private final int stride;
+        private final double[] coverage;
+        private final double[] red;
+        private final double[] green;
+        private final double[] blue;
+
+        Histogram(int columns, int rows) {
+            this.columns = columns;
+            this.rows = rows;
+            this.stride = columns + 1;
+            int size = stride * (rows + 1);
+            this.coverage = new double[size];
+            this.red = new double[size];
+            this.green = new double[size];
+            this.blue = new double[size];
+        }
+
+        void add(Shape shape, Viewport viewport, int cellSize) {
+            int argb;
+            Bounds bounds;
+            try {
+                argb = ColorUtil.parseArgb(shape.getColor());
+                bounds = shape.getBounds();
+            } catch (RuntimeException e) {
+                // Фигура с некорректными данными в обзорный режим не попадает
+                return;
+            }
+
+            double halfWidth = shape.getLineWidth() / 2;
+            double left = viewport.toCanvasX(bounds.getMinX()) - halfWidth;
+            double right = viewport.toCanvasX(bounds.getMaxX()) + halfWidth;
+            double top = viewport.toCanvasY(bounds.getMaxY()) - halfWidth;
+            double bottom = viewport.toCanvasY(bounds.getMinY()) + halfWidth;
+            if (right < 0 || bottom < 0 || left >= viewport.getWidth() || top >= viewport.getHeight()) {
+                return;
+            }
+
+            // Доля пикселей прямоугольника, закрашиваемых контуром
+            double area = Math.max(1.0, (right - left) * (bottom - top));
+            double ink = outlineLength(shape, viewport) * Math.max(1.0, shape.getLineWidth());
+            double density = Math.min(1.0, ink / area);
+            if (!(density > 0)) {
+                return;
+            }
+
+            int column0 = Math.max(0, (int) Math.floor(left / cellSize));
+            int column1 = Math.min(columns, (int) Math.floor(right / cellSize) + 1);
+            int row0 = Math.max(0, (int) Math.floor(top / cellSize));
+            int row1 = Math.min(rows, (int) Math.floor(bottom / cellSize) + 1);
+
+            addRectangle(coverage, column0, row0, column1, row1, density);
+            addRectangle(red, column0, row0, column1, row1, density * ((argb >> 16) & 0xFF));
+            addRectangle(green, column0, row0, column1, row1, density * ((argb >> 8) & 0xFF));
+            addRectangle(blue, column0, row0, column1, row1, density * (argb & 0xFF));
+        }
+
+        private void addRectangle(double[] values, int column0, int row0, int column1, int row1, double value) {
+            values[row0 * stride + column0] += value;
+            values[row0 * stride + column1] -= value;
+            values[row1 * stride + column0] -= value;
+            values[row1 * stride + column1] += value;
+        }
+
+        Histogram merge(Histogram other) {
+            for (int i = 0; i < coverage.length; i++) {
+                coverage[i] += other.coverage[i];
+                red[i] += other.red[i];
+                green[i] += other.green[i];
+                blue[i] += other.blue[i];
+            }
+            return this;
+        }
+
+        void integrate() {
+            for (double[] values : new double[][]{coverage, red, green, blue}) {
+                for (int row = 0; row <= rows; row++) {
+                    for (int column = 0; column <= columns; column++) {
+                        int index = row * stride + column;
+                        if (column > 0) {
+                            values[index] += values[index - 1];
+                        }
+                        if (row > 0) {
+                            values[index] += values[index - stride];
+                        }
+                        if (row > 0 && column > 0) {
+                            values[index] -= values[index - stride - 1];
+                        }
+                    }
+                }
+            }
+        }
+
+        int colorAt(int column, int row, int background) {
+            int index = row * stride + column;
+            double total = coverage[index];
+            // Из-за округления в массиве разностей пустые ячейки могут получить малый шум
+            if (total < 1e-6) {
+                return background;
+            }
+
+            // Покрытие насыщается: ячейка, закрашенная несколько раз, непрозрачна
+            double opacity = 1 - Math.exp(-total);
+            int r = blend((background >> 16) & 0xFF, red[index] / total, opacity);
+            int g = blend((background >> 8) & 0xFF, green[index] / total, opacity);
+            int b = blend(background & 0xFF, blue[index] / total, opacity);
+            return 0xFF000000 | (r << 16) | (g << 8) | b;
+        }
+
+        private static int blend(int background, double color, double opacity) {
+            return (int) Math.round(MathUtil.clamp(MathUtil.lerp(background, color, opacity), 0, 255));
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.drawing.render;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+/**
+ * Дисковый кэш растровых плиток в одном файле, отображенном в память.
+ * Плитки переживают перезапуск приложения.
+ * <p>
+ * Файл состоит из заголовка, таблицы записей и области слотов фиксированного размера.
+ * Запись содержит ключ (хеш сцены, уровень, номер плитки), контрольную сумму CRC32C
+ * пикселей и отметку последнего использования для вытеснения (LRU).
+ * Число слотов - наибольшее, при котором весь файл (заголовок, таблица записей с выравниванием
+ * и слоты) укладывается в дисковую квоту. При открытии проверяются заголовок
+ * и контрольные суммы всех слотов; поврежденные записи отбрасываются.
+ * <p>
+ * Методы синхронизированы. {@link #get} копирует пиксели из отображения под блокировкой:
+ * слот может быть вытеснен и перезаписан сразу после выхода из метода. Порядок использования
+ * слотов хранится и в памяти, поэтому выбор слота для новой плитки не просматривает таблицу записей.
+ * <p>
+ * Файл открывается с исключительной блокировкой ({@link FileLock}): другой процесс
+ * (или другой экземпляр в этом процессе) не может открыть тот же файл, пока кэш не закрыт.
+ */
+public class DiskTileCache implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(DiskTileCache.class);
+
+    private static final int MAGIC = 0x44544331; // "DTC1"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_BYTES = 32;
+    private static final int CLOCK_OFFSET = 16;
+
+    private static final int ENTRY_BYTES = 40;
+    private static final int ENTRY_SCENE = 0;
+    private static final int ENTRY_LEVEL = 8;
+    private static final int ENTRY_TILE_X = 12;
+    private static final int ENTRY_TILE_Y = 16;
+    private static final int ENTRY_CRC = 20;
+    private static final int ENTRY_LAST_USED = 24;
+    private static final int ENTRY_STATE = 32;
+
+    private static final int STATE_EMPTY = 0;
+    private static final int STATE_VALID = 1;
+
+    // Область слотов выравнивается по странице
+    private static final int PAGE_SIZE = 4096;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer mapping;
+    private final int slotCount;
+    private final int tileBytes;
+    private final int dataOffset;
+    // Слоты действительных плиток в порядке использования: первым идет давно не использованный
+    private final LinkedHashMap<Key, Integer> slots = new LinkedHashMap<>(16, 0.75f, true);
+    // Свободные слоты выдаются по возрастанию номера
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private long clock;
+
+    /**
+     * Открывает или создает файл кэша.
+     *
+     * @param file путь к файлу кэша
+     * @param quotaBytes дисковая квота в байтах
+     * @param tileBytes размер одной плитки в байтах (кратен 4)
+     * @throws IllegalArgumentException если квота не вмещает ни одной плитки вместе с заголовком
+     *                                  и таблицей записей или превышает 2 ГБ
+     * @throws IOException при ошибке работы с файлом или если файл уже открыт другим кэшем
+     */
+    public DiskTileCache(Path file, long quotaBytes, int tileBytes) throws IOException {
+        if (tileBytes <= 0 || tileBytes % 4 != 0) {
+            throw new IllegalArgumentException("Tile size must be a positive multiple of 4");
+        }
+        // Заголовок и записи вычитаются из квоты; выравнивание таблицы по странице
+        // может не уместиться, тогда слоты убираются по одному
+        long slotCountLong = Math.max(0, (quotaBytes - HEADER_BYTES) / (tileBytes + ENTRY_BYTES));
+        while (slotCountLong > 0 && fileSize(slotCountLong, tileBytes) > quotaBytes) {
+            slotCountLong--;
+        }
+        if (slotCountLong < 1) {
+            throw new IllegalArgumentException("Disk quota must hold at least one tile");
+        }
+        long dataOffsetLong = alignToPage(HEADER_BYTES + slotCountLong * ENTRY_BYTES);
+        long fileSize = fileSize(slotCountLong, tileBytes);
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Disk quota must not exceed 2 GB");
+        }
+
+        this.slotCount = (int) slotCountLong;
+        this.tileBytes = tileBytes;
+        this.dataOffset = (int) dataOffsetLong;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            lock(file);
+            boolean fresh = channel.size() != fileSize;
+            if (fresh) {
+                channel.truncate(0);
+            }
+            this.mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            mapping.order(ByteOrder.nativeOrder());
+
+            if (fresh || !hasValidHeader()) {
+                initialize();
+            } else {
+                loadIndex();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void lock(Path file) throws IOException {
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            throw new IOException("Disk tile cache file is in use by another process: " + file);
+        }
+    }
+
+    /**
+     * Возвращает размер файла кэша с указанным количеством слотов: наименьшую квоту,
+     * вмещающую это количество плиток.
+     *
+     * @param slotCount количество слотов
+     * @param tileBytes размер одной плитки в байтах
+     * @return размер файла в байтах
+     */
+    public static long fileSize(long slotCount, int tileBytes) {
+        return alignToPage(HEADER_BYTES + slotCount * ENTRY_BYTES) + slotCount * tileBytes;
+    }
+
+    private static long alignToPage(long offset) {
+        return (offset + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE;
+    }
+
+    private boolean hasValidHeader() {
+        return mapping.getInt(0) == MAGIC
+                && mapping.getInt(4) == FORMAT_VERSION
+                && mapping.getInt(8) == slotCount
+                && mapping.getInt(12) == tileBytes;
+    }
+
+    private void initialize() {
+        logger.info("Initializing disk tile cache with {} slots", slotCount);
+        for (int slot = 0; slot < slotCount; slot++) {
+            mapping.putInt(entryOffset(slot) + ENTRY_STATE, STATE_EMPTY);
+            freeSlots.addLast(slot);
+        }
+        mapping.putLong(CLOCK_OFFSET, 0);
+        mapping.putInt(4, FORMAT_VERSION);
+        mapping.putInt(8, slotCount);
+        mapping.putInt(12, tileBytes);
+        // Сигнатура записывается последней: недописанный заголовок не будет принят
+        mapping.putInt(0, MAGIC);
+        clock = 0;
+    }
+
+    private void loadIndex() {
+        clock = mapping.getLong(CLOCK_OFFSET);
+        int corrupted = 0;
+        Map<Key, Integer> valid = new HashMap<>();
+
+        for (int slot = 0; slot < slotCount; slot++) {
+            int entry = entryOffset(slot);
+            int state = mapping.getInt(entry + ENTRY_STATE);
+            if (state == STATE_EMPTY) {
+                continue;
+            }
+            if (state != STATE_VALID || mapping.getInt(entry + ENTRY_CRC) != checksum(slot)) {
+                mapping.putInt(entry + ENTRY_STATE, STATE_EMPTY);
+                corrupted++;
+                continue;
+            }
+
+            long lastUsed = mapping.getLong(entry + ENTRY_LAST_USED);
+            clock = Math.max(clock, lastUsed);
+
+            // Дубликат возможен только после сбоя; остается более свежая копия
+            Key key = readKey(entry);
+            Integer previous = valid.get(key);
+            if (previous != null) {
+                if (lastUsed(previous) >= lastUsed) {
+                    mapping.putInt(entry + ENTRY_STATE, STATE_EMPTY);
+                    continue;
+                }
+                mapping.putInt(entryOffset(previous) + ENTRY_STATE, STATE_EMPTY);
+            }
+            valid.put(key, slot);
+        }
+
+        // Порядок использования восстанавливается по отметкам из таблицы записей
+        List<Map.Entry<Key, Integer>> used = new ArrayList<>(valid.entrySet());
+        used.sort(Comparator.comparingLong(usedEntry -> lastUsed(usedEntry.getValue())));
+        for (Map.Entry<Key, Integer> usedEntry : used) {
+            slots.put(usedEntry.getKey(), usedEntry.getValue());
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (mapping.getInt(entryOffset(slot) + ENTRY_STATE) != STATE_VALID) {
+                freeSlots.addLast(slot);
+            }
+        }
+
+        if (corrupted > 0) {
+            logger.warn("Disk tile cache: discarded {} corrupted tiles", corrupted);
+        }
+        logger.info("Disk tile cache opened: {} of {} slots in use", slots.size(), slotCount);
+    }
+
+    /**
+     * Возвращает копию пикселей плитки.
+     *
+     * @param sceneHash хеш содержимого сцены
+     * @param key адрес плитки
+     * @return пиксели ARGB или null, если плитки нет в кэше
+     */
+    public synchronized int[] get(long sceneHash, TileKey key) {
+        Integer slot = slots.get(new Key(sceneHash, key));
+        if (slot == null) {
+            return null;
+        }
+        touch(slot);
+        int[] pixels = new int[tileBytes / 4];
+        slotBuffer(slot).asIntBuffer().get(pixels);
+        return pixels;
+    }
+
+    /**
+     * Сохраняет пиксели плитки, при необходимости вытесняя давно не использованную.
+     *
+     * @param sceneHash хеш содержимого сцены
+     * @param key адрес плитки
+     * @param pixels пиксели ARGB
+     * @throws IllegalArgumentException если размер плитки не совпадает с размером слота
+     */
+    public synchronized void put(long sceneHash, TileKey key, int[] pixels) {
+        if (pixels.length * 4 != tileBytes) {
+            throw new IllegalArgumentException("Tile must contain " + tileBytes / 4 + " pixels");
+        }
+        Key cacheKey = new Key(sceneHash, key);
+        Integer existing = slots.get(cacheKey);
+        int slot = existing != null ? existing : allocateSlot();
+        int entry = entryOffset(slot);
+
+        // Запись помечается действительной только после записи данных и контрольной суммы
+        mapping.putInt(entry + ENTRY_STATE, STATE_EMPTY);
+        slotBuffer(slot).asIntBuffer().put(pixels);
+        mapping.putLong(entry + ENTRY_SCENE, sceneHash);
+        mapping.putInt(entry + ENTRY_LEVEL, key.getLevel());
+        mapping.putInt(entry + ENTRY_TILE_X, key.getTileX());
+        mapping.putInt(entry + ENTRY_TILE_Y, key.getTileY());
+        mapping.putInt(entry + ENTRY_CRC, checksum(slot));
+        touch(slot);
+        mapping.putInt(entry + ENTRY_STATE, STATE_VALID);
+
+        slots.put(cacheKey, slot);
+    }
+
+    private int allocateSlot() {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pop();
+        }
+        Iterator<Integer> eldest = slots.values().iterator();
+        int victim = eldest.next();
+        eldest.remove();
+        return victim;
+    }
+
+    private long lastUsed(int slot) {
+        return mapping.getLong(entryOffset(slot) + ENTRY_LAST_USED);
+    }
+
+    private void touch(int slot) {
+        mapping.putLong(entryOffset(slot) + ENTRY_LAST_USED, ++clock);
+        mapping.putLong(CLOCK_OFFSET, clock);
+    }
+
+    private Key readKey(int entry) {
+        return new Key(mapping.getLong(entry + ENTRY_SCENE), new TileKey(mapping.getInt(entry + ENTRY_LEVEL),
+                mapping.getInt(entry + ENTRY_TILE_X), mapping.getInt(entry + ENTRY_TILE_Y)));
+    }
+
+    private int checksum(int slot) {
+        CRC32C crc = new CRC32C();
+        crc.update(slotBuffer(slot));
+        return (int) crc.getValue();
+    }
+
+    private MappedByteBuffer slotBuffer(int slot) {
+        int offset = dataOffset + slot * tileBytes;
+        MappedByteBuffer buffer = mapping.slice(offset, tileBytes);
+        buffer.order(ByteOrder.nativeOrder());
+        return buffer;
+    }
+
+    private static int entryOffset(int slot) {
+        return HEADER_BYTES + slot * ENTRY_BYTES;
+    }
+
+    /**
+     * Возвращает количество плиток в кэше.
+     *
+     * @return количество плиток
+     */
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    /**
+     * Возвращает наибольшее количество плиток, допускаемое квотой.
+     *
+     * @return количество слотов
+     */
+    public int getCapacity() {
+        return slotCount;
+    }
+
+    /**
+     * Сбрасывает изменения на диск и закрывает файл.
+     *
+     * @throws IOException при ошибке закрытия
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        mapping.force();
+        channel.close();
+    }
+
+    /**
+     * Ключ плитки в кэше: адрес плитки в пирамиде конкретной сцены.
+     */
+    private static final class Key {
+
+        private final long sceneHash;
+        private final TileKey tile;
+
+        Key(long sceneHash, TileKey tile) {
+            this.sceneHash = sceneHash;
+            this.tile = tile;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return sceneHash == other.sceneHash && tile.equals(other.tile);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sceneHash, tile);
+        }
+    }
+}
@@ -0,0 +1,536 @@
+package com.drawing.render;
+
+import com.drawing.model.Circle;
+import com.drawing.model.Parabola;
+import com.drawing.model.Point;
+import com.drawing.model.Rectangle;
+import com.drawing.model.Shape;
+import com.drawing.util.ColorUtil;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Компактный записанный список отображения сцены.
+ * Фигуры разбиваются на примитивы один раз: смена стиля и серии вершин,
+ * уже переведенные в координаты холста, хранятся в массивах примитивов.
+ * Окружности, прямоугольники и параболы записываются аналитическими
+ * примитивами (эллипс, прямоугольник, квадратичная кривая Безье),
+ * а не ломаными из {@link Shape#getPoints()}.
+ * Список можно воспроизводить многократно в разные приемники
+ * ({@link DisplayListRenderer}) без повторного вызова {@link Shape#getPoints()}.
+ * Таблица смещений хранит начало и конец команд каждой фигуры, поэтому запись отдельной фигуры
+ * можно заменить ({@link #replace(int, Shape)}), не перезаписывая последующие: новая запись
+ * дописывается в конец массивов, а старая становится мусором и удаляется уплотнением,
+ * когда мусор превышает объем живых записей.
+ * Список действителен для той области отображения, для которой он записан.
+ * При записи геометрия отсекается прямоугольником холста с запасом на толщину линии
+ * (см. {@link Clipper}), поэтому приемники не получают координат далеко за пределами холста,
+ * даже при сильном увеличении.
+ */
+public final class DisplayList {
+
+    // Коды команд в потоке ops
+    private static final int OP_STROKE = 1;   // цвет ARGB, индекс толщины в coords
+    private static final int OP_POLYLINE = 2; // число вершин, признак замкнутости, индекс в coords
+    private static final int OP_ELLIPSE = 3;  // индекс в coords: cx, cy, rx, ry
+    private static final int OP_RECT = 4;     // индекс в coords: x, y, width, height
+    private static final int OP_QUAD = 5;     // индекс в coords: x0, y0, cx, cy, x1, y1
+
+    // Окружности, радиус которых больше этой доли периметра холста, при частичной
+    // видимости заменяются видимыми дугами вместо эллипса с огромными координатами
+    private static final double MAX_NATIVE_RADIUS_FACTOR = 2.0;
+
+    private final Viewport viewport;
+    private final double guardMargin;
+
+    private int[] ops = new int[64];
+    private int opCount;
+    private float[] coords = new float[256];
+    private int coordCount;
+
+    // Начало и конец команд каждой фигуры в потоке ops; после замен записи идут не по порядку фигур
+    private int[] shapeStarts = new int[16];
+    private int[] shapeEnds = new int[16];
+    private int shapeCount;
+
+    // Размер записей, на которые не ссылается таблица смещений
+    private int garbageOps;
+    private int garbageCoords;
+
+    /**
+     * Создает пустой список отображения для указанной области.
+     *
+     * @param viewport область отображения
+     */
+    public DisplayList(Viewport viewport) {
+        this(viewport, 0);
+    }
+
+    /**
+     * Создает пустой список отображения с дополнительным запасом отсечения.
+     * Запас позволяет воспроизводить список со сдвигом (например, во время
+     * перетаскивания вида), не показывая отсеченных краев.
+     *
+     * @param viewport область отображения
+     * @param guardMargin дополнительный запас отсечения с каждой стороны, в пикселях
+     */
+    public DisplayList(Viewport viewport, double guardMargin) {
+        this.viewport = viewport;
+        this.guardMargin = guardMargin;
+    }
+
+    /**
+     * Записывает список отображения для набора фигур.
+     *
+     * @param shapes фигуры в порядке отрисовки
+     * @param viewport область отображения
+     * @return записанный список
+     */
+    public static DisplayList record(List<? extends Shape> shapes, Viewport viewport) {
+        DisplayList displayList = new DisplayList(viewport);
+        for (Shape shape : shapes) {
+            displayList.append(shape);
+        }
+        return displayList;
+    }
+
+    /**
+     * Добавляет в конец списка команды одной фигуры.
+     *
+     * @param shape фигура
+     * @throws IllegalArgumentException если цвет фигуры задан в неверном формате
+     */
+    public void append(Shape shape) {
+        int start = opCount;
+        recordShape(shape);
+        if (shapeCount == shapeStarts.length) {
+            shapeStarts = Arrays.copyOf(shapeStarts, shapeCount * 2);
+            shapeEnds = Arrays.copyOf(shapeEnds, shapeCount * 2);
+        }
+        shapeStarts[shapeCount] = start;
+        shapeEnds[shapeCount] = opCount;
+        shapeCount++;
+    }
+
+    /**
+     * Заменяет команды фигуры с указанным индексом, сохраняя записи остальных фигур.
+     * Новая запись дописывается в конец списка, старая учитывается как мусор.
+     *
+     * @param index индекс фигуры
+     * @param shape новая фигура
+     * @throws IndexOutOfBoundsException если индекс вне списка
+     * @throws IllegalArgumentException если цвет фигуры задан в неверном формате
+     */
+    public void replace(int index, Shape shape) {
+        if (index < 0 || index >= shapeCount) {
+            throw new IndexOutOfBoundsException(String.format("Index %d, shape count %d", index, shapeCount));
+        }
+        int start = opCount;
+        recordShape(shape);
+        discardRecord(index);
+        shapeStarts[index] = start;
+        shapeEnds[index] = opCount;
+        if (garbageOps > opCount - garbageOps) {
+            compact();
+        }
+    }
+
+    /**
+     * Записывает команды фигуры в конец массивов, не изменяя таблицу смещений.
+     */
+    private void recordShape(Shape shape) {
+        // Все, что может завершиться ошибкой, выполняется до изменения списка
+        int color = ColorUtil.parseArgb(shape.getColor());
+        List<Point> points = isAnalytic(shape) ? List.of() : shape.getPoints();
+
+        ensureOps(3);
+        ops[opCount++] = OP_STROKE;
+        ops[opCount++] = color;
+        ops[opCount++] = coordCount;
+        ensureCoords(1);
+        coords[coordCount++] = (float) shape.getLineWidth();
+
+        Clipper clipper = Clipper.forViewport(viewport, guardMargin + shape.getLineWidth());
+        if (shape instanceof Circle) {
+            appendCircle((Circle) shape, clipper);
+        } else if (shape instanceof Rectangle) {
+            appendRectangle((Rectangle) shape, clipper);
+        } else if (shape instanceof Parabola) {
+            appendParabola((Parabola) shape, clipper);
+        } else if (!points.isEmpty()) {
+            appendPolyline(points, shape.isClosed(), clipper);
+        }
+    }
+
+    /**
+     * Отбрасывает команды фигур начиная с указанной, сохраняя записи предыдущих.
+     * Позволяет заменить или удалить последние фигуры без перезаписи всего списка.
+     *
+     * @param shapeCount количество сохраняемых фигур
+     * @throws IndexOutOfBoundsException если количество отрицательно или больше записанного
+     */
+    public void truncate(int shapeCount) {
+        if (shapeCount < 0 || shapeCount > this.shapeCount) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Cannot truncate %d shapes to %d", this.shapeCount, shapeCount));
+        }
+        if (shapeCount == this.shapeCount) {
+            return;
+        }
+        if (garbageOps == 0) {
+            // Записи идут подряд в порядке фигур: хвост массивов освобождается целиком.
+            // Запись фигуры начинается командой стиля, которая хранит начало ее координат
+            opCount = shapeStarts[shapeCount];
+            coordCount = ops[opCount + 2];
+        } else {
+            for (int i = shapeCount; i < this.shapeCount; i++) {
+                discardRecord(i);
+            }
+        }
+        this.shapeCount = shapeCount;
+        if (shapeCount == 0) {
+            opCount = 0;
+            coordCount = 0;
+            garbageOps = 0;
+            garbageCoords = 0;
+        } else if (garbageOps > opCount - garbageOps) {
+            compact();
+        }
+    }
+
+    /**
+     * Учитывает запись фигуры как мусор.
+     */
+    private void discardRecord(int index) {
+        garbageOps += shapeEnds[index] - shapeStarts[index];
+        for (int pc = shapeStarts[index]; pc < shapeEnds[index]; pc += opLength(ops[pc])) {
+            garbageCoords += coordLength(pc);
+        }
+    }
+
+    /**
+     * Переписывает живые записи подряд в порядке фигур, освобождая мусор.
+     */
+    private void compact() {
+        int[] newOps = new int[Math.max(64, opCount - garbageOps)];
+        float[] newCoords = new float[Math.max(256, coordCount - garbageCoords)];
+        int newOpCount = 0;
+        int newCoordCount = 0;
+        for (int shape = 0; shape < shapeCount; shape++) {
+            int start = newOpCount;
+            for (int pc = shapeStarts[shape]; pc < shapeEnds[shape]; pc += opLength(ops[pc])) {
+                int length = opLength(ops[pc]);
+                System.arraycopy(ops, pc, newOps, newOpCount, length);
+                // Индекс координат - последний операнд команды
+                int coordIndex = ops[pc + length - 1];
+                int coordLength = coordLength(pc);
+                System.arraycopy(coords, coordIndex, newCoords, newCoordCount, coordLength);
+                newOps[newOpCount + length - 1] = newCoordCount;
+                newOpCount += length;
+                newCoordCount += coordLength;
+            }
+            shapeStarts[shape] = start;
+            shapeEnds[shape] = newOpCount;
+        }
+        ops = newOps;
+        opCount = newOpCount;
+        coords = newCoords;
+        coordCount = newCoordCount;
+        garbageOps = 0;
+        garbageCoords = 0;
+    }
+
+    private static int opLength(int opcode) {
+        switch (opcode) {
+            case OP_STROKE:
+                return 3;
+            case OP_POLYLINE:
+                return 4;
+            case OP_ELLIPSE:
+            case OP_RECT:
+            case OP_QUAD:
+                return 2;
+            default:
+                throw new IllegalStateException("Corrupted display list: unknown opcode " + opcode);
+        }
+    }
+
+    private int coordLength(int pc) {
+        switch (ops[pc]) {
+            case OP_STROKE:
+                return 1;
+            case OP_POLYLINE:
+                return ops[pc + 1] * 2;
+            case OP_QUAD:
+                return 6;
+            default:
+                return 4;
+        }
+    }
+
+    private static boolean isAnalytic(Shape shape) {
+        return shape instanceof Circle || shape instanceof Rectangle || shape instanceof Parabola;
+    }
+
+    private void appendPolyline(List<Point> points, boolean closed, Clipper clipper) {
+        int vertexCount = points.size();
+        double[] canvasCoords = new double[vertexCount * 2];
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < vertexCount; i++) {
+            double x = viewport.toCanvasX(points.get(i).getX());
+            double y = viewport.toCanvasY(points.get(i).getY());
+            canvasCoords[2 * i] = x;
+            canvasCoords[2 * i + 1] = y;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+
+        switch (clipper.classify(minX, minY, maxX, maxY)) {
+            case Clipper.INSIDE:
+                recordPolyline(canvasCoords, vertexCount, closed);
+                break;
+            case Clipper.PARTIAL:
+                if (closed) {
+                    double[] polygon = clipper.clipPolygon(canvasCoords, vertexCount);
+                    if (polygon.length >= 4) {
+                        recordPolyline(polygon, polygon.length / 2, true);
+                    }
+                } else {
+                    for (double[] run : clipper.clipPolyline(canvasCoords, vertexCount)) {
+                        recordPolyline(run, run.length / 2, false);
+                    }
+                }
+                break;
+            default:
+                // Фигура целиком вне холста
+                break;
+        }
+    }
+
+    private void recordPolyline(double[] canvasCoords, int vertexCount, boolean closed) {
+        ensureOps(4);
+        ops[opCount++] = OP_POLYLINE;
+        ops[opCount++] = vertexCount;
+        ops[opCount++] = closed ? 1 : 0;
+        ops[opCount++] = coordCount;
+        ensureCoords(vertexCount * 2);
+        for (int i = 0; i < vertexCount * 2; i++) {
+            coords[coordCount++] = (float) canvasCoords[i];
+        }
+    }
+
+    private void appendCircle(Circle circle, Clipper clipper) {
+        // При разном масштабе осей окружность на холсте становится эллипсом
+        double centerX = viewport.toCanvasX(circle.getCenter().getX());
+        double centerY = viewport.toCanvasY(circle.getCenter().getY());
+        double radiusX = circle.getRadius() * viewport.getScaleX();
+        double radiusY = circle.getRadius() * viewport.getScaleY();
+
+        int visibility = clipper.classify(centerX - radiusX, centerY - radiusY, centerX + radiusX, centerY + radiusY);
+        if (visibility == Clipper.OUTSIDE) {
+            return;
+        }
+
+        double maxNativeRadius = MAX_NATIVE_RADIUS_FACTOR * (viewport.getWidth() + viewport.getHeight());
+        if (visibility == Clipper.INSIDE || Math.max(radiusX, radiusY) <= maxNativeRadius) {
+            appendPrimitive(OP_ELLIPSE, centerX, centerY, radiusX, radiusY);
+            return;
+        }
+
+        // Огромная окружность: ломаными записываются только видимые дуги
+        double radius = Math.max(radiusX, radiusY);
+        double step = 2 * Math.acos(1 - DisplayListRenderer.FLATTENING_TOLERANCE / radius);
+        for (double[] arc : clipper.visibleEllipseArcs(centerX, centerY, radiusX, radiusY)) {
+            int segments = (int) Math.min(DisplayListRenderer.MAX_FLATTENING_SEGMENTS,
+                    Math.max(1, Math.ceil((arc[1] - arc[0]) / step)));
+            double[] arcCoords = new double[(segments + 1) * 2];
+            for (int i = 0; i <= segments; i++) {
+                double angle = arc[0] + (arc[1] - arc[0]) * i / segments;
+                arcCoords[2 * i] = centerX + radiusX * Math.cos(angle);
+                arcCoords[2 * i + 1] = centerY + radiusY * Math.sin(angle);
+            }
+            recordPolyline(arcCoords, segments + 1, false);
+        }
+    }
+
+    private void appendRectangle(Rectangle rectangle, Clipper clipper) {
+        Point corner = rectangle.getTopLeft();
+        double x0 = viewport.toCanvasX(corner.getX());
+        double x1 = viewport.toCanvasX(corner.getX() + rectangle.getWidth());
+        double y0 = viewport.toCanvasY(corner.getY());
+        double y1 = viewport.toCanvasY(corner.getY() + rectangle.getHeight());
+        double left = Math.min(x0, x1);
+        double top = Math.min(y0, y1);
+        double right = Math.max(x0, x1);
+        double bottom = Math.max(y0, y1);
+
+        int visibility = clipper.classify(left, top, right, bottom);
+        if (visibility == Clipper.OUTSIDE) {
+            return;
+        }
+        if (visibility == Clipper.PARTIAL) {
+            // Пересечение с областью отсечения - тоже прямоугольник; его новые стороны
+            // проходят по границе запаса и не видны
+            left = Math.max(left, clipper.getMinX());
+            top = Math.max(top, clipper.getMinY());
+            right = Math.min(right, clipper.getMaxX());
+            bottom = Math.min(bottom, clipper.getMaxY());
+        }
+        appendPrimitive(OP_RECT, left, top, right - left, bottom - top);
+    }
+
+    private void appendParabola(Parabola parabola, Clipper clipper) {
+        // Видимые интервалы x определяются в системе области: пересечение интервала
+        // отрисовки с областью отсечения и участки, где значения лежат в ее пределах по Y
+        double fromX = Math.max(Math.min(parabola.getXMin(), parabola.getXMax()),
+                viewport.toWorldX(clipper.getMinX()));
+        double toX = Math.min(Math.max(parabola.getXMin(), parabola.getXMax()),
+                viewport.toWorldX(clipper.getMaxX()));
+        if (!(fromX < toX)) {
+            return;
+        }
+
+        List<double[]> intervals = Clipper.visibleParabolaIntervals(
+                parabola.getA(), parabola.getB(), parabola.getC(), fromX, toX,
+                viewport.toWorldY(clipper.getMaxY()), viewport.toWorldY(clipper.getMinY()));
+        for (double[] interval : intervals) {
+            appendParabolaSegment(parabola, interval[0], interval[1]);
+        }
+    }
+
+    private void appendParabolaSegment(Parabola parabola, double x0, double x1) {
+        // Отрезок параболы в точности является квадратичной кривой Безье:
+        // контрольная точка лежит на пересечении касательных в концах отрезка
+        double y0 = parabola.valueAt(x0);
+        double slope = 2 * parabola.getA() * x0 + parabola.getB();
+        double controlX = (x0 + x1) / 2;
+        double controlY = y0 + slope * (x1 - x0) / 2;
+
+        appendPrimitive(OP_QUAD,
+                viewport.toCanvasX(x0), viewport.toCanvasY(y0),
+                viewport.toCanvasX(controlX), viewport.toCanvasY(controlY),
+                viewport.toCanvasX(x1), viewport.toCanvasY(parabola.valueAt(x1)));
+    }
+
+    private void appendPrimitive(int opcode, double... values) {
+        ensureOps(2);
+        ops[opCount++] = opcode;
+        ops[opCount++] = coordCount;
+        ensureCoords(values.length);
+        for (double value : values) {
+            coords[coordCount++] = (float) value;
+        }
+    }
+
+    /**
+     * Воспроизводит весь список в приемник.
+     *
+     * @param renderer приемник команд
+     */
+    public void replay(DisplayListRenderer renderer) {
+        replay(renderer, 0, shapeCount);
+    }
+
+    /**
+     * Воспроизводит команды фигур с индексами из диапазона [fromShape, toShape).
+     *
+     * @param renderer приемник команд
+     * @param fromShape индекс первой фигуры
+     * @param toShape индекс после последней фигуры
+     * @throws IndexOutOfBoundsException если диапазон выходит за пределы списка
+     */
+    public void replay(DisplayListRenderer renderer, int fromShape, int toShape) {
+        if (fromShape < 0 || toShape > shapeCount || fromShape > toShape) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Shape range [%d, %d) out of [0, %d)", fromShape, toShape, shapeCount));
+        }
+
+        for (int shape = fromShape; shape < toShape; shape++) {
+            renderer.beginShape(shape);
+            replayRecord(renderer, shapeStarts[shape], shapeEnds[shape]);
+        }
+    }
+
+    private void replayRecord(DisplayListRenderer renderer, int start, int end) {
+        int pc = start;
+        while (pc < end) {
+            switch (ops[pc]) {
+                case OP_STROKE:
+                    renderer.setStroke(ops[pc + 1], coords[ops[pc + 2]]);
+                    pc += 3;
+                    break;
+                case OP_POLYLINE:
+                    renderer.polyline(coords, ops[pc + 3], ops[pc + 1], ops[pc + 2] != 0);
+                    pc += 4;
+                    break;
+                case OP_ELLIPSE: {
+                    int c = ops[pc + 1];
+                    renderer.ellipse(coords[c], coords[c + 1], coords[c + 2], coords[c + 3]);
+                    pc += 2;
+                    break;
+                }
+                case OP_RECT: {
+                    int c = ops[pc + 1];
+                    renderer.rect(coords[c], coords[c + 1], coords[c + 2], coords[c + 3]);
+                    pc += 2;
+                    break;
+                }
+                case OP_QUAD: {
+                    int c = ops[pc + 1];
+                    renderer.quadCurve(coords[c], coords[c + 1], coords[c + 2], coords[c + 3],
+                            coords[c + 4], coords[c + 5]);
+                    pc += 2;
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Corrupted display list: unknown opcode " + ops[pc]);
+            }
+        }
+    }
+
+    /**
+     * Возвращает область отображения, для которой записан список.
+     *
+     * @return область отображения
+     */
+    public Viewport getViewport() {
+        return viewport;
+    }
+
+    /**
+     * Возвращает количество записанных фигур.
+     *
+     * @return количество фигур
+     */
+    public int getShapeCount() {
+        return shapeCount;
+    }
+
+    /**
+     * Возвращает примерный объем памяти, занятый массивами списка.
+     *
+     * @return размер в байтах
+     */
+    public long getSizeInBytes() {
+        return 4L * (ops.length + coords.length + shapeStarts.length + shapeEnds.length);
+    }
+
+    private void ensureOps(int extra) {
+        if (opCount + extra > ops.length) {
+            ops = Arrays.copyOf(ops, Math.max(ops.length * 2, opCount + extra));
+        }
+    }
+
+    private void ensureCoords(int extra) {
+        if (coordCount + extra > coords.length) {
+            coords = Arrays.copyOf(coords, Math.max(coords.length * 2, coordCount + extra));
+        }
+    }
+}
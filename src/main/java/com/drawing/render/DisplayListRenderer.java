@@ -0,0 +1,111 @@
+package com.drawing.render;
+
+/**
+ * Приемник команд при воспроизведении списка отображения.
+ * Все координаты заданы в пикселях холста той области отображения,
+ * для которой записан список.
+ * Аналитические примитивы (эллипс, прямоугольник, квадратичная кривая)
+ * по умолчанию аппроксимируются ломаными; приемники, умеющие рисовать
+ * их напрямую, переопределяют соответствующие методы.
+ */
+public interface DisplayListRenderer {
+
+    /** Максимальное отклонение ломаной от кривой при аппроксимации, в пикселях. */
+    double FLATTENING_TOLERANCE = 0.25;
+
+    /** Максимальное число отрезков при аппроксимации одной кривой. */
+    int MAX_FLATTENING_SEGMENTS = 1024;
+
+    /**
+     * Вызывается перед командами очередной фигуры.
+     *
+     * @param index индекс фигуры в списке отображения
+     */
+    default void beginShape(int index) {
+    }
+
+    /**
+     * Устанавливает стиль линии для последующих команд.
+     *
+     * @param argb цвет линии в формате ARGB
+     * @param lineWidth толщина линии в пикселях
+     */
+    void setStroke(int argb, double lineWidth);
+
+    /**
+     * Рисует ломаную.
+     *
+     * @param coords массив координат x0, y0, x1, y1, ...
+     * @param offset индекс координаты X первой вершины
+     * @param vertexCount количество вершин
+     * @param closed соединять ли последнюю вершину с первой
+     */
+    void polyline(float[] coords, int offset, int vertexCount, boolean closed);
+
+    /**
+     * Рисует контур эллипса с осями, параллельными осям холста.
+     *
+     * @param centerX координата X центра
+     * @param centerY координата Y центра
+     * @param radiusX полуось по X
+     * @param radiusY полуось по Y
+     */
+    default void ellipse(double centerX, double centerY, double radiusX, double radiusY) {
+        // Число отрезков, при котором хорда отклоняется от дуги не более чем на допуск
+        double radius = Math.max(radiusX, radiusY);
+        double step = 2 * Math.acos(Math.max(-1, 1 - FLATTENING_TOLERANCE / Math.max(radius, FLATTENING_TOLERANCE)));
+        int segments = (int) Math.min(MAX_FLATTENING_SEGMENTS, Math.max(8, Math.ceil(2 * Math.PI / step)));
+
+        float[] coords = new float[segments * 2];
+        for (int i = 0; i < segments; i++) {
+            double angle = 2 * Math.PI * i / segments;
+            coords[2 * i] = (float) (centerX + radiusX * Math.cos(angle));
+            coords[2 * i + 1] = (float) (centerY + radiusY * Math.sin(angle));
+        }
+        polyline(coords, 0, segments, true);
+    }
+
+    /**
+     * Рисует контур прямоугольника со сторонами, параллельными осям холста.
+     *
+     * @param x координата X левого верхнего угла
+     * @param y координата Y левого верхнего угла
+     * @param width ширина
+     * @param height высота
+     */
+    default void rect(double x, double y, double width, double height) {
+        float[] coords = {
+                (float) x, (float) y,
+                (float) (x + width), (float) y,
+                (float) (x + width), (float) (y + height),
+                (float) x, (float) (y + height)
+        };
+        polyline(coords, 0, 4, true);
+    }
+
+    /**
+     * Рисует квадратичную кривую Безье.
+     *
+     * @param x0 координата X начала
+     * @param y0 координата Y начала
+     * @param controlX координата X контрольной точки
+     * @param controlY координата Y контрольной точки
+     * @param x1 координата X конца
+     * @param y1 координата Y конца
+     */
+    default void quadCurve(double x0, double y0, double controlX, double controlY, double x1, double y1) {
+        // Отклонение кривой от хорды при n отрезках не превышает |P0 - 2P1 + P2| / (4 n^2)
+        double deviation = Math.hypot(x0 - 2 * controlX + x1, y0 - 2 * controlY + y1);
+        double needed = Math.ceil(Math.sqrt(deviation / (4 * FLATTENING_TOLERANCE)));
+        int segments = (int) Math.min(MAX_FLATTENING_SEGMENTS, Math.max(1, needed));
+
+        float[] coords = new float[(segments + 1) * 2];
+        for (int i = 0; i <= segments; i++) {
+            double t = (double) i / segments;
+            double u = 1 - t;
+            coords[2 * i] = (float) (u * u * x0 + 2 * u * t * controlX + t * t * x1);
+            coords[2 * i + 1] = (float) (u * u * y0 + 2 * u * t * controlY + t * t * y1);
+        }
+        polyline(coords, 0, segments + 1, false);
+    }
+}
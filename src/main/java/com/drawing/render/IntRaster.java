@@ -0,0 +1,196 @@
+package com.drawing.render;
+
+import com.drawing.model.Point;
+import com.drawing.model.Shape;
+import com.drawing.util.MathUtil;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Растровый буфер из целых значений (цвет ARGB или идентификатор фигуры на пиксель)
+ * с простой программной растеризацией толстых отрезков.
+ */
+public class IntRaster {
+
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+
+    /**
+     * Конструктор растрового буфера.
+     *
+     * @param width ширина в пикселях
+     * @param height высота в пикселях
+     * @throws IllegalArgumentException если размеры некорректны
+     */
+    public IntRaster(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Raster size must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[Math.multiplyExact(width, height)];
+    }
+
+    /**
+     * Заполняет весь буфер одним значением.
+     *
+     * @param value значение пикселя
+     */
+    public void fill(int value) {
+        Arrays.fill(pixels, value);
+    }
+
+    /**
+     * Возвращает значение пикселя или 0 для координат вне буфера.
+     *
+     * @param x столбец
+     * @param y строка
+     * @return значение пикселя
+     */
+    public int getPixel(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return 0;
+        }
+        return pixels[y * width + x];
+    }
+
+    /**
+     * Рисует отрезок заданной толщины, записывая значение во все покрытые пиксели.
+     * Обход идет вдоль главной оси отрезка и ограничен размерами буфера,
+     * поэтому стоимость не зависит от того, насколько далеко за буфер уходит отрезок.
+     *
+     * @param x0 координата X начала
+     * @param y0 координата Y начала
+     * @param x1 координата X конца
+     * @param y1 координата Y конца
+     * @param lineWidth толщина линии в пикселях
+     * @param value записываемое значение
+     */
+    public void drawLine(double x0, double y0, double x1, double y1, double lineWidth, int value) {
+        if (!Double.isFinite(x0) || !Double.isFinite(y0) || !Double.isFinite(x1) || !Double.isFinite(y1)) {
+            return;
+        }
+        double halfWidth = Math.max(0.5, lineWidth / 2);
+
+        if (Math.abs(x1 - x0) >= Math.abs(y1 - y0)) {
+            if (x0 > x1) {
+                drawLine(x1, y1, x0, y0, lineWidth, value);
+                return;
+            }
+            double slope = x1 == x0 ? 0 : (y1 - y0) / (x1 - x0);
+            double span = halfWidth * Math.sqrt(1 + slope * slope);
+            if (Math.max(y0, y1) + span < 0 || Math.min(y0, y1) - span > height) {
+                return;
+            }
+            int fromX = Math.max(0, (int) Math.floor(x0 - halfWidth));
+            int toX = Math.min(width - 1, (int) Math.floor(x1 + halfWidth));
+            if (slope != 0) {
+                // Только столбцы, где покрытие может пересечь строки буфера; за концами отрезка
+                // столбцы на полуширину линии повторяют крайнее значение
+                double xa = x0 + (-span - 1 - y0) / slope;
+                double xb = x0 + (height + span + 1 - y0) / slope;
+                fromX = Math.max(fromX, (int) (Math.floor(Math.min(xa, xb) - halfWidth) - 1));
+                toX = Math.min(toX, (int) (Math.ceil(Math.max(xa, xb) + halfWidth) + 1));
+            }
+            for (int x = fromX; x <= toX; x++) {
+                double t = MathUtil.clamp(x + 0.5, x0, x1);
+                double y = y0 + (t - x0) * slope;
+                fillColumn(x, y - span, y + span, value);
+            }
+        } else {
+            if (y0 > y1) {
+                drawLine(x1, y1, x0, y0, lineWidth, value);
+                return;
+            }
+            double slope = (x1 - x0) / (y1 - y0);
+            double span = halfWidth * Math.sqrt(1 + slope * slope);
+            if (Math.max(x0, x1) + span < 0 || Math.min(x0, x1) - span > width) {
+                return;
+            }
+            int fromY = Math.max(0, (int) Math.floor(y0 - halfWidth));
+            int toY = Math.min(height - 1, (int) Math.floor(y1 + halfWidth));
+            if (slope != 0) {
+                double ya = y0 + (-span - 1 - x0) / slope;
+                double yb = y0 + (width + span + 1 - x0) / slope;
+                fromY = Math.max(fromY, (int) (Math.floor(Math.min(ya, yb) - halfWidth) - 1));
+                toY = Math.min(toY, (int) (Math.ceil(Math.max(ya, yb) + halfWidth) + 1));
+            }
+            for (int y = fromY; y <= toY; y++) {
+                double t = MathUtil.clamp(y + 0.5, y0, y1);
+                double x = x0 + (t - y0) * slope;
+                fillRow(y, x - span, x + span, value);
+            }
+        }
+    }
+
+    /**
+     * Рисует контур фигуры в координатах холста указанной области отображения.
+     *
+     * @param shape фигура
+     * @param viewport область отображения
+     * @param lineWidth толщина линии в пикселях
+     * @param value записываемое значение
+     */
+    public void drawOutline(Shape shape, Viewport viewport, double lineWidth, int value) {
+        List<Point> points = shape.getPoints();
+        if (points.isEmpty()) {
+            return;
+        }
+
+        double firstX = viewport.toCanvasX(points.get(0).getX());
+        double firstY = viewport.toCanvasY(points.get(0).getY());
+        double prevX = firstX;
+        double prevY = firstY;
+
+        for (int i = 1; i < points.size(); i++) {
+            double x = viewport.toCanvasX(points.get(i).getX());
+            double y = viewport.toCanvasY(points.get(i).getY());
+            drawLine(prevX, prevY, x, y, lineWidth, value);
+            prevX = x;
+            prevY = y;
+        }
+
+        if (shape.isClosed()) {
+            drawLine(prevX, prevY, firstX, firstY, lineWidth, value);
+        }
+    }
+
+    // Покрытие не короче одного пикселя; части за пределами буфера отбрасываются,
+    // а не прижимаются к краю, иначе растр полосы изображения получает чужие пиксели
+    private void fillColumn(int x, double fromY, double toY, int value) {
+        int first = (int) Math.round(fromY);
+        int start = Math.max(0, first);
+        int end = Math.min(height - 1, Math.max(first, (int) Math.round(toY) - 1));
+        for (int y = start; y <= end; y++) {
+            pixels[y * width + x] = value;
+        }
+    }
+
+    private void fillRow(int y, double fromX, double toX, int value) {
+        int first = (int) Math.round(fromX);
+        int start = Math.max(0, first);
+        int end = Math.min(width - 1, Math.max(first, (int) Math.round(toX) - 1));
+        if (start <= end) {
+            Arrays.fill(pixels, y * width + start, y * width + end + 1, value);
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Возвращает внутренний массив пикселей построчно, без копирования.
+     *
+     * @return массив пикселей
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+}
@@ -0,0 +1,58 @@
+package com.drawing.render;
+
+import com.drawing.model.Shape;
+
+import java.util.List;
+
+/**
+ * Внеэкранный буфер идентификаторов фигур для выбора фигуры под курсором.
+ * Каждый пиксель хранит индекс верхней фигуры, контур которой его покрывает,
+ * поэтому поиск фигуры по точке холста сводится к одному обращению к массиву.
+ */
+public class PickBuffer {
+
+    /** Значение пикселя, не покрытого ни одной фигурой. */
+    private static final int EMPTY = 0;
+
+    private final IntRaster ids;
+    private final double minPickWidth;
+
+    /**
+     * Конструктор буфера выбора.
+     *
+     * @param width ширина холста в пикселях
+     * @param height высота холста в пикселях
+     * @param minPickWidth минимальная ширина чувствительной зоны контура в пикселях
+     */
+    public PickBuffer(int width, int height, double minPickWidth) {
+        this.ids = new IntRaster(width, height);
+        this.minPickWidth = minPickWidth;
+    }
+
+    /**
+     * Перестраивает буфер для списка фигур и области отображения.
+     * Фигуры рисуются в порядке списка, поэтому более поздние перекрывают ранние.
+     *
+     * @param shapes фигуры в порядке отрисовки
+     * @param viewport область отображения
+     */
+    public void rebuild(List<? extends Shape> shapes, Viewport viewport) {
+        ids.fill(EMPTY);
+        for (int i = 0; i < shapes.size(); i++) {
+            Shape shape = shapes.get(i);
+            double pickWidth = Math.max(minPickWidth, shape.getLineWidth());
+            ids.drawOutline(shape, viewport, pickWidth, i + 1);
+        }
+    }
+
+    /**
+     * Возвращает индекс верхней фигуры в указанной точке холста.
+     *
+     * @param canvasX координата X на холсте
+     * @param canvasY координата Y на холсте
+     * @return индекс фигуры в списке или -1, если под точкой нет фигуры
+     */
+    public int pick(double canvasX, double canvasY) {
+        return ids.getPixel((int) Math.floor(canvasX), (int) Math.floor(canvasY)) - 1;
+    }
+}
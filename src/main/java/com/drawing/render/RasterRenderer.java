@@ -0,0 +1,51 @@
+package com.drawing.render;
+
+/**
+ * Воспроизведение списка отображения в программный растровый буфер ARGB.
+ */
+public class RasterRenderer implements DisplayListRenderer {
+
+    private final IntRaster raster;
+    private final int firstRow;
+    private int color;
+    private double lineWidth = 1.0;
+
+    /**
+     * Конструктор приемника.
+     *
+     * @param raster целевой буфер
+     */
+    public RasterRenderer(IntRaster raster) {
+        this(raster, 0);
+    }
+
+    /**
+     * Конструктор приемника для горизонтальной полосы изображения.
+     *
+     * @param raster целевой буфер полосы
+     * @param firstRow строка списка отображения, соответствующая верхней строке буфера
+     */
+    public RasterRenderer(IntRaster raster, int firstRow) {
+        this.raster = raster;
+        this.firstRow = firstRow;
+    }
+
+    @Override
+    public void setStroke(int argb, double lineWidth) {
+        this.color = argb;
+        this.lineWidth = lineWidth;
+    }
+
+    @Override
+    public void polyline(float[] coords, int offset, int vertexCount, boolean closed) {
+        int last = offset + 2 * (vertexCount - 1);
+        for (int i = offset; i < last; i += 2) {
+            raster.drawLine(coords[i], (double) coords[i + 1] - firstRow, coords[i + 2],
+                    (double) coords[i + 3] - firstRow, lineWidth, color);
+        }
+        if (closed && vertexCount > 2) {
+            raster.drawLine(coords[last], (double) coords[last + 1] - firstRow, coords[offset],
+                    (double) coords[offset + 1] - firstRow, lineWidth, color);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.drawing.render;
+
+import com.drawing.model.Bounds;
+import com.drawing.model.Circle;
+import com.drawing.model.Parabola;
+import com.drawing.model.Point;
+import com.drawing.model.Rectangle;
+import com.drawing.model.Shape;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Неизменяемый индекс ограничивающих прямоугольников фигур сцены.
+ * Прямоугольники хранятся в плоском массиве, поэтому выборка фигур,
+ * пересекающих область, сводится к линейному проходу без обращения к самим фигурам.
+ * Индекс строится параллельно и безопасен для использования из нескольких потоков.
+ * Вместе с индексом вычисляется хеш содержимого сцены, не зависящий от запуска
+ * приложения, - по нему сохраненные результаты отрисовки сопоставляются со сценой.
+ */
+public final class SceneIndex {
+
+    private final List<? extends Shape> shapes;
+    private final double[] bounds;
+    private final double maxLineWidth;
+    private final Bounds sceneBounds;
+    private final long contentHash;
+
+    private SceneIndex(List<? extends Shape> shapes, double[] bounds, double maxLineWidth,
+                       Bounds sceneBounds, long contentHash) {
+        this.shapes = shapes;
+        this.bounds = bounds;
+        this.maxLineWidth = maxLineWidth;
+        this.sceneBounds = sceneBounds;
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * Строит индекс для списка фигур. Список не должен изменяться после построения индекса.
+     * Фигуры, для которых не удается вычислить границы, в выборки не попадают.
+     *
+     * @param shapes фигуры
+     * @return индекс
+     */
+    public static SceneIndex build(List<? extends Shape> shapes) {
+        int count = shapes.size();
+        double[] bounds = new double[count * 4];
+        long[] shapeHashes = new long[count];
+
+        IntStream.range(0, count).parallel().forEach(i -> {
+            shapeHashes[i] = hashShape(shapes.get(i));
+            try {
+                Bounds shapeBounds = shapes.get(i).getBounds();
+                bounds[4 * i] = shapeBounds.getMinX();
+                bounds[4 * i + 1] = shapeBounds.getMinY();
+                bounds[4 * i + 2] = shapeBounds.getMaxX();
+                bounds[4 * i + 3] = shapeBounds.getMaxY();
+            } catch (RuntimeException e) {
+                // Пустой прямоугольник не пересекается ни с какой областью
+                Arrays.fill(bounds, 4 * i, 4 * i + 4, Double.NaN);
+            }
+        });
+
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        double maxLineWidth = 0;
+        long contentHash = mix(count);
+        for (int i = 0; i < count; i++) {
+            contentHash = mix(contentHash ^ shapeHashes[i]);
+            if (Double.isNaN(bounds[4 * i])) {
+                continue;
+            }
+            minX = Math.min(minX, bounds[4 * i]);
+            minY = Math.min(minY, bounds[4 * i + 1]);
+            maxX = Math.max(maxX, bounds[4 * i + 2]);
+            maxY = Math.max(maxY, bounds[4 * i + 3]);
+            maxLineWidth = Math.max(maxLineWidth, shapes.get(i).getLineWidth());
+        }
+
+        Bounds sceneBounds = minX <= maxX ? new Bounds(minX, minY, maxX, maxY) : new Bounds(0, 0, 0, 0);
+        return new SceneIndex(shapes, bounds, maxLineWidth, sceneBounds, contentHash);
+    }
+
+    /**
+     * Хеширует определяющие параметры фигуры. Для окружностей, прямоугольников
+     * и парабол берутся их параметры, а не аппроксимирующие точки.
+     */
+    private static long hashShape(Shape shape) {
+        long hash = mix(shape.getType().hashCode());
+        hash = mix(hash ^ String.valueOf(shape.getColor()).hashCode());
+        hash = mix(hash ^ Double.doubleToLongBits(shape.getLineWidth()));
+        try {
+            if (shape instanceof Circle) {
+                Circle circle = (Circle) shape;
+                hash = mixPoint(hash, circle.getCenter());
+                hash = mix(hash ^ Double.doubleToLongBits(circle.getRadius()));
+            } else if (shape instanceof Rectangle) {
+                Rectangle rectangle = (Rectangle) shape;
+                hash = mixPoint(hash, rectangle.getTopLeft());
+                hash = mix(hash ^ Double.doubleToLongBits(rectangle.getWidth()));
+                hash = mix(hash ^ Double.doubleToLongBits(rectangle.getHeight()));
+            } else if (shape instanceof Parabola) {
+                Parabola parabola = (Parabola) shape;
+                for (double value : new double[]{parabola.getA(), parabola.getB(), parabola.getC(),
+                        parabola.getXMin(), parabola.getXMax()}) {
+                    hash = mix(hash ^ Double.doubleToLongBits(value));
+                }
+            } else {
+                for (Point point : shape.getPoints()) {
+                    hash = mixPoint(hash, point);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Некорректная фигура хешируется только по общим свойствам
+        }
+        return hash;
+    }
+
+    private static long mixPoint(long hash, Point point) {
+        hash = mix(hash ^ Double.doubleToLongBits(point.getX()));
+        return mix(hash ^ Double.doubleToLongBits(point.getY()));
+    }
+
+    // Финальное перемешивание SplitMix64
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Возвращает индексы фигур, ограничивающий прямоугольник которых пересекает область,
+     * в порядке возрастания (то есть в порядке отрисовки).
+     *
+     * @return индексы фигур
+     */
+    public int[] query(double minX, double minY, double maxX, double maxY) {
+        int[] result = new int[16];
+        int count = 0;
+        for (int i = 0; i < shapes.size(); i++) {
+            if (intersects(i, minX, minY, maxX, maxY)) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = i;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Считает фигуры, ограничивающий прямоугольник которых пересекает область.
+     *
+     * @return количество фигур
+     */
+    public int countIntersecting(double minX, double minY, double maxX, double maxY) {
+        int count = 0;
+        for (int i = 0; i < shapes.size(); i++) {
+            if (intersects(i, minX, minY, maxX, maxY)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Сравнения с NaN ложны, поэтому фигуры без границ не пересекают ничего
+    private boolean intersects(int i, double minX, double minY, double maxX, double maxY) {
+        return bounds[4 * i] <= maxX && minX <= bounds[4 * i + 2]
+                && bounds[4 * i + 1] <= maxY && minY <= bounds[4 * i + 3];
+    }
+
+    /**
+     * Возвращает фигуру по индексу.
+     *
+     * @param index индекс фигуры
+     * @return фигура
+     */
+    public Shape getShape(int index) {
+        return shapes.get(index);
+    }
+
+    /**
+     * Возвращает количество фигур в индексе.
+     *
+     * @return количество фигур
+     */
+    public int size() {
+        return shapes.size();
+    }
+
+    /**
+     * Возвращает наибольшую толщину линии среди фигур.
+     *
+     * @return толщина линии в пикселях
+     */
+    public double getMaxLineWidth() {
+        return maxLineWidth;
+    }
+
+    /**
+     * Возвращает хеш содержимого сцены: порядка, типов, цветов, толщин и геометрии фигур.
+     *
+     * @return хеш сцены
+     */
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * Возвращает границы всей сцены.
+     *
+     * @return ограничивающий прямоугольник сцены
+     */
+    public Bounds getSceneBounds() {
+        return sceneBounds;
+    }
+}
@@ -0,0 +1,69 @@
+package com.drawing.render;
+
+import com.drawing.model.Shape;
+
+import java.util.List;
+
+/**
+ * Программный растеризатор сцены в буфер ARGB.
+ * Не зависит от JavaFX и может выполняться в любом потоке;
+ * буфер переиспользуется между вызовами, поэтому один экземпляр
+ * не должен использоваться несколькими потоками одновременно.
+ */
+public class SceneRasterizer {
+
+    private IntRaster raster;
+
+    /**
+     * Растеризует контуры фигур для указанной области отображения.
+     *
+     * @param shapes фигуры в порядке отрисовки
+     * @param viewport область отображения
+     * @param background цвет фона в формате ARGB
+     * @return буфер с результатом; действителен до следующего вызова
+     */
+    public IntRaster render(List<? extends Shape> shapes, Viewport viewport, int background) {
+        return render(DisplayList.record(shapes, viewport), background);
+    }
+
+    /**
+     * Растеризует записанный список отображения.
+     *
+     * @param displayList список отображения
+     * @param background цвет фона в формате ARGB
+     * @return буфер с результатом; действителен до следующего вызова
+     */
+    public IntRaster render(DisplayList displayList, int background) {
+        Viewport viewport = displayList.getViewport();
+        if (raster == null || raster.getWidth() != viewport.getWidth() || raster.getHeight() != viewport.getHeight()) {
+            raster = new IntRaster(viewport.getWidth(), viewport.getHeight());
+        }
+        raster.fill(background);
+        displayList.replay(new RasterRenderer(raster));
+        return raster;
+    }
+
+    /**
+     * Растеризует горизонтальную полосу строк [fromRow, toRow) списка отображения
+     * в новый буфер. Позволяет собирать изображение, которое целиком не помещается
+     * в память; пиксели полосы совпадают с соответствующими строками полного растра
+     * с точностью до округления на границах покрытия.
+     *
+     * @param displayList список отображения
+     * @param fromRow первая строка полосы
+     * @param toRow строка за последней строкой полосы
+     * @param background цвет фона в формате ARGB
+     * @return новый буфер шириной в область отображения и высотой в полосу
+     * @throws IllegalArgumentException если полоса пуста или выходит за область отображения
+     */
+    public static IntRaster renderBand(DisplayList displayList, int fromRow, int toRow, int background) {
+        Viewport viewport = displayList.getViewport();
+        if (fromRow < 0 || toRow > viewport.getHeight() || fromRow >= toRow) {
+            throw new IllegalArgumentException("Band rows must lie within the viewport");
+        }
+        IntRaster band = new IntRaster(viewport.getWidth(), toRow - fromRow);
+        band.fill(background);
+        displayList.replay(new RasterRenderer(band, fromRow));
+        return band;
+    }
+}
@@ -0,0 +1,411 @@
+package com.drawing.render;
+
+import com.drawing.model.Bounds;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Потоковая запись документа SVG: приемник списка отображения и основа экспорта сцен
+ * ({@link com.drawing.io.SvgExporter}).
+ * <p>
+ * Элементы записываются по одному сразу в байтовый буфер фиксированного размера,
+ * который сбрасывается в поток (при необходимости через сжатие gzip), поэтому расход
+ * памяти не зависит от размера сцены. Каждый примитив записывается собственным элементом:
+ * окружность - {@code <circle>}, эллипс - {@code <ellipse>}, прямоугольник - {@code <rect>},
+ * замкнутая ломаная - {@code <polygon>}, отрезок и квадратичная кривая - {@code <path>},
+ * остальные ломаные - {@code <polyline>}.
+ * <p>
+ * Документ записывается либо в пикселях холста ({@link #forCanvas}) - тогда результат
+ * совпадает с изображением на экране для той же области отображения, - либо в системе
+ * области ({@link #forArea}), где ось Y переворачивается преобразованием группы.
+ * Числа форматируются без {@link String#format} с точностью до сотой доли пикселя.
+ * <p>
+ * Методы приемника не объявляют {@link IOException}, поэтому ошибка записи
+ * передается как {@link UncheckedIOException}.
+ */
+public class SvgRenderer implements DisplayListRenderer, Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Наибольшее число знаков после запятой
+    private static final int MAX_DECIMALS = 9;
+    private static final long[] POWERS_OF_TEN = new long[MAX_DECIMALS + 1];
+
+    // Повторяющиеся фрагменты разметки кодируются один раз
+    private static final byte[] CIRCLE_START = ascii("<circle cx=\"");
+    private static final byte[] ELLIPSE_START = ascii("<ellipse cx=\"");
+    private static final byte[] RECT_START = ascii("<rect x=\"");
+    private static final byte[] PATH_START = ascii("<path d=\"M");
+    private static final byte[] POLYGON_START = ascii("<polygon points=\"");
+    private static final byte[] POLYLINE_START = ascii("<polyline points=\"");
+    private static final byte[] ATTRIBUTE_CY = ascii("\" cy=\"");
+    private static final byte[] ATTRIBUTE_R = ascii("\" r=\"");
+    private static final byte[] ATTRIBUTE_RX = ascii("\" rx=\"");
+    private static final byte[] ATTRIBUTE_RY = ascii("\" ry=\"");
+    private static final byte[] ATTRIBUTE_Y = ascii("\" y=\"");
+    private static final byte[] ATTRIBUTE_WIDTH = ascii("\" width=\"");
+    private static final byte[] ATTRIBUTE_HEIGHT = ascii("\" height=\"");
+    private static final byte[] ATTRIBUTE_STROKE = ascii("\" stroke=\"#");
+    private static final byte[] ATTRIBUTE_STROKE_WIDTH = ascii("\" stroke-width=\"");
+    private static final byte[] ELEMENT_END = ascii("\"/>\n");
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_DECIMALS; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int length;
+    private final double pixelsPerUnit;
+    private final int decimals;
+    private int strokeColor;
+    private double strokeWidth = 1;
+    private boolean closed;
+
+    private SvgRenderer(OutputStream target, boolean gzip, double pixelsPerUnit) throws IOException {
+        OutputStream stream = target;
+        if (gzip) {
+            // Сжатие с наименьшей задержкой: иначе оно, а не запись SVG, ограничивает скорость
+            stream = new GZIPOutputStream(stream, BUFFER_SIZE) {
+                {
+                    def.setLevel(Deflater.BEST_SPEED);
+                }
+            };
+        }
+        this.out = stream;
+        this.pixelsPerUnit = pixelsPerUnit;
+        this.decimals = decimalsFor(pixelsPerUnit);
+    }
+
+    /**
+     * Создает документ в пикселях холста и записывает его заголовок.
+     *
+     * @param out поток для записи; закрывается вместе с приемником
+     * @param width ширина изображения в пикселях
+     * @param height высота изображения в пикселях
+     * @param background цвет фона в формате ARGB
+     * @param gzip сжимать ли вывод gzip
+     * @return приемник
+     * @throws IllegalArgumentException если размеры не положительны
+     * @throws IOException при ошибке записи
+     */
+    public static SvgRenderer forCanvas(OutputStream out, int width, int height, int background, boolean gzip)
+            throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("SVG size must be positive");
+        }
+        SvgRenderer renderer = new SvgRenderer(out, gzip, 1);
+        renderer.writeHeader(width, height, 0, 0, width, height, background, "");
+        return renderer;
+    }
+
+    /**
+     * Создает документ в системе области и записывает его заголовок.
+     * Толщина линии, переданная в {@link #setStroke}, по-прежнему задается в пикселях.
+     *
+     * @param out поток для записи; закрывается вместе с приемником
+     * @param viewBox видимая область в системе области
+     * @param pixelWidth ширина изображения в пикселях; высота вычисляется по пропорциям области
+     * @param background цвет фона в формате ARGB
+     * @param gzip сжимать ли вывод gzip
+     * @return приемник
+     * @throws IllegalArgumentException если область или ширина некорректны
+     * @throws IOException при ошибке записи
+     */
+    public static SvgRenderer forArea(OutputStream out, Bounds viewBox, int pixelWidth, int background,
+                                      boolean gzip) throws IOException {
+        if (!(viewBox.getWidth() > 0) || !(viewBox.getHeight() > 0)) {
+            throw new IllegalArgumentException("SVG view box must have positive size");
+        }
+        if (pixelWidth <= 0) {
+            throw new IllegalArgumentException("SVG width must be positive");
+        }
+        double pixelsPerUnit = pixelWidth / viewBox.getWidth();
+        int pixelHeight = (int) Math.max(1, Math.round(viewBox.getHeight() * pixelsPerUnit));
+        SvgRenderer renderer = new SvgRenderer(out, gzip, pixelsPerUnit);
+        renderer.writeHeader(pixelWidth, pixelHeight, viewBox.getMinX(), -viewBox.getMaxY(),
+                viewBox.getWidth(), viewBox.getHeight(), background, " transform=\"scale(1,-1)\"");
+        return renderer;
+    }
+
+    private void writeHeader(int pixelWidth, int pixelHeight, double minX, double minY, double width,
+                             double height, int background, String groupTransform) throws IOException {
+        append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"");
+        appendLong(pixelWidth);
+        append("\" height=\"");
+        appendLong(pixelHeight);
+        append("\" viewBox=\"");
+        appendNumber(minX);
+        appendByte(' ');
+        appendNumber(minY);
+        appendByte(' ');
+        appendNumber(width);
+        appendByte(' ');
+        appendNumber(height);
+        append("\">\n<rect x=\"");
+        appendNumber(minX);
+        append("\" y=\"");
+        appendNumber(minY);
+        append("\" width=\"100%\" height=\"100%\" fill=\"#");
+        appendHex(background);
+        append("\"/>\n<g fill=\"none\" stroke-linejoin=\"round\" stroke-linecap=\"round\"");
+        append(groupTransform);
+        append(">\n");
+    }
+
+    @Override
+    public void setStroke(int argb, double lineWidth) {
+        strokeColor = argb;
+        // Толщина линии задана в пикселях, а координаты - в единицах документа
+        strokeWidth = lineWidth / pixelsPerUnit;
+    }
+
+    @Override
+    public void polyline(float[] coords, int offset, int vertexCount, boolean closed) {
+        try {
+            startPolyline(vertexCount, closed);
+            for (int i = 0; i < vertexCount; i++) {
+                appendVertex(i, vertexCount, closed, coords[offset + 2 * i], coords[offset + 2 * i + 1]);
+            }
+            endElement();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing SVG", e);
+        }
+    }
+
+    /**
+     * Записывает ломаную с координатами двойной точности.
+     *
+     * @param coords координаты вершин x0, y0, x1, y1, ...
+     * @param vertexCount количество вершин
+     * @param closed замкнута ли ломаная
+     */
+    public void polyline(double[] coords, int vertexCount, boolean closed) {
+        try {
+            startPolyline(vertexCount, closed);
+            for (int i = 0; i < vertexCount; i++) {
+                appendVertex(i, vertexCount, closed, coords[2 * i], coords[2 * i + 1]);
+            }
+            endElement();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing SVG", e);
+        }
+    }
+
+    private void startPolyline(int vertexCount, boolean closed) throws IOException {
+        if (closed) {
+            append(POLYGON_START);
+        } else {
+            append(vertexCount == 2 ? PATH_START : POLYLINE_START);
+        }
+    }
+
+    private void appendVertex(int index, int vertexCount, boolean closed, double x, double y) throws IOException {
+        if (index > 0) {
+            // Отрезок записывается путем "M x0,y0 L x1,y1", остальные ломаные - списком точек
+            appendByte(!closed && vertexCount == 2 ? 'L' : ' ');
+        }
+        appendNumber(x);
+        appendByte(',');
+        appendNumber(y);
+    }
+
+    @Override
+    public void ellipse(double centerX, double centerY, double radiusX, double radiusY) {
+        try {
+            boolean circle = radiusX == radiusY;
+            append(circle ? CIRCLE_START : ELLIPSE_START);
+            appendNumber(centerX);
+            append(ATTRIBUTE_CY);
+            appendNumber(centerY);
+            if (circle) {
+                append(ATTRIBUTE_R);
+                appendNumber(radiusX);
+            } else {
+                append(ATTRIBUTE_RX);
+                appendNumber(radiusX);
+                append(ATTRIBUTE_RY);
+                appendNumber(radiusY);
+            }
+            endElement();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing SVG", e);
+        }
+    }
+
+    @Override
+    public void rect(double x, double y, double width, double height) {
+        try {
+            append(RECT_START);
+            appendNumber(x);
+            append(ATTRIBUTE_Y);
+            appendNumber(y);
+            append(ATTRIBUTE_WIDTH);
+            appendNumber(width);
+            append(ATTRIBUTE_HEIGHT);
+            appendNumber(height);
+            endElement();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing SVG", e);
+        }
+    }
+
+    @Override
+    public void quadCurve(double x0, double y0, double controlX, double controlY, double x1, double y1) {
+        try {
+            append(PATH_START);
+            appendNumber(x0);
+            appendByte(',');
+            appendNumber(y0);
+            appendByte('Q');
+            appendNumber(controlX);
+            appendByte(',');
+            appendNumber(controlY);
+            appendByte(' ');
+            appendNumber(x1);
+            appendByte(',');
+            appendNumber(y1);
+            endElement();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing SVG", e);
+        }
+    }
+
+    private void endElement() throws IOException {
+        append(ATTRIBUTE_STROKE);
+        appendHex(strokeColor);
+        append(ATTRIBUTE_STROKE_WIDTH);
+        appendNumber(strokeWidth);
+        append(ELEMENT_END);
+    }
+
+    /**
+     * Завершает документ, сбрасывает буфер и закрывает поток.
+     *
+     * @throws IOException при ошибке записи
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            append("</g>\n</svg>\n");
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+
+    // Количество знаков после запятой, дающее точность в сотую долю пикселя
+    private static int decimalsFor(double pixelsPerUnit) {
+        int digits = (int) Math.ceil(Math.log10(pixelsPerUnit * 100));
+        return Math.max(0, Math.min(MAX_DECIMALS, digits));
+    }
+
+    private void appendNumber(double value) throws IOException {
+        if (!Double.isFinite(value)) {
+            appendByte('0');
+            return;
+        }
+        long scale = POWERS_OF_TEN[decimals];
+        double scaled = Math.abs(value) * scale;
+        if (scaled >= 1e17) {
+            // Слишком большое для целочисленного форматирования значение
+            append(Double.toString(value));
+            return;
+        }
+
+        long rounded = Math.round(scaled);
+        if (rounded == 0) {
+            appendByte('0');
+            return;
+        }
+        if (value < 0) {
+            appendByte('-');
+        }
+        appendLong(rounded / scale);
+
+        long fraction = rounded % scale;
+        if (fraction != 0) {
+            int digits = decimals;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            appendByte('.');
+            // Ведущие нули дробной части
+            for (long p = POWERS_OF_TEN[digits - 1]; p > fraction; p /= 10) {
+                appendByte('0');
+            }
+            appendLong(fraction);
+        }
+    }
+
+    private void appendLong(long value) throws IOException {
+        ensure(20);
+        if (value < 0) {
+            buffer[length++] = '-';
+            value = -value;
+        }
+        int start = length;
+        do {
+            buffer[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        // Цифры записаны в обратном порядке
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            byte digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+    }
+
+    private void appendHex(int argb) throws IOException {
+        ensure(6);
+        for (int shift = 20; shift >= 0; shift -= 4) {
+            int digit = (argb >> shift) & 0xF;
+            buffer[length++] = (byte) (digit < 10 ? '0' + digit : 'A' + digit - 10);
+        }
+    }
+
+    private void append(String text) throws IOException {
+        append(ascii(text));
+    }
+
+    private void append(byte[] bytes) throws IOException {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void appendByte(char value) throws IOException {
+        ensure(1);
+        buffer[length++] = (byte) value;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (length + bytes > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, length);
+        length = 0;
+    }
+}
@@ -0,0 +1,97 @@
+package com.drawing.render;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Кэш плиток с вытеснением давно не использованных (LRU) при превышении бюджета памяти.
+ * Не потокобезопасен: предназначен для использования из одного потока (потока JavaFX).
+ *
+ * @param <V> тип изображения плитки
+ */
+public class TileCache<V> {
+
+    private final long budgetBytes;
+    private final long bytesPerTile;
+    private final LinkedHashMap<TileKey, V> tiles;
+    private long evictions;
+
+    /**
+     * Конструктор кэша.
+     *
+     * @param budgetBytes бюджет памяти в байтах
+     * @param bytesPerTile объем памяти одной плитки в байтах
+     * @throws IllegalArgumentException если объем плитки не положителен или бюджет меньше одной плитки
+     */
+    public TileCache(long budgetBytes, long bytesPerTile) {
+        if (bytesPerTile <= 0 || budgetBytes < bytesPerTile) {
+            throw new IllegalArgumentException("Tile cache budget must hold at least one tile");
+        }
+        this.budgetBytes = budgetBytes;
+        this.bytesPerTile = bytesPerTile;
+        this.tiles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TileKey, V> eldest) {
+                if (size() * TileCache.this.bytesPerTile > TileCache.this.budgetBytes) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Возвращает плитку и отмечает ее как недавно использованную.
+     *
+     * @param key адрес плитки
+     * @return плитка или null, если ее нет в кэше
+     */
+    public V get(TileKey key) {
+        return tiles.get(key);
+    }
+
+    /**
+     * Добавляет плитку, при необходимости вытесняя давно не использованные.
+     *
+     * @param key адрес плитки
+     * @param tile плитка
+     */
+    public void put(TileKey key, V tile) {
+        tiles.put(key, tile);
+    }
+
+    /**
+     * Удаляет все плитки.
+     */
+    public void clear() {
+        tiles.clear();
+    }
+
+    /**
+     * Возвращает количество плиток в кэше.
+     *
+     * @return количество плиток
+     */
+    public int size() {
+        return tiles.size();
+    }
+
+    /**
+     * Возвращает объем памяти, занятый плитками.
+     *
+     * @return размер в байтах
+     */
+    public long getSizeInBytes() {
+        return tiles.size() * bytesPerTile;
+    }
+
+    /**
+     * Возвращает количество вытесненных плиток.
+     *
+     * @return количество вытеснений
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+}
@@ -0,0 +1,69 @@
+package com.drawing.render;
+
+/**
+ * Неизменяемый адрес плитки в пирамиде: уровень детализации и номер плитки на уровне.
+ */
+public final class TileKey {
+
+    private final int level;
+    private final int tileX;
+    private final int tileY;
+
+    /**
+     * Конструктор адреса плитки.
+     *
+     * @param level уровень детализации (0 - вся сцена в одной плитке)
+     * @param tileX номер столбца плиток
+     * @param tileY номер строки плиток (растет вниз)
+     */
+    public TileKey(int level, int tileX, int tileY) {
+        this.level = level;
+        this.tileX = tileX;
+        this.tileY = tileY;
+    }
+
+    /**
+     * Возвращает плитку уровнем выше, содержащую данную.
+     *
+     * @param levels на сколько уровней подняться
+     * @return адрес родительской плитки
+     */
+    public TileKey ancestor(int levels) {
+        // Арифметический сдвиг округляет вниз и для отрицательных номеров
+        return new TileKey(level - levels, tileX >> levels, tileY >> levels);
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getTileX() {
+        return tileX;
+    }
+
+    public int getTileY() {
+        return tileY;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof TileKey)) {
+            return false;
+        }
+        TileKey other = (TileKey) obj;
+        return level == other.level && tileX == other.tileX && tileY == other.tileY;
+    }
+
+    @Override
+    public int hashCode() {
+        return (level * 31 + tileX) * 31 + tileY;
+    }
+
+    @Override
+    public String toString() {
+        return "TileKey{z=" + level + ", x=" + tileX + ", y=" + tileY + "}";
+    }
+}
@@ -0,0 +1,128 @@
+package com.drawing.render;
+
+import com.drawing.model.Bounds;
+
+/**
+ * Пирамида плиток для многомасштабного просмотра сцены (квадродерево).
+ * На уровне 0 вся сцена помещается в одну плитку, на каждом следующем уровне масштаб
+ * удваивается и плитка делится на четыре. Плитки имеют размер {@value #TILE_SIZE}
+ * пикселей и отсчитываются от левого верхнего угла сцены.
+ */
+public final class TilePyramid {
+
+    /** Размер стороны плитки в пикселях. */
+    public static final int TILE_SIZE = 256;
+
+    /** Наибольший уровень детализации; при большем увеличении плитки растягиваются. */
+    public static final int MAX_LEVEL = 24;
+
+    private final double originX;
+    private final double originY;
+    private final double baseScale;
+
+    /**
+     * Создает пирамиду для сцены с заданными границами.
+     *
+     * @param sceneBounds границы сцены
+     */
+    public TilePyramid(Bounds sceneBounds) {
+        double extent = Math.max(sceneBounds.getWidth(), sceneBounds.getHeight());
+        this.originX = sceneBounds.getMinX();
+        this.originY = sceneBounds.getMaxY();
+        this.baseScale = TILE_SIZE / (extent > 0 ? extent : 1.0);
+    }
+
+    /**
+     * Возвращает масштаб уровня в пикселях на единицу системы области.
+     *
+     * @param level уровень
+     * @return масштаб
+     */
+    public double getScale(int level) {
+        return Math.scalb(baseScale, level);
+    }
+
+    /**
+     * Выбирает наименьший уровень, масштаб которого не меньше требуемого,
+     * чтобы плитки при выводе только уменьшались.
+     *
+     * @param pixelsPerUnit требуемый масштаб
+     * @return уровень от 0 до {@link #MAX_LEVEL}
+     */
+    public int levelFor(double pixelsPerUnit) {
+        double ratio = pixelsPerUnit / baseScale;
+        if (!(ratio > 1)) {
+            return 0;
+        }
+        int level = Math.getExponent(ratio);
+        if (Math.scalb(1.0, level) < ratio) {
+            level++;
+        }
+        return Math.min(MAX_LEVEL, level);
+    }
+
+    /**
+     * Возвращает диапазон плиток уровня, покрывающих область отображения.
+     * Диапазон ограничен плитками сцены с запасом в одну плитку,
+     * в который попадают выступающие за границы сцены линии.
+     *
+     * @param level уровень
+     * @param viewport область отображения
+     * @return {fromX, fromY, toX, toY} включительно; пустой, если fromX > toX или fromY > toY
+     */
+    public int[] tileRange(int level, Viewport viewport) {
+        double span = TILE_SIZE / getScale(level);
+        double last = Math.scalb(1.0, level);
+        return new int[]{
+                (int) Math.max(-1, Math.floor((viewport.getMinX() - originX) / span)),
+                (int) Math.max(-1, Math.floor((originY - viewport.getMaxY()) / span)),
+                (int) Math.min(last, Math.floor((viewport.getMaxX() - originX) / span)),
+                (int) Math.min(last, Math.floor((originY - viewport.getMinY()) / span))
+        };
+    }
+
+    /**
+     * Возвращает область отображения, соответствующую плитке.
+     *
+     * @param key адрес плитки
+     * @return область отображения размером {@value #TILE_SIZE} x {@value #TILE_SIZE}
+     */
+    public Viewport tileViewport(TileKey key) {
+        double span = TILE_SIZE / getScale(key.getLevel());
+        double minX = originX + key.getTileX() * span;
+        double maxY = originY - key.getTileY() * span;
+        return new Viewport(minX, minX + span, maxY - span, maxY, TILE_SIZE, TILE_SIZE);
+    }
+
+    /**
+     * Растеризует плитку. Метод не изменяет общего состояния и может
+     * выполняться параллельно для разных плиток.
+     *
+     * @param index индекс сцены
+     * @param key адрес плитки
+     * @param background цвет фона в формате ARGB
+     * @return растр плитки
+     */
+    public IntRaster renderTile(SceneIndex index, TileKey key, int background) {
+        Viewport viewport = tileViewport(key);
+
+        // Фигуры соседних плиток, чьи линии заходят на эту плитку, тоже нужны
+        double padding = (index.getMaxLineWidth() / 2 + 1) / getScale(key.getLevel());
+        int[] shapeIndices = index.query(viewport.getMinX() - padding, viewport.getMinY() - padding,
+                viewport.getMaxX() + padding, viewport.getMaxY() + padding);
+
+        DisplayList displayList = new DisplayList(viewport);
+        for (int shapeIndex : shapeIndices) {
+            try {
+                displayList.append(index.getShape(shapeIndex));
+            } catch (IllegalArgumentException e) {
+                // Фигура с некорректным цветом пропускается, как и при обычной отрисовке
+            }
+        }
+
+        IntRaster raster = new IntRaster(TILE_SIZE, TILE_SIZE);
+        raster.fill(background);
+        displayList.replay(new RasterRenderer(raster));
+        return raster;
+    }
+}
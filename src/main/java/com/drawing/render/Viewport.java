@@ -0,0 +1,153 @@
+package com.drawing.render;
+
+/**
+ * Неизменяемое описание области отображения: границы в системе области
+ * и размер холста в пикселях. Ось Y холста направлена вниз.
+ */
+public final class Viewport {
+
+    private final double minX;
+    private final double maxX;
+    private final double minY;
+    private final double maxY;
+    private final int width;
+    private final int height;
+    private final double scaleX;
+    private final double scaleY;
+
+    /**
+     * Конструктор области отображения.
+     *
+     * @param minX минимальная координата X области
+     * @param maxX максимальная координата X области
+     * @param minY минимальная координата Y области
+     * @param maxY максимальная координата Y области
+     * @param width ширина холста в пикселях
+     * @param height высота холста в пикселях
+     * @throws IllegalArgumentException если границы или размеры некорректны
+     */
+    public Viewport(double minX, double maxX, double minY, double maxY, int width, int height) {
+        if (!(minX < maxX) || !(minY < maxY)) {
+            throw new IllegalArgumentException("Viewport bounds must satisfy min < max");
+        }
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Viewport size must be positive");
+        }
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.width = width;
+        this.height = height;
+        this.scaleX = width / (maxX - minX);
+        this.scaleY = height / (maxY - minY);
+    }
+
+    /**
+     * Преобразует координату X из системы области в систему холста.
+     *
+     * @param x координата X в системе области
+     * @return координата X на холсте
+     */
+    public double toCanvasX(double x) {
+        return (x - minX) * scaleX;
+    }
+
+    /**
+     * Преобразует координату Y из системы области в систему холста.
+     *
+     * @param y координата Y в системе области
+     * @return координата Y на холсте
+     */
+    public double toCanvasY(double y) {
+        return height - (y - minY) * scaleY;
+    }
+
+    /**
+     * Преобразует координату X холста в систему области.
+     *
+     * @param canvasX координата X на холсте
+     * @return координата X в системе области
+     */
+    public double toWorldX(double canvasX) {
+        return minX + canvasX / scaleX;
+    }
+
+    /**
+     * Преобразует координату Y холста в систему области.
+     *
+     * @param canvasY координата Y на холсте
+     * @return координата Y в системе области
+     */
+    public double toWorldY(double canvasY) {
+        return minY + (height - canvasY) / scaleY;
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Возвращает число пикселей холста на единицу области по оси X.
+     *
+     * @return масштаб по оси X
+     */
+    public double getScaleX() {
+        return scaleX;
+    }
+
+    /**
+     * Возвращает число пикселей холста на единицу области по оси Y.
+     *
+     * @return масштаб по оси Y
+     */
+    public double getScaleY() {
+        return scaleY;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        Viewport other = (Viewport) obj;
+        return Double.compare(other.minX, minX) == 0 && Double.compare(other.maxX, maxX) == 0
+                && Double.compare(other.minY, minY) == 0 && Double.compare(other.maxY, maxY) == 0
+                && width == other.width && height == other.height;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Double.hashCode(minX);
+        result = 31 * result + Double.hashCode(maxX);
+        result = 31 * result + Double.hashCode(minY);
+        result = 31 * result + Double.hashCode(maxY);
+        result = 31 * result + width;
+        return 31 * result + height;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Viewport{x=[%.2f, %.2f], y=[%.2f, %.2f], size=%dx%d}",
+                minX, maxX, minY, maxY, width, height);
+    }
+}
@@ -0,0 +1,193 @@
+package com.drawing.server;
+
+import com.drawing.generator.DrawingGenerator.GenerationParameters;
+import com.drawing.generator.ShapeFactory;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Параметры запроса к сервису отрисовки, разобранные из строки запроса.
+ * Поля совпадают с полями {@link GenerationParameters}; кроме них принимаются
+ * список типов фигур {@code types}, начальное значение {@code seed}
+ * размер изображения {@code width}, {@code height} и бюджет времени генерации
+ * {@code budgetMs}: с ним генерируется столько фигур, сколько успеет за бюджет.
+ * Отсутствующие поля принимают значения по умолчанию, как в интерфейсе приложения.
+ */
+final class RenderRequest {
+
+    static final int MAX_IMAGE_SIZE = 8192;
+    static final int MAX_BUDGET_MILLIS = 60_000;
+
+    private final GenerationParameters parameters;
+    private final List<String> shapeTypes;
+    private final long seed;
+    private final boolean seedGiven;
+    private final int width;
+    private final int height;
+    private final boolean limited;
+    private final long deadlineNanos;
+
+    private RenderRequest(GenerationParameters parameters, List<String> shapeTypes, long seed,
+                          boolean seedGiven, int width, int height, boolean limited, long deadlineNanos) {
+        this.parameters = parameters;
+        this.shapeTypes = shapeTypes;
+        this.seed = seed;
+        this.seedGiven = seedGiven;
+        this.width = width;
+        this.height = height;
+        this.limited = limited;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Разбирает строку запроса.
+     *
+     * @param query строка запроса без '?' (может быть null)
+     * @return параметры запроса
+     * @throws IllegalArgumentException если значение не является числом, тип фигуры неизвестен
+     *                                  или размер изображения либо бюджет времени вне допустимого диапазона
+     */
+    static RenderRequest parse(String query) {
+        Map<String, String> values = new HashMap<>();
+        if (query != null && !query.isEmpty()) {
+            for (String pair : query.split("&")) {
+                int separator = pair.indexOf('=');
+                String name = decode(separator >= 0 ? pair.substring(0, separator) : pair);
+                String value = separator >= 0 ? decode(pair.substring(separator + 1)) : "";
+                values.put(name, value);
+            }
+        }
+
+        GenerationParameters parameters = new GenerationParameters(
+                intValue(values, "shapeCount", 20),
+                doubleValue(values, "minX", -100),
+                doubleValue(values, "maxX", 100),
+                doubleValue(values, "minY", -100),
+                doubleValue(values, "maxY", 100),
+                doubleValue(values, "density", 0.5),
+                intValue(values, "gridSize", 10));
+
+        List<String> shapeTypes = new ArrayList<>();
+        String types = values.get("types");
+        if (types == null || types.isBlank()) {
+            for (ShapeFactory.ShapeType type : ShapeFactory.ShapeType.values()) {
+                shapeTypes.add(type.name());
+            }
+        } else {
+            for (String type : types.split(",")) {
+                String name = type.trim().toUpperCase(Locale.ROOT);
+                try {
+                    shapeTypes.add(ShapeFactory.ShapeType.valueOf(name).name());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown shape type: " + type.trim());
+                }
+            }
+        }
+
+        // Без seed выбирается случайный; он возвращается клиенту для воспроизведения
+        boolean seedGiven = values.containsKey("seed");
+        long seed = seedGiven ? longValue(values, "seed") : ThreadLocalRandom.current().nextLong();
+
+        int width = intValue(values, "width", 800);
+        int height = intValue(values, "height", 600);
+        if (width <= 0 || height <= 0 || width > MAX_IMAGE_SIZE || height > MAX_IMAGE_SIZE) {
+            throw new IllegalArgumentException("Image size must be between 1 and " + MAX_IMAGE_SIZE);
+        }
+
+        // Срок отсчитывается от получения запроса: ожидание в очереди генерации входит в бюджет
+        boolean limited = values.containsKey("budgetMs");
+        long deadlineNanos = 0;
+        if (limited) {
+            int budget = intValue(values, "budgetMs", 0);
+            if (budget <= 0 || budget > MAX_BUDGET_MILLIS) {
+                throw new IllegalArgumentException("Time budget must be between 1 and " + MAX_BUDGET_MILLIS + " ms");
+            }
+            deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budget);
+        }
+        return new RenderRequest(parameters, shapeTypes, seed, seedGiven, width, height, limited, deadlineNanos);
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static int intValue(Map<String, String> values, String name, int defaultValue) {
+        String value = values.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " must be an integer: " + value);
+        }
+    }
+
+    private static long longValue(Map<String, String> values, String name) {
+        String value = values.get(name);
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " must be an integer: " + value);
+        }
+    }
+
+    private static double doubleValue(Map<String, String> values, String name, double defaultValue) {
+        String value = values.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " must be a number: " + value);
+        }
+    }
+
+    GenerationParameters getParameters() {
+        return parameters;
+    }
+
+    List<String> getShapeTypes() {
+        return shapeTypes;
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Возвращает true, если seed задан в запросе, а не выбран случайно.
+     */
+    boolean isSeedGiven() {
+        return seedGiven;
+    }
+
+    /**
+     * Возвращает true, если генерация ограничена бюджетом времени.
+     * Результат такого запроса зависит от нагрузки и не кэшируется.
+     */
+    boolean isLimited() {
+        return limited;
+    }
+
+    long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+}
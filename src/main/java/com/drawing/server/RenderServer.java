@@ -0,0 +1,441 @@
+package com.drawing.server;
+
+import com.drawing.generator.DrawingGenerator;
+import com.drawing.generator.GenerationScheduler;
+import com.drawing.io.JsonSceneWriter;
+import com.drawing.io.PngEncoder;
+import com.drawing.io.SvgExporter;
+import com.drawing.model.Bounds;
+import com.drawing.model.Shape;
+import com.drawing.render.IntRaster;
+import com.drawing.render.SceneRasterizer;
+import com.drawing.render.Viewport;
+import com.drawing.util.ColorUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Встроенный HTTP-сервис генерации и отрисовки на {@code com.sun.net.httpserver}.
+ * <p>
+ * Точки входа (только GET):
+ * <ul>
+ *     <li>{@code /generate} - фигуры сцены в JSON;</li>
+ *     <li>{@code /render.png} - растровое изображение сцены;</li>
+ *     <li>{@code /render.svg} - векторное изображение сцены;</li>
+ *     <li>{@code /stats} - счетчики кэшей в JSON.</li>
+ * </ul>
+ * Параметры запроса описаны в {@link RenderRequest}. Сцена определяется параметрами
+ * и seed, поэтому одинаковые запросы дают одинаковый результат; использованный seed
+ * возвращается в заголовке {@code X-Seed}. Ошибки параметров возвращаются с кодом 400.
+ * <p>
+ * Запросы с явно заданным seed кэшируются: сгенерированные сцены и готовые ответы
+ * хранятся в {@link ResultCache} с бюджетами памяти из системных свойств
+ * {@code drawing.sceneCacheBytes} и {@code drawing.outputCacheBytes}.
+ * Запросы без seed и запросы с бюджетом времени {@code budgetMs} не кэшируются. Одновременные промахи
+ * по одинаковому запросу объединяются в {@link SingleFlight}: сцена генерируется
+ * и отрисовывается один раз, остальные запросы ждут общего результата.
+ * <p>
+ * Генерация выполняется в интерактивной полосе общего планировщика процесса
+ * ({@link GenerationScheduler#shared()}), вместе с генерацией интерфейса и отдельно от пакетных
+ * заданий; если полоса перегружена, запрос сразу получает ответ 503 вместо долгого ожидания.
+ * <p>
+ * Каждый запрос обрабатывается в отдельном виртуальном потоке, если среда выполнения
+ * их поддерживает (Java 21+), иначе - в пуле обычных потоков.
+ */
+public class RenderServer implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(RenderServer.class);
+
+    private static final int STOP_DELAY_SECONDS = 1;
+
+    private static final long DEFAULT_SCENE_CACHE_BYTES = 32L * 1024 * 1024;
+    private static final long DEFAULT_OUTPUT_CACHE_BYTES = 128L * 1024 * 1024;
+
+    /** Оценка объема одной фигуры в памяти: объект, список точек и цвет */
+    private static final long SHAPE_BYTES_ESTIMATE = 200;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ResultCache<SceneKey, List<Shape>> sceneCache;
+    private final ResultCache<OutputKey, byte[]> outputCache;
+    private final SingleFlight<SceneKey, List<Shape>> sceneFlight = new SingleFlight<>();
+    private final SingleFlight<OutputKey, byte[]> outputFlight = new SingleFlight<>();
+    private final GenerationScheduler scheduler = GenerationScheduler.shared();
+
+    /**
+     * Создает сервер, привязанный к адресу. Обработка запросов начинается после {@link #start()}.
+     *
+     * @param address адрес; порт 0 означает любой свободный порт
+     * @throws IOException если адрес занят или недоступен
+     */
+    public RenderServer(InetSocketAddress address) throws IOException {
+        this(address, Long.getLong("drawing.sceneCacheBytes", DEFAULT_SCENE_CACHE_BYTES),
+                Long.getLong("drawing.outputCacheBytes", DEFAULT_OUTPUT_CACHE_BYTES));
+    }
+
+    /**
+     * Создает сервер с заданными бюджетами кэшей.
+     *
+     * @param address адрес; порт 0 означает любой свободный порт
+     * @param sceneCacheBytes бюджет кэша сгенерированных сцен в байтах
+     * @param outputCacheBytes бюджет кэша готовых ответов в байтах
+     * @throws IOException если адрес занят или недоступен
+     * @throws IllegalArgumentException если бюджет не положителен
+     */
+    public RenderServer(InetSocketAddress address, long sceneCacheBytes, long outputCacheBytes)
+            throws IOException {
+        this.sceneCache = new ResultCache<>(sceneCacheBytes, shapes -> shapes.size() * SHAPE_BYTES_ESTIMATE);
+        this.outputCache = new ResultCache<>(outputCacheBytes, body -> body.length);
+        this.server = HttpServer.create(address, 0);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/generate", handler("application/json; charset=utf-8", this::writeJson));
+        server.createContext("/render.png", handler("image/png", this::writePng));
+        server.createContext("/render.svg", handler("image/svg+xml", this::writeSvg));
+        server.createContext("/stats", this::handleStats);
+    }
+
+    /**
+     * Исполнитель "поток на запрос". Виртуальные потоки доступны с Java 21,
+     * а проект собирается для Java 17, поэтому фабрика ищется через отражение.
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            logger.info("HTTP requests are handled on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.info("Virtual threads are not available, using a platform thread pool");
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "http-worker-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Начинает прием запросов.
+     */
+    public void start() {
+        server.start();
+        logger.info("Render server listening on {}", server.getAddress());
+    }
+
+    /**
+     * Возвращает порт, на котором принимаются запросы.
+     *
+     * @return номер порта
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Останавливает сервер, давая текущим запросам завершиться.
+     */
+    @Override
+    public void close() {
+        server.stop(STOP_DELAY_SECONDS);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(STOP_DELAY_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Render server stopped; scene cache {} hits / {} misses, output cache {} hits / {} misses, "
+                        + "{} coalesced requests", sceneCache.getHits(), sceneCache.getMisses(),
+                outputCache.getHits(), outputCache.getMisses(), outputFlight.getCoalesced());
+    }
+
+    private void writeJson(RenderRequest request, List<Shape> shapes, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        JsonSceneWriter.write(writer, request.getParameters(), request.getSeed(), shapes);
+        writer.flush();
+    }
+
+    private void writePng(RenderRequest request, List<Shape> shapes, OutputStream out) throws IOException {
+        Viewport viewport = new Viewport(request.getParameters().getMinX(), request.getParameters().getMaxX(),
+                request.getParameters().getMinY(), request.getParameters().getMaxY(),
+                request.getWidth(), request.getHeight());
+        IntRaster raster = new SceneRasterizer().render(shapes, viewport, ColorUtil.WHITE);
+        new PngEncoder().encode(raster, Channels.newChannel(out));
+    }
+
+    private void writeSvg(RenderRequest request, List<Shape> shapes, OutputStream out) throws IOException {
+        Bounds viewBox = new Bounds(request.getParameters().getMinX(), request.getParameters().getMinY(),
+                request.getParameters().getMaxX(), request.getParameters().getMaxY());
+        try (SvgExporter exporter = new SvgExporter(Channels.newChannel(out), viewBox,
+                request.getWidth(), false)) {
+            exporter.writeAll(shapes);
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String json = "{\"sceneCache\":" + statsJson(sceneCache)
+                    + ",\"outputCache\":" + statsJson(outputCache)
+                    + ",\"sceneFlight\":" + statsJson(sceneFlight)
+                    + ",\"outputFlight\":" + statsJson(outputFlight)
+                    + ",\"interactiveLane\":" + statsJson(GenerationScheduler.Lane.INTERACTIVE) + "}";
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private static String statsJson(ResultCache<?, ?> cache) {
+        return "{\"entries\":" + cache.size() + ",\"bytes\":" + cache.getSizeInBytes()
+                + ",\"hits\":" + cache.getHits() + ",\"misses\":" + cache.getMisses()
+                + ",\"evictions\":" + cache.getEvictions() + "}";
+    }
+
+    private String statsJson(GenerationScheduler.Lane lane) {
+        return "{\"pendingCost\":" + scheduler.getPendingCost(lane) + ",\"rejected\":" + scheduler.getRejected(lane)
+                + ",\"queued\":" + scheduler.getQueueTimeHistogram(lane).getCount()
+                + ",\"queueTimeP50Micros\":" + scheduler.getQueueTimeHistogram(lane).getPercentileMicros(50)
+                + ",\"queueTimeP99Micros\":" + scheduler.getQueueTimeHistogram(lane).getPercentileMicros(99) + "}";
+    }
+
+    private static String statsJson(SingleFlight<?, ?> flight) {
+        return "{\"executions\":" + flight.getExecutions() + ",\"coalesced\":" + flight.getCoalesced()
+                + ",\"inFlight\":" + flight.getInFlight() + "}";
+    }
+
+    /**
+     * Общая обработка: разбор параметров, поиск в кэшах, генерация сцены, ответы об ошибках.
+     * Ответ формируется целиком в памяти, чтобы его можно было сохранить в кэше.
+     */
+    private HttpHandler handler(String contentType, SceneWriter sceneWriter) {
+        return exchange -> {
+            try (exchange) {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    sendText(exchange, 405, "Only GET is supported");
+                    return;
+                }
+                RenderRequest request;
+                try {
+                    request = RenderRequest.parse(exchange.getRequestURI().getRawQuery());
+                } catch (IllegalArgumentException e) {
+                    sendText(exchange, 400, e.getMessage());
+                    return;
+                }
+
+                byte[] body;
+                try {
+                    body = output(new OutputKey(exchange.getHttpContext().getPath(), request), request,
+                            sceneWriter);
+                } catch (IllegalArgumentException e) {
+                    sendText(exchange, 400, e.getMessage());
+                    return;
+                } catch (RejectedExecutionException e) {
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    sendText(exchange, 503, e.getMessage());
+                    return;
+                }
+
+                exchange.getResponseHeaders().set("X-Seed", Long.toString(request.getSeed()));
+                exchange.getResponseHeaders().set("Content-Type", contentType);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            } catch (IOException | RuntimeException e) {
+                // Заголовки могли быть уже отправлены; тогда клиент получит оборванный ответ
+                logger.error("Error handling {}: {}", exchange.getRequestURI(), e.getMessage(), e);
+                if (exchange.getResponseCode() == -1) {
+                    sendText(exchange, 500, "Internal server error");
+                }
+            }
+        };
+    }
+
+    /**
+     * Возвращает тело ответа из кэша или формирует его. Одновременные промахи
+     * по одному ключу объединяются: ответ формируется один раз.
+     */
+    private byte[] output(OutputKey key, RenderRequest request, SceneWriter sceneWriter) throws IOException {
+        if (!request.isSeedGiven() || request.isLimited()) {
+            return render(request, scene(request), sceneWriter);
+        }
+        byte[] body = outputCache.get(key);
+        if (body != null) {
+            return body;
+        }
+        return outputFlight.execute(key, () -> {
+            // Пока ждали своей очереди, ответ мог сформировать и сохранить другой поток;
+            // промах уже учтен, поэтому повторная проверка не меняет счетчики
+            byte[] cached = outputCache.peek(key);
+            if (cached != null) {
+                return cached;
+            }
+            byte[] rendered = render(request, scene(request), sceneWriter);
+            outputCache.put(key, rendered);
+            return rendered;
+        });
+    }
+
+    private static byte[] render(RenderRequest request, List<Shape> shapes, SceneWriter sceneWriter)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sceneWriter.write(request, shapes, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Возвращает сцену запроса из кэша или генерирует ее, объединяя одновременные промахи.
+     */
+    private List<Shape> scene(RenderRequest request) throws IOException {
+        if (!request.isSeedGiven() || request.isLimited()) {
+            return generate(request);
+        }
+        SceneKey key = new SceneKey(request);
+        List<Shape> shapes = sceneCache.get(key);
+        if (shapes != null) {
+            return shapes;
+        }
+        return sceneFlight.execute(key, () -> {
+            List<Shape> cached = sceneCache.peek(key);
+            if (cached != null) {
+                return cached;
+            }
+            List<Shape> generated = generate(request);
+            sceneCache.put(key, generated);
+            return generated;
+        });
+    }
+
+    private List<Shape> generate(RenderRequest request) throws IOException {
+        List<Shape> shapes;
+        try {
+            DrawingGenerator generator = new DrawingGenerator(request.getSeed());
+            shapes = (request.isLimited()
+                    ? scheduler.submit(GenerationScheduler.Lane.INTERACTIVE, generator, request.getParameters(),
+                            request.getShapeTypes(), request.getDeadlineNanos())
+                    : scheduler.submit(GenerationScheduler.Lane.INTERACTIVE, generator, request.getParameters(),
+                            request.getShapeTypes())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for generation");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        // Список хранится в кэше сцен и разделяется запросами, поэтому обработчикам отдается только для чтения
+        return Collections.unmodifiableList(shapes);
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Формирует тело ответа точки входа для уже сгенерированной сцены.
+     */
+    @FunctionalInterface
+    private interface SceneWriter {
+
+        void write(RenderRequest request, List<Shape> shapes, OutputStream out) throws IOException;
+    }
+
+    /**
+     * Ключ сцены: параметры генерации, типы фигур и seed.
+     */
+    private static final class SceneKey {
+
+        private final DrawingGenerator.GenerationParameters parameters;
+        private final List<String> shapeTypes;
+        private final long seed;
+
+        SceneKey(RenderRequest request) {
+            this.parameters = request.getParameters();
+            this.shapeTypes = request.getShapeTypes();
+            this.seed = request.getSeed();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SceneKey)) {
+                return false;
+            }
+            SceneKey other = (SceneKey) o;
+            return seed == other.seed && parameters.equals(other.parameters)
+                    && shapeTypes.equals(other.shapeTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(parameters, shapeTypes, seed);
+        }
+    }
+
+    /**
+     * Ключ готового ответа: точка входа, сцена и размер изображения.
+     */
+    private static final class OutputKey {
+
+        private final String path;
+        private final SceneKey scene;
+        private final int width;
+        private final int height;
+
+        OutputKey(String path, RenderRequest request) {
+            this.path = path;
+            this.scene = new SceneKey(request);
+            this.width = request.getWidth();
+            this.height = request.getHeight();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof OutputKey)) {
+                return false;
+            }
+            OutputKey other = (OutputKey) o;
+            return width == other.width && height == other.height
+                    && path.equals(other.path) && scene.equals(other.scene);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, scene, width, height);
+        }
+    }
+}
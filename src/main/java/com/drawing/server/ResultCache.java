@@ -0,0 +1,162 @@
+package com.drawing.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Потокобезопасный кэш результатов с бюджетом памяти в байтах и вытеснением
+ * давно не использованных записей (LRU). Объем записи оценивает переданная функция.
+ * Значения, которые одни превышают бюджет, не кэшируются.
+ * Ведет счетчики попаданий, промахов и вытеснений.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип значения; значения должны быть неизменяемыми, так как выдаются всем вызывающим
+ */
+public class ResultCache<K, V> {
+
+    private final long budgetBytes;
+    private final ToLongFunction<? super V> weigher;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Конструктор кэша.
+     *
+     * @param budgetBytes бюджет памяти в байтах
+     * @param weigher оценка объема значения в байтах
+     * @throws IllegalArgumentException если бюджет не положителен
+     */
+    public ResultCache(long budgetBytes, ToLongFunction<? super V> weigher) {
+        if (budgetBytes <= 0) {
+            throw new IllegalArgumentException("Cache budget must be positive");
+        }
+        this.budgetBytes = budgetBytes;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Возвращает значение и отмечает его как недавно использованное.
+     *
+     * @param key ключ
+     * @return значение или null, если его нет в кэше
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Возвращает значение, не изменяя счетчики попаданий и промахов. Предназначен для повторной
+     * проверки после обращения, уже учтенного {@link #get}; значение отмечается как недавно использованное.
+     *
+     * @param key ключ
+     * @return значение или null, если его нет в кэше
+     */
+    public synchronized V peek(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Добавляет значение, при необходимости вытесняя давно не использованные.
+     *
+     * @param key ключ
+     * @param value значение
+     */
+    public synchronized void put(K key, V value) {
+        long weight = weigher.applyAsLong(value);
+        if (weight > budgetBytes) {
+            return;
+        }
+        Entry<V> previous = entries.put(key, new Entry<>(value, weight));
+        if (previous != null) {
+            sizeBytes -= previous.weight;
+        }
+        sizeBytes += weight;
+
+        // Итерация в порядке доступа: первые записи - давно не использованные
+        var iterator = entries.values().iterator();
+        while (sizeBytes > budgetBytes) {
+            Entry<V> eldest = iterator.next();
+            iterator.remove();
+            sizeBytes -= eldest.weight;
+            evictions++;
+        }
+    }
+
+    /**
+     * Удаляет все записи. Счетчики не сбрасываются.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        sizeBytes = 0;
+    }
+
+    /**
+     * Возвращает количество записей.
+     *
+     * @return количество записей
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Возвращает оценку объема памяти, занятого записями.
+     *
+     * @return размер в байтах
+     */
+    public synchronized long getSizeInBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * Возвращает количество обращений, нашедших значение.
+     *
+     * @return количество попаданий
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Возвращает количество обращений, не нашедших значения.
+     *
+     * @return количество промахов
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Возвращает количество вытесненных записей.
+     *
+     * @return количество вытеснений
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Запись кэша с запомненным объемом.
+     */
+    private static final class Entry<V> {
+
+        final V value;
+        final long weight;
+
+        Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
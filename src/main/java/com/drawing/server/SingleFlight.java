@@ -0,0 +1,106 @@
+package com.drawing.server;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Объединение одинаковых одновременных вычислений. Первый вызывающий с данным ключом
+ * выполняет вычисление, остальные, пришедшие до его завершения, ждут тот же
+ * {@link CompletableFuture} и получают тот же результат.
+ * <p>
+ * Результат не запоминается: после завершения ключ освобождается, и следующий вызов
+ * снова выполняет вычисление (для хранения результатов служит {@link ResultCache}).
+ * Если вычисление завершилось ошибкой, ее получают все ожидавшие, а следующий вызов
+ * повторяет вычисление.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип результата
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Выполняет вычисление или присоединяется к уже выполняющемуся с тем же ключом.
+     *
+     * @param key ключ вычисления
+     * @param computation вычисление
+     * @return результат вычисления
+     * @throws IOException если вычисление выбросило IOException или другое проверяемое исключение
+     *                     (оно передается как причина), либо ожидание было прервано
+     */
+    public V execute(K key, Callable<? extends V> computation) throws IOException {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+
+        executions.incrementAndGet();
+        try {
+            future.complete(computation.call());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            // Ключ освобождается после завершения future, чтобы опоздавшие не ждали вечно
+            inFlight.remove(key, future);
+        }
+        return await(future);
+    }
+
+    private static <V> V await(CompletableFuture<V> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a shared computation");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Возвращает количество выполненных вычислений.
+     *
+     * @return количество вычислений
+     */
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    /**
+     * Возвращает количество вызовов, присоединившихся к чужому вычислению.
+     *
+     * @return количество объединенных вызовов
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Возвращает количество выполняющихся сейчас вычислений.
+     *
+     * @return количество вычислений
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,58 @@
+package com.drawing.util;
+
+/**
+ * Утилитарный класс для преобразования цветов между форматом HEX и упакованным ARGB.
+ */
+public class ColorUtil {
+
+    /** Непрозрачный белый цвет в формате ARGB. */
+    public static final int WHITE = 0xFFFFFFFF;
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Приватный конструктор для предотвращения создания экземпляров.
+     */
+    private ColorUtil() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Преобразует цвет формата #RRGGBB в непрозрачный цвет ARGB без создания промежуточных строк.
+     *
+     * @param hex цвет в формате #RRGGBB
+     * @return цвет в формате 0xAARRGGBB
+     * @throws IllegalArgumentException если строка не является цветом формата #RRGGBB
+     */
+    public static int parseArgb(String hex) {
+        if (hex == null || hex.length() != 7 || hex.charAt(0) != '#') {
+            throw new IllegalArgumentException("Color must be in #RRGGBB format: " + hex);
+        }
+        int rgb = 0;
+        for (int i = 1; i < 7; i++) {
+            int digit = Character.digit(hex.charAt(i), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Color must be in #RRGGBB format: " + hex);
+            }
+            rgb = (rgb << 4) | digit;
+        }
+        return 0xFF000000 | rgb;
+    }
+
+    /**
+     * Преобразует цвет ARGB в строку формата #RRGGBB (прозрачность отбрасывается).
+     *
+     * @param argb цвет в формате 0xAARRGGBB
+     * @return цвет в формате #RRGGBB
+     */
+    public static String toHex(int argb) {
+        // Вызывается для каждой фигуры при чтении сцены из файла, поэтому без String.format
+        char[] chars = new char[7];
+        chars[0] = '#';
+        for (int i = 6; i >= 1; i--) {
+            chars[i] = HEX_DIGITS[argb & 0xF];
+            argb >>>= 4;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,97 @@
+package com.drawing.batch;
+
+import com.drawing.generator.DrawingGenerator;
+import com.drawing.generator.GenerationScheduler;
+import com.drawing.io.QuantizedScene;
+import com.drawing.io.SceneArchive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для пакетной генерации.
+ */
+class BatchRunnerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static List<BatchJob> jobs(int count) {
+        List<BatchJob> jobs = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            jobs.add(new BatchJob(i, 100 + i,
+                    new DrawingGenerator.GenerationParameters(10 + i, -50, 50, -50, 50, 0.5, 10),
+                    List.of("LINE", "CIRCLE")));
+        }
+        return jobs;
+    }
+
+    @Test
+    void testWritesSceneFilesAndReportsThroughput() throws Exception {
+        Path output = tempDir.resolve("scenes");
+
+        BatchRunner.Result result = new BatchRunner(output, tempDir.resolve("run.checkpoint"), 2).run(jobs(5));
+
+        assertEquals(5, result.getCompleted());
+        assertEquals(0, result.getFailed());
+        assertEquals(11 + 12 + 13 + 14 + 15, result.getShapes());
+        assertTrue(result.getScenesPerSecond() > 0);
+        QuantizedScene scene = QuantizedScene.read(output.resolve("scene-3.qscene"));
+        assertEquals(13, scene.getShapes().size());
+        assertEquals(5, Files.readAllLines(tempDir.resolve("run.checkpoint")).size());
+    }
+
+    @Test
+    void testResumesFromCheckpoint() throws Exception {
+        Path output = tempDir.resolve("scenes.dsar");
+        Path checkpoint = tempDir.resolve("scenes.dsar.checkpoint");
+        // Прерванный запуск: выполнены задания 1 и 2, последняя строка дописана не полностью
+        Files.write(checkpoint, "1\n2\n3x".getBytes(StandardCharsets.UTF_8));
+
+        BatchRunner.Result result = new BatchRunner(output, checkpoint, 3).run(jobs(6));
+
+        assertEquals(4, result.getCompleted());
+        assertEquals(2, result.getSkipped());
+        try (SceneArchive archive = SceneArchive.open(output)) {
+            assertArrayEquals(new long[] {3, 4, 5, 6}, archive.getIds());
+            assertEquals(16, archive.getBySeed(106).getShapes().size());
+        }
+
+        BatchRunner.Result rerun = new BatchRunner(output, checkpoint, 3).run(jobs(6));
+        assertEquals(0, rerun.getCompleted());
+        assertEquals(6, rerun.getSkipped());
+    }
+
+    @Test
+    void testFailedJobsAreNotCheckpointed() throws Exception {
+        List<BatchJob> jobs = jobs(2);
+        jobs.add(new BatchJob(3, 3, new DrawingGenerator.GenerationParameters(5000, -50, 50, -50, 50, 0.5, 10),
+                List.of("LINE")));
+        Path checkpoint = tempDir.resolve("run.checkpoint");
+
+        BatchRunner.Result result = new BatchRunner(tempDir.resolve("scenes"), checkpoint, 1).run(jobs);
+
+        assertEquals(2, result.getCompleted());
+        assertEquals(1, result.getFailed());
+        assertFalse(Files.readAllLines(checkpoint).contains("3"));
+    }
+
+    @Test
+    void testRunsInBulkLane() throws Exception {
+        try (GenerationScheduler scheduler = new GenerationScheduler(1, 2, 1, 500)) {
+            // Очередь полосы на одно задание: остальные группы ставятся по мере освобождения
+            BatchRunner.Result result = new BatchRunner(tempDir.resolve("scenes"), tempDir.resolve("run.checkpoint"),
+                    4, scheduler).run(jobs(6));
+
+            assertEquals(6, result.getCompleted());
+            assertTrue(scheduler.getQueueTimeHistogram(GenerationScheduler.Lane.BULK).getCount() > 0);
+            assertEquals(0, scheduler.getQueueTimeHistogram(GenerationScheduler.Lane.INTERACTIVE).getCount());
+            assertEquals(0, scheduler.getPendingCost(GenerationScheduler.Lane.BULK));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.drawing.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для чтения файлов параметров пакетной генерации.
+ */
+class ParameterFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path file(String name, String content) throws Exception {
+        Path file = tempDir.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    void testReadsCsv() throws Exception {
+        Path file = file("sweep.csv", "id,seed,shapeCount,density,types\n"
+                + "# комментарий\n"
+                + "7,42,100,0.25,line;Circle\n"
+                + "8,,50,,\n");
+
+        List<BatchJob> jobs = ParameterFile.read(file);
+
+        assertEquals(2, jobs.size());
+        assertEquals(7, jobs.get(0).getId());
+        assertEquals(42, jobs.get(0).getSeed());
+        assertEquals(100, jobs.get(0).getParameters().getShapeCount());
+        assertEquals(0.25, jobs.get(0).getParameters().getDensity());
+        assertEquals(List.of("LINE", "CIRCLE"), jobs.get(0).getShapeTypes());
+        assertEquals(8, jobs.get(1).getSeed());
+        assertEquals(0.5, jobs.get(1).getParameters().getDensity());
+        assertEquals(6, jobs.get(1).getShapeTypes().size());
+    }
+
+    @Test
+    void testReadsJsonLines() throws Exception {
+        Path file = file("sweep.jsonl", "{\"shapeCount\": 30, \"minX\": -10.5, \"types\": [\"TRIANGLE\", \"parabola\"]}\n"
+                + "\n"
+                + "{\"id\": 5, \"seed\": -3, \"types\": \"line\", \"gridSize\": null}\n");
+
+        List<BatchJob> jobs = ParameterFile.read(file);
+
+        assertEquals(2, jobs.size());
+        assertEquals(1, jobs.get(0).getId());
+        assertEquals(1, jobs.get(0).getSeed());
+        assertEquals(-10.5, jobs.get(0).getParameters().getMinX());
+        assertEquals(List.of("TRIANGLE", "PARABOLA"), jobs.get(0).getShapeTypes());
+        assertEquals(-3, jobs.get(1).getSeed());
+        assertEquals(10, jobs.get(1).getParameters().getGridSize());
+    }
+
+    @Test
+    void testReportsInvalidLines() throws Exception {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ParameterFile.read(file("bad.jsonl", "{\"id\": 1}\n{\"id\": 1}\n")));
+        assertTrue(e.getMessage().startsWith("Line 2: Duplicate job id"), e.getMessage());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ParameterFile.read(file("bad.csv", "id,color\n1,red\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> ParameterFile.read(file("types.csv", "types\nhexagon\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> ParameterFile.read(file("broken.jsonl", "{\"shapeCount\": 10\n")));
+    }
+}
@@ -0,0 +1,108 @@
+package com.drawing.batch;
+
+import com.drawing.generator.DrawingGenerator;
+import com.drawing.generator.SlotGenerator;
+import com.drawing.model.Shape;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для перебора параметров с общей генерацией.
+ */
+class ParameterSweepTest {
+
+    private static final DrawingGenerator.GenerationParameters BASE =
+            new DrawingGenerator.GenerationParameters(10, -80, 80, -60, 60, 0.5, 10);
+
+    private static String describe(List<Shape> shapes) {
+        StringBuilder description = new StringBuilder();
+        for (Shape shape : shapes) {
+            description.append(shape.getType()).append(shape.getPoints()).append(shape.getColor())
+                    .append(shape.getLineWidth()).append('\n');
+        }
+        return description.toString();
+    }
+
+    @Test
+    void testGridEnumeratesAllCombinations() {
+        List<BatchJob> jobs = ParameterSweep.grid(BASE, new long[] {1, 2}, new int[] {10, 50, 100},
+                new double[] {0.3, 0.9}, new int[] {5, 20}, List.of(List.of("LINE"), List.of("CIRCLE", "TRIANGLE")));
+
+        assertEquals(2 * 3 * 2 * 2 * 2, jobs.size());
+        assertEquals(jobs.size(), jobs.get(jobs.size() - 1).getId());
+        assertEquals(-80, jobs.get(7).getParameters().getMinX());
+        // Группы различаются только seed и границами: кучность и типы выводятся из общих сырых слотов
+        assertEquals(2, ParameterSweep.groups(jobs).size());
+        assertEquals(3 * 2 * 2 * 2, ParameterSweep.groups(jobs).get(0).size());
+    }
+
+    @Test
+    void testSharedGenerationMatchesIndependentRuns() {
+        List<BatchJob> jobs = ParameterSweep.grid(BASE, new long[] {7, 8}, new int[] {40, 5, 100},
+                new double[] {0.2, 1.0}, new int[] {5, 20}, List.of(List.of("PARABOLA", "RECTANGLE", "TRAPEZOID"),
+                        List.of("LINE", "RECTANGLE"), List.of("CIRCLE", "TRIANGLE", "PARABOLA", "RECTANGLE")));
+
+        Map<Long, List<Shape>> scenes = ParameterSweep.generate(jobs);
+
+        for (BatchJob job : jobs) {
+            List<Shape> expected = new SlotGenerator(job.getSeed())
+                    .generateShapes(job.getParameters(), job.getShapeTypes());
+            assertEquals(describe(expected), describe(scenes.get(job.getId())), job.toString());
+        }
+        // Варианты, отличающиеся сеткой и количеством, разделяют экземпляры фигур
+        assertSame(scenes.get(1L).get(0), scenes.get(2L).get(0));
+        assertSame(scenes.get(1L).get(0), scenes.get(6L).get(0));
+        assertThrows(UnsupportedOperationException.class, () -> scenes.get(1L).clear());
+    }
+
+    @Test
+    void testLargeGroupsAreSplitByTypeSet() {
+        int count = ParameterSweep.MAX_GROUP_SHAPES / 2 + 1;
+        List<BatchJob> jobs = ParameterSweep.grid(BASE, new long[] {1, 2}, new int[] {10, count},
+                new double[] {0.5}, new int[] {10}, List.of(List.of("LINE"), List.of("CIRCLE")));
+        List<BatchJob> small = ParameterSweep.grid(BASE, new long[] {1}, new int[] {10, count},
+                new double[] {0.5}, new int[] {10}, List.of(List.of("LINE")));
+
+        // Два набора типов по count фигур превышают предел группы: каждый seed делится на две группы
+        List<List<BatchJob>> groups = ParameterSweep.groups(jobs);
+        assertEquals(4, groups.size());
+        for (List<BatchJob> group : groups) {
+            assertEquals(2, group.size());
+            assertEquals(group.get(0).getShapeTypes(), group.get(1).getShapeTypes());
+        }
+        // Один набор типов не делится, даже если превышает предел
+        assertEquals(1, ParameterSweep.groups(small).size());
+    }
+
+    @Test
+    void testScenesAreStreamedAsBuilt() {
+        List<BatchJob> jobs = ParameterSweep.grid(BASE, new long[] {3}, new int[] {20, 10},
+                new double[] {0.4, 0.8}, new int[] {10}, List.of(List.of("LINE", "CIRCLE"), List.of("TRIANGLE")));
+        List<Long> received = new ArrayList<>();
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> ParameterSweep.generate(jobs, (job, shapes) -> {
+            assertEquals(job.getParameters().getShapeCount(), shapes.size());
+            received.add(job.getId());
+            if (received.size() == 3) {
+                throw new IllegalStateException("stop");
+            }
+        }));
+
+        // Сцены первого варианта отданы до построения остальных; исключение потребителя прерывает перебор
+        assertEquals("stop", e.getMessage());
+        assertEquals(List.of(1L, 2L, 3L), received);
+    }
+
+    @Test
+    void testInvalidJobIsReported() {
+        List<BatchJob> jobs = ParameterSweep.grid(BASE, new long[] {1}, new int[] {10, 2000},
+                new double[] {0.5}, new int[] {10}, List.of(List.of("LINE")));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ParameterSweep.generate(jobs));
+        assertTrue(e.getMessage().startsWith("Job 2:"), e.getMessage());
+    }
+}
@@ -0,0 +1,161 @@
+package com.drawing.generator;
+
+import com.drawing.model.Shape;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для одновременного использования одного генератора рисунков из многих потоков.
+ */
+class DrawingGeneratorConcurrencyTest {
+
+    private static final Logger logger = LogManager.getLogger(DrawingGeneratorConcurrencyTest.class);
+
+    private static final List<String> ALL_TYPES =
+            List.of("LINE", "CIRCLE", "RECTANGLE", "TRIANGLE", "PARABOLA", "TRAPEZOID");
+
+    private static final int CALLS_PER_THREAD = 20;
+
+    private final DrawingGenerator.GenerationParameters parameters =
+            new DrawingGenerator.GenerationParameters(300, -100, 100, -100, 100, 0.7, 10);
+
+    private static String describe(List<Shape> shapes) {
+        StringBuilder result = new StringBuilder();
+        for (Shape shape : shapes) {
+            result.append(shape.getType()).append(shape.getPoints()).append(shape.getColor())
+                    .append(shape.getLineWidth()).append(';');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Запускает CALLS_PER_THREAD генераций в каждом из threads потоков на общем генераторе.
+     */
+    private List<String> runConcurrently(DrawingGenerator generator, int threads) throws Exception {
+        return runConcurrently(generator, threads, new double[1]);
+    }
+
+    /**
+     * Запускает генерации на общем генераторе и записывает достигнутую пропускную способность
+     * (сцен в секунду) в throughput[0].
+     */
+    private List<String> runConcurrently(DrawingGenerator generator, int threads, double[] throughput)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    List<String> scenes = new ArrayList<>();
+                    for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                        scenes.add(describe(generator.generateShapes(parameters, ALL_TYPES)));
+                    }
+                    return scenes;
+                }));
+            }
+            List<String> scenes = new ArrayList<>();
+            for (Future<List<String>> future : futures) {
+                scenes.addAll(future.get(60, TimeUnit.SECONDS));
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            throughput[0] = scenes.size() / seconds;
+            logger.info("{} threads: {} scenes/s", threads, String.format("%.0f", throughput[0]));
+            return scenes;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testSeededGeneratorIsDeterministicAcrossThreads() throws Exception {
+        DrawingGenerator generator = new DrawingGenerator(2024);
+        String expected = describe(new DrawingGenerator(2024).generateShapes(parameters, ALL_TYPES));
+
+        for (int threads : new int[] {1, 2, 4, 8}) {
+            List<String> scenes = runConcurrently(generator, threads);
+            assertEquals(threads * CALLS_PER_THREAD, scenes.size());
+            for (String scene : scenes) {
+                assertEquals(expected, scene);
+            }
+        }
+    }
+
+    /**
+     * Лучшая из нескольких попыток пропускная способность: отсекает паузы сборщика мусора и JIT.
+     */
+    private double bestThroughput(DrawingGenerator generator, int threads) throws Exception {
+        double best = 0;
+        double[] throughput = new double[1];
+        for (int attempt = 0; attempt < 3; attempt++) {
+            runConcurrently(generator, threads, throughput);
+            best = Math.max(best, throughput[0]);
+        }
+        return best;
+    }
+
+    @Test
+    void testThroughputScalesWithThreads() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        Assumptions.assumeTrue(cores > 1, "Scaling needs more than one processor");
+        int threads = Math.min(cores, 4);
+        DrawingGenerator generator = new DrawingGenerator(7);
+        runConcurrently(generator, threads);
+
+        double single = bestThroughput(generator, 1);
+        double parallel = bestThroughput(generator, threads);
+
+        // Без общего состояния ускорение близко к линейному; допуск на шум и фоновую нагрузку
+        double speedup = parallel / single;
+        logger.info("Speedup on {} threads: {}", threads, String.format("%.2f", speedup));
+        assertTrue(speedup > threads * 0.5, String.format("Speedup %.2f on %d threads", speedup, threads));
+    }
+
+    @Test
+    void testUnseededGeneratorIsSafeAcrossThreads() throws Exception {
+        DrawingGenerator generator = new DrawingGenerator();
+
+        List<String> scenes = runConcurrently(generator, 8);
+
+        assertEquals(8 * CALLS_PER_THREAD, scenes.size());
+        for (String scene : scenes) {
+            assertEquals(300, scene.split(";").length);
+        }
+        assertTrue(scenes.stream().distinct().count() > 1);
+    }
+
+    @Test
+    void testSharedFactoryIsSafeAcrossThreads() throws Exception {
+        ShapeFactory factory = new ShapeFactory();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    int created = 0;
+                    for (int i = 0; i < 2000; i++) {
+                        ShapeFactory.ShapeType type = ShapeFactory.ShapeType.values()[i % 6];
+                        Shape shape = factory.createShape(type, -100, 100, -100, 100, "#000000", 1.0);
+                        assertNotNull(shape.getType());
+                        created++;
+                    }
+                    return created;
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                assertEquals(2000, future.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
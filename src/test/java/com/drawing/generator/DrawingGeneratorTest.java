@@ -89,4 +89,34 @@ class DrawingGeneratorTest {
         // Исправляем проверку - метод toString может использовать другой формат
         assertTrue(str.contains("10") || str.contains("shapeCount"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGenerationParametersEquality() {
+        DrawingGenerator.GenerationParameters parameters =
+                new DrawingGenerator.GenerationParameters(10, -100, 100, -50, 50, 0.75, 20);
+        DrawingGenerator.GenerationParameters same =
+                new DrawingGenerator.GenerationParameters(10, -100, 100, -50, 50, 0.75, 20);
+        DrawingGenerator.GenerationParameters other =
+                new DrawingGenerator.GenerationParameters(10, -100, 100, -50, 50, 0.5, 20);
+
+        assertEquals(parameters, same);
+        assertEquals(parameters.hashCode(), same.hashCode());
+        assertNotEquals(parameters, other);
+        assertNotEquals(parameters, null);
+    }
+
+    @Test
+    void testGenerateShapesUntilDeadline() {
+        DrawingGenerator.GenerationParameters parameters =
+                new DrawingGenerator.GenerationParameters(300, -100, 100, -100, 100, 0.5, 10);
+        List<String> types = List.of("LINE", "CIRCLE", "PARABOLA");
+
+        List<Shape> expired = new DrawingGenerator(3).generateShapesUntil(parameters, types, System.nanoTime());
+        List<Shape> complete = new DrawingGenerator(3).generateShapesUntil(parameters, types,
+                System.nanoTime() + 60_000_000_000L);
+        List<Shape> unlimited = new DrawingGenerator(3).generateShapes(parameters, types);
+
+        assertTrue(expired.isEmpty());
+        assertEquals(unlimited.toString(), complete.toString());
+    }
+}
@@ -0,0 +1,82 @@
+package com.drawing.generator;
+
+import com.drawing.model.Shape;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для конвейера "генерация - отрисовка".
+ */
+class GenerationPipelineTest {
+
+    private final DrawingGenerator generator = new DrawingGenerator();
+    private final List<String> allTypes = List.of("LINE", "CIRCLE", "RECTANGLE", "TRIANGLE", "PARABOLA", "TRAPEZOID");
+
+    @Test
+    void testGenerateShapesInBatches() {
+        DrawingGenerator.GenerationParameters parameters =
+                new DrawingGenerator.GenerationParameters(100, -100, 100, -100, 100, 0.5, 10);
+        List<Integer> batchSizes = new ArrayList<>();
+
+        int created = generator.generateShapesInBatches(parameters, allTypes, 30,
+                batch -> batchSizes.add(batch.size()));
+
+        assertEquals(created, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 30));
+    }
+
+    @Test
+    void testDrainDeliversAllShapes() throws InterruptedException {
+        DrawingGenerator.GenerationParameters parameters =
+                new DrawingGenerator.GenerationParameters(500, -100, 100, -100, 100, 0.5, 10);
+        // Очередь из одного пакета: генератор вынужден ждать потребителя
+        GenerationPipeline pipeline = new GenerationPipeline(generator, parameters, allTypes, 16, 1);
+        List<Shape> received = new ArrayList<>();
+
+        pipeline.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!pipeline.isFinished() && System.nanoTime() < deadline) {
+            pipeline.drain(TimeUnit.MILLISECONDS.toNanos(1), received::add);
+            Thread.sleep(1);
+        }
+
+        assertTrue(pipeline.isFinished());
+        assertNull(pipeline.getFailure());
+        assertTrue(received.size() > 0 && received.size() <= 500);
+    }
+
+    @Test
+    void testInvalidParametersRejectedImmediately() {
+        DrawingGenerator.GenerationParameters parameters =
+                new DrawingGenerator.GenerationParameters(-1, -100, 100, -100, 100, 0.5, 10);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new GenerationPipeline(generator, parameters, allTypes, 16, 4));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GenerationPipeline(generator,
+                        new DrawingGenerator.GenerationParameters(10, -100, 100, -100, 100, 0.5, 10),
+                        List.of(), 16, 4));
+    }
+
+    @Test
+    void testCancelReleasesSchedulerThread() throws Exception {
+        DrawingGenerator.GenerationParameters parameters =
+                new DrawingGenerator.GenerationParameters(1000, -100, 100, -100, 100, 0.5, 10);
+        try (GenerationScheduler scheduler = new GenerationScheduler(1, 1, 4, 60_000)) {
+            // Потребитель ничего не забирает: генерация останавливается на заполненной очереди
+            GenerationPipeline pipeline = new GenerationPipeline(generator, parameters, allTypes, 16, 1);
+            pipeline.start(scheduler);
+            assertThrows(IllegalStateException.class, () -> pipeline.start(scheduler));
+
+            pipeline.cancel();
+
+            // Единственный поток интерактивной полосы освобожден и не прерывает следующее задание
+            assertFalse(scheduler.<Boolean>submitTask(GenerationScheduler.Lane.INTERACTIVE, 1,
+                    () -> Thread.currentThread().isInterrupted()).get(5, TimeUnit.SECONDS));
+            assertEquals(0, scheduler.getPendingCost(GenerationScheduler.Lane.INTERACTIVE));
+        }
+    }
+}
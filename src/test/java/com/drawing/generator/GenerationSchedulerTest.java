@@ -0,0 +1,154 @@
+package com.drawing.generator;
+
+import com.drawing.model.Shape;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для планировщика заданий генерации.
+ */
+class GenerationSchedulerTest {
+
+    private static final List<String> ALL_TYPES =
+            List.of("LINE", "CIRCLE", "RECTANGLE", "TRIANGLE", "PARABOLA", "TRAPEZOID");
+
+    private GenerationScheduler scheduler;
+    private DrawingGenerator.GenerationParameters parameters;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new GenerationScheduler(1, 1, 2, 1);
+        parameters = new DrawingGenerator.GenerationParameters(1000, -100, 100, -100, 100, 0.5, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.close();
+    }
+
+    /**
+     * Генератор, который не завершает генерацию, пока тест его не отпустит.
+     */
+    private static DrawingGenerator blockingGenerator(CountDownLatch started, CountDownLatch release) {
+        return new DrawingGenerator(1) {
+            @Override
+            public List<Shape> generateShapes(GenerationParameters parameters, List<String> shapeTypes) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.generateShapes(parameters, shapeTypes);
+            }
+        };
+    }
+
+    @Test
+    void testGeneratesInBothLanes() throws Exception {
+        List<Shape> interactive = scheduler.submit(GenerationScheduler.Lane.INTERACTIVE,
+                new DrawingGenerator(5), parameters, ALL_TYPES).get(5, TimeUnit.SECONDS);
+        List<Shape> bulk = scheduler.submit(GenerationScheduler.Lane.BULK,
+                new DrawingGenerator(5), parameters, ALL_TYPES).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1000, interactive.size());
+        assertEquals(new DrawingGenerator(5).generateShapes(parameters, ALL_TYPES).toString(), bulk.toString());
+        assertEquals(1, scheduler.getQueueTimeHistogram(GenerationScheduler.Lane.INTERACTIVE).getCount());
+        assertEquals(1, scheduler.getQueueTimeHistogram(GenerationScheduler.Lane.BULK).getCount());
+        assertEquals(0, scheduler.getPendingCost(GenerationScheduler.Lane.INTERACTIVE));
+    }
+
+    @Test
+    void testInteractiveLaneRejectsOverBudgetWhileBulkLaneIsIndependent() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<Shape>> running = scheduler.submit(GenerationScheduler.Lane.INTERACTIVE,
+                blockingGenerator(started, release), parameters, ALL_TYPES);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Ожидаемое время второго задания больше бюджета в 1 мс
+        assertThrows(RejectedExecutionException.class, () -> scheduler.submit(
+                GenerationScheduler.Lane.INTERACTIVE, new DrawingGenerator(2), parameters, ALL_TYPES));
+        assertEquals(1, scheduler.getRejected(GenerationScheduler.Lane.INTERACTIVE));
+
+        List<Shape> bulk = scheduler.submit(GenerationScheduler.Lane.BULK, new DrawingGenerator(3),
+                parameters, ALL_TYPES).get(5, TimeUnit.SECONDS);
+        assertEquals(1000, bulk.size());
+
+        release.countDown();
+        assertEquals(1000, running.get(5, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    void testBulkQueueIsBounded() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit(GenerationScheduler.Lane.BULK, blockingGenerator(started, release), parameters, ALL_TYPES);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        scheduler.submit(GenerationScheduler.Lane.BULK, new DrawingGenerator(1), parameters, ALL_TYPES);
+        scheduler.submit(GenerationScheduler.Lane.BULK, new DrawingGenerator(2), parameters, ALL_TYPES);
+
+        assertThrows(RejectedExecutionException.class, () -> scheduler.submit(
+                GenerationScheduler.Lane.BULK, new DrawingGenerator(3), parameters, ALL_TYPES));
+        assertEquals(1, scheduler.getRejected(GenerationScheduler.Lane.BULK));
+        release.countDown();
+    }
+
+    @Test
+    void testFailuresAndInvalidParameters() {
+        DrawingGenerator failing = new DrawingGenerator(1) {
+            @Override
+            public List<Shape> generateShapes(GenerationParameters parameters, List<String> shapeTypes) {
+                throw new IllegalStateException("generator failed");
+            }
+        };
+        CompletableFuture<List<Shape>> result = scheduler.submit(GenerationScheduler.Lane.BULK,
+                failing, parameters, ALL_TYPES);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+
+        DrawingGenerator.GenerationParameters invalid =
+                new DrawingGenerator.GenerationParameters(0, -100, 100, -100, 100, 0.5, 10);
+        assertThrows(IllegalArgumentException.class, () -> scheduler.submit(
+                GenerationScheduler.Lane.INTERACTIVE, new DrawingGenerator(1), invalid, ALL_TYPES));
+        assertThrows(IllegalArgumentException.class, () -> new GenerationScheduler(0, 1, 1, 1));
+    }
+
+    @Test
+    void testCostDependsOnCountAndTypeMix() {
+        long lines = GenerationScheduler.estimateCost(parameters, List.of("LINE"));
+        long trapezoids = GenerationScheduler.estimateCost(parameters, List.of("TRAPEZOID"));
+        DrawingGenerator.GenerationParameters small =
+                new DrawingGenerator.GenerationParameters(10, -100, 100, -100, 100, 0.5, 10);
+
+        assertTrue(trapezoids > lines);
+        assertTrue(GenerationScheduler.estimateCost(small, List.of("LINE")) < lines);
+    }
+
+    @Test
+    void testSubmitTaskRunsInLaneThreads() throws Exception {
+        String bulk = scheduler.<String>submitTask(GenerationScheduler.Lane.BULK, 10,
+                () -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+        String interactive = scheduler.<String>submitTask(GenerationScheduler.Lane.INTERACTIVE, 10,
+                () -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+        assertTrue(bulk.startsWith("generation-bulk-"), bulk);
+        assertTrue(interactive.startsWith("generation-interactive-"), interactive);
+        assertEquals(1, scheduler.getQueueTimeHistogram(GenerationScheduler.Lane.BULK).getCount());
+        assertThrows(IllegalArgumentException.class,
+                () -> scheduler.submitTask(GenerationScheduler.Lane.BULK, -1, () -> null));
+
+        scheduler.close();
+        assertTrue(scheduler.isClosed());
+        assertThrows(RejectedExecutionException.class,
+                () -> scheduler.submitTask(GenerationScheduler.Lane.BULK, 1, () -> null));
+    }
+}
@@ -0,0 +1,30 @@
+package com.drawing.generator;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для гистограммы длительностей.
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void testPercentilesAreBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileMicros(50));
+
+        for (int i = 0; i < 90; i++) {
+            histogram.record(3_000); // 3 мкс: корзина до 4 мкс
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(1_000_000); // 1 мс: корзина до 1024 мкс
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(4, histogram.getPercentileMicros(50));
+        assertEquals(4, histogram.getPercentileMicros(90));
+        assertEquals(1024, histogram.getPercentileMicros(99));
+        assertTrue(histogram.toString().startsWith("count=100"));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentileMicros(101));
+    }
+}
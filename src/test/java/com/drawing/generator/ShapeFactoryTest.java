@@ -0,0 +1,76 @@
+package com.drawing.generator;
+
+import com.drawing.model.Shape;
+import org.junit.jupiter.api.Test;
+import java.util.random.RandomGenerator;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для фабрики фигур.
+ */
+class ShapeFactoryTest {
+
+    private final ShapeFactory factory = new ShapeFactory();
+
+    /**
+     * Генератор, считающий выданные числа.
+     */
+    private static final class CountingRandom implements RandomGenerator {
+
+        private final RandomGenerator delegate;
+        private int count;
+
+        CountingRandom(long seed) {
+            this.delegate = ShapeFactory.RANDOM_FACTORY.create(seed);
+        }
+
+        @Override
+        public long nextLong() {
+            count++;
+            return delegate.nextLong();
+        }
+
+        @Override
+        public double nextDouble() {
+            count++;
+            return delegate.nextDouble();
+        }
+    }
+
+    @Test
+    void testDrawCountsMatchFactory() {
+        for (ShapeFactory.ShapeType type : ShapeFactory.ShapeType.values()) {
+            int maxUsed = 0;
+            for (int seed = 0; seed < 2000; seed++) {
+                // В узкой области прямоугольник выбирает угол повторно
+                double maxX = seed % 2 == 0 ? 100 : 8;
+                CountingRandom random = new CountingRandom(seed);
+                factory.createShape(random, type, 0, maxX, 0, maxX, "#000000", 1.0);
+                maxUsed = Math.max(maxUsed, random.count);
+            }
+            assertEquals(ShapeFactory.drawCount(type), maxUsed, type.name());
+            assertTrue(ShapeFactory.drawCount(type) <= ShapeFactory.MAX_DRAW_COUNT);
+        }
+    }
+
+    @Test
+    void testDrawArrayMatchesGenerator() {
+        for (ShapeFactory.ShapeType type : ShapeFactory.ShapeType.values()) {
+            for (int seed = 0; seed < 50; seed++) {
+                double[] draws = new double[ShapeFactory.drawCount(type)];
+                RandomGenerator source = ShapeFactory.RANDOM_FACTORY.create(seed);
+                for (int i = 0; i < draws.length; i++) {
+                    draws[i] = source.nextDouble();
+                }
+
+                Shape expected = factory.createShape(ShapeFactory.RANDOM_FACTORY.create(seed), type,
+                        -50, 50, -20, 30, "#123456", 2.0);
+                Shape replayed = factory.createShape(draws, type, -50, 50, -20, 30, "#123456", 2.0);
+
+                assertEquals(expected.getPoints(), replayed.getPoints());
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> factory.createShape(new double[3],
+                ShapeFactory.ShapeType.TRIANGLE, 0, 10, 0, 10, "#000000", 1.0));
+    }
+}
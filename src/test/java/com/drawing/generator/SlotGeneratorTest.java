@@ -0,0 +1,130 @@
+package com.drawing.generator;
+
+import com.drawing.model.Shape;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для генератора слотов.
+ */
+class SlotGeneratorTest {
+
+    private static final List<String> ALL_TYPES =
+            List.of("LINE", "CIRCLE", "RECTANGLE", "TRIANGLE", "PARABOLA", "TRAPEZOID");
+
+    private final DrawingGenerator.GenerationParameters parameters =
+            new DrawingGenerator.GenerationParameters(200, -100, 100, -100, 100, 0.7, 10);
+
+    private static String describe(Shape shape) {
+        return shape.getType() + shape.getPoints() + shape.getColor() + shape.getLineWidth();
+    }
+
+    @Test
+    void testSlotsDoNotDependOnShapeCount() {
+        SlotGenerator generator = new SlotGenerator(99);
+        List<Shape> small = generator.generateShapes(parameters, ALL_TYPES);
+        List<Shape> large = new SlotGenerator(99).generateShapes(
+                new DrawingGenerator.GenerationParameters(520, -100, 100, -100, 100, 0.7, 10), ALL_TYPES);
+
+        assertEquals(200, small.size());
+        assertEquals(520, large.size());
+        for (int i = 0; i < small.size(); i++) {
+            assertEquals(describe(small.get(i)), describe(large.get(i)));
+            assertEquals(describe(small.get(i)), describe(generator.generateSlot(i, parameters, ALL_TYPES)));
+        }
+        assertNotEquals(describe(small.get(0)), describe(new SlotGenerator(100).generateSlot(0, parameters,
+                ALL_TYPES)));
+    }
+
+    @Test
+    void testTypeToggleChangesOnlyAffectedSlots() {
+        SlotGenerator generator = new SlotGenerator(7);
+        List<String> withoutCircles = List.of("LINE", "RECTANGLE", "TRIANGLE", "PARABOLA", "TRAPEZOID");
+        List<Shape> before = generator.generateShapes(parameters, ALL_TYPES);
+        List<Shape> after = generator.generateShapes(parameters, withoutCircles);
+
+        int[] changed = generator.changedSlots(before.size(), ALL_TYPES, withoutCircles);
+
+        assertTrue(changed.length > 0 && changed.length < before.size() / 2, "changed " + changed.length);
+        int next = 0;
+        for (int i = 0; i < before.size(); i++) {
+            boolean slotChanged = next < changed.length && changed[next] == i;
+            if (slotChanged) {
+                next++;
+                assertEquals("Circle", before.get(i).getType());
+                assertNotEquals("Circle", after.get(i).getType());
+                // Цвет слота не зависит от типа
+                assertEquals(before.get(i).getColor(), after.get(i).getColor());
+            } else {
+                assertEquals(describe(before.get(i)), describe(after.get(i)));
+            }
+        }
+        // Возврат типа возвращает те же слоты, порядок типов не важен
+        assertArrayEquals(changed, generator.changedSlots(before.size(), withoutCircles,
+                List.of("CIRCLE", "LINE", "RECTANGLE", "TRIANGLE", "PARABOLA", "TRAPEZOID")));
+    }
+
+    @Test
+    void testRawSlotsAreSharedAcrossDensitiesAndTypes() {
+        SlotGenerator generator = new SlotGenerator(5);
+        DrawingGenerator.GenerationParameters sparse =
+                new DrawingGenerator.GenerationParameters(200, -100, 100, -100, 100, 1.0, 10);
+        List<String> lines = List.of("LINE", "TRAPEZOID");
+
+        for (int slot = 0; slot < 200; slot++) {
+            SlotGenerator.RawSlot raw = generator.rawSlot(slot, ALL_TYPES);
+            assertEquals(describe(generator.generateSlot(slot, parameters, ALL_TYPES)),
+                    describe(generator.buildSlot(raw, parameters)));
+            assertEquals(describe(generator.generateSlot(slot, sparse, ALL_TYPES)),
+                    describe(generator.buildSlot(raw, sparse)));
+
+            SlotGenerator.RawSlot retyped = generator.retypeSlot(raw, lines);
+            assertEquals(describe(generator.generateSlot(slot, parameters, lines)),
+                    describe(generator.buildSlot(retyped, parameters)));
+            if (raw.getType() == retyped.getType()) {
+                assertSame(raw, retyped);
+            }
+        }
+    }
+
+    @Test
+    void testInvalidTypes() {
+        SlotGenerator generator = new SlotGenerator(1);
+        assertThrows(IllegalArgumentException.class, () -> generator.generateShapes(parameters, List.of()));
+        assertThrows(IllegalArgumentException.class, () -> generator.generateSlot(0, parameters, List.of("HEXAGON")));
+    }
+
+    @Test
+    void testParallelGenerationMatchesSequential() {
+        SlotGenerator generator = new SlotGenerator(11);
+        List<Shape> sequential = generator.generateShapes(parameters, ALL_TYPES);
+        List<Shape> parallel = generator.generateShapesInParallel(parameters, ALL_TYPES);
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(describe(sequential.get(i)), describe(parallel.get(i)));
+        }
+    }
+
+    @Test
+    void testDeadlineReturnsPrefix() {
+        SlotGenerator generator = new SlotGenerator(11);
+        long past = System.nanoTime();
+        assertTrue(generator.generateShapesUntil(parameters, ALL_TYPES, past).isEmpty());
+        assertTrue(generator.generateShapesInParallelUntil(parameters, ALL_TYPES, past).isEmpty());
+
+        DrawingGenerator.GenerationParameters huge =
+                new DrawingGenerator.GenerationParameters(1000, -100, 100, -100, 100, 0.7, 10);
+        List<Shape> partial = generator.generateShapesInParallelUntil(huge, ALL_TYPES, System.nanoTime() + 200_000);
+        List<Shape> complete = generator.generateShapesInParallelUntil(huge, ALL_TYPES,
+                System.nanoTime() + 60_000_000_000L);
+
+        assertEquals(1000, complete.size());
+        assertTrue(partial.size() <= 1000);
+        for (int i = 0; i < partial.size(); i++) {
+            assertNotNull(partial.get(i));
+            assertEquals(describe(complete.get(i)), describe(partial.get(i)));
+        }
+    }
+}
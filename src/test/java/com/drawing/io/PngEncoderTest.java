@@ -0,0 +1,120 @@
+package com.drawing.io;
+
+import com.drawing.render.IntRaster;
+import org.junit.jupiter.api.Test;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Adler32;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для многопоточного кодировщика PNG.
+ */
+class PngEncoderTest {
+
+    private static IntRaster createRaster(int width, int height) {
+        IntRaster raster = new IntRaster(width, height);
+        raster.fill(0xFFFFFFFF);
+        Random random = new Random(7);
+        for (int i = 0; i < 40; i++) {
+            raster.drawLine(random.nextDouble() * width, random.nextDouble() * height,
+                    random.nextDouble() * width, random.nextDouble() * height, 1 + random.nextInt(3),
+                    0xFF000000 | random.nextInt(0x1000000));
+        }
+        return raster;
+    }
+
+    private static BufferedImage decode(PngEncoder encoder, int[] pixels, int width, int height) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        encoder.encode(pixels, width, height, Channels.newChannel(bytes));
+        return ImageIO.read(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test
+    void testRoundTripAcrossManyBands() throws IOException {
+        IntRaster raster = createRaster(301, 197);
+        // Маленькие полосы: изображение сжимается десятками независимых блоков
+        PngEncoder encoder = new PngEncoder(ForkJoinPool.commonPool(), 6, 4096);
+
+        BufferedImage image = decode(encoder, raster.getPixels(), raster.getWidth(), raster.getHeight());
+
+        assertNotNull(image);
+        assertEquals(301, image.getWidth());
+        assertEquals(197, image.getHeight());
+        assertFalse(image.getColorModel().hasAlpha());
+        for (int y = 0; y < raster.getHeight(); y++) {
+            for (int x = 0; x < raster.getWidth(); x++) {
+                assertEquals(raster.getPixel(x, y), image.getRGB(x, y), "pixel " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void testTransparentPixelsKeepAlpha() throws IOException {
+        int[] pixels = {0x00000000, 0x80FF0000, 0xFF00FF00, 0x400000FF};
+
+        BufferedImage image = decode(new PngEncoder(), pixels, 2, 2);
+
+        assertTrue(image.getColorModel().hasAlpha());
+        assertEquals(0x80FF0000, image.getRGB(1, 0));
+        assertEquals(0xFF00FF00, image.getRGB(0, 1));
+        assertEquals(0x400000FF, image.getRGB(1, 1));
+    }
+
+    @Test
+    void testRowSourceMatchesWholeImage() throws IOException {
+        IntRaster raster = createRaster(301, 197);
+        int width = raster.getWidth();
+        // Источник отдает строки полосами по 16 строк, сжатие идет полосами по 4 строки
+        PngEncoder encoder = new PngEncoder(ForkJoinPool.commonPool(), 6, 4096, 16 * width * 4);
+        ByteArrayOutputStream whole = new ByteArrayOutputStream();
+        encoder.encode(raster, Channels.newChannel(whole));
+
+        List<Integer> requested = new ArrayList<>();
+        ByteArrayOutputStream banded = new ByteArrayOutputStream();
+        encoder.encode(width, raster.getHeight(), false, (fromRow, toRow) -> {
+            requested.add(fromRow);
+            return Arrays.copyOfRange(raster.getPixels(), fromRow * width, toRow * width);
+        }, Channels.newChannel(banded));
+
+        assertEquals(13, requested.size());
+        for (int i = 0; i < requested.size(); i++) {
+            assertEquals(16 * i, requested.get(i));
+        }
+        assertArrayEquals(whole.toByteArray(), banded.toByteArray());
+    }
+
+    @Test
+    void testCombineAdler32() {
+        byte[] first = "drawing ".repeat(5000).getBytes();
+        byte[] second = "generator".repeat(9000).getBytes();
+        Adler32 whole = new Adler32();
+        whole.update(first);
+        whole.update(second);
+        Adler32 a = new Adler32();
+        a.update(first);
+        Adler32 b = new Adler32();
+        b.update(second);
+
+        assertEquals(whole.getValue(), PngEncoder.combineAdler32(a.getValue(), b.getValue(), second.length));
+    }
+
+    @Test
+    void testInvalidSize() {
+        PngEncoder encoder = new PngEncoder();
+        assertThrows(IllegalArgumentException.class,
+                () -> encoder.encode(new int[10], 3, 3, Channels.newChannel(new ByteArrayOutputStream())));
+        assertThrows(IllegalArgumentException.class, () -> encoder.encode(3, 3, false,
+                (fromRow, toRow) -> new int[3], Channels.newChannel(new ByteArrayOutputStream())));
+        assertThrows(IllegalArgumentException.class, () -> new PngEncoder(ForkJoinPool.commonPool(), 0));
+    }
+}
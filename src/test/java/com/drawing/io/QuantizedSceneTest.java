@@ -0,0 +1,136 @@
+package com.drawing.io;
+
+import com.drawing.generator.DrawingGenerator;
+import com.drawing.generator.DrawingGenerator.GenerationParameters;
+import com.drawing.model.Circle;
+import com.drawing.model.Line;
+import com.drawing.model.Parabola;
+import com.drawing.model.Point;
+import com.drawing.model.Rectangle;
+import com.drawing.model.Shape;
+import com.drawing.model.Trapezoid;
+import com.drawing.model.Triangle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для квантованного представления сцены.
+ */
+class QuantizedSceneTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final GenerationParameters parameters = new GenerationParameters(7, -50, 50, -25, 75, 0.4, 5);
+
+    private static QuantizedScene roundTrip(GenerationParameters parameters, List<? extends Shape> shapes,
+                                            double step) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        QuantizedScene.write(bytes, parameters, shapes, step);
+        return QuantizedScene.read(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    private static void assertPointsClose(List<Point> expected, List<Point> actual, double tolerance) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getX(), actual.get(i).getX(), tolerance);
+            assertEquals(expected.get(i).getY(), actual.get(i).getY(), tolerance);
+        }
+    }
+
+    @Test
+    void testRoundTripWithinHalfStep() throws IOException {
+        double step = 0.01;
+        List<Shape> scene = List.of(
+                new Line(new Point(0.1234, 0.2), new Point(10.3, -4.7071), "#00FF00", 2.0),
+                new Circle(new Point(1.5, -2.25), 3.1234, "#FF8000", 1.5),
+                new Rectangle(new Point(-5.001, -5.006), 2.5, -7.5049, "#ABCDEF", 1.0),
+                new Triangle(new Point(0, 0), new Point(4.004, 0), new Point(2, 3.333), "#0000FF", 1.0),
+                new Trapezoid(new Point(0, 5), new Point(4, 5), new Point(6.6666, 0), new Point(-2, 0),
+                        "#000000", 3.99),
+                new Line(new Point(1e6, 1), new Point(-1e6, 2), "#FFFFFF", 1.0));
+
+        QuantizedScene loaded = roundTrip(parameters, scene, step);
+
+        assertEquals(parameters.toString(), loaded.getParameters().toString());
+        assertEquals(step, loaded.getStep());
+        assertEquals(step / 2, loaded.getMaxError());
+        double tolerance = step / 2 + 1e-9;
+        for (int i = 0; i < scene.size(); i++) {
+            Shape expected = scene.get(i);
+            Shape actual = loaded.getShapes().get(i);
+            assertEquals(expected.getClass(), actual.getClass());
+            assertEquals(expected.getColor(), actual.getColor());
+            assertEquals(expected.getLineWidth(), actual.getLineWidth(), 1.0 / 64);
+            if (expected instanceof Circle) {
+                assertPointsClose(List.of(((Circle) expected).getCenter()),
+                        List.of(((Circle) actual).getCenter()), tolerance);
+                assertEquals(((Circle) expected).getRadius(), ((Circle) actual).getRadius(), tolerance);
+            } else if (expected instanceof Rectangle) {
+                Rectangle original = (Rectangle) expected;
+                Rectangle restored = (Rectangle) actual;
+                assertPointsClose(List.of(original.getTopLeft()), List.of(restored.getTopLeft()), tolerance);
+                assertEquals(original.getTopLeft().getX() + original.getWidth(),
+                        restored.getTopLeft().getX() + restored.getWidth(), tolerance);
+                assertEquals(original.getTopLeft().getY() + original.getHeight(),
+                        restored.getTopLeft().getY() + restored.getHeight(), tolerance);
+            } else {
+                assertPointsClose(expected.getPoints(), actual.getPoints(), tolerance);
+            }
+        }
+    }
+
+    @Test
+    void testParabolaErrorBound() throws IOException {
+        double step = 0.05;
+        Parabola original = new Parabola(0.731, -1.27, 2.018, -4.013, 3.378, "#123456", 3.0);
+
+        Parabola restored = (Parabola) roundTrip(parameters, List.of(original), step).getShapes().get(0);
+
+        assertEquals(original.getXMin(), restored.getXMin(), step / 2);
+        assertEquals(original.getXMax(), restored.getXMax(), step / 2);
+        double bound = 1.25 * step / 2 + 1e-9;
+        for (int i = 0; i <= 100; i++) {
+            double x = restored.getXMin() + (restored.getXMax() - restored.getXMin()) * i / 100;
+            double expected = (original.getA() * x + original.getB()) * x + original.getC();
+            double actual = (restored.getA() * x + restored.getB()) * x + restored.getC();
+            assertEquals(expected, actual, bound, "x = " + x);
+        }
+    }
+
+    @Test
+    void testGeneratedSceneIsSeveralTimesSmallerThanSceneFile() throws IOException {
+        GenerationParameters generated = new GenerationParameters(1000, -100, 100, -100, 100, 0.8, 10);
+        List<Shape> scene = new DrawingGenerator().generateShapes(generated);
+        Path sceneFile = tempDir.resolve("generated.scene");
+        Path quantizedFile = tempDir.resolve("generated.qscene");
+
+        SceneFile.write(sceneFile, generated, scene, false);
+        QuantizedScene.write(quantizedFile, generated, scene, QuantizedScene.defaultStep(generated));
+
+        QuantizedScene loaded = QuantizedScene.read(quantizedFile);
+        assertEquals(scene.size(), loaded.getShapes().size());
+        assertTrue(Files.size(quantizedFile) * 3 < Files.size(sceneFile),
+                Files.size(quantizedFile) + " vs " + Files.size(sceneFile));
+    }
+
+    @Test
+    void testInvalidInput() {
+        List<Shape> scene = List.of(new Line(new Point(0, 0), new Point(1, 1), "#000000", 1.0));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThrows(IllegalArgumentException.class, () -> QuantizedScene.write(out, parameters, scene, 0));
+        assertThrows(IllegalArgumentException.class, () -> QuantizedScene.write(out, null, scene, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> QuantizedScene.write(out, parameters,
+                List.of(new Line(new Point(Double.NaN, 0), new Point(1, 1), "#000000", 1.0)), 0.1));
+        assertThrows(IOException.class,
+                () -> QuantizedScene.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8})));
+    }
+}
@@ -0,0 +1,170 @@
+package com.drawing.io;
+
+import com.drawing.generator.DrawingGenerator;
+import com.drawing.generator.DrawingGenerator.GenerationParameters;
+import com.drawing.model.Shape;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для архива сцен.
+ */
+class SceneArchiveTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final GenerationParameters parameters = new GenerationParameters(20, -100, 100, -100, 100, 0.8, 10);
+
+    private List<Shape> generate(long seed) {
+        return new DrawingGenerator(seed).generateShapes(parameters);
+    }
+
+    private void append(SceneArchive archive, long id, long seed) throws IOException {
+        archive.append(id, seed, parameters, generate(seed), QuantizedScene.defaultStep(parameters));
+    }
+
+    private static void assertSameScene(List<Shape> expected, QuantizedScene actual, double tolerance) {
+        assertNotNull(actual);
+        assertEquals(expected.size(), actual.getShapes().size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getType(), actual.getShapes().get(i).getType());
+            assertEquals(expected.get(i).getColor(), actual.getShapes().get(i).getColor());
+            assertEquals(expected.get(i).getBounds().getMinX(), actual.getShapes().get(i).getBounds().getMinX(),
+                    tolerance);
+        }
+    }
+
+    @Test
+    void testSeededGeneratorIsDeterministic() {
+        assertEquals(generate(42).toString(), generate(42).toString());
+        assertNotEquals(generate(42).toString(), generate(43).toString());
+    }
+
+    @Test
+    void testReopenReadsIndexByIdAndSeed() throws IOException {
+        Path file = tempDir.resolve("scenes.dsar");
+        double tolerance = QuantizedScene.defaultStep(parameters) * 2;
+        try (SceneArchive archive = SceneArchive.open(file)) {
+            for (long id = 0; id < 50; id++) {
+                append(archive, id, 1000 + id);
+            }
+        }
+
+        try (SceneArchive archive = SceneArchive.open(file)) {
+            assertEquals(50, archive.size());
+            assertArrayEquals(LongStream.range(0, 50).toArray(), archive.getIds());
+            assertSameScene(generate(1017), archive.get(17), tolerance);
+            assertSameScene(generate(1033), archive.getBySeed(1033), tolerance);
+            assertNull(archive.get(50));
+            assertNull(archive.getBySeed(7));
+
+            // Добавление после открытия: новая запись видна и после повторного открытия
+            append(archive, 50, 2000);
+        }
+        try (SceneArchive archive = SceneArchive.open(file)) {
+            assertEquals(51, archive.size());
+            assertSameScene(generate(2000), archive.get(50), tolerance);
+        }
+    }
+
+    @Test
+    void testConcurrentAppends() throws Exception {
+        Path file = tempDir.resolve("concurrent.dsar");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (SceneArchive archive = SceneArchive.open(file)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long id = 0; id < 400; id++) {
+                long sceneId = id;
+                futures.add(executor.submit(() -> {
+                    append(archive, sceneId, sceneId);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        try (SceneArchive archive = SceneArchive.open(file)) {
+            assertEquals(400, archive.size());
+            for (long id = 0; id < 400; id += 37) {
+                assertSameScene(generate(id), archive.get(id), QuantizedScene.defaultStep(parameters) * 2);
+            }
+        }
+    }
+
+    @Test
+    void testRecoveryWithoutIndexSkipsDamagedRecords() throws IOException {
+        Path file = tempDir.resolve("damaged.dsar");
+        try (SceneArchive archive = SceneArchive.open(file)) {
+            for (long id = 0; id < 10; id++) {
+                append(archive, id, id);
+            }
+        }
+
+        // Отрезаем индекс и часть последней записи, портим одну запись в середине
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 10 * 32 - 16 - 40);
+            channel.write(ByteBuffer.wrap(new byte[]{0x55, 0x55, 0x55, 0x55}), 16 + 32 + 8);
+        }
+
+        try (SceneArchive archive = SceneArchive.open(file)) {
+            assertEquals(8, archive.size());
+            assertNull(archive.get(0));
+            assertNull(archive.get(9));
+            assertSameScene(generate(5), archive.get(5), QuantizedScene.defaultStep(parameters) * 2);
+            append(archive, 9, 9);
+        }
+        try (SceneArchive archive = SceneArchive.open(file)) {
+            assertEquals(9, archive.size());
+            assertSameScene(generate(9), archive.get(9), QuantizedScene.defaultStep(parameters) * 2);
+        }
+    }
+
+    @Test
+    void testCompactionDropsReplacedRecords() throws IOException {
+        Path file = tempDir.resolve("compact.dsar");
+        try (SceneArchive archive = SceneArchive.open(file)) {
+            for (int round = 0; round < 3; round++) {
+                for (long id = 0; id < 20; id++) {
+                    append(archive, id, round * 100 + id);
+                }
+            }
+        }
+        long before = Files.size(file);
+
+        long freed = SceneArchive.compact(file);
+
+        assertTrue(freed > before / 2);
+        assertEquals(before - freed, Files.size(file));
+        try (SceneArchive archive = SceneArchive.open(file)) {
+            assertEquals(20, archive.size());
+            assertSameScene(generate(207), archive.get(7), QuantizedScene.defaultStep(parameters) * 2);
+            assertNull(archive.getBySeed(7));
+        }
+    }
+
+    @Test
+    void testNotAnArchive() throws IOException {
+        Path file = tempDir.resolve("other.bin");
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> SceneArchive.open(file));
+    }
+}
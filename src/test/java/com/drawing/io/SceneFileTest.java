@@ -0,0 +1,116 @@
+package com.drawing.io;
+
+import com.drawing.generator.DrawingGenerator;
+import com.drawing.generator.DrawingGenerator.GenerationParameters;
+import com.drawing.model.Bounds;
+import com.drawing.model.Circle;
+import com.drawing.model.Line;
+import com.drawing.model.Parabola;
+import com.drawing.model.Point;
+import com.drawing.model.Rectangle;
+import com.drawing.model.Shape;
+import com.drawing.model.Trapezoid;
+import com.drawing.model.Triangle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для двоичного формата файла сцены.
+ */
+class SceneFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final GenerationParameters parameters = new GenerationParameters(6, -50, 50, -25, 75, 0.4, 5);
+
+    private List<Shape> createScene() {
+        return List.of(
+                new Circle(new Point(1.5, -2.25), 3.125, "#FF0000", 1.5),
+                new Line(new Point(0.1, 0.2), new Point(10.3, -4.7), "#00FF00", 2.0),
+                new Triangle(new Point(0, 0), new Point(4, 0), new Point(2, 3), "#0000FF", 1.0),
+                new Parabola(0.5, -1, 2, -4, 3, "#123456", 3.0),
+                new Rectangle(new Point(-5, -5), 2.5, 7.5, "#ABCDEF", 1.0),
+                new Trapezoid(new Point(0, 5), new Point(4, 5), new Point(6, 0), new Point(-2, 0), "#000000", 4.0),
+                new Line(new Point(1, 1), new Point(2, 2), "#FFFFFF", 1.0));
+    }
+
+    @Test
+    void testRoundTripPreservesShapesAndOrder() throws IOException {
+        Path file = tempDir.resolve("scene.scene");
+        List<Shape> scene = createScene();
+        SceneFile.write(file, parameters, scene, true);
+
+        SceneFile loaded = SceneFile.open(file);
+
+        assertEquals(scene.size(), loaded.getShapeCount());
+        assertEquals(parameters.toString(), loaded.getParameters().toString());
+        List<Shape> shapes = loaded.getShapes();
+        for (int i = 0; i < scene.size(); i++) {
+            Shape expected = scene.get(i);
+            Shape actual = shapes.get(i);
+            assertEquals(expected.getClass(), actual.getClass());
+            assertEquals(expected.getColor(), actual.getColor());
+            assertEquals(expected.getLineWidth(), actual.getLineWidth());
+            assertEquals(expected.getPoints(), actual.getPoints());
+        }
+
+        Parabola parabola = (Parabola) shapes.get(3);
+        assertEquals(0.5, parabola.getA());
+        assertEquals(-4, parabola.getXMin());
+    }
+
+    @Test
+    void testBoundsIndexContainsExactBounds() throws IOException {
+        Path file = tempDir.resolve("bounds.scene");
+        List<Shape> scene = createScene();
+        SceneFile.write(file, parameters, scene, true);
+
+        SceneFile loaded = SceneFile.open(file);
+
+        assertTrue(loaded.hasBoundsIndex());
+        for (int i = 0; i < scene.size(); i++) {
+            Bounds exact = scene.get(i).getBounds();
+            Bounds indexed = loaded.getBounds(i);
+            assertTrue(indexed.contains(exact), "Indexed bounds must contain exact bounds of shape " + i);
+            assertEquals(exact.getMinX(), indexed.getMinX(), 1e-5);
+            assertEquals(exact.getMaxY(), indexed.getMaxY(), 1e-5);
+        }
+
+        SceneFile.write(file, parameters, scene, false);
+        assertFalse(SceneFile.open(file).hasBoundsIndex());
+    }
+
+    @Test
+    void testGeneratedSceneRoundTrip() throws IOException {
+        GenerationParameters generated = new GenerationParameters(500, -100, 100, -100, 100, 0.8, 10);
+        List<Shape> scene = new DrawingGenerator().generateShapes(generated);
+        Path file = tempDir.resolve("generated.scene");
+
+        SceneFile.write(file, generated, scene, true);
+        List<Shape> shapes = SceneFile.open(file).getShapes();
+
+        assertEquals(scene.size(), shapes.size());
+        for (int i = 0; i < scene.size(); i++) {
+            assertEquals(scene.get(i).getPoints(), shapes.get(i).getPoints());
+        }
+    }
+
+    @Test
+    void testRejectsInvalidFiles() throws IOException {
+        Path file = tempDir.resolve("invalid.scene");
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> SceneFile.open(file));
+
+        Files.write(file, new byte[256]);
+        assertThrows(IOException.class, () -> SceneFile.open(file));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> SceneFile.write(file, null, createScene(), false));
+    }
+}
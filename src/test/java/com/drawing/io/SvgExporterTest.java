@@ -0,0 +1,84 @@
+package com.drawing.io;
+
+import com.drawing.model.Bounds;
+import com.drawing.model.Circle;
+import com.drawing.model.Line;
+import com.drawing.model.Parabola;
+import com.drawing.model.Point;
+import com.drawing.model.Rectangle;
+import com.drawing.model.Shape;
+import com.drawing.model.Triangle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для потокового экспорта в SVG.
+ */
+class SvgExporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final Bounds viewBox = new Bounds(-100, -50, 100, 50);
+
+    private String export(List<Shape> shapes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SvgExporter exporter = new SvgExporter(Channels.newChannel(bytes), viewBox, 400, false)) {
+            exporter.writeAll(shapes);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testNativeElementsPerShapeType() throws IOException {
+        String svg = export(List.of(
+                new Circle(new Point(1.5, -2), 3, "#FF0000", 2.0),
+                new Rectangle(new Point(0, 0), 4, -2, "#00ff00", 1.0),
+                new Triangle(new Point(0, 0), new Point(4, 0), new Point(2, 3), "#0000FF", 1.0),
+                new Line(new Point(-1, -1), new Point(1, 1), "#000000", 1.0),
+                new Parabola(1, 0, 0, -1, 1, "#123456", 1.0)));
+
+        assertTrue(svg.startsWith("<?xml"));
+        assertTrue(svg.contains("width=\"400\" height=\"200\" viewBox=\"-100 -50 200 100\""));
+        assertTrue(svg.contains("<circle cx=\"1.5\" cy=\"-2\" r=\"3\" stroke=\"#FF0000\" stroke-width=\"1\"/>"));
+        assertTrue(svg.contains("<rect x=\"0\" y=\"-2\" width=\"4\" height=\"2\" stroke=\"#00FF00\""));
+        assertTrue(svg.contains("<polygon points=\"0,0 4,0 2,3\""));
+        assertTrue(svg.contains("<path d=\"M-1,-1L1,1\""));
+        // Парабола y = x^2 на [-1, 1] - кривая с контрольной точкой (0, -1)
+        assertTrue(svg.contains("<path d=\"M-1,1Q0,-1 1,1\""));
+        assertTrue(svg.trim().endsWith("</svg>"));
+    }
+
+    @Test
+    void testNumberFormatting() throws IOException {
+        String svg = export(List.of(new Line(new Point(0.001, -0.05), new Point(-12.3456, 1e-9), "#000000", 0.5)));
+
+        // Два пикселя на единицу: точность 0.001 единицы
+        assertTrue(svg.contains("<path d=\"M0.001,-0.05L-12.346,0\""), svg);
+        assertTrue(svg.contains("stroke-width=\"0.25\""));
+    }
+
+    @Test
+    void testGzipExport() throws IOException {
+        Path file = tempDir.resolve("scene.svgz");
+        List<Shape> shapes = List.of(new Circle(new Point(0, 0), 10, "#FF0000", 1.0));
+
+        assertEquals(1, SvgExporter.export(file, shapes, viewBox, 400));
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            String svg = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(svg.contains("<circle cx=\"0\" cy=\"0\" r=\"10\""));
+            assertTrue(svg.trim().endsWith("</svg>"));
+        }
+    }
+}
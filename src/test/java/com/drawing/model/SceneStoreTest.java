@@ -0,0 +1,151 @@
+package com.drawing.model;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для хранилища сцены со снимками.
+ */
+class SceneStoreTest {
+
+    private static Shape line(int i) {
+        return new Line(new Point(i, 0), new Point(i, 1), "#000000", 1.0);
+    }
+
+    private static List<Shape> lines(int from, int to) {
+        List<Shape> result = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            result.add(line(i));
+        }
+        return result;
+    }
+
+    private static double startX(Shape shape) {
+        return ((Line) shape).getStart().getX();
+    }
+
+    @Test
+    void testSnapshotsAreNotAffectedByLaterChanges() {
+        SceneStore store = new SceneStore();
+        SceneStore.Snapshot empty = store.snapshot();
+        SceneStore.Snapshot first = store.addAll(lines(0, 300));
+        SceneStore.Snapshot second = store.add(line(300));
+        store.set(10, line(-1));
+        store.truncate(5);
+
+        assertTrue(empty.isEmpty());
+        assertEquals(300, first.size());
+        assertEquals(301, second.size());
+        assertEquals(10.0, startX(first.get(10)));
+        assertEquals(10.0, startX(second.get(10)));
+        assertEquals(300.0, startX(second.get(300)));
+        assertEquals(5, store.snapshot().size());
+        assertSame(store.snapshot(), store.snapshot());
+        assertTrue(store.snapshot().getVersion() > second.getVersion());
+    }
+
+    @Test
+    void testChangesAcrossChunkBoundaries() {
+        SceneStore store = new SceneStore();
+        int size = SceneStore.CHUNK_SIZE * 2 + 7;
+        for (int i = 0; i < size; i++) {
+            store.add(line(i));
+        }
+        store.set(SceneStore.CHUNK_SIZE, line(-5));
+        SceneStore.Snapshot truncated = store.truncate(SceneStore.CHUNK_SIZE + 1);
+        SceneStore.Snapshot grown = store.addAll(lines(1000, 1000 + SceneStore.CHUNK_SIZE));
+
+        assertEquals(SceneStore.CHUNK_SIZE + 1, truncated.size());
+        assertEquals(-5.0, startX(truncated.get(SceneStore.CHUNK_SIZE)));
+        assertThrows(IndexOutOfBoundsException.class, () -> truncated.get(SceneStore.CHUNK_SIZE + 1));
+        assertEquals(2 * SceneStore.CHUNK_SIZE + 1, grown.size());
+        assertEquals(1000.0, startX(grown.get(SceneStore.CHUNK_SIZE + 1)));
+        for (int i = 0; i < SceneStore.CHUNK_SIZE; i++) {
+            assertEquals(i, startX(grown.get(i)));
+        }
+    }
+
+    @Test
+    void testSnapshotIsReadOnly() {
+        SceneStore store = new SceneStore();
+        Shape shape = line(0);
+        store.add(shape);
+
+        assertSame(shape, store.snapshot().get(0));
+        assertThrows(UnsupportedOperationException.class, () -> store.snapshot().add(line(1)));
+
+        store.set(0, shape.withStyle("#FFFFFF", 3.0));
+        assertEquals("#000000", shape.getColor());
+        assertEquals("#FFFFFF", store.snapshot().get(0).getColor());
+        assertEquals(3.0, store.snapshot().get(0).getLineWidth());
+    }
+
+    @Test
+    void testInvalidChanges() {
+        SceneStore store = new SceneStore();
+        store.addAll(lines(0, 3));
+
+        assertThrows(IllegalArgumentException.class, () -> store.add(null));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.set(3, line(3)));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.truncate(4));
+        assertEquals(3, store.snapshot().size());
+        assertEquals(0, store.clear().size());
+        assertEquals(2, store.reset(lines(5, 7)).size());
+    }
+
+    @Test
+    void testConcurrentWritersAndReaders() throws Exception {
+        SceneStore store = new SceneStore();
+        int writers = 4;
+        int batches = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 2);
+        AtomicBoolean done = new AtomicBoolean();
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    while (!done.get()) {
+                        // Размер снимка всегда кратен порции: порции публикуются целиком
+                        SceneStore.Snapshot snapshot = store.snapshot();
+                        assertEquals(0, snapshot.size() % 3);
+                        for (Shape shape : snapshot) {
+                            assertNotNull(shape);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                futures.add(executor.submit(() -> {
+                    for (int b = 0; b < batches; b++) {
+                        int base = (writer * batches + b) * 3;
+                        store.addAll(lines(base, base + 3));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            done.set(true);
+            for (Future<?> reader : readers) {
+                reader.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        SceneStore.Snapshot result = store.snapshot();
+        assertEquals(writers * batches * 3, result.size());
+        assertEquals(writers * batches * 3, result.stream().mapToDouble(SceneStoreTest::startX).distinct().count());
+    }
+}
@@ -110,10 +110,32 @@ class ShapeTest {
         assertEquals("#123456", line.getColor());
         assertEquals(3.0, line.getLineWidth());
 
-        line.setColor("#654321");
-        line.setLineWidth(2.0);
+        Line restyled = line.withStyle("#654321", 2.0);
 
-        assertEquals("#654321", line.getColor());
-        assertEquals(2.0, line.getLineWidth());
+        assertEquals("#654321", restyled.getColor());
+        assertEquals(2.0, restyled.getLineWidth());
+        assertSame(line.getStart(), restyled.getStart());
+        assertSame(line.getEnd(), restyled.getEnd());
+        assertEquals("#123456", line.getColor());
+        assertEquals(3.0, line.getLineWidth());
+    }
+
+    @Test
+    void testWithStyleKeepsShapeType() {
+        Shape[] shapes = {
+                new Circle(point1, 5.0, "#123456", 3.0),
+                new Rectangle(point1, 10, 5, "#123456", 3.0),
+                new Triangle(point1, point2, point3, "#123456", 3.0),
+                new Trapezoid(point1, point2, point3, point4, "#123456", 3.0),
+                new Parabola(1, 0, 0, -5, 5, "#123456", 3.0)
+        };
+        for (Shape shape : shapes) {
+            Shape restyled = shape.withStyle("#654321", 2.0);
+            assertNotSame(shape, restyled);
+            assertSame(shape.getClass(), restyled.getClass());
+            assertEquals(shape.getPoints(), restyled.getPoints());
+            assertEquals("#654321", restyled.getColor());
+            assertEquals(2.0, restyled.getLineWidth());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,125 @@
+package com.drawing.render;
+
+import com.drawing.model.Circle;
+import com.drawing.model.Line;
+import com.drawing.model.Point;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для отсечения геометрии.
+ */
+class ClipperTest {
+
+    private Clipper clipper;
+
+    @BeforeEach
+    void setUp() {
+        clipper = new Clipper(0, 0, 100, 100);
+    }
+
+    @Test
+    void testClipSegment() {
+        double[] crossing = {-50, 50, 150, 50};
+        assertTrue(clipper.clipSegment(crossing));
+        assertArrayEquals(new double[]{0, 50, 100, 50}, crossing, 1e-9);
+
+        double[] diagonal = {-10, -10, 50, 50};
+        assertTrue(clipper.clipSegment(diagonal));
+        assertArrayEquals(new double[]{0, 0, 50, 50}, diagonal, 1e-9);
+
+        assertFalse(clipper.clipSegment(new double[]{-10, 120, 120, 110}));
+        assertEquals(Clipper.OUTSIDE, clipper.classify(200, 200, 300, 300));
+        assertEquals(Clipper.INSIDE, clipper.classify(10, 10, 90, 90));
+        assertEquals(Clipper.PARTIAL, clipper.classify(50, 50, 150, 90));
+    }
+
+    @Test
+    void testClipPolylineSplitsIntoRuns() {
+        // Ломаная выходит за правую границу и возвращается
+        double[] coords = {10, 10, 200, 50, 10, 90};
+        List<double[]> runs = clipper.clipPolyline(coords, 3);
+
+        assertEquals(2, runs.size());
+        assertArrayEquals(new double[]{10, 10, 100, 10 + 40 * 90.0 / 190}, runs.get(0), 1e-9);
+        assertArrayEquals(new double[]{100, 90 - 40 * 90.0 / 190, 10, 90}, runs.get(1), 1e-9);
+    }
+
+    @Test
+    void testClipPolygon() {
+        // Квадрат, наполовину выходящий за левую границу
+        double[] square = {-50, 20, 50, 20, 50, 80, -50, 80};
+        double[] clipped = clipper.clipPolygon(square, 4);
+
+        assertEquals(8, clipped.length);
+        for (int i = 0; i < clipped.length; i += 2) {
+            assertTrue(clipped[i] >= 0 && clipped[i] <= 50);
+            assertTrue(clipped[i + 1] >= 20 && clipped[i + 1] <= 80);
+        }
+        assertEquals(0, clipper.clipPolygon(new double[]{200, 200, 300, 200, 250, 300}, 3).length);
+    }
+
+    @Test
+    void testVisibleParabolaIntervals() {
+        // y = x^2 на [-10, 10] в полосе [1, 4]: две ветви
+        List<double[]> intervals = Clipper.visibleParabolaIntervals(1, 0, 0, -10, 10, 1, 4);
+        assertEquals(2, intervals.size());
+        assertArrayEquals(new double[]{-2, -1}, intervals.get(0), 1e-9);
+        assertArrayEquals(new double[]{1, 2}, intervals.get(1), 1e-9);
+
+        // Целиком видимая парабола не разбивается
+        List<double[]> whole = Clipper.visibleParabolaIntervals(1, 0, 0, -1, 1, -5, 5);
+        assertEquals(1, whole.size());
+        assertArrayEquals(new double[]{-1, 1}, whole.get(0), 1e-9);
+
+        assertTrue(Clipper.visibleParabolaIntervals(1, 0, 10, -1, 1, -5, 5).isEmpty());
+    }
+
+    @Test
+    void testVisibleEllipseArcs() {
+        // Окружность с центром на левой границе: видна правая половина, проходящая через угол 0
+        List<double[]> arcs = clipper.visibleEllipseArcs(0, 50, 30, 30);
+        assertEquals(1, arcs.size());
+        assertEquals(1.5 * Math.PI, arcs.get(0)[0], 1e-9);
+        assertEquals(2.5 * Math.PI, arcs.get(0)[1], 1e-9);
+    }
+
+    @Test
+    void testDisplayListCullsAndClips() {
+        Viewport viewport = new Viewport(0, 100, 0, 100, 100, 100);
+        Line hidden = new Line(new Point(500, 500), new Point(600, 600), "#000000", 1.0);
+        Line crossing = new Line(new Point(-1000, 50), new Point(1000, 50), "#000000", 1.0);
+        Circle huge = new Circle(new Point(50, -100000), 100050, "#000000", 1.0);
+        List<float[]> polylines = new ArrayList<>();
+
+        DisplayList.record(List.of(hidden, crossing, huge), viewport).replay(new DisplayListRenderer() {
+            @Override
+            public void setStroke(int argb, double lineWidth) {
+            }
+
+            @Override
+            public void polyline(float[] coords, int offset, int vertexCount, boolean closed) {
+                float[] copy = new float[vertexCount * 2];
+                System.arraycopy(coords, offset, copy, 0, copy.length);
+                polylines.add(copy);
+            }
+
+            @Override
+            public void ellipse(double centerX, double centerY, double radiusX, double radiusY) {
+                fail("Huge circle must be recorded as visible arcs");
+            }
+        });
+
+        // Скрытая линия отброшена, пересекающая обрезана по области с запасом на толщину
+        assertEquals(2, polylines.size());
+        assertArrayEquals(new float[]{-1, 50, 101, 50}, polylines.get(0), 1e-4f);
+        for (float[] arc : polylines.subList(1, polylines.size())) {
+            for (float coordinate : arc) {
+                assertTrue(Math.abs(coordinate) < 1000);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.drawing.render;
+
+import com.drawing.model.Line;
+import com.drawing.model.Point;
+import com.drawing.model.Shape;
+import com.drawing.util.ColorUtil;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для карты плотности.
+ */
+class DensityMapTest {
+
+    private final Viewport viewport = new Viewport(0, 100, 0, 100, 100, 100);
+
+    @Test
+    void testDenseRegionIsColored() {
+        // Много красных горизонтальных линий в нижней левой четверти области
+        List<Shape> shapes = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            double y = 5 + (i % 40);
+            shapes.add(new Line(new Point(5, y), new Point(45, y), "#FF0000", 1.0));
+        }
+
+        IntRaster raster = new DensityMap(2).render(shapes, viewport, ColorUtil.WHITE);
+
+        int dense = raster.getPixel(25, 75);
+        assertEquals(0xFF, (dense >> 16) & 0xFF);
+        assertTrue((dense & 0xFF) < 0x20, "Dense cell must be saturated with shape color");
+        assertEquals(ColorUtil.WHITE, raster.getPixel(75, 25));
+    }
+
+    @Test
+    void testColorIsCoverageWeightedMean() {
+        List<Shape> shapes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            shapes.add(new Line(new Point(0, 50), new Point(100, 50), "#FF0000", 1.0));
+            shapes.add(new Line(new Point(0, 50), new Point(100, 50), "#0000FF", 1.0));
+        }
+
+        int color = new DensityMap(1).render(shapes, viewport, ColorUtil.WHITE).getPixel(50, 50);
+
+        assertEquals(0x80, (color >> 16) & 0xFF, 1);
+        assertEquals(0x80, color & 0xFF, 1);
+        assertEquals(0, (color >> 8) & 0xFF);
+    }
+
+    @Test
+    void testCountVisible() {
+        List<Shape> shapes = List.of(
+                new Line(new Point(10, 10), new Point(20, 20), "#000000", 1.0),
+                new Line(new Point(-50, 50), new Point(150, 50), "#000000", 1.0),
+                new Line(new Point(200, 200), new Point(300, 300), "#000000", 1.0));
+
+        assertEquals(2, DensityMap.countVisible(shapes, viewport));
+    }
+}
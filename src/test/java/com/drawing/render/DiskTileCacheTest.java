@@ -0,0 +1,165 @@
+package com.drawing.render;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для дискового кэша плиток.
+ */
+class DiskTileCacheTest {
+
+    private static final int TILE_PIXELS = 64;
+    private static final int TILE_BYTES = TILE_PIXELS * 4;
+
+    @TempDir
+    Path tempDir;
+
+    private static int[] tile(int value) {
+        int[] pixels = new int[TILE_PIXELS];
+        Arrays.fill(pixels, value);
+        pixels[0] = ~value;
+        return pixels;
+    }
+
+    @Test
+    void testTilesSurviveReopen() throws IOException {
+        Path file = tempDir.resolve("tiles.cache");
+        TileKey key = new TileKey(3, 5, -2);
+
+        try (DiskTileCache cache = new DiskTileCache(file, DiskTileCache.fileSize(4, TILE_BYTES), TILE_BYTES)) {
+            assertNull(cache.get(42, key));
+            cache.put(42, key, tile(0xFF112233));
+            assertArrayEquals(tile(0xFF112233), cache.get(42, key));
+        }
+
+        try (DiskTileCache cache = new DiskTileCache(file, DiskTileCache.fileSize(4, TILE_BYTES), TILE_BYTES)) {
+            assertEquals(1, cache.size());
+            assertArrayEquals(tile(0xFF112233), cache.get(42, key));
+            // Тот же адрес другой сцены - другая плитка
+            assertNull(cache.get(43, key));
+        }
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedUnderQuota() throws IOException {
+        Path file = tempDir.resolve("lru.cache");
+        try (DiskTileCache cache = new DiskTileCache(file, DiskTileCache.fileSize(2, TILE_BYTES), TILE_BYTES)) {
+            assertEquals(2, cache.getCapacity());
+            cache.put(1, new TileKey(0, 0, 0), tile(1));
+            cache.put(1, new TileKey(1, 0, 0), tile(2));
+            assertNotNull(cache.get(1, new TileKey(0, 0, 0)));
+
+            cache.put(1, new TileKey(1, 1, 0), tile(3));
+
+            assertEquals(2, cache.size());
+            assertNull(cache.get(1, new TileKey(1, 0, 0)));
+            assertArrayEquals(tile(1), cache.get(1, new TileKey(0, 0, 0)));
+            assertArrayEquals(tile(3), cache.get(1, new TileKey(1, 1, 0)));
+        }
+    }
+
+    @Test
+    void testCorruptedTileIsDiscardedOnOpen() throws IOException {
+        Path file = tempDir.resolve("corrupt.cache");
+        try (DiskTileCache cache = new DiskTileCache(file, DiskTileCache.fileSize(2, TILE_BYTES), TILE_BYTES)) {
+            cache.put(7, new TileKey(0, 0, 0), tile(5));
+            cache.put(7, new TileKey(1, 0, 0), tile(6));
+        }
+
+        // Портим последний байт файла - он принадлежит второму слоту
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(raw.length() - 1);
+            int value = raw.read();
+            raw.seek(raw.length() - 1);
+            raw.write(value ^ 0xFF);
+        }
+
+        try (DiskTileCache cache = new DiskTileCache(file, DiskTileCache.fileSize(2, TILE_BYTES), TILE_BYTES)) {
+            assertEquals(1, cache.size());
+            assertArrayEquals(tile(5), cache.get(7, new TileKey(0, 0, 0)));
+            assertNull(cache.get(7, new TileKey(1, 0, 0)));
+        }
+    }
+
+    @Test
+    void testQuotaMustHoldOneTile() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new DiskTileCache(tempDir.resolve("small.cache"), TILE_BYTES - 1, TILE_BYTES));
+        // Квота на одну плитку без места под заголовок и таблицу записей недостаточна
+        assertThrows(IllegalArgumentException.class,
+                () -> new DiskTileCache(tempDir.resolve("small.cache"), TILE_BYTES, TILE_BYTES));
+    }
+
+    @Test
+    void testFileFitsQuota() throws IOException {
+        long[] quotas = {DiskTileCache.fileSize(1, TILE_BYTES), DiskTileCache.fileSize(3, TILE_BYTES) - 1,
+                100_000, 1_000_003};
+        for (long quota : quotas) {
+            Path file = tempDir.resolve("quota-" + quota + ".cache");
+            try (DiskTileCache cache = new DiskTileCache(file, quota, TILE_BYTES)) {
+                assertTrue(Files.size(file) <= quota);
+                // Еще один слот уже не уместился бы в квоту
+                assertTrue(DiskTileCache.fileSize(cache.getCapacity() + 1, TILE_BYTES) > quota);
+            }
+        }
+        try (DiskTileCache cache = new DiskTileCache(tempDir.resolve("three.cache"),
+                DiskTileCache.fileSize(3, TILE_BYTES) - 1, TILE_BYTES)) {
+            assertEquals(2, cache.getCapacity());
+        }
+    }
+
+    @Test
+    void testReturnedPixelsAreCopies() throws IOException {
+        Path file = tempDir.resolve("copy.cache");
+        try (DiskTileCache cache = new DiskTileCache(file, DiskTileCache.fileSize(1, TILE_BYTES), TILE_BYTES)) {
+            cache.put(1, new TileKey(0, 0, 0), tile(1));
+            int[] pixels = cache.get(1, new TileKey(0, 0, 0));
+
+            // Единственный слот перезаписывается другой плиткой, полученная копия не меняется
+            cache.put(1, new TileKey(1, 0, 0), tile(2));
+            assertArrayEquals(tile(1), pixels);
+            assertArrayEquals(tile(2), cache.get(1, new TileKey(1, 0, 0)));
+        }
+    }
+
+    @Test
+    void testFileIsLockedWhileOpen() throws IOException {
+        Path file = tempDir.resolve("locked.cache");
+        long quota = DiskTileCache.fileSize(2, TILE_BYTES);
+        try (DiskTileCache cache = new DiskTileCache(file, quota, TILE_BYTES)) {
+            cache.put(1, new TileKey(0, 0, 0), tile(1));
+            assertThrows(IOException.class, () -> new DiskTileCache(file, quota, TILE_BYTES));
+            assertArrayEquals(tile(1), cache.get(1, new TileKey(0, 0, 0)));
+        }
+        try (DiskTileCache cache = new DiskTileCache(file, quota, TILE_BYTES)) {
+            assertEquals(1, cache.size());
+        }
+    }
+
+    @Test
+    void testEvictionOrderSurvivesReopen() throws IOException {
+        Path file = tempDir.resolve("order.cache");
+        long quota = DiskTileCache.fileSize(3, TILE_BYTES);
+        try (DiskTileCache cache = new DiskTileCache(file, quota, TILE_BYTES)) {
+            for (int i = 0; i < 3; i++) {
+                cache.put(1, new TileKey(i, 0, 0), tile(i));
+            }
+            cache.get(1, new TileKey(0, 0, 0));
+        }
+        try (DiskTileCache cache = new DiskTileCache(file, quota, TILE_BYTES)) {
+            cache.put(1, new TileKey(5, 0, 0), tile(5));
+
+            // Вытеснена давно не использованная плитка уровня 1, а не прочитанная перед закрытием
+            assertNull(cache.get(1, new TileKey(1, 0, 0)));
+            assertArrayEquals(tile(0), cache.get(1, new TileKey(0, 0, 0)));
+            assertArrayEquals(tile(2), cache.get(1, new TileKey(2, 0, 0)));
+            assertArrayEquals(tile(5), cache.get(1, new TileKey(5, 0, 0)));
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.drawing.render;
+
+import com.drawing.model.Circle;
+import com.drawing.model.Line;
+import com.drawing.model.Parabola;
+import com.drawing.model.Point;
+import com.drawing.model.Shape;
+import com.drawing.model.Triangle;
+import com.drawing.util.ColorUtil;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для списка отображения и его приемников.
+ */
+class DisplayListTest {
+
+    private final Viewport viewport = new Viewport(0, 100, 0, 100, 200, 200);
+    private final List<Shape> shapes = List.of(
+            new Line(new Point(0, 0), new Point(100, 100), "#FF0000", 1.0),
+            new Triangle(new Point(10, 10), new Point(50, 10), new Point(30, 40), "#00FF00", 2.0)
+    );
+
+    @Test
+    void testRecordTransformsVertices() {
+        DisplayList displayList = DisplayList.record(shapes, viewport);
+        List<float[]> polylines = new ArrayList<>();
+
+        displayList.replay(new DisplayListRenderer() {
+            @Override
+            public void setStroke(int argb, double lineWidth) {
+            }
+
+            @Override
+            public void polyline(float[] coords, int offset, int vertexCount, boolean closed) {
+                float[] copy = new float[vertexCount * 2];
+                System.arraycopy(coords, offset, copy, 0, copy.length);
+                polylines.add(copy);
+            }
+        });
+
+        assertEquals(2, displayList.getShapeCount());
+        assertEquals(2, polylines.size());
+        // Линия из (0, 0) в (100, 100) на холсте 200x200 с инвертированной осью Y
+        assertArrayEquals(new float[]{0, 200, 200, 0}, polylines.get(0));
+        assertEquals(6, polylines.get(1).length);
+    }
+
+    @Test
+    void testReplayRange() {
+        DisplayList displayList = DisplayList.record(shapes, viewport);
+        List<Integer> begun = new ArrayList<>();
+        List<Integer> colors = new ArrayList<>();
+
+        displayList.replay(new DisplayListRenderer() {
+            @Override
+            public void beginShape(int index) {
+                begun.add(index);
+            }
+
+            @Override
+            public void setStroke(int argb, double lineWidth) {
+                colors.add(argb);
+            }
+
+            @Override
+            public void polyline(float[] coords, int offset, int vertexCount, boolean closed) {
+                assertTrue(closed);
+            }
+        }, 1, 2);
+
+        assertEquals(List.of(1), begun);
+        assertEquals(List.of(0xFF00FF00), colors);
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> displayList.replay(new RasterRenderer(new IntRaster(1, 1)), 0, 3));
+    }
+
+    /**
+     * Записывает команды воспроизведения в строку для сравнения списков.
+     */
+    private static String describe(DisplayList displayList) {
+        StringBuilder description = new StringBuilder();
+        displayList.replay(new DisplayListRenderer() {
+            @Override
+            public void beginShape(int index) {
+                description.append("shape ").append(index).append('\n');
+            }
+
+            @Override
+            public void setStroke(int argb, double lineWidth) {
+                description.append("stroke ").append(argb).append(' ').append(lineWidth).append('\n');
+            }
+
+            @Override
+            public void polyline(float[] coords, int offset, int vertexCount, boolean closed) {
+                for (int i = 0; i < vertexCount * 2; i++) {
+                    description.append(coords[offset + i]).append(' ');
+                }
+                description.append(closed).append('\n');
+            }
+        });
+        return description.toString();
+    }
+
+    @Test
+    void testTruncateAndAppend() {
+        Shape replacement = new Line(new Point(20, 80), new Point(90, 5), "#0000FF", 3.0);
+        DisplayList displayList = DisplayList.record(shapes, viewport);
+
+        displayList.truncate(1);
+        assertEquals(1, displayList.getShapeCount());
+        displayList.append(replacement);
+
+        assertEquals(describe(DisplayList.record(List.of(shapes.get(0), replacement), viewport)),
+                describe(displayList));
+        displayList.truncate(0);
+        assertEquals("", describe(displayList));
+        assertThrows(IndexOutOfBoundsException.class, () -> displayList.truncate(1));
+    }
+
+    @Test
+    void testReplaceKeepsOtherRecords() {
+        List<Shape> scene = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            scene.add(new Line(new Point(i, 0), new Point(i, 100), "#000000", 1.0));
+        }
+        DisplayList displayList = DisplayList.record(scene, viewport);
+        long initialSize = displayList.getSizeInBytes();
+
+        // Многократные замены отдельных фигур: мусор уплотняется, и список не растет без ограничений
+        for (int round = 0; round < 20; round++) {
+            for (int slot = round % 3; slot < scene.size(); slot += 3) {
+                Shape replacement = new Triangle(new Point(slot, round), new Point(slot + 10, round),
+                        new Point(slot, round + 10), "#00FF00", 1.0 + round);
+                scene.set(slot, replacement);
+                displayList.replace(slot, replacement);
+            }
+        }
+        assertEquals(describe(DisplayList.record(scene, viewport)), describe(displayList));
+        assertTrue(displayList.getSizeInBytes() <= 8 * initialSize);
+
+        displayList.truncate(20);
+        displayList.append(shapes.get(0));
+        displayList.replace(3, shapes.get(1));
+        List<Shape> expected = new ArrayList<>(scene.subList(0, 20));
+        expected.add(shapes.get(0));
+        expected.set(3, shapes.get(1));
+        assertEquals(describe(DisplayList.record(expected, viewport)), describe(displayList));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> displayList.replace(21, shapes.get(0)));
+        assertThrows(IllegalArgumentException.class, () -> displayList.replace(0,
+                new Line(new Point(0, 0), new Point(1, 1), "red", 1.0)));
+        assertEquals(describe(DisplayList.record(expected, viewport)), describe(displayList));
+    }
+
+    @Test
+    void testSvgReplay() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SvgRenderer svgRenderer = SvgRenderer.forCanvas(bytes, 200, 200, ColorUtil.WHITE, false)) {
+            DisplayList.record(List.of(shapes.get(0), shapes.get(1),
+                    new Circle(new Point(50, 50), 10, "#0000FF", 1.5)), viewport).replay(svgRenderer);
+        }
+
+        String svg = bytes.toString(StandardCharsets.UTF_8);
+        assertTrue(svg.startsWith("<?xml"));
+        assertTrue(svg.contains("viewBox=\"0 0 200 200\""), svg);
+        assertTrue(svg.contains("<path d=\"M0,200L200,0\" stroke=\"#FF0000\" stroke-width=\"1\"/>"), svg);
+        assertTrue(svg.contains("<polygon points=\"20,180 100,180 60,120\" stroke=\"#00FF00\" stroke-width=\"2\""),
+                svg);
+        assertTrue(svg.contains("<circle cx=\"100\" cy=\"100\" r=\"20\" stroke=\"#0000FF\""), svg);
+        assertTrue(svg.trim().endsWith("</svg>"));
+    }
+
+    @Test
+    void testAnalyticPrimitives() {
+        Viewport unitViewport = new Viewport(-10, 10, -10, 10, 20, 20);
+        Parabola parabola = new Parabola(0.5, -1, 2, -4, 3, "#0000FF", 1.0);
+        Circle circle = new Circle(new Point(0, 0), 5, "#FF00FF", 1.0);
+        List<double[]> curves = new ArrayList<>();
+        List<double[]> ellipses = new ArrayList<>();
+
+        DisplayList.record(List.of(parabola, circle), unitViewport).replay(new DisplayListRenderer() {
+            @Override
+            public void setStroke(int argb, double lineWidth) {
+            }
+
+            @Override
+            public void polyline(float[] coords, int offset, int vertexCount, boolean closed) {
+                fail("Analytic shapes must not be recorded as polylines");
+            }
+
+            @Override
+            public void ellipse(double centerX, double centerY, double radiusX, double radiusY) {
+                ellipses.add(new double[]{centerX, centerY, radiusX, radiusY});
+            }
+
+            @Override
+            public void quadCurve(double x0, double y0, double controlX, double controlY, double x1, double y1) {
+                curves.add(new double[]{x0, y0, controlX, controlY, x1, y1});
+            }
+        });
+
+        assertArrayEquals(new double[]{10, 10, 5, 5}, ellipses.get(0), 1e-6);
+
+        // Точка кривой Безье при t = 0.5 совпадает с параболой в середине интервала
+        double[] q = curves.get(0);
+        double midX = 0.25 * q[0] + 0.5 * q[2] + 0.25 * q[4];
+        double midY = 0.25 * q[1] + 0.5 * q[3] + 0.25 * q[5];
+        double worldX = unitViewport.toWorldX(midX);
+        assertEquals((unitViewport.toWorldX(q[0]) + unitViewport.toWorldX(q[4])) / 2, worldX, 1e-5);
+        assertEquals(parabola.valueAt(worldX), unitViewport.toWorldY(midY), 1e-5);
+    }
+
+    @Test
+    void testRasterFlattensEllipse() {
+        Viewport unitViewport = new Viewport(0, 100, 0, 100, 100, 100);
+        Circle circle = new Circle(new Point(50, 50), 30, "#FF0000", 2.0);
+
+        IntRaster raster = new SceneRasterizer().render(List.of(circle), unitViewport, ColorUtil.WHITE);
+
+        assertEquals(0xFFFF0000, raster.getPixel(80, 50));
+        assertEquals(0xFFFF0000, raster.getPixel(50, 20));
+        assertEquals(ColorUtil.WHITE, raster.getPixel(50, 50));
+    }
+}
@@ -0,0 +1,62 @@
+package com.drawing.render;
+
+import com.drawing.model.Circle;
+import com.drawing.model.Line;
+import com.drawing.model.Point;
+import com.drawing.model.Rectangle;
+import com.drawing.model.Shape;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для буфера выбора фигур.
+ */
+class PickBufferTest {
+
+    private Viewport viewport;
+    private PickBuffer pickBuffer;
+
+    @BeforeEach
+    void setUp() {
+        // 1 единица области = 1 пиксель, начало координат в левом нижнем углу
+        viewport = new Viewport(0, 100, 0, 100, 100, 100);
+        pickBuffer = new PickBuffer(100, 100, 4.0);
+    }
+
+    @Test
+    void testViewportRoundTrip() {
+        assertEquals(25, viewport.toCanvasX(25), 1e-9);
+        assertEquals(75, viewport.toCanvasY(25), 1e-9);
+        assertEquals(25, viewport.toWorldX(viewport.toCanvasX(25)), 1e-9);
+        assertEquals(25, viewport.toWorldY(viewport.toCanvasY(25)), 1e-9);
+    }
+
+    @Test
+    void testPickTopmostShape() {
+        Shape rectangle = new Rectangle(new Point(10, 10), 80, 80, "#FF0000", 1.0);
+        Shape line = new Line(new Point(0, 10), new Point(100, 10), "#00FF00", 1.0);
+        List<Shape> shapes = Arrays.asList(rectangle, line);
+
+        pickBuffer.rebuild(shapes, viewport);
+
+        // Нижняя сторона прямоугольника перекрыта линией, нарисованной позже
+        assertEquals(1, pickBuffer.pick(50, viewport.toCanvasY(10)));
+        // Левая сторона прямоугольника
+        assertEquals(0, pickBuffer.pick(10, 50));
+        // Внутри контура фигур нет
+        assertEquals(-1, pickBuffer.pick(50, 50));
+    }
+
+    @Test
+    void testPickOutsideCanvas() {
+        Shape circle = new Circle(new Point(50, 50), 20, "#0000FF", 2.0);
+        pickBuffer.rebuild(List.of(circle), viewport);
+
+        assertEquals(0, pickBuffer.pick(70, 50));
+        assertEquals(-1, pickBuffer.pick(-5, 50));
+        assertEquals(-1, pickBuffer.pick(50, 500));
+    }
+}
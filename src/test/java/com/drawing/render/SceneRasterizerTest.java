@@ -0,0 +1,62 @@
+package com.drawing.render;
+
+import com.drawing.model.Line;
+import com.drawing.model.Point;
+import com.drawing.util.ColorUtil;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для программного растеризатора сцены.
+ */
+class SceneRasterizerTest {
+
+    @Test
+    void testParseArgb() {
+        assertEquals(0xFF12AB34, ColorUtil.parseArgb("#12AB34"));
+        assertEquals("#12AB34", ColorUtil.toHex(0xFF12AB34));
+        assertThrows(IllegalArgumentException.class, () -> ColorUtil.parseArgb("12AB34"));
+        assertThrows(IllegalArgumentException.class, () -> ColorUtil.parseArgb("#12AB3G"));
+    }
+
+    @Test
+    void testRenderLine() {
+        Viewport viewport = new Viewport(0, 100, 0, 100, 100, 100);
+        Line line = new Line(new Point(0, 50), new Point(100, 50), "#FF0000", 2.0);
+
+        IntRaster raster = new SceneRasterizer().render(List.of(line), viewport, ColorUtil.WHITE);
+
+        assertEquals(0xFFFF0000, raster.getPixel(50, 50));
+        assertEquals(ColorUtil.WHITE, raster.getPixel(50, 10));
+    }
+
+    @Test
+    void testBandsMatchWholeRaster() {
+        Viewport viewport = new Viewport(0, 100, 0, 100, 200, 150);
+        List<Line> lines = new ArrayList<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 50; i++) {
+            lines.add(new Line(new Point(random.nextDouble() * 120 - 10, random.nextDouble() * 120 - 10),
+                    new Point(random.nextDouble() * 120 - 10, random.nextDouble() * 120 - 10), "#0000FF",
+                    1 + random.nextInt(4)));
+        }
+        DisplayList displayList = DisplayList.record(lines, viewport);
+        IntRaster whole = new SceneRasterizer().render(displayList, ColorUtil.WHITE);
+
+        for (int fromRow = 0; fromRow < 150; fromRow += 37) {
+            int toRow = Math.min(150, fromRow + 37);
+            IntRaster band = SceneRasterizer.renderBand(displayList, fromRow, toRow, ColorUtil.WHITE);
+            assertEquals(toRow - fromRow, band.getHeight());
+            for (int y = fromRow; y < toRow; y++) {
+                for (int x = 0; x < 200; x++) {
+                    assertEquals(whole.getPixel(x, y), band.getPixel(x, y - fromRow), "pixel " + x + "," + y);
+                }
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> SceneRasterizer.renderBand(displayList, 100, 151, ColorUtil.WHITE));
+    }
+}
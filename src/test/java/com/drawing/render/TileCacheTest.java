@@ -0,0 +1,33 @@
+package com.drawing.render;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для кэша плиток.
+ */
+class TileCacheTest {
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        TileCache<String> cache = new TileCache<>(300, 100);
+        cache.put(new TileKey(0, 0, 0), "a");
+        cache.put(new TileKey(1, 0, 0), "b");
+        cache.put(new TileKey(1, 1, 0), "c");
+
+        // Обращение делает плитку недавно использованной
+        assertEquals("a", cache.get(new TileKey(0, 0, 0)));
+        cache.put(new TileKey(1, 0, 1), "d");
+
+        assertEquals(3, cache.size());
+        assertEquals(300, cache.getSizeInBytes());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get(new TileKey(1, 0, 0)));
+        assertEquals("a", cache.get(new TileKey(0, 0, 0)));
+    }
+
+    @Test
+    void testBudgetMustHoldOneTile() {
+        assertThrows(IllegalArgumentException.class, () -> new TileCache<String>(50, 100));
+    }
+}
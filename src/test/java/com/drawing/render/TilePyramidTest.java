@@ -0,0 +1,73 @@
+package com.drawing.render;
+
+import com.drawing.model.Bounds;
+import com.drawing.model.Line;
+import com.drawing.model.Point;
+import com.drawing.model.Shape;
+import com.drawing.util.ColorUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для пирамиды плиток и индекса сцены.
+ */
+class TilePyramidTest {
+
+    private TilePyramid pyramid;
+
+    @BeforeEach
+    void setUp() {
+        // Сцена 256 x 256 единиц: на уровне 0 один пиксель равен одной единице
+        pyramid = new TilePyramid(new Bounds(0, 0, 256, 256));
+    }
+
+    @Test
+    void testLevelSelection() {
+        assertEquals(0, pyramid.levelFor(0.01));
+        assertEquals(0, pyramid.levelFor(1.0));
+        assertEquals(1, pyramid.levelFor(1.5));
+        assertEquals(1, pyramid.levelFor(2.0));
+        assertEquals(3, pyramid.levelFor(5.0));
+        assertEquals(TilePyramid.MAX_LEVEL, pyramid.levelFor(1e12));
+    }
+
+    @Test
+    void testTileGeometry() {
+        Viewport tile = pyramid.tileViewport(new TileKey(1, 1, 0));
+        assertEquals(128, tile.getMinX(), 1e-9);
+        assertEquals(256, tile.getMaxX(), 1e-9);
+        assertEquals(128, tile.getMinY(), 1e-9);
+        assertEquals(256, tile.getMaxY(), 1e-9);
+
+        // Вид на правую нижнюю четверть сцены на уровне 2 покрывает плитки 2..3 x 2..3
+        Viewport view = new Viewport(130, 250, 10, 120, 240, 220);
+        assertArrayEquals(new int[]{2, 2, 3, 3}, pyramid.tileRange(2, view));
+
+        // Вид далеко за пределами сцены не порождает огромного диапазона
+        int[] far = pyramid.tileRange(10, new Viewport(1e9, 1e9 + 1, 1e9, 1e9 + 1, 100, 100));
+        assertTrue(far[0] > far[2] || far[1] > far[3]);
+
+        TileKey key = new TileKey(3, 5, 6);
+        assertEquals(new TileKey(1, 1, 1), key.ancestor(2));
+        assertEquals(new TileKey(2, -1, -1), new TileKey(3, -1, -2).ancestor(1));
+    }
+
+    @Test
+    void testRenderTileIncludesNeighbourStrokes() {
+        // Линия лежит в левой плитке уровня 1, но ее толщина заходит на правую
+        List<Shape> shapes = List.of(
+                new Line(new Point(0, 200), new Point(127.5, 200), "#FF0000", 1.0),
+                new Line(new Point(127.8, 0), new Point(127.8, 256), "#0000FF", 4.0));
+        SceneIndex index = SceneIndex.build(shapes);
+
+        assertArrayEquals(new int[]{0, 1}, index.query(0, 150, 256, 256));
+        assertArrayEquals(new int[]{1}, index.query(127, 0, 256, 100));
+        assertEquals(new Bounds(0, 0, 127.8, 256), index.getSceneBounds());
+
+        IntRaster right = pyramid.renderTile(index, new TileKey(1, 1, 0), ColorUtil.WHITE);
+        assertEquals(0xFF0000FF, right.getPixel(0, 128));
+        assertEquals(ColorUtil.WHITE, right.getPixel(100, 128));
+    }
+}
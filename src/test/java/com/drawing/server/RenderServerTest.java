@@ -0,0 +1,133 @@
+package com.drawing.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для HTTP-сервиса отрисовки.
+ */
+class RenderServerTest {
+
+    private RenderServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new RenderServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private HttpResponse<byte[]> get(String path) throws IOException, InterruptedException {
+        URI uri = URI.create("http://localhost:" + server.getPort() + path);
+        return client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static String text(HttpResponse<byte[]> response) {
+        return new String(response.body(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testGenerateIsReproducibleBySeed() throws Exception {
+        String path = "/generate?shapeCount=15&minX=-50&maxX=50&types=circle,LINE&seed=123";
+
+        HttpResponse<byte[]> first = get(path);
+        HttpResponse<byte[]> second = get(path);
+
+        assertEquals(200, first.statusCode());
+        assertEquals("123", first.headers().firstValue("X-Seed").orElse(null));
+        assertTrue(first.headers().firstValue("Content-Type").orElse("").startsWith("application/json"));
+        String json = text(first);
+        assertTrue(json.startsWith("{\"seed\":123,\"parameters\":{\"shapeCount\":15,\"minX\":-50.0"), json);
+        assertFalse(json.contains("Rectangle"));
+        assertEquals(15, json.split("\"type\":").length - 1);
+        assertEquals(json, text(second));
+    }
+
+    @Test
+    void testRandomSeedIsReported() throws Exception {
+        HttpResponse<byte[]> response = get("/generate?shapeCount=5");
+        String seed = response.headers().firstValue("X-Seed").orElseThrow();
+
+        HttpResponse<byte[]> replay = get("/generate?shapeCount=5&seed=" + seed);
+
+        assertEquals(text(response), text(replay));
+    }
+
+    @Test
+    void testRenderPngAndSvg() throws Exception {
+        HttpResponse<byte[]> png = get("/render.png?shapeCount=30&seed=5&width=320&height=200");
+        HttpResponse<byte[]> svg = get("/render.svg?shapeCount=30&seed=5&width=320");
+
+        assertEquals(200, png.statusCode());
+        assertEquals("image/png", png.headers().firstValue("Content-Type").orElse(null));
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png.body()));
+        assertEquals(320, image.getWidth());
+        assertEquals(200, image.getHeight());
+
+        assertEquals(200, svg.statusCode());
+        String document = text(svg);
+        assertTrue(document.contains("<svg"));
+        assertTrue(document.trim().endsWith("</svg>"));
+    }
+
+    @Test
+    void testInvalidParameters() throws Exception {
+        assertEquals(400, get("/generate?shapeCount=abc").statusCode());
+        assertEquals(400, get("/generate?types=hexagon").statusCode());
+        assertEquals(400, get("/generate?minX=10&maxX=-10").statusCode());
+        assertEquals(400, get("/render.png?width=100000").statusCode());
+
+        URI uri = URI.create("http://localhost:" + server.getPort() + "/generate");
+        HttpResponse<String> post = client.send(HttpRequest.newBuilder(uri)
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, post.statusCode());
+    }
+
+    @Test
+    void testRepeatedRequestsAreServedFromCache() throws Exception {
+        HttpResponse<byte[]> first = get("/render.svg?shapeCount=10&seed=7");
+        HttpResponse<byte[]> second = get("/render.svg?shapeCount=10&seed=7");
+        HttpResponse<byte[]> png = get("/render.png?shapeCount=10&seed=7&width=64&height=64");
+
+        assertEquals(text(first), text(second));
+        assertEquals(200, png.statusCode());
+        String stats = text(get("/stats"));
+        assertTrue(stats.contains("\"outputCache\":{\"entries\":2,"), stats);
+        assertTrue(stats.contains("\"sceneCache\":{\"entries\":1,"), stats);
+        assertTrue(stats.matches(".*\"outputCache\":\\{[^}]*\"hits\":1,.*"), stats);
+        assertTrue(stats.matches(".*\"sceneCache\":\\{[^}]*\"hits\":1,.*"), stats);
+        // Каждый промах учитывается один раз: ответы SVG и PNG, сцена - только первым запросом
+        assertTrue(stats.matches(".*\"outputCache\":\\{[^}]*\"misses\":2,.*"), stats);
+        assertTrue(stats.matches(".*\"sceneCache\":\\{[^}]*\"misses\":1,.*"), stats);
+    }
+
+    @Test
+    void testTimeBudget() throws Exception {
+        HttpResponse<byte[]> response = get("/generate?shapeCount=50&seed=3&budgetMs=10000");
+        String json = text(response);
+
+        assertEquals(200, response.statusCode());
+        assertEquals(50, json.split("\"type\":").length - 1);
+        assertEquals(400, get("/generate?budgetMs=0").statusCode());
+        assertEquals(400, get("/generate?budgetMs=soon").statusCode());
+    }
+}
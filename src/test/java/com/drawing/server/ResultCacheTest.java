@@ -0,0 +1,62 @@
+package com.drawing.server;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для кэша результатов.
+ */
+class ResultCacheTest {
+
+    @Test
+    void testEvictsLeastRecentlyUsedWithinBudget() {
+        ResultCache<String, byte[]> cache = new ResultCache<>(100, value -> value.length);
+        cache.put("a", new byte[40]);
+        cache.put("b", new byte[40]);
+        assertNotNull(cache.get("a"));
+
+        cache.put("c", new byte[40]);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(2, cache.size());
+        assertEquals(80, cache.getSizeInBytes());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testReplaceAndOversizedValues() {
+        ResultCache<String, byte[]> cache = new ResultCache<>(100, value -> value.length);
+        cache.put("a", new byte[30]);
+        cache.put("a", new byte[50]);
+        assertEquals(50, cache.getSizeInBytes());
+
+        cache.put("huge", new byte[101]);
+        assertNull(cache.get("huge"));
+        assertNotNull(cache.get("a"));
+        assertEquals(0, cache.getEvictions());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getSizeInBytes());
+    }
+
+    @Test
+    void testPeekDoesNotCount() {
+        ResultCache<String, byte[]> cache = new ResultCache<>(100, value -> value.length);
+        assertNull(cache.peek("a"));
+        cache.put("a", new byte[10]);
+
+        assertEquals(10, cache.peek("a").length);
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    void testInvalidBudget() {
+        assertThrows(IllegalArgumentException.class, () -> new ResultCache<String, byte[]>(0, value -> 1));
+    }
+}
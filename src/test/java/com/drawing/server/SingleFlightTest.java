@@ -0,0 +1,77 @@
+package com.drawing.server;
+
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для объединения одинаковых вычислений.
+ */
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    void testConcurrentCallersShareOneComputation() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(pool.submit(() -> flight.execute("scene", () -> {
+                    computations.incrementAndGet();
+                    release.await();
+                    return 42;
+                })));
+            }
+            // Ждем, пока все вызывающие присоединятся к вычислению
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (flight.getCoalesced() < CALLERS - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, computations.get());
+        assertEquals(1, flight.getExecutions());
+        assertEquals(CALLERS - 1, flight.getCoalesced());
+        assertEquals(0, flight.getInFlight());
+    }
+
+    @Test
+    void testFailureIsPropagatedAndNotRemembered() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+
+        assertThrows(IllegalArgumentException.class, () -> flight.execute("key", () -> {
+            throw new IllegalArgumentException("bad parameters");
+        }));
+        IOException io = assertThrows(IOException.class, () -> flight.execute("key", () -> {
+            throw new IOException("disk");
+        }));
+        assertEquals("disk", io.getMessage());
+        IOException wrapped = assertThrows(IOException.class, () -> flight.execute("key", () -> {
+            throw new Exception("checked");
+        }));
+        assertEquals("checked", wrapped.getCause().getMessage());
+
+        assertEquals(7, flight.execute("key", () -> 7));
+        assertEquals(4, flight.getExecutions());
+        assertEquals(0, flight.getInFlight());
+    }
+}